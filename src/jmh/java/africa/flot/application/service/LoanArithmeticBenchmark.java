@@ -0,0 +1,59 @@
+package africa.flot.application.service;
+
+import africa.flot.bench.BenchmarkFixtures;
+import africa.flot.domain.model.FlotLoan;
+import africa.flot.domain.model.Lead;
+import africa.flot.domain.model.enums.ReminderLevel;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Calculs de retard exécutés à chaque paiement ({@code updateNextDueDate}, {@code updateUnpaidStatus})
+ * et texte des relances. Les deux mises à jour sont idempotentes pour un même prêt, ce qui permet
+ * de réutiliser la fixture d'une invocation à l'autre.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class LoanArithmeticBenchmark {
+
+    // Jours de retard sur la prochaine échéance : à jour, retard récent, impayé installé
+    @Param({"-3", "5", "37"})
+    int daysOverdue;
+
+    private final FlotLoanService loanService = new FlotLoanService();
+    private final UnpaidManagementService unpaidService = new UnpaidManagementService();
+
+    private FlotLoan loan;
+    private Lead lead;
+
+    @Setup
+    public void setup() {
+        loan = BenchmarkFixtures.loan(daysOverdue);
+        lead = BenchmarkFixtures.strongLead();
+    }
+
+    @Benchmark
+    public FlotLoan updateUnpaidStatus() {
+        loanService.updateUnpaidStatus(loan);
+        return loan;
+    }
+
+    @Benchmark
+    public FlotLoan updateNextDueDate() {
+        loanService.updateNextDueDate(loan);
+        return loan;
+    }
+
+    @Benchmark
+    public void reminderMessages(Blackhole bh) {
+        for (ReminderLevel level : ReminderLevel.values()) {
+            bh.consume(unpaidService.generateReminderMessage(loan, lead, level));
+        }
+    }
+}
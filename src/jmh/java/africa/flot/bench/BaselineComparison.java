@@ -0,0 +1,81 @@
+package africa.flot.bench;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Compare deux résultats JMH au format JSON (référence, puis dernier passage) : temps moyen et
+ * octets alloués par opération ({@code gc.alloc.rate.norm}) de chaque benchmark et jeu de paramètres.
+ */
+public final class BaselineComparison {
+
+    private static final String ALLOC_METRIC = "gc.alloc.rate.norm";
+
+    private BaselineComparison() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length != 2) {
+            System.err.println("Usage: BaselineComparison <baseline.json> <result.json>");
+            System.exit(2);
+        }
+        ObjectMapper mapper = new ObjectMapper();
+        Map<String, JsonNode> baseline = index(mapper.readTree(Files.readString(Path.of(args[0]))));
+        Map<String, JsonNode> current = index(mapper.readTree(Files.readString(Path.of(args[1]))));
+
+        System.out.printf("%-80s %14s %14s %9s %12s %12s %9s%n",
+                "Benchmark", "Référence", "Actuel", "Écart", "Alloc réf.", "Alloc act.", "Écart");
+        current.forEach((key, run) -> {
+            JsonNode base = baseline.get(key);
+            double score = run.path("primaryMetric").path("score").asDouble();
+            String unit = run.path("primaryMetric").path("scoreUnit").asText();
+            double alloc = allocation(run);
+            if (base == null) {
+                System.out.printf("%-80s %14s %14s %9s %12s %12.0f %9s%n",
+                        key, "-", format(score, unit), "nouveau", "-", alloc, "");
+                return;
+            }
+            double baseScore = base.path("primaryMetric").path("score").asDouble();
+            double baseAlloc = allocation(base);
+            System.out.printf("%-80s %14s %14s %9s %12.0f %12.0f %9s%n",
+                    key, format(baseScore, unit), format(score, unit), delta(baseScore, score),
+                    baseAlloc, alloc, delta(baseAlloc, alloc));
+        });
+        baseline.keySet().stream()
+                .filter(key -> !current.containsKey(key))
+                .forEach(key -> System.out.printf("%-80s absent du dernier passage%n", key));
+    }
+
+    private static Map<String, JsonNode> index(JsonNode results) {
+        Map<String, JsonNode> byKey = new LinkedHashMap<>();
+        for (JsonNode run : results) {
+            Map<String, String> params = new TreeMap<>();
+            run.path("params").fields().forEachRemaining(e -> params.put(e.getKey(), e.getValue().asText()));
+            String benchmark = run.path("benchmark").asText().replace("africa.flot.", "");
+            byKey.put(params.isEmpty() ? benchmark : benchmark + params, run);
+        }
+        return byKey;
+    }
+
+    private static double allocation(JsonNode run) {
+        return run.path("secondaryMetrics").path(ALLOC_METRIC).path("score").asDouble(Double.NaN);
+    }
+
+    private static String format(double score, String unit) {
+        return String.format("%.2f %s", score, unit);
+    }
+
+    private static String delta(double before, double after) {
+        if (Double.isNaN(before) || Double.isNaN(after) || before == 0) {
+            return "-";
+        }
+        return String.format("%+.1f%%", (after - before) / before * 100);
+    }
+}
@@ -0,0 +1,116 @@
+package africa.flot.bench;
+
+import africa.flot.domain.model.FlotLoan;
+import africa.flot.domain.model.Lead;
+import africa.flot.domain.model.enums.LoanStatus;
+import africa.flot.domain.model.enums.MaritalStatus;
+import africa.flot.domain.model.enums.UnpaidStatus;
+import africa.flot.domain.model.valueobject.Address;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Données représentatives des benchmarks : profils de leads et de prêts tels qu'on les trouve en
+ * production (montants en FCFA, prêt de 144 semaines).
+ */
+public final class BenchmarkFixtures {
+
+    private BenchmarkFixtures() {
+    }
+
+    /**
+     * Lead complet, bien noté : toutes les branches du barème sont évaluées.
+     */
+    public static Lead strongLead() {
+        Lead lead = baseLead();
+        lead.setMaritalStatus(MaritalStatus.MARIE);
+        lead.setChildrenCount(2);
+        lead.setEducationLevel("LICENCE");
+        lead.setSalary(new BigDecimal("450000"));
+        lead.setExpenses(new BigDecimal("180000"));
+        lead.setDebtAmount(new BigDecimal("50000"));
+        lead.setBirthDate(LocalDate.now().minusYears(36));
+        lead.setPermitAcquisitionDate(LocalDate.now().minusYears(9));
+        lead.setVtcStartDate(LocalDate.now().minusYears(3));
+        lead.setVtcRidesCount(1850);
+        lead.setVtcMonthlyIncome(new BigDecimal("320000"));
+        lead.setAverageVtcRating(4.93);
+        lead.setAccidentCount(0);
+        lead.setDrivingTestScore(17.5);
+        return lead;
+    }
+
+    /**
+     * Lead incomplet : nombreux champs absents, refus attendu.
+     */
+    public static Lead sparseLead() {
+        Lead lead = baseLead();
+        lead.setActive(false);
+        lead.getAddress().setZoneResidence("Yopougon");
+        lead.setMaritalStatus(MaritalStatus.CELIBATAIRE);
+        lead.setSalary(new BigDecimal("120000"));
+        lead.setVtcRidesCount(140);
+        lead.setAverageVtcRating(4.71);
+        lead.setAccidentCount(1);
+        return lead;
+    }
+
+    private static Lead baseLead() {
+        Lead lead = new Lead();
+        lead.setId(UUID.fromString("4f2e8c1a-7b3d-4e59-9a61-0c2d5e8f1b37"));
+        lead.setFirstName("N'GORAN ELOGE");
+        lead.setLastName("YAO");
+        lead.setActive(true);
+        Address address = new Address();
+        address.setZoneResidence("Cocody Riviera 3");
+        address.setVilleNaissance("Toumodi");
+        address.setPaysNaissance("CIV");
+        lead.setAddress(address);
+        return lead;
+    }
+
+    /**
+     * Prêt actif dont la prochaine échéance est décalée de {@code daysOverdue} jours
+     * (négatif = échéance à venir).
+     */
+    public static FlotLoan loan(int daysOverdue) {
+        LocalDate today = LocalDate.now();
+        FlotLoan loan = new FlotLoan();
+        loan.setId(UUID.fromString("9b1c7e42-3a5d-4f08-8e26-71d4c0a9e5b3"));
+        loan.setLeadId(UUID.fromString("4f2e8c1a-7b3d-4e59-9a61-0c2d5e8f1b37"));
+        loan.setVehicleId(UUID.fromString("d3a8f615-2c4e-4b97-a0d1-5e6f7a8b9c0d"));
+        loan.setPrincipal(new BigDecimal("10800000.00"));
+        loan.setWeeklyAmount(new BigDecimal("75000.00"));
+        loan.setStartDate(today.minusWeeks(30));
+        loan.setEndDate(today.minusWeeks(30).plusMonths(36));
+        loan.setStatus(LoanStatus.ACTIVE);
+        loan.setTotalPaid(new BigDecimal("2175000.00"));
+        loan.setOutstanding(new BigDecimal("8625000.00"));
+        loan.setLastPaymentDate(today.minusDays(Math.max(daysOverdue, 0) + 3L));
+        loan.setNextDueDate(today.minusDays(daysOverdue));
+        loan.setUnpaidStatus(daysOverdue > 0 ? UnpaidStatus.EN_RETARD : UnpaidStatus.ON_TIME);
+        loan.setDaysOverdue(Math.max(daysOverdue, 0));
+        loan.setWeeksOverdue(Math.max(daysOverdue, 0) / 7);
+        loan.setOverdueAmount(new BigDecimal("75000.00").multiply(BigDecimal.valueOf(Math.max(daysOverdue, 0) / 7 + 1)));
+        loan.setCreatedAt(LocalDateTime.now().minusWeeks(30));
+        return loan;
+    }
+
+    public static String resource(String path) {
+        try (InputStream in = BenchmarkFixtures.class.getClassLoader().getResourceAsStream(path)) {
+            if (in == null) {
+                throw new IllegalStateException("Fixture introuvable: " + path);
+            }
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package africa.flot.domain.model;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Score total d'une évaluation de conduite, recalculé à chaque persistance.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class EvaluationConduiteBenchmark {
+
+    private EvaluationConduite evaluation;
+
+    @Setup
+    public void setup() {
+        BigDecimal half = new BigDecimal("0.5");
+        BigDecimal one = new BigDecimal("1.0");
+        evaluation = new EvaluationConduite();
+
+        // Évaluation typique : quelques critères partiels, un critère non renseigné
+        evaluation.reglagePosteConducte = half;
+        evaluation.ceintureSecurite = half;
+        evaluation.voyantsTableauBord = half;
+        evaluation.demarrageDouceur = half;
+        evaluation.freinStationnement = half;
+        evaluation.utilisationClignotants = BigDecimal.ZERO;
+        evaluation.commandes = half;
+        evaluation.gestionDosAnes = half;
+        evaluation.prioritesRondPoints = half;
+        evaluation.tenueRoute = half;
+        evaluation.retroviseurs = half;
+        evaluation.anticipationPietonsObstacles = half;
+        evaluation.viragesCourbes = half;
+        evaluation.passagePietons = half;
+        evaluation.calmeSerenite = half;
+        evaluation.accueilClient = half;
+        evaluation.ambianceCabine = BigDecimal.ZERO;
+        evaluation.respect2Roues = half;
+        evaluation.orientationGps = null;
+        evaluation.reactionSituationsTendues = half;
+
+        evaluation.positionMains = one;
+        evaluation.lecturePanneaux = one;
+        evaluation.respectLimitationsVitesse = new BigDecimal("0.5");
+        evaluation.stopsFeux = one;
+        evaluation.anglesMorts = one;
+        evaluation.distancesSecurite = one;
+        evaluation.freinageProgressif = one;
+        evaluation.gestionImprevus = new BigDecimal("0.5");
+        evaluation.confortGlobalConduite = one;
+        evaluation.observationGeneraleFinale = one;
+    }
+
+    @Benchmark
+    public BigDecimal scoreTotal() {
+        return evaluation.calculerScoreTotal();
+    }
+}
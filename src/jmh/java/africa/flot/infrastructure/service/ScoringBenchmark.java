@@ -0,0 +1,46 @@
+package africa.flot.infrastructure.service;
+
+import africa.flot.bench.BenchmarkFixtures;
+import africa.flot.domain.model.Lead;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Calcul du score V2 détaillé ({@code calculateDetailedScoreV2} sans sa journalisation).
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ScoringBenchmark {
+
+    @Param({"strong", "sparse"})
+    String profile;
+
+    private final ScoringServiceV2Impl scoringService = new ScoringServiceV2Impl();
+    private Lead lead;
+
+    @Setup
+    public void setup() {
+        lead = "strong".equals(profile) ? BenchmarkFixtures.strongLead() : BenchmarkFixtures.sparseLead();
+    }
+
+    @Benchmark
+    public void detailedScore(Blackhole bh) {
+        bh.consume(scoringService.breakdown(lead).toDetailedScore());
+    }
+
+    @Benchmark
+    public double infoPoints() {
+        return ScoringServiceV2Impl.infoPoints(lead);
+    }
+
+    @Benchmark
+    public double vtcPoints() {
+        return ScoringServiceV2Impl.vtcPoints(lead);
+    }
+}
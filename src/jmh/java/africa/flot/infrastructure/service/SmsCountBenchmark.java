@@ -0,0 +1,33 @@
+package africa.flot.infrastructure.service;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Nombre de SMS d'un message, calculé pour chaque envoi et chaque message mis en file.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class SmsCountBenchmark {
+
+    // Longueurs courantes : code OTP, relance simple, relance finale
+    @Param({"42", "180", "310"})
+    int length;
+
+    private String message;
+
+    @Setup
+    public void setup() {
+        message = "Bonjour, votre paiement FLOT est attendu. ".repeat(length / 42 + 1).substring(0, length);
+    }
+
+    @Benchmark
+    public int smsCount() {
+        return JetfySmsService.calculateSmsCount(message);
+    }
+}
@@ -0,0 +1,39 @@
+package africa.flot.infrastructure.service.dayana;
+
+import africa.flot.application.dto.query.DanayaVerificationResult;
+import africa.flot.bench.BenchmarkFixtures;
+import io.vertx.core.buffer.Buffer;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Lecture d'une réponse de vérification Danaya (CNI avec URLs signées, OCR et deux DB_CHECK).
+ * {@code decodeAndParse} correspond au suivi des vérifications, qui ne lit que le statut et les scores ;
+ * {@code decodeAndExpandCivilStatus} force en plus le décodage différé du rawData.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class DanayaResponseParserBenchmark {
+
+    private Buffer body;
+
+    @Setup
+    public void setup() {
+        body = Buffer.buffer(BenchmarkFixtures.resource("fixtures/danaya-verification.json"));
+    }
+
+    @Benchmark
+    public DanayaVerificationResult decodeAndParse() {
+        return DanayaResponseParser.parse(body);
+    }
+
+    @Benchmark
+    public DanayaVerificationResult.FamilyInfo decodeAndExpandCivilStatus() {
+        return DanayaResponseParser.parse(body).getPersonalInfo().getFamilyInfo();
+    }
+}
@@ -0,0 +1,18 @@
+package africa.flot.application.dto.command;
+
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Onboarding Fineract d'une cohorte de leads. Renvoyer le même {@code batchId}
+ * reprend le lot là où il s'est arrêté.
+ */
+@Getter
+@Setter
+public class BatchOnboardingCommande {
+    private UUID batchId;
+    private List<InitLoanCommande> items;
+}
@@ -0,0 +1,18 @@
+package africa.flot.application.dto.command;
+
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Scoring d'une cohorte de leads : la liste fournie, ou à défaut tous les prospects qualifiés
+ * non encore scorés (dans la limite de {@code limit}).
+ */
+@Getter
+@Setter
+public class CohortScoringCommande {
+    private List<UUID> leadIds;
+    private Integer limit;
+}
@@ -0,0 +1,18 @@
+package africa.flot.application.dto.command;
+
+import africa.flot.domain.model.valueobject.ScoringPolicy;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.List;
+
+/**
+ * Politiques de scoring à comparer à la politique en vigueur. {@code refresh} force le
+ * rechargement des données des leads au lieu de réutiliser le dernier chargement.
+ */
+@Getter
+@Setter
+public class ScoringSimulationCommande {
+    private List<ScoringPolicy> candidates;
+    private boolean refresh;
+}
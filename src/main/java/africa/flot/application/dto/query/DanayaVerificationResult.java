@@ -1,9 +1,14 @@
 package africa.flot.application.dto.query;
 
 import io.quarkus.runtime.annotations.RegisterForReflection;
+import lombok.AccessLevel;
 import lombok.Data;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.ToString;
 
 import java.util.UUID;
+import java.util.function.Consumer;
 
 @RegisterForReflection
 @Data
@@ -32,6 +37,34 @@ public class DanayaVerificationResult {
         private Identity identity;
         private Residence residence;
         private FamilyInfo familyInfo;
+
+        // Décodage différé du rawData DB_CHECK (résidence, filiation), exécuté au premier accès
+        @Getter(AccessLevel.NONE)
+        @Setter(AccessLevel.NONE)
+        @ToString.Exclude
+        private transient Consumer<PersonalInfo> deferredCivilStatus;
+
+        public void deferCivilStatus(Consumer<PersonalInfo> decoder) {
+            this.deferredCivilStatus = decoder;
+        }
+
+        public Residence getResidence() {
+            expandCivilStatus();
+            return residence;
+        }
+
+        public FamilyInfo getFamilyInfo() {
+            expandCivilStatus();
+            return familyInfo;
+        }
+
+        private void expandCivilStatus() {
+            Consumer<PersonalInfo> decoder = deferredCivilStatus;
+            if (decoder != null) {
+                deferredCivilStatus = null;
+                decoder.accept(this);
+            }
+        }
     }
 
     @Data
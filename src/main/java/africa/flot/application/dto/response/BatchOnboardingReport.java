@@ -0,0 +1,54 @@
+package africa.flot.application.dto.response;
+
+import africa.flot.domain.model.OnboardingBatchItem;
+import africa.flot.domain.model.enums.OnboardingStep;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Résultat d'un lot d'onboarding : une ligne par lead, avec l'étape atteinte.
+ */
+@Getter
+@Setter
+public class BatchOnboardingReport {
+    private UUID batchId;
+    private int total;
+    private int completed;
+    private int failed;
+    private long durationMs;
+    private List<ItemResult> items;
+
+    public static BatchOnboardingReport of(UUID batchId, List<ItemResult> items, long durationMs) {
+        BatchOnboardingReport report = new BatchOnboardingReport();
+        report.setBatchId(batchId);
+        report.setItems(items);
+        report.setTotal(items.size());
+        report.setCompleted((int) items.stream().filter(i -> i.getStep() == OnboardingStep.COMPLETED).count());
+        report.setFailed(report.getTotal() - report.getCompleted());
+        report.setDurationMs(durationMs);
+        return report;
+    }
+
+    @Getter
+    @Setter
+    public static class ItemResult {
+        private UUID leadId;
+        private OnboardingStep step;
+        private Integer fineractClientId;
+        private Integer attempts;
+        private String error;
+
+        public static ItemResult of(OnboardingBatchItem item) {
+            ItemResult result = new ItemResult();
+            result.setLeadId(item.getLeadId());
+            result.setStep(item.getStep());
+            result.setFineractClientId(item.getFineractClientId());
+            result.setAttempts(item.getAttempts());
+            result.setError(item.getLastError());
+            return result;
+        }
+    }
+}
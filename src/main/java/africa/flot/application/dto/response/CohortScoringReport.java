@@ -0,0 +1,63 @@
+package africa.flot.application.dto.response;
+
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Résultat d'un scoring par cohorte : une décision par lead.
+ */
+@Getter
+@Setter
+public class CohortScoringReport {
+    private int total;
+    private int approved;
+    private int rejected;
+    private int skipped;
+    private long durationMs;
+    private List<ItemResult> items;
+
+    public enum Decision {
+        APPROVED,
+        REJECTED,
+        ALREADY_SCORED,
+        NOT_FOUND,
+        NOT_QUALIFIED,
+        NOT_SCORABLE,
+        DOCUMENTS_INVALID,
+        ERROR
+    }
+
+    public static CohortScoringReport of(List<ItemResult> items, long durationMs) {
+        CohortScoringReport report = new CohortScoringReport();
+        report.setItems(items);
+        report.setTotal(items.size());
+        report.setApproved((int) items.stream().filter(i -> i.getDecision() == Decision.APPROVED).count());
+        report.setRejected((int) items.stream().filter(i -> i.getDecision() == Decision.REJECTED).count());
+        report.setSkipped(report.getTotal() - report.getApproved() - report.getRejected());
+        report.setDurationMs(durationMs);
+        return report;
+    }
+
+    @Getter
+    @Setter
+    public static class ItemResult {
+        private UUID leadId;
+        private Decision decision;
+        // Scores bruts : informations /40, activité VTC /40, test /20, total /100
+        private Double infoScore;
+        private Double vtcScore;
+        private Double testScore;
+        private Double totalScore;
+        private String error;
+
+        public static ItemResult of(UUID leadId, Decision decision) {
+            ItemResult result = new ItemResult();
+            result.setLeadId(leadId);
+            result.setDecision(decision);
+            return result;
+        }
+    }
+}
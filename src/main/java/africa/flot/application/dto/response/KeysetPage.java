@@ -0,0 +1,36 @@
+package africa.flot.application.dto.response;
+
+import africa.flot.infrastructure.util.KeysetCursor;
+import lombok.Getter;
+
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Page d'une liste paginée par curseur. {@code nextCursor} est absent sur la dernière page.
+ */
+@Getter
+public class KeysetPage<T> {
+
+    private final List<T> items;
+    private final int size;
+    private final String nextCursor;
+
+    private KeysetPage(List<T> items, String nextCursor) {
+        this.items = items;
+        this.size = items.size();
+        this.nextCursor = nextCursor;
+    }
+
+    /**
+     * Construit une page à partir de {@code size + 1} lignes au plus : la ligne en trop indique
+     * qu'une page suivante existe, sans requête de comptage.
+     */
+    public static <T> KeysetPage<T> of(List<T> fetched, int size, Function<T, KeysetCursor> cursorOf) {
+        if (fetched.size() <= size) {
+            return new KeysetPage<>(fetched, null);
+        }
+        List<T> items = fetched.subList(0, size);
+        return new KeysetPage<>(items, cursorOf.apply(items.get(size - 1)).encode());
+    }
+}
@@ -0,0 +1,28 @@
+package africa.flot.application.dto.response;
+
+import africa.flot.domain.model.enums.UnpaidStatus;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.time.LocalDate;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Résultat d'un passage du moteur de recalcul des impayés :
+ * nombre de prêts mis à jour par statut d'impayé.
+ */
+@Getter
+@Setter
+public class OverdueProcessingReport {
+    private LocalDate referenceDate;
+    private long updatedLoans;
+    private int chunks;
+    private long durationMs;
+    private Map<UnpaidStatus, Long> updatedByStatus = new EnumMap<>(UnpaidStatus.class);
+
+    public void add(UnpaidStatus status, long count) {
+        updatedByStatus.merge(status, count, Long::sum);
+        updatedLoans += count;
+    }
+}
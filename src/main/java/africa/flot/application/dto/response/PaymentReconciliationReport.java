@@ -0,0 +1,24 @@
+package africa.flot.application.dto.response;
+
+import lombok.Getter;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Compteurs d'une exécution de la réconciliation des intents de paiement HUB2.
+ */
+@Getter
+public class PaymentReconciliationReport {
+    private final AtomicLong checked = new AtomicLong();
+    private final AtomicLong changed = new AtomicLong();
+    private final AtomicLong succeeded = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final AtomicLong errors = new AtomicLong();
+    private final AtomicLong uncommitted = new AtomicLong();
+
+    @Override
+    public String toString() {
+        return String.format("vérifiés=%d, modifiés=%d, réussis=%d, échoués=%d, erreurs=%d, non enregistrés=%d",
+                checked.get(), changed.get(), succeeded.get(), failed.get(), errors.get(), uncommitted.get());
+    }
+}
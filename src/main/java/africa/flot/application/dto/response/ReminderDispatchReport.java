@@ -0,0 +1,22 @@
+package africa.flot.application.dto.response;
+
+import lombok.Getter;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Compteurs d'une exécution du pipeline d'envoi des relances automatiques.
+ */
+@Getter
+public class ReminderDispatchReport {
+    private final AtomicLong sent = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final AtomicLong skipped = new AtomicLong();
+    private final AtomicLong uncommitted = new AtomicLong();
+
+    @Override
+    public String toString() {
+        return String.format("envoyées=%d, échouées=%d, ignorées=%d, non enregistrées=%d",
+                sent.get(), failed.get(), skipped.get(), uncommitted.get());
+    }
+}
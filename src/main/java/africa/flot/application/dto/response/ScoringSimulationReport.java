@@ -0,0 +1,43 @@
+package africa.flot.application.dto.response;
+
+import africa.flot.domain.model.valueobject.ScoringPolicy;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Résultat d'une simulation de politiques de scoring sur l'ensemble des leads.
+ *
+ * La matrice de confusion ne porte que sur les leads ayant eu un prêt (remboursement connu) :
+ * ce sont pour la plupart des leads acceptés par le passé, ce qui biaise les taux de défaut.
+ */
+@Getter
+@Setter
+public class ScoringSimulationReport {
+    private int leads;
+    private int leadsWithOutcome;
+    private int skippedLeads;
+    private LocalDateTime dataLoadedAt;
+    private long durationMs;
+    private PolicyResult baseline;
+    private List<PolicyResult> candidates;
+
+    @Getter
+    @Setter
+    public static class PolicyResult {
+        private ScoringPolicy policy;
+        private long approved;
+        private double approvalRate;
+        // Écart de taux d'acceptation avec la politique en vigueur, en points
+        private double approvalRateDelta;
+        private long newlyApproved;
+        private long newlyRejected;
+        private long approvedPerforming;
+        private long approvedDefaulted;
+        private long rejectedPerforming;
+        private long rejectedDefaulted;
+        private Double defaultRateAmongApproved;
+    }
+}
@@ -0,0 +1,48 @@
+package africa.flot.application.dto.response;
+
+import africa.flot.application.dto.query.DanayaVerificationResult;
+import africa.flot.domain.model.DanayaVerificationJob;
+import africa.flot.domain.model.enums.VerificationJobStatus;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Suivi d'une vérification Danaya : identifiant du job à interroger
+ * et résultat une fois la vérification terminée.
+ */
+@Getter
+@Setter
+public class VerificationJobResponse {
+    private UUID jobId;
+    private UUID leadId;
+    private UUID verificationId;
+    private VerificationJobStatus status;
+    private Integer attempts;
+    private LocalDateTime nextPollAt;
+    private String lastError;
+    private DanayaVerificationResult result;
+
+    public static VerificationJobResponse of(DanayaVerificationJob job) {
+        VerificationJobResponse response = new VerificationJobResponse();
+        response.setJobId(job.getId());
+        response.setLeadId(job.getLeadId());
+        response.setVerificationId(job.getVerificationId());
+        response.setStatus(job.getStatus());
+        response.setAttempts(job.getAttempts());
+        response.setNextPollAt(job.getNextPollAt());
+        response.setLastError(job.getLastError());
+        return response;
+    }
+
+    public static VerificationJobResponse completed(UUID leadId, DanayaVerificationResult result) {
+        VerificationJobResponse response = new VerificationJobResponse();
+        response.setLeadId(leadId);
+        response.setVerificationId(result.getId());
+        response.setStatus(VerificationJobStatus.COMPLETED);
+        response.setResult(result);
+        return response;
+    }
+}
@@ -1,6 +1,8 @@
 package africa.flot.application.job;
 
 import africa.flot.application.service.FlotLoanService;
+import africa.flot.application.service.Hub2PaymentReconciler;
+import africa.flot.application.service.ReminderDispatchPipeline;
 import africa.flot.application.service.UnpaidManagementService;
 import africa.flot.domain.model.FlotLoan;
 import africa.flot.domain.model.LoanReminder;
@@ -28,39 +30,58 @@ public class LoanMaintenanceJobs {
     @Inject
     UnpaidManagementService unpaidManagementService;
 
+    @Inject
+    ReminderDispatchPipeline reminderDispatchPipeline;
+
+    @Inject
+    Hub2PaymentReconciler hub2PaymentReconciler;
+
     // Tous les jours à 8h - Mise à jour des prêts en retard
     @Scheduled(cron = "0 0 8 * * ?", identity = "update-overdue-loans")
-    @WithTransaction
     public Uni<Void> updateOverdueLoans(ScheduledExecution execution) {
         LOG.info("Démarrage du job de mise à jour des prêts en retard");
 
         return flotLoanService.processOverdueLoans()
-                .onItem().invoke(() ->
-                        LOG.info("Job de mise à jour des prêts en retard terminé avec succès"))
+                .onItem().invoke(report ->
+                        LOG.infof("Job de mise à jour des prêts en retard terminé avec succès: %d prêts, %s",
+                                report.getUpdatedLoans(), report.getUpdatedByStatus()))
                 .onFailure().invoke(throwable ->
-                        LOG.errorf(throwable, "Erreur dans le job de mise à jour des prêts en retard"));
+                        LOG.errorf(throwable, "Erreur dans le job de mise à jour des prêts en retard"))
+                .replaceWithVoid();
     }
 
     // Tous les jours à 9h - Envoi des relances automatiques
     @Scheduled(cron = "0 0 9 * * ?", identity = "send-automatic-reminders")
-    @WithTransaction
     public Uni<Void> sendAutomaticReminders(ScheduledExecution execution) {
         LOG.info("Démarrage du job d'envoi des relances automatiques");
 
-        return unpaidManagementService.sendAutomaticReminders()
-                .onItem().invoke(() ->
-                        LOG.info("Job d'envoi des relances automatiques terminé avec succès"))
+        return reminderDispatchPipeline.run()
+                .onItem().invoke(report ->
+                        LOG.infof("Job d'envoi des relances automatiques terminé avec succès: %s", report))
+                .onFailure().invoke(throwable ->
+                        LOG.errorf(throwable, "Erreur dans le job d'envoi des relances automatiques"))
+                .replaceWithVoid();
+    }
+
+    // Toutes les 5 minutes par défaut - Réconciliation des paiements HUB2 restés ouverts
+    @Scheduled(every = "${hub2.reconciler.every:5m}", identity = "reconcile-hub2-payments",
+            concurrentExecution = Scheduled.ConcurrentExecution.SKIP)
+    public Uni<Void> reconcileHub2Payments(ScheduledExecution execution) {
+        LOG.debug("Démarrage du job de réconciliation des paiements HUB2");
+
+        return hub2PaymentReconciler.run()
                 .onFailure().invoke(throwable ->
-                        LOG.errorf(throwable, "Erreur dans le job d'envoi des relances automatiques"));
+                        LOG.errorf(throwable, "Erreur dans le job de réconciliation des paiements HUB2"))
+                .onFailure().recoverWithNull()
+                .replaceWithVoid();
     }
 
     // Tous les lundis à 10h - Calcul des KPIs hebdomadaires
     @Scheduled(cron = "0 0 10 ? * MON", identity = "generate-weekly-reports")
-    @WithTransaction
     public Uni<Void> generateWeeklyReports(ScheduledExecution execution) {
         LOG.info("Démarrage du job de génération des rapports hebdomadaires");
 
-        return unpaidManagementService.calculateUnpaidKPIs()
+        return unpaidManagementService.refreshUnpaidKPIs()
                 .map(kpis -> {
                     LOG.infof("KPIs hebdomadaires calculés:");
                     LOG.infof("- Montant total impayé: %.2f€", kpis.getTotalUnpaidAmount());
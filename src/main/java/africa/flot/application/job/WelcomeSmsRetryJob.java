@@ -1,21 +1,27 @@
 package africa.flot.application.job;
 
+import africa.flot.application.service.SmsOutbox;
 import africa.flot.domain.model.Account;
-import africa.flot.infrastructure.service.JetfySmsService;
+import africa.flot.domain.model.enums.SmsCategory;
+import africa.flot.infrastructure.security.CredentialHasher;
+import africa.flot.infrastructure.security.CredentialHasher.Caller;
 import africa.flot.infrastructure.util.PasswordGenerator;
-import io.quarkus.elytron.security.common.BcryptUtil;
 import io.quarkus.hibernate.reactive.panache.common.WithTransaction;
 import io.quarkus.scheduler.Scheduled;
+import io.smallrye.mutiny.Multi;
 import io.smallrye.mutiny.Uni;
 import jakarta.enterprise.context.ApplicationScoped;
 import jakarta.inject.Inject;
-import jakarta.ws.rs.core.Response;
 import org.jboss.logging.Logger;
 
 import java.time.Duration;
-import java.util.ArrayList;
 import java.util.List;
 
+/**
+ * Reprise des comptes marqués {@code pendingWelcomeSms} avant la mise en place de la file
+ * d'envoi des SMS : un nouveau mot de passe est généré et le SMS de bienvenue est mis en file,
+ * dans la même transaction. Les nouveaux comptes passent directement par la file.
+ */
 @ApplicationScoped
 public class WelcomeSmsRetryJob {
     private static final Logger LOG = Logger.getLogger(WelcomeSmsRetryJob.class);
@@ -24,7 +30,10 @@ public class WelcomeSmsRetryJob {
     private static final Duration TIMEOUT = Duration.ofSeconds(30);
 
     @Inject
-    JetfySmsService smsService;
+    SmsOutbox smsOutbox;
+
+    @Inject
+    CredentialHasher credentialHasher;
 
     @Scheduled(every = "20m")
     @WithTransaction
@@ -39,20 +48,18 @@ public class WelcomeSmsRetryJob {
     private Uni<List<Account>> findPendingAccounts() {
         return Account.<Account>find("pendingWelcomeSms = ?1", true)
                 .list()
-                .invoke(accounts -> LOG.infof("Trouvé %d comptes en attente de SMS de bienvenue", accounts.size()));
+                .invoke(accounts -> {
+                    if (!accounts.isEmpty()) {
+                        LOG.infof("Trouvé %d comptes en attente de SMS de bienvenue", accounts.size());
+                    }
+                });
     }
 
+    // Les comptes partagent la session du job : ils sont traités l'un après l'autre
     private Uni<List<Account>> processPendingAccounts(List<Account> accounts) {
-        if (accounts.isEmpty()) {
-            return Uni.createFrom().item(List.of());
-        }
-
-        List<Uni<Account>> tasks = new ArrayList<>();
-        for (Account account : accounts) {
-            tasks.add(processAccount(account));
-        }
-
-        return Uni.join().all(tasks).andCollectFailures();
+        return Multi.createFrom().iterable(accounts)
+                .onItem().transformToUniAndConcatenate(this::processAccount)
+                .collect().asList();
     }
 
     private Uni<Account> processAccount(Account account) {
@@ -63,9 +70,17 @@ public class WelcomeSmsRetryJob {
         String newPassword = PasswordGenerator.generate();
         String message = String.format(SMS_TEMPLATE, account.getUsername(), newPassword);
 
-        return smsService.sendSMS("225"+account.getUsername(), message, account)
-                .onItem().transformToUni(response -> handleSmsResponse(account, response, newPassword))
-                .onFailure().invoke(e -> LOG.errorf(e, "Erreur lors de l'envoi du SMS pour %s", account.getUsername()));
+        return credentialHasher.hash(Caller.PROVISIONING, newPassword)
+                .flatMap(passwordHash -> {
+                    account.setPendingWelcomeSms(false);
+                    // temporaryPassword n'est pas modifié : il signale le changement de mot de passe obligatoire
+                    account.setPasswordHash(passwordHash);
+                    account.setSmsRetryCount(0);
+                    return smsOutbox.enqueue(SmsCategory.WELCOME, "225" + account.getUsername(), message, account.getId())
+                            .chain(() -> account.<Account>persistAndFlush());
+                })
+                .invoke(() -> LOG.infof("SMS de bienvenue mis en file pour %s", account.getUsername()))
+                .onFailure().invoke(e -> LOG.errorf(e, "Erreur lors de la mise en file du SMS pour %s", account.getUsername()));
     }
 
     private Uni<Account> handleMaxRetryReached(Account account) {
@@ -78,30 +93,4 @@ public class WelcomeSmsRetryJob {
         return account.<Account>persistAndFlush()
                 .invoke(() -> LOG.infof("Compte %s désactivé avec succès", account.getUsername()));
     }
-
-    private Uni<Account> handleSmsResponse(Account account, Response response, String newPassword) {
-        if (response.getStatus() == Response.Status.OK.getStatusCode()) {
-            return handleSuccessfulSms(account, newPassword);
-        } else {
-            return handleFailedSms(account, response.getStatus());
-        }
-    }
-
-    private Uni<Account> handleSuccessfulSms(Account account, String newPassword) {
-        account.setPendingWelcomeSms(false);
-        account.setPasswordHash(BcryptUtil.bcryptHash(newPassword));
-        account.setSmsRetryCount(0);
-
-        LOG.infof("SMS de bienvenue envoyé avec succès pour %s après %d tentatives",
-                account.getUsername(), account.getSmsRetryCount() + 1);
-        return account.persistAndFlush();
-    }
-
-    private Uni<Account> handleFailedSms(Account account, int statusCode) {
-        account.setSmsRetryCount(account.getSmsRetryCount() + 1);
-
-        LOG.warnf("Échec de l'envoi du SMS de bienvenue pour %s (tentative %d/%d, status: %d)",
-                account.getUsername(), account.getSmsRetryCount(), MAX_RETRY_ATTEMPTS, statusCode);
-        return account.persistAndFlush();
-    }
-}
\ No newline at end of file
+}
@@ -0,0 +1,30 @@
+package africa.flot.application.ports;
+
+import africa.flot.domain.event.DomainEvent;
+import io.smallrye.mutiny.Uni;
+
+/**
+ * Traitement asynchrone d'un type d'événement de domaine, appelé par le relais de l'outbox
+ * sur un contexte Vert.x propre à l'événement. Le handler ouvre sa transaction
+ * ({@code Panache.withTransaction}) et décide des erreurs qu'il absorbe.
+ *
+ * Un événement peut être relayé plusieurs fois (échec d'un autre handler, réservation expirée) :
+ * le traitement doit être idempotent. Un échec est réessayé, sauf s'il s'agit d'un
+ * {@link RejectedEventException} : l'événement passe alors directement à {@code DEAD}.
+ */
+public interface DomainEventHandler<E extends DomainEvent> {
+
+    Class<E> eventType();
+
+    Uni<Void> handle(E event);
+
+    /**
+     * Refus définitif d'un événement (règle métier non satisfaite) : un nouvel essai échouerait
+     * de la même façon et bloquerait les événements suivants du même agrégat.
+     */
+    class RejectedEventException extends RuntimeException {
+        public RejectedEventException(String message, Throwable cause) {
+            super(message, cause);
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package africa.flot.application.service;
+
+import africa.flot.domain.event.DomainEvent;
+import africa.flot.domain.model.DomainOutboxEvent;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.smallrye.mutiny.Uni;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+
+/**
+ * Outbox transactionnelle des événements de domaine.
+ *
+ * L'événement est enregistré dans la transaction de l'appelant : il n'existe que si le
+ * changement d'état qui l'a produit est validé, et ses effets (appels aux fournisseurs,
+ * mises à jour dérivées) sont exécutés après la validation par {@link DomainEventRelay}.
+ */
+@ApplicationScoped
+public class DomainEventOutbox {
+
+    @Inject
+    ObjectMapper objectMapper;
+
+    @Inject
+    MeterRegistry registry;
+
+    /**
+     * Enregistre un événement. Doit être appelé dans une transaction.
+     */
+    public Uni<Void> append(DomainEvent event) {
+        DomainOutboxEvent entry = new DomainOutboxEvent();
+        entry.setId(event.getEventId());
+        entry.setAggregateId(event.getAggregateId());
+        entry.setEventType(event.getClass().getSimpleName());
+        entry.setOccurredAt(LocalDateTime.ofInstant(event.getOccurredOn(), ZoneId.systemDefault()));
+        try {
+            entry.setPayload(objectMapper.writeValueAsString(event));
+        } catch (JsonProcessingException e) {
+            return Uni.createFrom().failure(new IllegalStateException(
+                    "Événement " + entry.getEventType() + " non sérialisable", e));
+        }
+        return entry.persist()
+                .invoke(() -> registry.counter("flot.domain.outbox", "event", entry.getEventType(),
+                        "outcome", "appended").increment())
+                .replaceWithVoid();
+    }
+}
@@ -0,0 +1,279 @@
+package africa.flot.application.service;
+
+import africa.flot.application.ports.DomainEventHandler;
+import africa.flot.domain.event.DomainEvent;
+import africa.flot.domain.model.enums.OutboxEventStatus;
+import africa.flot.infrastructure.util.Backoff;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.quarkus.scheduler.Scheduled;
+import io.smallrye.common.vertx.VertxContext;
+import io.smallrye.mutiny.Multi;
+import io.smallrye.mutiny.Uni;
+import io.vertx.core.Context;
+import io.vertx.mutiny.pgclient.PgPool;
+import io.vertx.mutiny.sqlclient.Row;
+import io.vertx.mutiny.sqlclient.Tuple;
+import jakarta.annotation.PostConstruct;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.inject.Any;
+import jakarta.enterprise.inject.Instance;
+import jakarta.inject.Inject;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+/**
+ * Relais de l'outbox {@code domain_outbox} vers les {@link DomainEventHandler}.
+ *
+ * Un job planifié réserve un lot d'événements dus ({@code FOR UPDATE SKIP LOCKED}, avec une
+ * réservation limitée dans le temps) et les relaie avec une concurrence bornée. Seul l'événement
+ * le plus ancien non terminé de chaque agrégat est éligible : les événements d'un même agrégat
+ * sont traités dans l'ordre d'écriture, y compris à travers les réessais. Les échecs sont
+ * réessayés avec un backoff exponentiel, puis l'événement passe à {@code DEAD} ; un refus
+ * définitif du handler ({@link DomainEventHandler.RejectedEventException}) y passe sans réessai.
+ * La jauge {@code flot.domain.outbox.dead} compte les événements abandonnés, à reprendre
+ * manuellement.
+ */
+@ApplicationScoped
+public class DomainEventRelay {
+
+    private static final Logger LOG = Logger.getLogger(DomainEventRelay.class);
+
+    // $1 = maintenant, $2 = fin de réservation, $3 = taille du lot
+    private static final String CLAIM_DUE_SQL =
+            "UPDATE domain_outbox o SET status = 'PROCESSING', next_attempt_at = $2, updated_at = LOCALTIMESTAMP " +
+            "FROM (SELECT e.id FROM domain_outbox e " +
+            "WHERE e.status IN ('PENDING', 'PROCESSING') AND e.next_attempt_at <= $1 " +
+            "AND NOT EXISTS (SELECT 1 FROM domain_outbox p WHERE p.aggregate_id = e.aggregate_id " +
+            "AND p.status IN ('PENDING', 'PROCESSING') AND p.seq < e.seq) " +
+            "ORDER BY e.seq LIMIT $3 FOR UPDATE SKIP LOCKED) due " +
+            "WHERE o.id = due.id " +
+            "RETURNING o.id, o.event_type, o.payload, o.attempts";
+
+    private static final String UPDATE_EVENT_SQL =
+            "UPDATE domain_outbox SET status = $2, attempts = $3, next_attempt_at = $4, last_error = $5, " +
+            "processed_at = $6, updated_at = LOCALTIMESTAMP WHERE id = $1";
+
+    // $1 = limite pour les événements traités, $2 = limite pour les abandonnés, $3 = taille du lot
+    private static final String PURGE_SQL =
+            "DELETE FROM domain_outbox WHERE id IN (SELECT id FROM domain_outbox " +
+            "WHERE (status = 'PROCESSED' AND updated_at < $1) OR (status = 'DEAD' AND updated_at < $2) LIMIT $3)";
+
+    private static final String COUNT_DEAD_SQL =
+            "SELECT count(*) AS dead FROM domain_outbox WHERE status = 'DEAD'";
+
+    @Inject
+    PgPool client;
+
+    @Inject
+    ObjectMapper objectMapper;
+
+    @Inject
+    @Any
+    Instance<DomainEventHandler<?>> handlerBeans;
+
+    @Inject
+    io.vertx.mutiny.core.Vertx vertx;
+
+    @Inject
+    MeterRegistry registry;
+
+    @ConfigProperty(name = "domain.outbox.batch-size", defaultValue = "100")
+    int batchSize;
+
+    @ConfigProperty(name = "domain.outbox.concurrency", defaultValue = "8")
+    int concurrency;
+
+    @ConfigProperty(name = "domain.outbox.max-attempts", defaultValue = "10")
+    int maxAttempts;
+
+    @ConfigProperty(name = "domain.outbox.max-backoff-seconds", defaultValue = "600")
+    int maxBackoffSeconds;
+
+    @ConfigProperty(name = "domain.outbox.lease-seconds", defaultValue = "120")
+    int leaseSeconds;
+
+    @ConfigProperty(name = "domain.outbox.processed-retention", defaultValue = "P7D")
+    Duration processedRetention;
+
+    // Les événements abandonnés restent consultables plus longtemps pour reprise manuelle
+    @ConfigProperty(name = "domain.outbox.dead-retention", defaultValue = "P30D")
+    Duration deadRetention;
+
+    @ConfigProperty(name = "domain.outbox.purge-batch-size", defaultValue = "5000")
+    int purgeBatchSize;
+
+    // Handlers par type d'événement (nom simple de la classe, tel qu'enregistré dans l'outbox)
+    private final Map<String, List<DomainEventHandler<?>>> handlers = new HashMap<>();
+    private final Map<String, Class<? extends DomainEvent>> eventTypes = new HashMap<>();
+    // Événements DEAD encore dans l'outbox ; recalé à chaque purge
+    private final AtomicLong deadEvents = new AtomicLong();
+
+    @PostConstruct
+    void init() {
+        Gauge.builder("flot.domain.outbox.dead", deadEvents, AtomicLong::get)
+                .description("Événements de domaine abandonnés, à reprendre manuellement")
+                .register(registry);
+        for (DomainEventHandler<?> handler : handlerBeans) {
+            String type = handler.eventType().getSimpleName();
+            handlers.computeIfAbsent(type, k -> new ArrayList<>()).add(handler);
+            eventTypes.put(type, handler.eventType());
+        }
+        LOG.infof("Relais des événements de domaine : %d type(s) d'événement pris en charge %s",
+                handlers.size(), handlers.keySet());
+    }
+
+    @Scheduled(every = "${domain.outbox.every:1s}", identity = "domain-event-relay",
+            concurrentExecution = Scheduled.ConcurrentExecution.SKIP)
+    Uni<Void> relay() {
+        LocalDateTime now = LocalDateTime.now();
+        return client.preparedQuery(CLAIM_DUE_SQL)
+                .execute(Tuple.of(now, now.plusSeconds(leaseSeconds), batchSize))
+                .onItem().transformToMulti(rows -> Multi.createFrom().iterable(rows))
+                .map(ClaimedEvent::from)
+                .onItem().transformToUni(this::process).merge(concurrency)
+                .collect().asList()
+                .invoke(relayed -> {
+                    if (!relayed.isEmpty()) {
+                        LOG.debugf("%d événement(s) de domaine relayé(s)", relayed.size());
+                    }
+                })
+                .onFailure().invoke(e -> LOG.error("Erreur lors du relais des événements de domaine", e))
+                .onFailure().recoverWithNull()
+                .replaceWithVoid();
+    }
+
+    /**
+     * Supprime les événements terminés au-delà de leur rétention, par lots. La file ne conserve
+     * ainsi que l'historique récent, ce qui borne le coût de la vérification d'ordre par agrégat.
+     */
+    @Scheduled(every = "${domain.outbox.purge-every:10m}", identity = "domain-outbox-purge",
+            concurrentExecution = Scheduled.ConcurrentExecution.SKIP)
+    Uni<Void> purge() {
+        LocalDateTime now = LocalDateTime.now();
+        Tuple limits = Tuple.of(now.minus(processedRetention), now.minus(deadRetention), purgeBatchSize);
+        return Multi.createBy().repeating()
+                .uni(() -> client.preparedQuery(PURGE_SQL).execute(limits).map(rows -> rows.rowCount()))
+                .whilst(deleted -> deleted == purgeBatchSize)
+                .collect().with(Collectors.summingInt(Integer::intValue))
+                .invoke(deleted -> {
+                    if (deleted > 0) {
+                        LOG.infof("%d événement(s) de domaine terminé(s) supprimé(s) de l'outbox", deleted);
+                    }
+                })
+                .chain(() -> client.query(COUNT_DEAD_SQL).execute())
+                .invoke(rows -> deadEvents.set(rows.iterator().next().getLong("dead")))
+                .onFailure().invoke(e -> LOG.error("Erreur lors de la purge de l'outbox des événements", e))
+                .onFailure().recoverWithNull()
+                .replaceWithVoid();
+    }
+
+    private Uni<UUID> process(ClaimedEvent event) {
+        int attempts = event.attempts() + 1;
+
+        // Un contexte dupliqué par événement : chaque traitement a sa propre session Hibernate Reactive
+        Context context = VertxContext.createNewDuplicatedContext(vertx.getDelegate().getOrCreateContext());
+        Executor onContext = command -> context.runOnContext(v -> command.run());
+
+        return Uni.createFrom().deferred(() -> dispatch(event))
+                .runSubscriptionOn(onContext)
+                // Seul l'échec du traitement est réessayé : une erreur d'écriture du statut n'entraîne pas un second traitement
+                .onItemOrFailure().transformToUni((v, error) -> {
+                    if (error == null) {
+                        registry.counter("flot.domain.outbox", "event", event.eventType(), "outcome", "processed").increment();
+                        return update(event.id(), OutboxEventStatus.PROCESSED, attempts, LocalDateTime.now(), null, LocalDateTime.now());
+                    }
+                    String message = String.valueOf(error.getMessage());
+                    if (isRejected(error)) {
+                        LOG.errorf("Événement %s %s refusé définitivement: %s", event.eventType(), event.id(), message);
+                        return dead(event, attempts, message, "rejected");
+                    }
+                    if (attempts >= maxAttempts) {
+                        LOG.errorf("Événement %s %s abandonné après %d tentatives: %s", event.eventType(), event.id(), attempts, message);
+                        return dead(event, attempts, message, "exhausted");
+                    }
+                    LOG.warnf("Échec du relais de l'événement %s %s (tentative %d): %s", event.eventType(), event.id(), attempts, message);
+                    registry.counter("flot.domain.outbox", "event", event.eventType(), "outcome", "retried").increment();
+                    return update(event.id(), OutboxEventStatus.PENDING, attempts, nextAttemptAt(attempts), message, null);
+                })
+                .onFailure().invoke(e -> LOG.errorf("Statut de l'événement %s non enregistré: %s", event.id(), e.getMessage()))
+                .onFailure().recoverWithNull()
+                .replaceWith(event.id());
+    }
+
+    private Uni<Void> dead(ClaimedEvent event, int attempts, String message, String reason) {
+        registry.counter("flot.domain.outbox", "event", event.eventType(), "outcome", "dead", "reason", reason).increment();
+        deadEvents.incrementAndGet();
+        return update(event.id(), OutboxEventStatus.DEAD, attempts, LocalDateTime.now(), message, null);
+    }
+
+    private static boolean isRejected(Throwable error) {
+        for (Throwable cause = error; cause != null; cause = cause.getCause()) {
+            if (cause instanceof DomainEventHandler.RejectedEventException) {
+                return true;
+            }
+            if (cause.getCause() == cause) {
+                break;
+            }
+        }
+        return false;
+    }
+
+    // Les handlers d'un événement sont appelés l'un après l'autre ; chacun gère sa transaction
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private Uni<Void> dispatch(ClaimedEvent event) {
+        List<DomainEventHandler<?>> targets = handlers.get(event.eventType());
+        if (targets == null) {
+            // Événement sans handler : conservé comme trace, rien à exécuter
+            return Uni.createFrom().voidItem();
+        }
+        DomainEvent domainEvent;
+        try {
+            domainEvent = objectMapper.readValue(event.payload(), eventTypes.get(event.eventType()));
+        } catch (JsonProcessingException e) {
+            return Uni.createFrom().failure(e);
+        }
+        Uni<Void> chain = Uni.createFrom().voidItem();
+        for (DomainEventHandler target : targets) {
+            chain = chain.chain(() -> (Uni<Void>) target.handle(domainEvent));
+        }
+        return chain;
+    }
+
+    private Uni<Void> update(UUID id, OutboxEventStatus status, int attempts, LocalDateTime nextAttemptAt,
+                             String lastError, LocalDateTime processedAt) {
+        return client.preparedQuery(UPDATE_EVENT_SQL)
+                .execute(Tuple.tuple()
+                        .addUUID(id)
+                        .addString(status.name())
+                        .addInteger(attempts)
+                        .addLocalDateTime(nextAttemptAt)
+                        .addString(lastError)
+                        .addLocalDateTime(processedAt))
+                .replaceWithVoid();
+    }
+
+    private LocalDateTime nextAttemptAt(int attempts) {
+        return Backoff.nextAttemptAt(attempts, 2, maxBackoffSeconds, 9);
+    }
+
+    private record ClaimedEvent(UUID id, String eventType, String payload, int attempts) {
+        static ClaimedEvent from(Row row) {
+            return new ClaimedEvent(row.getUUID("id"), row.getString("event_type"),
+                    row.getString("payload"), row.getInteger("attempts"));
+        }
+    }
+}
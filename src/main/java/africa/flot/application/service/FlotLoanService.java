@@ -2,9 +2,14 @@ package africa.flot.application.service;
 
 import africa.flot.domain.model.*;
 import africa.flot.domain.model.enums.*;
+import africa.flot.domain.model.exception.BusinessException;
+import africa.flot.application.dto.response.KeysetPage;
 import africa.flot.application.dto.response.LoanDetailsDTO;
+import africa.flot.application.dto.response.OverdueProcessingReport;
 import africa.flot.application.dto.command.CreateLoanCommand;
 import africa.flot.application.dto.command.ProcessPaymentCommand;
+import africa.flot.infrastructure.util.KeysetCursor;
+import io.quarkus.hibernate.reactive.panache.PanacheQuery;
 import io.quarkus.hibernate.reactive.panache.common.WithSession;
 import io.quarkus.hibernate.reactive.panache.common.WithTransaction;
 import io.smallrye.mutiny.Uni;
@@ -18,7 +23,6 @@ import java.math.RoundingMode;
 import java.time.LocalDate;
 import java.time.temporal.ChronoUnit;
 import java.util.*;
-import java.util.stream.Collectors;
 
 /**
  * Service class responsible for managing flot loans.
@@ -34,10 +38,17 @@ public class FlotLoanService {
     private static final int LOAN_DURATION_MONTHS = 36;
     private static final int WEEKS_PER_MONTH = 4;
     private static final int TOTAL_WEEKS = LOAN_DURATION_MONTHS * WEEKS_PER_MONTH; // 144 semaines
+    private static final int MAX_PAGE_SIZE = 200;
 
     @Inject
     UnpaidManagementService unpaidManagementService;
 
+    @Inject
+    OverdueLoanProcessor overdueLoanProcessor;
+
+    @Inject
+    UnpaidKpiSnapshotService kpiSnapshotService;
+
     @WithTransaction
     public Uni<FlotLoan> createLoan(CreateLoanCommand command) {
         LOG.infof("Création d'un nouveau prêt pour le lead %s, véhicule %s",
@@ -75,19 +86,26 @@ public class FlotLoanService {
                 });
     }
 
+    /**
+     * Applique un paiement sur le solde du prêt. Réservé à {@link PaymentConfirmedHandler} : les
+     * paiements passent par la file ordonnée par prêt, qui garantit un seul écrivain par prêt et
+     * le dédoublonnage. Les autres points d'entrée mettent en file un {@code PaymentConfirmedEvent}.
+     *
+     * Retourne l'ajustement des KPIs d'impayés, que l'appelant applique une fois la transaction validée.
+     */
     @WithTransaction
-    public Uni<LoanPayment> processPayment(ProcessPaymentCommand command) {
+    Uni<UnpaidKpiSnapshotService.Change> processPayment(ProcessPaymentCommand command) {
         LOG.infof("Traitement d'un paiement de %.2f€ pour le prêt %s",
                 command.getAmount(), command.getLoanId());
 
         return FlotLoan.<FlotLoan>findById(command.getLoanId())
                 .onItem().ifNull().failWith(() ->
-                        new IllegalArgumentException("Prêt introuvable: " + command.getLoanId()))
+                        new BusinessException("Prêt introuvable: " + command.getLoanId()))
                 .flatMap(loan -> {
                     // Validation
                     if (loan.getStatus() != LoanStatus.ACTIVE) {
                         return Uni.createFrom().failure(
-                                new IllegalStateException("Le prêt n'est pas actif"));
+                                new BusinessException("Le prêt n'est pas actif: " + loan.getId()));
                     }
 
                     // Création du paiement
@@ -111,6 +129,7 @@ public class FlotLoanService {
                     }
 
                     // Mise à jour du prêt
+                    UnpaidKpiSnapshotService.LoanState kpiState = kpiSnapshotService.capture(loan);
                     loan.setTotalPaid(loan.getTotalPaid().add(BigDecimal.valueOf(command.getAmount())));
                     loan.setOutstanding(loan.getOutstanding().subtract(BigDecimal.valueOf(command.getAmount())));
                     loan.setLastPaymentDate(LocalDate.now());
@@ -140,7 +159,7 @@ public class FlotLoanService {
                                     payment.getId(), payment.getPaymentProvider(), payment.getPaymentPhoneNumber());
                         }
 
-                        return tuple.getItem1(); // Retourne le LoanPayment
+                        return kpiSnapshotService.paymentRecorded(kpiState, loan, tuple.getItem1());
                     });
                 });
     }
@@ -170,25 +189,22 @@ public class FlotLoanService {
         );
     }
 
-    @WithTransaction
-    public Uni<Void> processOverdueLoans() {
+    /**
+     * Recalcule les retards de tous les prêts actifs en une passe ensembliste
+     * (voir {@link OverdueLoanProcessor}) au lieu de charger chaque prêt en session.
+     */
+    public Uni<OverdueProcessingReport> processOverdueLoans() {
         LOG.info("Traitement des prêts en retard...");
 
-        return getOverdueLoans()
-                .flatMap(overdue -> {
-                    List<Uni<FlotLoan>> updates = overdue.stream()
-                            .map(this::updateUnpaidStatus)
-                            .toList();
-
-                    return Uni.join().all(updates).andFailFast();
-                })
-                .map(results -> {
-                    LOG.infof("Traité %d prêts en retard", results.size());
-                    return null;
-                });
+        return overdueLoanProcessor.recalculate()
+                .invoke(report -> LOG.infof("Traité %d prêts en retard", report.getUpdatedLoans()))
+                // Mise à jour en masse : l'instantané des KPIs est recalculé en une passe
+                .call(report -> kpiSnapshotService.refresh()
+                        .onFailure().invoke(e -> LOG.warnf("Rafraîchissement des KPIs impossible: %s", e.getMessage()))
+                        .onFailure().recoverWithNull());
     }
 
-    private Uni<FlotLoan> updateUnpaidStatus(FlotLoan loan) {
+    void updateUnpaidStatus(FlotLoan loan) {
         LocalDate today = LocalDate.now();
 
         if (loan.getNextDueDate().isAfter(today) || loan.getOutstanding().equals(BigDecimal.ZERO)) {
@@ -211,6 +227,7 @@ public class FlotLoanService {
             loan.setOverdueAmount(overdueAmount.min(loan.getOutstanding()));
 
             // Mise à jour du statut selon le niveau de retard
+            // (règle dupliquée en SQL dans OverdueLoanProcessor)
             if (daysOverdue <= 7) {
                 loan.setUnpaidStatus(UnpaidStatus.EN_RETARD);
             } else {
@@ -221,11 +238,9 @@ public class FlotLoanService {
                 }
             }
         }
-
-        return loan.persistAndFlush();
     }
 
-    private void updateNextDueDate(FlotLoan loan) {
+    void updateNextDueDate(FlotLoan loan) {
         // Si paiement complet, avancer d'une semaine
         if (loan.getLastPaymentDate() != null) {
             // Calculer combien de paiements complets ont été effectués
@@ -344,32 +359,55 @@ public class FlotLoanService {
         });
     }
 
+    /**
+     * Prêts du plus récent au plus ancien, paginés par curseur sur {@code (createdAt, id)} :
+     * le coût d'une page ne dépend pas de sa profondeur.
+     */
     @WithSession
-    public Uni<List<FlotLoan>> getAllLoans(int page, int size) {
-        return FlotLoan.find("ORDER BY createdAt DESC")
-                .page(page, size)
-                .list();
+    public Uni<KeysetPage<FlotLoan>> getAllLoans(KeysetCursor after, int size) {
+        int limit = pageSize(size);
+        PanacheQuery<FlotLoan> query = after == null
+                ? FlotLoan.find("ORDER BY createdAt DESC, id DESC")
+                : FlotLoan.find("createdAt < ?1 OR (createdAt = ?1 AND id < ?2) ORDER BY createdAt DESC, id DESC",
+                        after.at(), after.id());
+        return query.range(0, limit).list()
+                .map(loans -> KeysetPage.of(loans, limit, loan -> new KeysetCursor(loan.getCreatedAt(), loan.getId())));
     }
 
+    /**
+     * Paiements de tous les prêts d'un lead, en une seule requête paginée par curseur sur {@code (paymentDate, id)}.
+     * La date de paiement n'ayant pas d'heure, le curseur la porte à minuit.
+     */
     @WithSession
-    public Uni<List<LoanPayment>> getPaymentsByLead(UUID leadId) {
-        // D'abord trouver tous les prêts du lead
-        return FlotLoan.<FlotLoan>find("leadId = ?1", leadId)
-                .list()
-                .flatMap(loans -> {
-                    if (loans.isEmpty()) {
-                        return Uni.createFrom().item(List.<LoanPayment>of());
-                    }
+    public Uni<KeysetPage<LoanPayment>> getPaymentsByLead(UUID leadId, KeysetCursor after, int size) {
+        int limit = pageSize(size);
+        String leadLoans = "loanId IN (SELECT l.id FROM FlotLoan l WHERE l.leadId = ?1)";
+        PanacheQuery<LoanPayment> query = after == null
+                ? LoanPayment.find(leadLoans + " ORDER BY paymentDate DESC, id DESC", leadId)
+                : LoanPayment.find(leadLoans + " AND (paymentDate < ?2 OR (paymentDate = ?2 AND id < ?3))"
+                        + " ORDER BY paymentDate DESC, id DESC", leadId, after.at().toLocalDate(), after.id());
+        return query.range(0, limit).list()
+                .map(payments -> KeysetPage.of(payments, limit,
+                        payment -> new KeysetCursor(payment.getPaymentDate().atStartOfDay(), payment.getId())));
+    }
 
-                    // Extraire les IDs des prêts
-                    List<UUID> loanIds = loans.stream()
-                            .map(FlotLoan::getId)
-                            .collect(Collectors.toList());
+    /**
+     * Relances d'un prêt, paginées par curseur sur {@code (sentAt, id)} (les relances n'ont pas de date de création).
+     */
+    @WithSession
+    public Uni<KeysetPage<LoanReminder>> getRemindersByLoan(UUID loanId, KeysetCursor after, int size) {
+        int limit = pageSize(size);
+        PanacheQuery<LoanReminder> query = after == null
+                ? LoanReminder.find("loanId = ?1 ORDER BY sentAt DESC, id DESC", loanId)
+                : LoanReminder.find("loanId = ?1 AND (sentAt < ?2 OR (sentAt = ?2 AND id < ?3))"
+                        + " ORDER BY sentAt DESC, id DESC", loanId, after.at(), after.id());
+        return query.range(0, limit).list()
+                .map(reminders -> KeysetPage.of(reminders, limit,
+                        reminder -> new KeysetCursor(reminder.getSentAt(), reminder.getId())));
+    }
 
-                    // Trouver tous les paiements pour ces prêts
-                    return LoanPayment.<LoanPayment>find("loanId IN ?1 ORDER BY paymentDate DESC", loanIds)
-                            .list();
-                });
+    private static int pageSize(int size) {
+        return Math.max(1, Math.min(size, MAX_PAGE_SIZE));
     }
 
     @WithSession
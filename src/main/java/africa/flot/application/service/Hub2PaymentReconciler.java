@@ -0,0 +1,252 @@
+package africa.flot.application.service;
+
+import africa.flot.application.config.Hub2Config;
+import africa.flot.application.dto.response.PaymentReconciliationReport;
+import africa.flot.domain.model.LeadPaymentIntent;
+import africa.flot.infrastructure.client.Hub2ApiClient;
+import africa.flot.infrastructure.util.TokenBucket;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.quarkus.hibernate.reactive.panache.Panache;
+import io.smallrye.mutiny.Multi;
+import io.smallrye.mutiny.Uni;
+import io.vertx.mutiny.core.Vertx;
+import jakarta.annotation.PostConstruct;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import jakarta.persistence.LockModeType;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.eclipse.microprofile.rest.client.inject.RestClient;
+import org.jboss.logging.Logger;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Réconciliation des intents de paiement HUB2 restés ouverts (webhook perdu ou en retard).
+ *
+ * Les intents non terminés sont lus par pages (keyset sur la date de dernière tentative puis
+ * l'id), HUB2 est interrogé avec une concurrence bornée et un débit limité par seau de jetons,
+ * puis les changements de statut sont enregistrés par lots transactionnels. Un intent qui vient
+ * de réussir est enregistré dans sa propre transaction, sous verrou, ce qui garantit qu'un seul
+ * paiement est créé même si le webhook arrive en même temps.
+ */
+@ApplicationScoped
+public class Hub2PaymentReconciler {
+
+    private static final Logger LOG = Logger.getLogger(Hub2PaymentReconciler.class);
+    private static final LocalDateTime FIRST_SWEEP = LocalDateTime.of(1970, 1, 1, 0, 0);
+    private static final UUID FIRST_ID = new UUID(0L, 0L);
+    private static final List<String> TERMINAL_STATUSES = List.of("succeeded", "failed");
+
+    @Inject
+    @RestClient
+    Hub2ApiClient hub2Client;
+
+    @Inject
+    Hub2Config hub2Config;
+
+    @Inject
+    Hub2PaymentService hub2PaymentService;
+
+    @Inject
+    LeadPaymentIntentService leadPaymentIntentService;
+
+    @Inject
+    MeterRegistry registry;
+
+    @Inject
+    Vertx vertx;
+
+    @ConfigProperty(name = "hub2.reconciler.page-size", defaultValue = "100")
+    int pageSize;
+
+    @ConfigProperty(name = "hub2.reconciler.concurrency", defaultValue = "4")
+    int concurrency;
+
+    @ConfigProperty(name = "hub2.reconciler.rate-per-second", defaultValue = "5")
+    double ratePerSecond;
+
+    @ConfigProperty(name = "hub2.reconciler.burst", defaultValue = "10")
+    int burst;
+
+    @ConfigProperty(name = "hub2.reconciler.commit-batch-size", defaultValue = "50")
+    int commitBatchSize;
+
+    // Laisse au webhook le temps d'arriver avant d'interroger HUB2
+    @ConfigProperty(name = "hub2.reconciler.min-age", defaultValue = "PT5M")
+    Duration minAge;
+
+    // Au-delà, un intent ouvert n'est plus interrogé
+    @ConfigProperty(name = "hub2.reconciler.max-age", defaultValue = "P7D")
+    Duration maxAge;
+
+    private TokenBucket rateLimiter;
+
+    @PostConstruct
+    void init() {
+        rateLimiter = new TokenBucket(ratePerSecond, burst);
+    }
+
+    public Uni<PaymentReconciliationReport> run() {
+        PaymentReconciliationReport report = new PaymentReconciliationReport();
+        LocalDateTime now = LocalDateTime.now();
+        // Les intents interrogés pendant ce passage ont une dernière tentative postérieure : ils sortent de la sélection
+        LocalDateTime sweepBefore = now.minus(minAge);
+        LocalDateTime createdAfter = now.minus(maxAge);
+        AtomicReference<Cursor> cursor = new AtomicReference<>(new Cursor(FIRST_SWEEP, FIRST_ID));
+        // Hibernate Reactive exige que la session soit utilisée sur le contexte Vert.x
+        Executor vertxExecutor = command -> vertx.getOrCreateContext().runOnContext(command);
+
+        return Multi.createBy().repeating()
+                .uni(() -> fetchPage(sweepBefore, createdAfter, cursor).runSubscriptionOn(vertxExecutor))
+                .until(List::isEmpty)
+                .onItem().<Snapshot>disjoint()
+                .onItem().transformToUni(intent -> query(intent, report)).merge(concurrency)
+                .emitOn(vertxExecutor)
+                .group().intoLists().of(commitBatchSize)
+                .onItem().transformToUniAndConcatenate(batch -> commit(batch, report))
+                .collect().last()
+                .replaceWith(report)
+                .invoke(r -> LOG.infof("Réconciliation des paiements HUB2 terminée: %s", r));
+    }
+
+    // Les entités ne sortent pas de la session de lecture : seul un instantané circule dans le pipeline
+    private Uni<List<Snapshot>> fetchPage(LocalDateTime sweepBefore, LocalDateTime createdAfter,
+                                          AtomicReference<Cursor> cursor) {
+        Cursor from = cursor.get();
+        return Panache.withSession(() -> LeadPaymentIntent.<LeadPaymentIntent>find(
+                                "hub2IntentId IS NOT NULL AND (status IS NULL OR status NOT IN ?1) " +
+                                        "AND createdAt >= ?2 AND COALESCE(lastAttemptAt, createdAt) < ?3 " +
+                                        "AND (COALESCE(lastAttemptAt, createdAt) > ?4 " +
+                                        "OR (COALESCE(lastAttemptAt, createdAt) = ?4 AND id > ?5)) " +
+                                        "ORDER BY COALESCE(lastAttemptAt, createdAt), id",
+                                TERMINAL_STATUSES, createdAfter, sweepBefore, from.sweptAt(), from.id())
+                        .page(0, pageSize)
+                        .list())
+                .map(page -> page.stream().map(Snapshot::of).toList())
+                .invoke(page -> {
+                    if (!page.isEmpty()) {
+                        Snapshot last = page.get(page.size() - 1);
+                        cursor.set(new Cursor(last.sweptAt(), last.id()));
+                    }
+                });
+    }
+
+    private Uni<Observation> query(Snapshot intent, PaymentReconciliationReport report) {
+        return rateLimiter.throttle()
+                .chain(() -> hub2Client.getPaymentIntent(
+                        hub2Config.getApiKey(),
+                        hub2Config.getMerchantId(),
+                        hub2Config.getEnvironment(),
+                        intent.hub2IntentId(),
+                        intent.hub2Token()))
+                .map(response -> new Observation(intent, (String) response.get("status")))
+                .onFailure().recoverWithItem(error -> {
+                    LOG.warnf("Statut HUB2 indisponible pour l'intent %s: %s", intent.hub2IntentId(), error.getMessage());
+                    report.getErrors().incrementAndGet();
+                    outcome("error");
+                    return new Observation(intent, null);
+                })
+                .invoke(() -> report.getChecked().incrementAndGet());
+    }
+
+    /**
+     * Enregistre un lot d'observations : les changements de statut ordinaires et la date de
+     * dernière tentative dans une transaction commune, chaque paiement réussi dans la sienne.
+     */
+    private Uni<Void> commit(List<Observation> batch, PaymentReconciliationReport report) {
+        Map<Boolean, List<Observation>> partition = batch.stream()
+                .collect(Collectors.partitioningBy(Observation::newlySucceeded));
+
+        return commitStatuses(partition.get(false), report)
+                .chain(() -> Multi.createFrom().iterable(partition.get(true))
+                        .onItem().transformToUniAndConcatenate(observation -> settle(observation, report))
+                        .collect().last())
+                .replaceWithVoid();
+    }
+
+    private Uni<Void> commitStatuses(List<Observation> observations, PaymentReconciliationReport report) {
+        if (observations.isEmpty()) {
+            return Uni.createFrom().voidItem();
+        }
+        Map<UUID, Observation> byId = observations.stream()
+                .collect(Collectors.toMap(o -> o.intent().id(), Function.identity()));
+
+        return Panache.withTransaction(() -> LeadPaymentIntent.<LeadPaymentIntent>list("id IN ?1", byId.keySet())
+                        .invoke(intents -> intents.forEach(intent -> {
+                            String status = byId.get(intent.getId()).status();
+                            // Un webhook a pu clore l'intent entre la lecture et l'enregistrement
+                            if (status == null || status.equals(intent.getStatus())
+                                    || LeadPaymentIntentService.isTerminal(intent.getStatus())) {
+                                intent.setLastAttemptAt(LocalDateTime.now());
+                                return;
+                            }
+                            leadPaymentIntentService.applyStatus(intent, status);
+                            report.getChanged().incrementAndGet();
+                            if ("failed".equals(status)) {
+                                report.getFailed().incrementAndGet();
+                            }
+                            outcome(status);
+                        })))
+                .onFailure().recoverWithItem(error -> {
+                    LOG.errorf(error, "Échec de l'enregistrement d'un lot de %d intents HUB2", observations.size());
+                    report.getUncommitted().addAndGet(observations.size());
+                    return null;
+                })
+                .replaceWithVoid();
+    }
+
+    private Uni<Void> settle(Observation observation, PaymentReconciliationReport report) {
+        UUID intentId = observation.intent().id();
+        return Panache.withTransaction(() -> LeadPaymentIntent.<LeadPaymentIntent>find("id", intentId)
+                        .withLock(LockModeType.PESSIMISTIC_WRITE)
+                        .firstResult()
+                        .flatMap(intent -> {
+                            if (intent == null || "succeeded".equals(intent.getStatus())) {
+                                // Déjà enregistré, par le webhook le plus souvent
+                                return Uni.createFrom().voidItem();
+                            }
+                            leadPaymentIntentService.applyStatus(intent, "succeeded");
+                            return hub2PaymentService.recordSucceededPayment(intent, "HUB2_RECONCILER",
+                                            "Paiement HUB2 Mobile Money via réconciliation - " + intent.getProvider())
+                                    .invoke(() -> {
+                                        report.getChanged().incrementAndGet();
+                                        report.getSucceeded().incrementAndGet();
+                                        outcome("succeeded");
+                                    });
+                        }))
+                .onFailure().recoverWithItem(error -> {
+                    // L'intent reste ouvert et sera repris au prochain passage
+                    LOG.errorf(error, "Échec de l'enregistrement du paiement HUB2 %s", observation.intent().hub2IntentId());
+                    report.getUncommitted().incrementAndGet();
+                    return null;
+                });
+    }
+
+    private void outcome(String outcome) {
+        registry.counter("flot.payments.reconciliation", "outcome", outcome).increment();
+    }
+
+    private record Cursor(LocalDateTime sweptAt, UUID id) {
+    }
+
+    private record Snapshot(UUID id, String hub2IntentId, String hub2Token, String status, LocalDateTime sweptAt) {
+        static Snapshot of(LeadPaymentIntent intent) {
+            LocalDateTime sweptAt = intent.getLastAttemptAt() != null ? intent.getLastAttemptAt() : intent.getCreatedAt();
+            return new Snapshot(intent.getId(), intent.getHub2IntentId(), intent.getHub2Token(), intent.getStatus(), sweptAt);
+        }
+    }
+
+    private record Observation(Snapshot intent, String status) {
+        boolean newlySucceeded() {
+            return "succeeded".equals(status) && !"succeeded".equals(intent.status());
+        }
+    }
+}
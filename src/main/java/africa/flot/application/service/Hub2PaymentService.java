@@ -2,13 +2,16 @@ package africa.flot.application.service;
 
 import africa.flot.application.config.Hub2Config;
 import africa.flot.application.dto.command.MobileMoneyPaymentCommand;
-import africa.flot.application.dto.command.ProcessPaymentCommand;
+import africa.flot.domain.event.PaymentConfirmedEvent;
 import africa.flot.domain.model.FlotLoan;
+import africa.flot.domain.model.LeadPaymentIntent;
+import africa.flot.domain.model.enums.PaymentMethod;
 import africa.flot.domain.model.enums.TransactionStatus;
 import africa.flot.infrastructure.client.Hub2ApiClient;
 import io.quarkus.hibernate.reactive.panache.common.WithTransaction;
 import io.smallrye.mutiny.Uni;
 import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.persistence.LockModeType;
 import jakarta.inject.Inject;
 import org.eclipse.microprofile.rest.client.inject.RestClient;
 import org.jboss.logging.Logger;
@@ -29,10 +32,10 @@ public class Hub2PaymentService {
     Hub2Config hub2Config;
 
     @Inject
-    FlotLoanService flotLoanService;
+    LeadPaymentIntentService leadPaymentIntentService;
 
     @Inject
-    LeadPaymentIntentService leadPaymentIntentService;
+    DomainEventOutbox eventOutbox;
 
     /**
      * Initie un paiement Mobile Money pour un prêt
@@ -79,22 +82,19 @@ public class Hub2PaymentService {
 
                         // Mettre à jour le statut de l'intent
                         return leadPaymentIntentService.updateIntentStatus(command.getPaymentIntentId(), status)
-                                .map(updatedIntent -> {
+                                .flatMap(updatedIntent -> {
                                     // 3. Mettre à jour la commande avec le statut
                                     TransactionStatus transactionStatus = parseTransactionStatus(status);
                                     command.setTransactionStatus(transactionStatus);
 
                                     if (transactionStatus == TransactionStatus.COMPLETED) {
-                                        // Si le paiement est immédiatement complété, programmer le traitement du paiement
-                                        ProcessPaymentCommand processCommand = createProcessPaymentCommand(command);
-                                        flotLoanService.processPayment(processCommand)
-                                                .subscribe().with(
-                                                        payment1 -> LOG.info("Paiement traité avec succès"),
-                                                        error -> LOG.error("Erreur lors du traitement du paiement", error)
-                                                );
+                                        // Paiement immédiatement complété : enregistré sur le prêt après validation de la transaction
+                                        return recordSucceededPayment(updatedIntent, createdBy(command),
+                                                "Paiement Mobile Money via HUB2 - " + updatedIntent.getProvider())
+                                                .replaceWith(command);
                                     }
 
-                                    return command;
+                                    return Uni.createFrom().item(command);
                                 });
                     });
                 });
@@ -148,20 +148,18 @@ public class Hub2PaymentService {
             LOG.infof("Authentification terminée: statut %s", status);
 
             return leadPaymentIntentService.updateIntentStatus(command.getPaymentIntentId(), status)
-                    .map(updatedIntent -> {
+                    .flatMap(updatedIntent -> {
                         command.setTransactionStatus(parseTransactionStatus(status));
 
                         if (command.getTransactionStatus() == TransactionStatus.COMPLETED) {
-                            // Finaliser le paiement si l'authentification a réussi
-                            ProcessPaymentCommand processCommand = createProcessPaymentCommand(command);
-                            flotLoanService.processPayment(processCommand)
-                                    .subscribe().with(
-                                            payment -> LOG.info("Paiement traité avec succès après OTP"),
-                                            error -> LOG.error("Erreur lors du traitement du paiement après OTP", error)
-                                    );
+                            // Finaliser le paiement si l'authentification a réussi ; la commande OTP ne porte
+                            // ni montant ni prêt fiables, le paiement est construit à partir de l'intent
+                            return recordSucceededPayment(updatedIntent, createdBy(command),
+                                    "Paiement Mobile Money via HUB2 (OTP) - " + updatedIntent.getProvider())
+                                    .replaceWith(command);
                         }
 
-                        return command;
+                        return Uni.createFrom().item(command);
                     });
         });
     }
@@ -178,28 +176,38 @@ public class Hub2PaymentService {
 
         LOG.infof("Traitement webhook: %s, statut: %s, id: %s", event, status, paymentIntentId);
 
-        return leadPaymentIntentService.updateIntentStatus(paymentIntentId, status)
-                .flatMap(intent -> {
-                    // Pour les paiements réussis, traiter le paiement
-                    if (("payment.succeeded".equals(event) || "payment_intent.succeeded".equals(event))
-                            && "succeeded".equals(status)) {
-
-                        return FlotLoan.<FlotLoan>findById(intent.getLoanId())
-                                .flatMap(loan -> {
-                                    ProcessPaymentCommand command = new ProcessPaymentCommand();
-                                    command.setLoanId(intent.getLoanId());
-                                    command.setAmount(intent.getAmount().doubleValue());
-                                    command.setPaymentMethod(africa.flot.domain.model.enums.PaymentMethod.MOBILE_MONEY);
-                                    command.setExternalReference(paymentIntentId);
-                                    command.setNotes("Paiement HUB2 Mobile Money via webhook - " + intent.getProvider());
-                                    command.setCreatedBy("HUB2_WEBHOOK");
-
-                                    return flotLoanService.processPayment(command);
-                                }).replaceWithVoid();
-                    }
-
-                    return Uni.createFrom().voidItem();
-                });
+        // Verrou sur l'intent : le webhook et la réconciliation ne peuvent pas enregistrer le même paiement
+        return LeadPaymentIntent.<LeadPaymentIntent>find("hub2IntentId", paymentIntentId)
+                .withLock(LockModeType.PESSIMISTIC_WRITE)
+                .firstResult()
+                .map(current -> current != null ? current.getStatus() : null)
+                .flatMap(previousStatus -> leadPaymentIntentService.updateIntentStatus(paymentIntentId, status)
+                        .flatMap(intent -> {
+                            // Pour les paiements réussis, traiter le paiement une seule fois : un webhook rejoué
+                            // pour un intent déjà réussi ne crée pas de second paiement
+                            if (("payment.succeeded".equals(event) || "payment_intent.succeeded".equals(event))
+                                    && "succeeded".equals(status) && !"succeeded".equals(previousStatus)) {
+                                return recordSucceededPayment(intent, "HUB2_WEBHOOK",
+                                        "Paiement HUB2 Mobile Money via webhook - " + intent.getProvider());
+                            }
+
+                            return Uni.createFrom().voidItem();
+                        }));
+    }
+
+    /**
+     * Met en file, pour application sur le prêt, le paiement d'un intent qui vient de passer à "succeeded".
+     * Doit être appelé dans la transaction qui effectue ce changement de statut.
+     */
+    public Uni<Void> recordSucceededPayment(LeadPaymentIntent intent, String createdBy, String notes) {
+        return eventOutbox.append(new PaymentConfirmedEvent(
+                intent.getLoanId(),
+                intent.getAmount().doubleValue(),
+                PaymentMethod.MOBILE_MONEY,
+                intent.getHub2IntentId(),
+                intent.getHub2IntentId(),
+                notes,
+                createdBy));
     }
 
     /**
@@ -240,17 +248,7 @@ public class Hub2PaymentService {
     }
 
 
-    /**
-     * Crée une commande ProcessPaymentCommand à partir d'un MobileMoneyPaymentCommand
-     */
-    private ProcessPaymentCommand createProcessPaymentCommand(MobileMoneyPaymentCommand command) {
-        ProcessPaymentCommand processCommand = new ProcessPaymentCommand();
-        processCommand.setLoanId(command.getLoanId());
-        processCommand.setAmount(command.getAmount().doubleValue());
-        processCommand.setPaymentMethod(command.getPaymentMethod());
-        processCommand.setExternalReference(command.getExternalReference());
-        processCommand.setNotes("Paiement Mobile Money via HUB2 - " + command.getProvider());
-        processCommand.setCreatedBy(command.getCreatedBy() != null ? command.getCreatedBy() : "HUB2_SERVICE");
-        return processCommand;
+    private String createdBy(MobileMoneyPaymentCommand command) {
+        return command.getCreatedBy() != null ? command.getCreatedBy() : "HUB2_SERVICE";
     }
 }
\ No newline at end of file
@@ -0,0 +1,195 @@
+package africa.flot.application.service;
+
+import africa.flot.domain.model.enums.InboxEventStatus;
+import africa.flot.infrastructure.util.Backoff;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.quarkus.scheduler.Scheduled;
+import io.smallrye.common.vertx.VertxContext;
+import io.smallrye.mutiny.Multi;
+import io.smallrye.mutiny.Uni;
+import io.vertx.core.Context;
+import io.vertx.core.json.JsonObject;
+import io.vertx.mutiny.pgclient.PgPool;
+import io.vertx.mutiny.sqlclient.Row;
+import io.vertx.mutiny.sqlclient.Tuple;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.Executor;
+
+/**
+ * Boîte de réception durable des webhooks HUB2.
+ *
+ * La réception se limite à une insertion dans {@code webhook_inbox}, dédoublonnée par clé
+ * d'événement : le webhook est acquitté dès que l'événement est durable, quel que soit le
+ * débit de traitement. Un job planifié réserve ensuite les événements dus
+ * ({@code FOR UPDATE SKIP LOCKED}) et les traite avec une concurrence bornée. Seul l'événement
+ * le plus ancien non terminé de chaque intent de paiement est éligible : les événements d'un
+ * même intent sont traités dans l'ordre de réception, y compris à travers les réessais.
+ */
+@ApplicationScoped
+public class Hub2WebhookInbox {
+
+    private static final Logger LOG = Logger.getLogger(Hub2WebhookInbox.class);
+    private static final String SOURCE = "HUB2";
+
+    // $1 = id, $2 = clé d'événement, $3 = type, $4 = clé d'ordre, $5 = payload, $6 = maintenant
+    private static final String APPEND_SQL =
+            "INSERT INTO webhook_inbox (id, source, event_key, event_type, ordering_key, payload, status, attempts, " +
+            "next_attempt_at, received_at, updated_at) VALUES ($1, '" + SOURCE + "', $2, $3, $4, $5, 'PENDING', 0, $6, $6, $6) " +
+            "ON CONFLICT (source, event_key) DO NOTHING";
+
+    // $1 = maintenant, $2 = fin de réservation, $3 = taille du lot
+    private static final String CLAIM_DUE_SQL =
+            "UPDATE webhook_inbox w SET status = 'PROCESSING', next_attempt_at = $2, updated_at = LOCALTIMESTAMP " +
+            "FROM (SELECT i.id FROM webhook_inbox i " +
+            "WHERE i.source = '" + SOURCE + "' AND i.status IN ('PENDING', 'PROCESSING') AND i.next_attempt_at <= $1 " +
+            "AND NOT EXISTS (SELECT 1 FROM webhook_inbox p WHERE p.source = i.source AND p.ordering_key = i.ordering_key " +
+            "AND p.status IN ('PENDING', 'PROCESSING') AND (p.received_at, p.id) < (i.received_at, i.id)) " +
+            "ORDER BY i.received_at LIMIT $3 FOR UPDATE SKIP LOCKED) due " +
+            "WHERE w.id = due.id " +
+            "RETURNING w.id, w.event_key, w.payload, w.attempts";
+
+    private static final String UPDATE_EVENT_SQL =
+            "UPDATE webhook_inbox SET status = $2, attempts = $3, next_attempt_at = $4, last_error = $5, " +
+            "processed_at = $6, updated_at = LOCALTIMESTAMP WHERE id = $1";
+
+    @Inject
+    PgPool client;
+
+    @Inject
+    Hub2PaymentService paymentService;
+
+    @Inject
+    io.vertx.mutiny.core.Vertx vertx;
+
+    @Inject
+    MeterRegistry registry;
+
+    @ConfigProperty(name = "hub2.webhook.inbox.batch-size", defaultValue = "100")
+    int batchSize;
+
+    @ConfigProperty(name = "hub2.webhook.inbox.concurrency", defaultValue = "8")
+    int concurrency;
+
+    @ConfigProperty(name = "hub2.webhook.inbox.max-attempts", defaultValue = "10")
+    int maxAttempts;
+
+    @ConfigProperty(name = "hub2.webhook.inbox.max-backoff-seconds", defaultValue = "600")
+    int maxBackoffSeconds;
+
+    @ConfigProperty(name = "hub2.webhook.inbox.lease-seconds", defaultValue = "120")
+    int leaseSeconds;
+
+    /**
+     * Enregistre un webhook dont la signature a été vérifiée. Le corps est conservé tel que reçu.
+     *
+     * @return {@code true} si l'événement est nouveau, {@code false} s'il avait déjà été reçu
+     */
+    public Uni<Boolean> append(String rawBody, JsonObject payload) {
+        JsonObject data = payload.getJsonObject("data", new JsonObject());
+        String event = payload.getString("event");
+        String intentId = data.getString("id");
+        String eventId = payload.getString("id");
+
+        // Sans identifiant d'événement, un même changement d'état n'est enregistré qu'une fois
+        String eventKey = eventId != null ? eventId : event + ":" + intentId + ":" + data.getString("status");
+        String orderingKey = intentId != null ? intentId : eventKey;
+
+        return client.preparedQuery(APPEND_SQL)
+                .execute(Tuple.tuple()
+                        .addUUID(UUID.randomUUID())
+                        .addString(eventKey)
+                        .addString(event)
+                        .addString(orderingKey)
+                        .addString(rawBody)
+                        .addLocalDateTime(LocalDateTime.now()))
+                .map(rows -> rows.rowCount() > 0)
+                .invoke(inserted -> {
+                    registry.counter("flot.webhooks.inbox", "source", SOURCE,
+                            "outcome", inserted ? "received" : "duplicate").increment();
+                    if (!inserted) {
+                        LOG.infof("Webhook HUB2 déjà reçu, ignoré: %s", eventKey);
+                    }
+                });
+    }
+
+    @Scheduled(every = "${hub2.webhook.inbox.every:2s}", identity = "hub2-webhook-inbox",
+            concurrentExecution = Scheduled.ConcurrentExecution.SKIP)
+    Uni<Void> drain() {
+        LocalDateTime now = LocalDateTime.now();
+        return client.preparedQuery(CLAIM_DUE_SQL)
+                .execute(Tuple.of(now, now.plusSeconds(leaseSeconds), batchSize))
+                .onItem().transformToMulti(rows -> Multi.createFrom().iterable(rows))
+                .map(ClaimedEvent::from)
+                .onItem().transformToUni(this::process).merge(concurrency)
+                .collect().asList()
+                .invoke(processed -> {
+                    if (!processed.isEmpty()) {
+                        LOG.debugf("%d webhook(s) HUB2 traité(s)", processed.size());
+                    }
+                })
+                .onFailure().invoke(e -> LOG.error("Erreur lors du traitement de la boîte de réception HUB2", e))
+                .onFailure().recoverWithNull()
+                .replaceWithVoid();
+    }
+
+    private Uni<UUID> process(ClaimedEvent event) {
+        int attempts = event.attempts() + 1;
+
+        // Un contexte dupliqué par événement : chaque traitement a sa propre session Hibernate Reactive
+        Context context = VertxContext.createNewDuplicatedContext(vertx.getDelegate().getOrCreateContext());
+        Executor onContext = command -> context.runOnContext(v -> command.run());
+
+        return Uni.createFrom().deferred(() -> paymentService.processPaymentWebhook(event.payload()))
+                .runSubscriptionOn(onContext)
+                // Seul l'échec du traitement est réessayé : une erreur d'écriture du statut n'entraîne pas un second traitement
+                .onItemOrFailure().transformToUni((v, error) -> {
+                    if (error == null) {
+                        registry.counter("flot.webhooks.inbox", "source", SOURCE, "outcome", "processed").increment();
+                        return update(event.id(), InboxEventStatus.PROCESSED, attempts, LocalDateTime.now(), null, LocalDateTime.now());
+                    }
+                    String message = String.valueOf(error.getMessage());
+                    if (attempts >= maxAttempts) {
+                        LOG.errorf("Webhook HUB2 %s abandonné après %d tentatives: %s", event.eventKey(), attempts, message);
+                        registry.counter("flot.webhooks.inbox", "source", SOURCE, "outcome", "dead").increment();
+                        return update(event.id(), InboxEventStatus.DEAD, attempts, LocalDateTime.now(), message, null);
+                    }
+                    LOG.warnf("Échec du traitement du webhook HUB2 %s (tentative %d): %s", event.eventKey(), attempts, message);
+                    registry.counter("flot.webhooks.inbox", "source", SOURCE, "outcome", "retried").increment();
+                    return update(event.id(), InboxEventStatus.PENDING, attempts, nextAttemptAt(attempts), message, null);
+                })
+                .onFailure().invoke(e -> LOG.errorf("Statut du webhook HUB2 %s non enregistré: %s", event.eventKey(), e.getMessage()))
+                .onFailure().recoverWithNull()
+                .replaceWith(event.id());
+    }
+
+    private Uni<Void> update(UUID id, InboxEventStatus status, int attempts, LocalDateTime nextAttemptAt,
+                             String lastError, LocalDateTime processedAt) {
+        return client.preparedQuery(UPDATE_EVENT_SQL)
+                .execute(Tuple.tuple()
+                        .addUUID(id)
+                        .addString(status.name())
+                        .addInteger(attempts)
+                        .addLocalDateTime(nextAttemptAt)
+                        .addString(lastError)
+                        .addLocalDateTime(processedAt))
+                .replaceWithVoid();
+    }
+
+    private LocalDateTime nextAttemptAt(int attempts) {
+        return Backoff.nextAttemptAt(attempts, 2, maxBackoffSeconds, 9);
+    }
+
+    private record ClaimedEvent(UUID id, String eventKey, Map<String, Object> payload, int attempts) {
+        static ClaimedEvent from(Row row) {
+            return new ClaimedEvent(row.getUUID("id"), row.getString("event_key"),
+                    new JsonObject(row.getString("payload")).getMap(), row.getInteger("attempts"));
+        }
+    }
+}
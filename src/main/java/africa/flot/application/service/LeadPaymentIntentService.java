@@ -101,21 +101,31 @@ public class LeadPaymentIntentService {
                                 new IllegalArgumentException("Intent introuvable: " + hub2IntentId));
                     }
 
-                    intent.setStatus(status);
-                    intent.setLastAttemptAt(LocalDateTime.now());
-
-                    // Si statut terminal, mettre à jour les champs correspondants
-                    if ("succeeded".equals(status) || "failed".equals(status)) {
-                        intent.setCompletionDate(LocalDateTime.now());
-                        if ("failed".equals(status)) {
-                            intent.setActive(false);
-                        }
-                    }
-
+                    applyStatus(intent, status);
                     return intent.<LeadPaymentIntent>persistAndFlush();
                 });
     }
 
+    /**
+     * Applique un statut HUB2 à un intent géré par la session courante.
+     */
+    public void applyStatus(LeadPaymentIntent intent, String status) {
+        intent.setStatus(status);
+        intent.setLastAttemptAt(LocalDateTime.now());
+
+        // Si statut terminal, mettre à jour les champs correspondants
+        if (isTerminal(status)) {
+            intent.setCompletionDate(LocalDateTime.now());
+            if ("failed".equals(status)) {
+                intent.setActive(false);
+            }
+        }
+    }
+
+    public static boolean isTerminal(String status) {
+        return "succeeded".equals(status) || "failed".equals(status);
+    }
+
     /**
      * Crée un nouveau PaymentIntent sur HUB2
      */
@@ -0,0 +1,87 @@
+package africa.flot.application.service;
+
+import africa.flot.infrastructure.util.KeysetCursor;
+import io.smallrye.mutiny.Multi;
+import io.smallrye.mutiny.Uni;
+import io.vertx.core.json.JsonObject;
+import io.vertx.mutiny.pgclient.PgPool;
+import io.vertx.mutiny.sqlclient.Row;
+import io.vertx.mutiny.sqlclient.RowSet;
+import io.vertx.mutiny.sqlclient.Tuple;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Exports complets du portefeuille (prêts, paiements) en flux.
+ *
+ * Les lignes sont lues par tranches paginées par curseur sur {@code (created_at, id)} et émises
+ * une à une au fur et à mesure que le client HTTP les consomme : la tranche suivante n'est lue
+ * qu'à la demande, si bien que la mémoire utilisée ne dépend pas de la taille du portefeuille et
+ * qu'aucune connexion ni transaction n'est gardée ouverte pendant tout l'export.
+ */
+@ApplicationScoped
+public class LoanExportService {
+
+    private static final String LOAN_COLUMNS =
+            "id, lead_id, vehicle_id, principal, weekly_amount, start_date, end_date, status, total_paid, " +
+            "outstanding, last_payment_date, next_due_date, days_overdue, weeks_overdue, overdue_amount, " +
+            "unpaid_status, reminder_level, last_reminder_date, created_at, updated_at";
+
+    private static final String PAYMENT_COLUMNS =
+            "id, loan_id, amount, payment_date, due_date, status, transaction_status, payment_method, " +
+            "days_overdue, weeks_overdue, external_reference, payment_provider, payment_intent_id, " +
+            "payment_transaction_id, created_at, created_by";
+
+    @Inject
+    PgPool client;
+
+    @ConfigProperty(name = "loans.export.chunk-size", defaultValue = "500")
+    int chunkSize;
+
+    public Multi<JsonObject> exportLoans() {
+        return export(LOAN_COLUMNS, "flot_loans");
+    }
+
+    public Multi<JsonObject> exportPayments() {
+        return export(PAYMENT_COLUMNS, "loan_payments");
+    }
+
+    private Multi<JsonObject> export(String columns, String table) {
+        // $1 = taille de la tranche ; $2, $3 = curseur (created_at, id) de la dernière ligne émise
+        String firstSql = "SELECT " + columns + " FROM " + table +
+                " ORDER BY created_at DESC, id DESC LIMIT $1";
+        String nextSql = "SELECT " + columns + " FROM " + table +
+                " WHERE (created_at, id) < ($2, $3) ORDER BY created_at DESC, id DESC LIMIT $1";
+        AtomicReference<KeysetCursor> cursor = new AtomicReference<>();
+
+        return Multi.createBy().repeating()
+                .uni(() -> {
+                    KeysetCursor after = cursor.get();
+                    Uni<RowSet<Row>> rows = after == null
+                            ? client.preparedQuery(firstSql).execute(Tuple.of(chunkSize))
+                            : client.preparedQuery(nextSql).execute(Tuple.of(chunkSize, after.at(), after.id()));
+                    return rows.map(set -> toChunk(set, cursor));
+                })
+                // Une tranche incomplète est la dernière
+                .whilst(chunk -> chunk.size() == chunkSize)
+                .onItem().disjoint();
+    }
+
+    private static List<JsonObject> toChunk(RowSet<Row> rows, AtomicReference<KeysetCursor> cursor) {
+        List<JsonObject> chunk = new ArrayList<>(rows.size());
+        Row last = null;
+        for (Row row : rows) {
+            chunk.add(row.toJson());
+            last = row;
+        }
+        if (last != null) {
+            cursor.set(new KeysetCursor(last.getLocalDateTime("created_at"), last.getUUID("id")));
+        }
+        return chunk;
+    }
+}
@@ -0,0 +1,130 @@
+package africa.flot.application.service;
+
+import africa.flot.application.dto.response.OverdueProcessingReport;
+import africa.flot.domain.model.enums.UnpaidStatus;
+import io.smallrye.mutiny.Uni;
+import io.vertx.mutiny.pgclient.PgPool;
+import io.vertx.mutiny.sqlclient.Row;
+import io.vertx.mutiny.sqlclient.RowSet;
+import io.vertx.mutiny.sqlclient.Tuple;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
+
+import java.time.LocalDate;
+import java.util.UUID;
+
+/**
+ * Recalcul ensembliste des retards de paiement.
+ *
+ * Reproduit en SQL la logique de {@code FlotLoanService.updateUnpaidStatus} pour tous les prêts
+ * actifs en retard, soit en une seule requête UPDATE, soit par lots paginés sur l'identifiant
+ * (keyset) lorsque {@code loans.overdue.batch-size} est strictement positif. Aucun prêt n'est
+ * chargé dans la session Hibernate.
+ */
+@ApplicationScoped
+public class OverdueLoanProcessor {
+
+    private static final Logger LOG = Logger.getLogger(OverdueLoanProcessor.class);
+    private static final UUID FIRST_CURSOR = new UUID(0L, 0L);
+
+    // $1 = date de référence
+    private static final String OVERDUE_SET_CLAUSE = """
+            days_overdue = ($1::date - f.next_due_date),
+            weeks_overdue = ($1::date - f.next_due_date) / 7,
+            overdue_amount = LEAST(f.weekly_amount * (($1::date - f.next_due_date) / 7 + 1), f.outstanding),
+            unpaid_status = CASE
+                WHEN ($1::date - f.next_due_date) <= 7 OR f.unpaid_status IS NULL OR f.unpaid_status = 'ON_TIME'
+                    THEN 'EN_RETARD'
+                ELSE f.unpaid_status
+            END,
+            updated_at = LOCALTIMESTAMP
+            """;
+
+    private static final String OVERDUE_FILTER =
+            "f.status = 'ACTIVE' AND f.next_due_date < $1 AND f.outstanding > 0";
+
+    private static final String UPDATE_ALL_SQL =
+            "WITH updated AS (" +
+            " UPDATE flot_loans f SET " + OVERDUE_SET_CLAUSE +
+            " WHERE " + OVERDUE_FILTER +
+            " RETURNING f.unpaid_status" +
+            ") SELECT unpaid_status, COUNT(*) AS total FROM updated GROUP BY unpaid_status";
+
+    // $2 = curseur (dernier id traité), $3 = taille du lot
+    private static final String UPDATE_CHUNK_SQL =
+            "WITH batch AS (" +
+            " SELECT f.id FROM flot_loans f WHERE " + OVERDUE_FILTER + " AND f.id > $2" +
+            " ORDER BY f.id LIMIT $3 FOR UPDATE" +
+            "), updated AS (" +
+            " UPDATE flot_loans f SET " + OVERDUE_SET_CLAUSE +
+            " FROM batch WHERE f.id = batch.id" +
+            " RETURNING f.id, f.unpaid_status" +
+            ") SELECT id, unpaid_status FROM updated ORDER BY id";
+
+    @Inject
+    PgPool client;
+
+    @ConfigProperty(name = "loans.overdue.batch-size", defaultValue = "1000")
+    int batchSize;
+
+    public Uni<OverdueProcessingReport> recalculate() {
+        return recalculate(LocalDate.now());
+    }
+
+    public Uni<OverdueProcessingReport> recalculate(LocalDate referenceDate) {
+        long start = System.currentTimeMillis();
+        OverdueProcessingReport report = new OverdueProcessingReport();
+        report.setReferenceDate(referenceDate);
+
+        Uni<OverdueProcessingReport> run = batchSize > 0
+                ? processChunk(referenceDate, FIRST_CURSOR, report)
+                : processAll(referenceDate, report);
+
+        return run.invoke(r -> {
+            r.setDurationMs(System.currentTimeMillis() - start);
+            LOG.infof("Recalcul des impayés au %s: %d prêts mis à jour en %d lot(s), %d ms, répartition=%s",
+                    referenceDate, r.getUpdatedLoans(), r.getChunks(), r.getDurationMs(), r.getUpdatedByStatus());
+        });
+    }
+
+    private Uni<OverdueProcessingReport> processAll(LocalDate referenceDate, OverdueProcessingReport report) {
+        return client.preparedQuery(UPDATE_ALL_SQL)
+                .execute(Tuple.of(referenceDate))
+                .map(rows -> {
+                    for (Row row : rows) {
+                        report.add(UnpaidStatus.valueOf(row.getString("unpaid_status")), row.getLong("total"));
+                    }
+                    report.setChunks(1);
+                    return report;
+                });
+    }
+
+    private Uni<OverdueProcessingReport> processChunk(LocalDate referenceDate, UUID cursor, OverdueProcessingReport report) {
+        return client.preparedQuery(UPDATE_CHUNK_SQL)
+                .execute(Tuple.of(referenceDate, cursor, batchSize))
+                .flatMap(rows -> {
+                    if (rows.size() == 0) {
+                        return Uni.createFrom().item(report);
+                    }
+                    report.setChunks(report.getChunks() + 1);
+                    UUID lastId = accumulate(rows, report);
+                    LOG.debugf("Lot %d d'impayés traité: %d prêts", report.getChunks(), rows.size());
+
+                    if (rows.size() < batchSize) {
+                        return Uni.createFrom().item(report);
+                    }
+                    return processChunk(referenceDate, lastId, report);
+                });
+    }
+
+    private UUID accumulate(RowSet<Row> rows, OverdueProcessingReport report) {
+        UUID lastId = null;
+        for (Row row : rows) {
+            report.add(UnpaidStatus.valueOf(row.getString("unpaid_status")), 1);
+            lastId = row.getUUID("id");
+        }
+        return lastId;
+    }
+}
@@ -0,0 +1,115 @@
+package africa.flot.application.service;
+
+import africa.flot.application.dto.command.ProcessPaymentCommand;
+import africa.flot.application.ports.DomainEventHandler;
+import africa.flot.domain.event.PaymentConfirmedEvent;
+import africa.flot.domain.model.LoanPayment;
+import africa.flot.domain.model.exception.BusinessException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.quarkus.hibernate.reactive.panache.Panache;
+import io.smallrye.mutiny.Uni;
+import io.vertx.pgclient.PgException;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import org.jboss.logging.Logger;
+
+/**
+ * Application des paiements confirmés sur les prêts.
+ *
+ * Tous les paiements (initiation réussie, validation OTP, webhook HUB2, réconciliation) passent
+ * par un {@link PaymentConfirmedEvent} dont l'agrégat est le prêt : le relais de l'outbox les
+ * applique un par un pour un même prêt, et en parallèle d'un prêt à l'autre. Le solde d'un prêt
+ * n'a donc qu'un seul écrivain, et la vérification de doublon ci-dessous ne peut pas être
+ * devancée par un paiement concurrent du même prêt.
+ *
+ * Un paiement qu'aucun réessai ne peut appliquer (prêt introuvable ou inactif) est refusé
+ * définitivement, pour ne pas retenir les paiements suivants du prêt.
+ */
+@ApplicationScoped
+public class PaymentConfirmedHandler implements DomainEventHandler<PaymentConfirmedEvent> {
+
+    private static final Logger LOG = Logger.getLogger(PaymentConfirmedHandler.class);
+
+    @Inject
+    FlotLoanService flotLoanService;
+
+    @Inject
+    UnpaidKpiSnapshotService kpiSnapshotService;
+
+    @Inject
+    MeterRegistry registry;
+
+    @Override
+    public Class<PaymentConfirmedEvent> eventType() {
+        return PaymentConfirmedEvent.class;
+    }
+
+    @Override
+    public Uni<Void> handle(PaymentConfirmedEvent event) {
+        // Transaction propre au handler : une violation d'unicité l'annule, puis est traitée comme un doublon.
+        // Les KPIs ne sont ajustés qu'une fois le paiement validé.
+        return Panache.withTransaction(() -> apply(event))
+                .invoke(kpiSnapshotService::apply)
+                .replaceWithVoid()
+                .onFailure(PaymentConfirmedHandler::isUniqueViolation).recoverWithItem(error -> {
+                    duplicate(event);
+                    return null;
+                })
+                .onFailure(BusinessException.class).transform(error -> {
+                    // Le client a été débité : le paiement doit être régularisé manuellement
+                    LOG.errorf("Paiement confirmé %s (intent %s, %.2f) non applicable au prêt %s: %s",
+                            event.getExternalReference(), event.getPaymentIntentId(), event.getAmount(),
+                            event.getLoanId(), error.getMessage());
+                    registry.counter("flot.payments.applied", "outcome", "rejected").increment();
+                    return new RejectedEventException(error.getMessage(), error);
+                });
+    }
+
+    // Ajustement des KPIs du paiement appliqué, null pour un doublon
+    private Uni<UnpaidKpiSnapshotService.Change> apply(PaymentConfirmedEvent event) {
+        // Un même paiement confirmé par plusieurs canaux (OTP et webhook, relais rejoué) n'est compté qu'une fois.
+        // La vérification évite l'échec attendu ; l'index unique (loan_id, payment_intent_id) reste la garantie.
+        return LoanPayment.count("loanId = ?1 and (externalReference = ?2 or paymentIntentId = ?3)",
+                        event.getLoanId(), event.getExternalReference(), event.getPaymentIntentId())
+                .flatMap(existing -> {
+                    if (existing > 0) {
+                        duplicate(event);
+                        return Uni.createFrom().nullItem();
+                    }
+                    ProcessPaymentCommand command = new ProcessPaymentCommand();
+                    command.setLoanId(event.getLoanId());
+                    command.setAmount(event.getAmount());
+                    command.setPaymentMethod(event.getPaymentMethod());
+                    command.setExternalReference(event.getExternalReference());
+                    command.setPaymentIntentId(event.getPaymentIntentId());
+                    command.setNotes(event.getNotes());
+                    command.setCreatedBy(event.getCreatedBy());
+                    return flotLoanService.processPayment(command)
+                            .invoke(kpiChange -> {
+                                LOG.infof("Paiement %s enregistré sur le prêt %s",
+                                        event.getExternalReference(), event.getLoanId());
+                                registry.counter("flot.payments.applied", "outcome", "applied").increment();
+                            });
+                });
+    }
+
+    private void duplicate(PaymentConfirmedEvent event) {
+        LOG.infof("Paiement %s (intent %s) déjà enregistré sur le prêt %s, ignoré",
+                event.getExternalReference(), event.getPaymentIntentId(), event.getLoanId());
+        registry.counter("flot.payments.applied", "outcome", "duplicate").increment();
+    }
+
+    // Violation de l'index unique des paiements, quelle que soit la couche qui l'enveloppe
+    static boolean isUniqueViolation(Throwable error) {
+        for (Throwable cause = error; cause != null; cause = cause.getCause()) {
+            if (cause instanceof PgException pg && "23505".equals(pg.getSqlState())
+                    && "uk_loan_payments_loan_intent".equals(pg.getConstraint())) {
+                return true;
+            }
+            if (cause.getCause() == cause) {
+                break;
+            }
+        }
+        return false;
+    }
+}
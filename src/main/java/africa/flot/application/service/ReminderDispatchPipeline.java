@@ -0,0 +1,192 @@
+package africa.flot.application.service;
+
+import africa.flot.application.dto.response.ReminderDispatchReport;
+import africa.flot.domain.model.FlotLoan;
+import africa.flot.domain.model.Lead;
+import africa.flot.domain.model.LoanReminder;
+import africa.flot.domain.model.enums.LoanStatus;
+import africa.flot.domain.model.enums.ReminderLevel;
+import africa.flot.domain.model.enums.ReminderStatus;
+import africa.flot.domain.model.enums.ReminderType;
+import africa.flot.domain.model.enums.UnpaidStatus;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.quarkus.hibernate.reactive.panache.Panache;
+import io.smallrye.mutiny.Multi;
+import io.smallrye.mutiny.Uni;
+import io.vertx.mutiny.core.Vertx;
+import jakarta.annotation.PostConstruct;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Collectors;
+
+/**
+ * Pipeline d'envoi des relances automatiques.
+ *
+ * Les prêts éligibles sont lus par pages (keyset sur l'id) avec leur lead, les relances sont
+ * préparées avec une concurrence bornée puis enregistrées par petits lots transactionnels ;
+ * les SMS sont mis en file d'envoi dans la même transaction et envoyés par
+ * {@link SmsOutboxDispatcher}. L'échec d'une relance n'affecte que le prêt concerné.
+ */
+@ApplicationScoped
+public class ReminderDispatchPipeline {
+
+    private static final Logger LOG = Logger.getLogger(ReminderDispatchPipeline.class);
+    private static final UUID FIRST_CURSOR = new UUID(0L, 0L);
+    private static final List<UnpaidStatus> ELIGIBLE_STATUSES = List.of(
+            UnpaidStatus.EN_RETARD, UnpaidStatus.RELANCE_1, UnpaidStatus.RELANCE_2, UnpaidStatus.RELANCE_TELEPHONE);
+
+    @Inject
+    UnpaidManagementService unpaidManagementService;
+
+    @Inject
+    UnpaidKpiSnapshotService kpiSnapshotService;
+
+    @Inject
+    MeterRegistry registry;
+
+    @Inject
+    Vertx vertx;
+
+    @ConfigProperty(name = "reminders.dispatch.page-size", defaultValue = "200")
+    int pageSize;
+
+    @ConfigProperty(name = "reminders.dispatch.concurrency", defaultValue = "4")
+    int concurrency;
+
+    @ConfigProperty(name = "reminders.dispatch.commit-batch-size", defaultValue = "20")
+    int commitBatchSize;
+
+    private Counter sentCounter;
+    private Counter failedCounter;
+    private Counter skippedCounter;
+
+    @PostConstruct
+    void init() {
+        sentCounter = outcomeCounter("sent");
+        failedCounter = outcomeCounter("failed");
+        skippedCounter = outcomeCounter("skipped");
+    }
+
+    private Counter outcomeCounter(String outcome) {
+        return Counter.builder("flot.reminders.dispatch")
+                .description("Relances automatiques traitées par résultat")
+                .tag("outcome", outcome)
+                .register(registry);
+    }
+
+    public Uni<ReminderDispatchReport> run() {
+        LOG.info("Envoi des relances automatiques...");
+
+        ReminderDispatchReport report = new ReminderDispatchReport();
+        LocalDate today = LocalDate.now();
+        AtomicReference<UUID> cursor = new AtomicReference<>(FIRST_CURSOR);
+        // Hibernate Reactive exige que la session soit utilisée sur le contexte Vert.x
+        Executor vertxExecutor = command -> vertx.getOrCreateContext().runOnContext(command);
+
+        return Multi.createBy().repeating()
+                .uni(() -> fetchPage(today, cursor).runSubscriptionOn(vertxExecutor))
+                .until(List::isEmpty)
+                .onItem().<FlotLoan>disjoint()
+                .select().where(loan -> {
+                    if (unpaidManagementService.shouldSendReminder(loan)) {
+                        return true;
+                    }
+                    report.getSkipped().incrementAndGet();
+                    skippedCounter.increment();
+                    return false;
+                })
+                .onItem().transformToUni(loan -> dispatch(loan, report)).merge(concurrency)
+                .emitOn(vertxExecutor)
+                .group().intoLists().of(commitBatchSize)
+                .onItem().transformToUniAndConcatenate(batch -> commit(batch, report))
+                .collect().last()
+                .replaceWith(report)
+                .invoke(r -> LOG.infof("Relances automatiques terminées: %s", r));
+    }
+
+    private Uni<List<FlotLoan>> fetchPage(LocalDate today, AtomicReference<UUID> cursor) {
+        return Panache.withSession(() -> FlotLoan.<FlotLoan>find(
+                                "FROM FlotLoan f JOIN FETCH f.lead " +
+                                        "WHERE f.status = ?1 AND f.unpaidStatus IN ?2 " +
+                                        "AND (f.nextReminderDueDate IS NULL OR f.nextReminderDueDate <= ?3) " +
+                                        "AND f.id > ?4 ORDER BY f.id",
+                                LoanStatus.ACTIVE, ELIGIBLE_STATUSES, today, cursor.get())
+                        .page(0, pageSize)
+                        .list())
+                .invoke(page -> {
+                    if (!page.isEmpty()) {
+                        cursor.set(page.get(page.size() - 1).getId());
+                    }
+                });
+    }
+
+    private Uni<Outcome> dispatch(FlotLoan loan, ReminderDispatchReport report) {
+        Lead lead = loan.getLead();
+        ReminderLevel level = unpaidManagementService.getNextReminderLevel(loan);
+        ReminderType type = unpaidManagementService.getPreferredReminderType(level);
+        LoanReminder reminder = unpaidManagementService.buildReminder(loan, lead, type, level,
+                unpaidManagementService.generateReminderMessage(loan, lead, level));
+
+        return unpaidManagementService.deliverReminder(reminder, lead)
+                .map(v -> new Outcome(loan.getId(), level, reminder, reminder.getStatus() != ReminderStatus.FAILED))
+                .onFailure().recoverWithItem(error -> {
+                    LOG.errorf(error, "Échec de la relance pour le prêt %s", loan.getId());
+                    reminder.markAsFailed(error.getMessage());
+                    return new Outcome(loan.getId(), level, reminder, false);
+                })
+                .invoke(outcome -> {
+                    if (outcome.delivered()) {
+                        report.getSent().incrementAndGet();
+                        sentCounter.increment();
+                    } else {
+                        report.getFailed().incrementAndGet();
+                        failedCounter.increment();
+                    }
+                });
+    }
+
+    /**
+     * Enregistre un lot de relances et met leurs SMS en file. Seuls les prêts dont la relance
+     * a abouti avancent d'un niveau ; les échecs restent éligibles au prochain passage.
+     */
+    private Uni<Void> commit(List<Outcome> batch, ReminderDispatchReport report) {
+        Map<UUID, ReminderLevel> deliveredLevels = batch.stream()
+                .filter(Outcome::delivered)
+                .collect(Collectors.toMap(Outcome::loanId, Outcome::level));
+        List<LoanReminder> reminders = batch.stream().map(Outcome::reminder).toList();
+        List<UnpaidKpiSnapshotService.Change> kpiChanges = new ArrayList<>();
+
+        return Panache.withTransaction(() -> {
+                    Uni<Void> loanUpdates = deliveredLevels.isEmpty()
+                            ? Uni.createFrom().voidItem()
+                            : FlotLoan.<FlotLoan>list("id IN ?1", deliveredLevels.keySet())
+                            .invoke(loans -> loans.forEach(loan -> kpiChanges.add(
+                                    unpaidManagementService.applyReminderToLoan(loan, deliveredLevels.get(loan.getId())))))
+                            .replaceWithVoid();
+                    return loanUpdates
+                            .chain(() -> LoanReminder.persist(reminders))
+                            .chain(() -> unpaidManagementService.queueSmsReminders(reminders));
+                })
+                // Les KPIs ne sont ajustés qu'une fois le lot validé
+                .invoke(() -> kpiChanges.forEach(kpiSnapshotService::apply))
+                .onFailure().recoverWithItem(error -> {
+                    LOG.errorf(error, "Échec de l'enregistrement d'un lot de %d relances", batch.size());
+                    report.getUncommitted().addAndGet(batch.size());
+                    return null;
+                });
+    }
+
+    private record Outcome(UUID loanId, ReminderLevel level, LoanReminder reminder, boolean delivered) {
+    }
+}
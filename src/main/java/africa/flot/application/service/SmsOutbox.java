@@ -0,0 +1,67 @@
+package africa.flot.application.service;
+
+import africa.flot.domain.model.SmsOutboxMessage;
+import africa.flot.domain.model.enums.SmsCategory;
+import africa.flot.infrastructure.service.JetfySmsService;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.quarkus.hibernate.reactive.panache.common.WithSession;
+import io.smallrye.mutiny.Uni;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * File d'envoi persistante des SMS.
+ *
+ * Les messages sont enregistrés dans la transaction de l'appelant : un SMS n'existe que si
+ * l'opération métier qui l'a produit est validée, et aucun appel au fournisseur n'est fait
+ * pendant la transaction. L'envoi est assuré par {@link SmsOutboxDispatcher}.
+ */
+@ApplicationScoped
+public class SmsOutbox {
+
+    @Inject
+    MeterRegistry registry;
+
+    public SmsOutboxMessage message(SmsCategory category, String recipient, String text, UUID referenceId) {
+        SmsOutboxMessage message = new SmsOutboxMessage();
+        message.setCategory(category);
+        message.setRecipient(recipient);
+        message.setMessage(text);
+        message.setSmsCount(JetfySmsService.calculateSmsCount(text));
+        message.setSensitive(category == SmsCategory.WELCOME);
+        message.setReferenceId(referenceId);
+        return message;
+    }
+
+    /**
+     * Met un SMS en file. Doit être appelé dans une transaction.
+     */
+    public Uni<SmsOutboxMessage> enqueue(SmsCategory category, String recipient, String text, UUID referenceId) {
+        SmsOutboxMessage message = message(category, recipient, text, referenceId);
+        return message.<SmsOutboxMessage>persist()
+                .invoke(() -> queued(category));
+    }
+
+    /**
+     * Met plusieurs SMS en file. Doit être appelé dans une transaction.
+     */
+    public Uni<Void> enqueueAll(List<SmsOutboxMessage> messages) {
+        if (messages.isEmpty()) {
+            return Uni.createFrom().voidItem();
+        }
+        return SmsOutboxMessage.persist(messages)
+                .invoke(() -> messages.forEach(message -> queued(message.getCategory())));
+    }
+
+    @WithSession
+    public Uni<SmsOutboxMessage> find(UUID id) {
+        return SmsOutboxMessage.findById(id);
+    }
+
+    private void queued(SmsCategory category) {
+        registry.counter("flot.sms.outbox", "category", category.name().toLowerCase(), "outcome", "queued").increment();
+    }
+}
@@ -0,0 +1,309 @@
+package africa.flot.application.service;
+
+import africa.flot.domain.model.enums.SmsCategory;
+import africa.flot.domain.model.enums.SmsOutboxStatus;
+import africa.flot.infrastructure.service.JetfySmsService;
+import africa.flot.infrastructure.service.SmsCreditLedger;
+import africa.flot.infrastructure.util.Backoff;
+import africa.flot.infrastructure.util.TokenBucket;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.quarkus.scheduler.Scheduled;
+import io.smallrye.mutiny.Multi;
+import io.smallrye.mutiny.Uni;
+import io.vertx.mutiny.pgclient.PgPool;
+import io.vertx.mutiny.sqlclient.Row;
+import io.vertx.mutiny.sqlclient.Tuple;
+import jakarta.annotation.PostConstruct;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import jakarta.ws.rs.WebApplicationException;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+/**
+ * Envoi des SMS de la file {@code sms_outbox}.
+ *
+ * Chaque worker réserve un lot de messages dus ({@code FOR UPDATE SKIP LOCKED}, avec une
+ * réservation limitée dans le temps), regroupe les messages identiques en envois Jetfy
+ * multi-destinataires lorsque c'est autorisé, puis enregistre l'état de chaque message par
+ * lot. Les échecs sont réessayés avec un backoff exponentiel ; un refus définitif du
+ * fournisseur ou l'épuisement des tentatives passe le message à {@code DEAD}. Plusieurs
+ * workers, sur une ou plusieurs instances, peuvent tourner sans envoyer deux fois un message.
+ */
+@ApplicationScoped
+public class SmsOutboxDispatcher {
+
+    private static final Logger LOG = Logger.getLogger(SmsOutboxDispatcher.class);
+
+    // $1 = maintenant, $2 = fin de réservation, $3 = taille du lot
+    private static final String CLAIM_DUE_SQL =
+            "UPDATE sms_outbox o SET status = 'SENDING', next_attempt_at = $2, updated_at = LOCALTIMESTAMP " +
+            "FROM (SELECT id FROM sms_outbox WHERE status IN ('PENDING', 'SENDING') AND next_attempt_at <= $1 " +
+            "ORDER BY next_attempt_at LIMIT $3 FOR UPDATE SKIP LOCKED) due " +
+            "WHERE o.id = due.id " +
+            "RETURNING o.id, o.category, o.recipient, o.message, o.sms_count, o.reference_id, o.attempts";
+
+    // Le contenu des messages sensibles (identifiants) n'est pas conservé après l'envoi ou l'abandon
+    private static final String UPDATE_MESSAGE_SQL =
+            "UPDATE sms_outbox SET status = $2, attempts = $3, next_attempt_at = $4, last_error = $5, sent_at = $6, " +
+            "message = CASE WHEN $2 IN ('SENT', 'DEAD') AND sensitive THEN NULL ELSE message END, " +
+            "updated_at = LOCALTIMESTAMP WHERE id = $1";
+
+    // $1 = limite de création : les messages sensibles plus anciens sont effacés, et abandonnés s'ils sont encore en file
+    private static final String PURGE_SENSITIVE_SQL =
+            "UPDATE sms_outbox SET message = NULL, " +
+            "status = CASE WHEN status IN ('PENDING', 'SENDING') THEN 'DEAD' ELSE status END, " +
+            "last_error = CASE WHEN status IN ('PENDING', 'SENDING') THEN 'Identifiants expirés avant envoi' ELSE last_error END, " +
+            "updated_at = LOCALTIMESTAMP WHERE sensitive AND message IS NOT NULL AND created_at < $1";
+
+    private static final String UPDATE_REMINDER_SQL =
+            "UPDATE loan_reminders SET status = 'FAILED', response_message = $2 WHERE id = $1 AND status = 'SENT'";
+
+    @Inject
+    PgPool client;
+
+    @Inject
+    JetfySmsService jetfySmsService;
+
+    @Inject
+    SmsCreditLedger creditLedger;
+
+    @Inject
+    MeterRegistry registry;
+
+    @ConfigProperty(name = "sms.outbox.workers", defaultValue = "2")
+    int workers;
+
+    @ConfigProperty(name = "sms.outbox.batch-size", defaultValue = "100")
+    int batchSize;
+
+    @ConfigProperty(name = "sms.outbox.concurrency", defaultValue = "4")
+    int concurrency;
+
+    @ConfigProperty(name = "sms.outbox.rate-per-second", defaultValue = "10")
+    double ratePerSecond;
+
+    @ConfigProperty(name = "sms.outbox.burst", defaultValue = "20")
+    int burst;
+
+    // 1 : un destinataire par requête ; au-delà, les messages identiques sont regroupés
+    @ConfigProperty(name = "sms.outbox.max-recipients-per-request", defaultValue = "1")
+    int maxRecipientsPerRequest;
+
+    @ConfigProperty(name = "sms.outbox.max-attempts", defaultValue = "8")
+    int maxAttempts;
+
+    @ConfigProperty(name = "sms.outbox.max-backoff-seconds", defaultValue = "1800")
+    int maxBackoffSeconds;
+
+    @ConfigProperty(name = "sms.outbox.lease-seconds", defaultValue = "120")
+    int leaseSeconds;
+
+    @ConfigProperty(name = "sms.outbox.sensitive-retention", defaultValue = "P2D")
+    Duration sensitiveRetention;
+
+    private TokenBucket rateLimiter;
+
+    @PostConstruct
+    void init() {
+        rateLimiter = new TokenBucket(ratePerSecond, burst);
+    }
+
+    @Scheduled(every = "${sms.outbox.every:2s}", identity = "sms-outbox-dispatcher",
+            concurrentExecution = Scheduled.ConcurrentExecution.SKIP)
+    Uni<Void> dispatch() {
+        return Multi.createFrom().range(0, workers)
+                .onItem().transformToUni(worker -> drainBatch()).merge(workers)
+                .collect().with(Collectors.summingInt(Integer::intValue))
+                .invoke(sent -> {
+                    if (sent > 0) {
+                        LOG.debugf("%d SMS traité(s) depuis la file d'envoi", sent);
+                    }
+                })
+                .onFailure().invoke(e -> LOG.error("Erreur lors de l'envoi des SMS en file", e))
+                .onFailure().recoverWithNull()
+                .replaceWithVoid();
+    }
+
+    /**
+     * Efface le contenu des messages sensibles restés en base au-delà de la rétention
+     * (SMS de bienvenue jamais envoyé, lignes antérieures à l'effacement à l'abandon).
+     */
+    @Scheduled(every = "${sms.outbox.purge-every:1h}", identity = "sms-outbox-sensitive-purge",
+            concurrentExecution = Scheduled.ConcurrentExecution.SKIP)
+    Uni<Void> purgeSensitive() {
+        return client.preparedQuery(PURGE_SENSITIVE_SQL)
+                .execute(Tuple.of(LocalDateTime.now().minus(sensitiveRetention)))
+                .invoke(rows -> {
+                    if (rows.rowCount() > 0) {
+                        LOG.infof("%d SMS sensible(s) effacé(s) de la file d'envoi", rows.rowCount());
+                        registry.counter("flot.sms.outbox", "category", "welcome", "outcome", "purged").increment(rows.rowCount());
+                    }
+                })
+                .onFailure().invoke(e -> LOG.error("Erreur lors de l'effacement des SMS sensibles", e))
+                .onFailure().recoverWithNull()
+                .replaceWithVoid();
+    }
+
+    private Uni<Integer> drainBatch() {
+        LocalDateTime now = LocalDateTime.now();
+        return client.preparedQuery(CLAIM_DUE_SQL)
+                .execute(Tuple.of(now, now.plusSeconds(leaseSeconds), batchSize))
+                .map(rows -> {
+                    List<ClaimedMessage> claimed = new ArrayList<>();
+                    rows.forEach(row -> claimed.add(ClaimedMessage.from(row)));
+                    return claimed;
+                })
+                .flatMap(claimed -> claimed.isEmpty()
+                        ? Uni.createFrom().item(0)
+                        : send(claimed).replaceWith(claimed.size()));
+    }
+
+    private Uni<Void> send(List<ClaimedMessage> claimed) {
+        int smsCount = claimed.stream().mapToInt(ClaimedMessage::smsCount).sum();
+        // Le crédit du lot est réservé d'avance ; la part des messages non envoyés est recréditée
+        return creditLedger.tryReserve(smsCount)
+                .flatMap(balanceOk -> {
+                    if (!balanceOk) {
+                        LOG.errorf("Solde SMS insuffisant pour %d message(s) en file, envoi reporté", claimed.size());
+                        return record(claimed.stream()
+                                .map(message -> Result.deferred(message, "Solde SMS insuffisant"))
+                                .toList());
+                    }
+                    return Multi.createFrom().iterable(group(claimed))
+                            .onItem().transformToUni(this::sendGroup).merge(concurrency)
+                            .onItem().<Result>disjoint()
+                            .collect().asList()
+                            .call(results -> creditLedger.refund(results.stream()
+                                    .filter(result -> !result.sent())
+                                    .mapToInt(result -> result.message().smsCount())
+                                    .sum()))
+                            .flatMap(this::record);
+                });
+    }
+
+    // Regroupe les messages au contenu identique, dans la limite de destinataires par requête
+    private List<List<ClaimedMessage>> group(List<ClaimedMessage> claimed) {
+        if (maxRecipientsPerRequest <= 1) {
+            return claimed.stream().map(List::of).toList();
+        }
+        Map<String, List<ClaimedMessage>> byText = new LinkedHashMap<>();
+        claimed.forEach(message -> byText.computeIfAbsent(message.message(), k -> new ArrayList<>()).add(message));
+        List<List<ClaimedMessage>> groups = new ArrayList<>();
+        for (List<ClaimedMessage> sameText : byText.values()) {
+            for (int i = 0; i < sameText.size(); i += maxRecipientsPerRequest) {
+                groups.add(sameText.subList(i, Math.min(i + maxRecipientsPerRequest, sameText.size())));
+            }
+        }
+        return groups;
+    }
+
+    private Uni<List<Result>> sendGroup(List<ClaimedMessage> group) {
+        List<String> recipients = group.stream().map(ClaimedMessage::recipient).toList();
+        return rateLimiter.throttle()
+                .chain(() -> jetfySmsService.deliver(recipients, group.get(0).message()))
+                .map(response -> group.stream().map(Result::sent).toList())
+                .onFailure().recoverWithItem(error -> {
+                    boolean permanent = isPermanent(error);
+                    LOG.warnf("Échec de l'envoi SMS à %s: %s", recipients, error.getMessage());
+                    return group.stream().map(message -> Result.failed(message, error.getMessage(), permanent)).toList();
+                });
+    }
+
+    // Refus explicite du fournisseur ou erreur client (hors 429) : un nouvel essai échouerait de la même façon
+    private static boolean isPermanent(Throwable error) {
+        if (error instanceof JetfySmsService.SmsRejectedException) {
+            return true;
+        }
+        if (error instanceof WebApplicationException wae) {
+            int status = wae.getResponse().getStatus();
+            return status >= 400 && status < 500 && status != 429;
+        }
+        return false;
+    }
+
+    /**
+     * Enregistre l'état de chaque message du lot, puis répercute les abandons de relances
+     * sur {@code loan_reminders} (une relance SMS est enregistrée à l'état SENT dès sa mise en file).
+     */
+    private Uni<Void> record(List<Result> results) {
+        LocalDateTime now = LocalDateTime.now();
+        List<Tuple> messageUpdates = new ArrayList<>(results.size());
+        List<Tuple> reminderUpdates = new ArrayList<>();
+
+        for (Result result : results) {
+            ClaimedMessage message = result.message();
+            SmsOutboxStatus status;
+            int attempts = result.counted() ? message.attempts() + 1 : message.attempts();
+            LocalDateTime nextAttemptAt = now;
+            if (result.sent()) {
+                status = SmsOutboxStatus.SENT;
+            } else if (result.permanent() || attempts >= maxAttempts) {
+                status = SmsOutboxStatus.DEAD;
+                LOG.errorf("SMS %s abandonné après %d tentative(s): %s", message.id(), attempts, result.error());
+            } else {
+                status = SmsOutboxStatus.PENDING;
+                nextAttemptAt = nextAttemptAt(Math.max(attempts, 1));
+            }
+            registry.counter("flot.sms.outbox", "category", message.category().name().toLowerCase(),
+                    "outcome", status == SmsOutboxStatus.PENDING ? "retried" : status.name().toLowerCase()).increment();
+
+            messageUpdates.add(Tuple.tuple()
+                    .addUUID(message.id())
+                    .addString(status.name())
+                    .addInteger(attempts)
+                    .addLocalDateTime(nextAttemptAt)
+                    .addString(result.error())
+                    .addLocalDateTime(result.sent() ? now : null));
+
+            if (message.category() == SmsCategory.REMINDER && message.referenceId() != null
+                    && status == SmsOutboxStatus.DEAD) {
+                reminderUpdates.add(Tuple.of(message.referenceId(), result.error()));
+            }
+        }
+
+        Uni<Void> reminders = reminderUpdates.isEmpty()
+                ? Uni.createFrom().voidItem()
+                : client.preparedQuery(UPDATE_REMINDER_SQL).executeBatch(reminderUpdates).replaceWithVoid();
+        return client.preparedQuery(UPDATE_MESSAGE_SQL).executeBatch(messageUpdates)
+                .replaceWithVoid()
+                .chain(() -> reminders);
+    }
+
+    private LocalDateTime nextAttemptAt(int attempts) {
+        return Backoff.nextAttemptAt(attempts, 15, maxBackoffSeconds, 10);
+    }
+
+    private record ClaimedMessage(UUID id, SmsCategory category, String recipient, String message,
+                                  int smsCount, UUID referenceId, int attempts) {
+        static ClaimedMessage from(Row row) {
+            return new ClaimedMessage(row.getUUID("id"), SmsCategory.valueOf(row.getString("category")),
+                    row.getString("recipient"), row.getString("message"), row.getInteger("sms_count"),
+                    row.getUUID("reference_id"), row.getInteger("attempts"));
+        }
+    }
+
+    // counted : la tentative compte dans le nombre maximal (un report pour solde insuffisant ne compte pas)
+    private record Result(ClaimedMessage message, boolean sent, String error, boolean permanent, boolean counted) {
+        static Result sent(ClaimedMessage message) {
+            return new Result(message, true, null, false, true);
+        }
+
+        static Result failed(ClaimedMessage message, String error, boolean permanent) {
+            return new Result(message, false, error, permanent, true);
+        }
+
+        static Result deferred(ClaimedMessage message, String error) {
+            return new Result(message, false, error, false, false);
+        }
+    }
+}
@@ -0,0 +1,314 @@
+package africa.flot.application.service;
+
+import africa.flot.application.dto.query.UnpaidKPIs;
+import africa.flot.domain.model.FlotLoan;
+import africa.flot.domain.model.LoanPayment;
+import africa.flot.domain.model.enums.LoanStatus;
+import io.smallrye.mutiny.Uni;
+import io.vertx.mutiny.pgclient.PgPool;
+import io.vertx.mutiny.sqlclient.Row;
+import io.vertx.mutiny.sqlclient.Tuple;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Instantané des KPIs d'impayés.
+ *
+ * Tous les indicateurs sont calculés en une seule passe groupée sur {@code flot_loans}
+ * (agrégats filtrés), joints aux paiements en retard du mois ; le montant recouvré du mois vient
+ * d'une sous-requête sur {@code loan_payments}. Un prêt est régularisé ce mois-ci s'il a reçu un
+ * paiement en retard depuis le début du mois et n'a plus d'impayé.
+ *
+ * L'instantané est servi depuis la mémoire tant qu'il a moins de {@code kpis.unpaid.max-staleness},
+ * et ajusté par delta ({@link Change}) à chaque paiement ou relance, une fois la transaction
+ * validée ; le recalcul complet périodique corrige toute dérive.
+ */
+@ApplicationScoped
+public class UnpaidKpiSnapshotService {
+
+    private static final Logger LOG = Logger.getLogger(UnpaidKpiSnapshotService.class);
+
+    // $1 = premier jour du mois en cours
+    private static final String SNAPSHOT_SQL = """
+            SELECT
+                COALESCE(SUM(f.overdue_amount) FILTER (WHERE f.overdue_amount > 0), 0) AS total_unpaid,
+                COUNT(*) FILTER (WHERE f.overdue_amount > 0) AS unpaid_count,
+                COUNT(*) FILTER (WHERE f.status = 'ACTIVE') AS active_count,
+                COALESCE(SUM(f.overdue_amount) FILTER (WHERE f.days_overdue BETWEEN 0 AND 7), 0) AS age_0_7,
+                COALESCE(SUM(f.overdue_amount) FILTER (WHERE f.days_overdue BETWEEN 8 AND 30), 0) AS age_8_30,
+                COALESCE(SUM(f.overdue_amount) FILTER (WHERE f.days_overdue > 30), 0) AS age_over_30,
+                COUNT(*) FILTER (WHERE f.overdue_amount > 0 AND f.reminder_level > 0) AS with_reminder,
+                COUNT(*) FILTER (WHERE f.overdue_amount > 0 AND f.reminder_level = 0) AS level_0,
+                COUNT(*) FILTER (WHERE f.overdue_amount > 0 AND f.reminder_level = 1) AS level_1,
+                COUNT(*) FILTER (WHERE f.overdue_amount > 0 AND f.reminder_level = 2) AS level_2,
+                COUNT(*) FILTER (WHERE f.overdue_amount > 0 AND f.reminder_level = 3) AS level_3,
+                COUNT(*) FILTER (WHERE f.overdue_amount > 0 AND f.reminder_level = 4) AS level_4,
+                COUNT(*) FILTER (WHERE f.overdue_amount <= 0 AND l.loan_id IS NOT NULL) AS regularized,
+                COALESCE(SUM(l.late_payments), 0)::bigint AS late_payments,
+                COALESCE(SUM(l.late_days), 0)::bigint AS late_days,
+                (SELECT COALESCE(SUM(p.amount), 0) FROM loan_payments p WHERE p.payment_date >= $1) AS recovered_month
+            FROM flot_loans f
+            LEFT JOIN (SELECT p.loan_id, COUNT(*) AS late_payments, SUM(p.days_overdue) AS late_days
+                       FROM loan_payments p WHERE p.payment_date >= $1 AND p.days_overdue > 0
+                       GROUP BY p.loan_id) l ON l.loan_id = f.id
+            """;
+
+    @Inject
+    PgPool client;
+
+    @ConfigProperty(name = "kpis.unpaid.max-staleness", defaultValue = "PT5M")
+    Duration maxStaleness;
+
+    private final AtomicReference<Counters> snapshot = new AtomicReference<>();
+    private final AtomicReference<Uni<Counters>> inFlight = new AtomicReference<>();
+
+    /**
+     * KPIs courants : instantané en mémoire s'il respecte la borne de fraîcheur,
+     * sinon recalcul (une seule requête partagée entre appelants concurrents).
+     */
+    public Uni<UnpaidKPIs> current() {
+        Counters counters = snapshot.get();
+        if (counters != null && counters.isFresh(maxStaleness)) {
+            return Uni.createFrom().item(counters.toKpis());
+        }
+        return load().map(Counters::toKpis);
+    }
+
+    public Uni<UnpaidKPIs> refresh() {
+        return load().map(Counters::toKpis);
+    }
+
+    /**
+     * Force un recalcul à la prochaine lecture, après une mise à jour en masse des prêts.
+     */
+    public void invalidate() {
+        snapshot.set(null);
+    }
+
+    /**
+     * Capture l'état d'un prêt avant modification, pour {@link #loanChanged} et {@link #paymentRecorded}.
+     */
+    public LoanState capture(FlotLoan loan) {
+        return new LoanState(loan.getStatus(), loan.getOverdueAmount(), loan.getDaysOverdue(), loan.getReminderLevel());
+    }
+
+    /**
+     * Ajustement dû à la modification d'un prêt (relance), à appliquer après validation.
+     */
+    public Change loanChanged(LoanState before, FlotLoan after) {
+        return new Change(before, capture(after), null, null, 0);
+    }
+
+    /**
+     * Ajustement dû à un paiement enregistré sur un prêt, à appliquer après validation.
+     */
+    public Change paymentRecorded(LoanState before, FlotLoan after, LoanPayment payment) {
+        Integer daysOverdue = payment.getDaysOverdue();
+        return new Change(before, capture(after), payment.getAmount(), payment.getPaymentDate(),
+                daysOverdue != null ? daysOverdue : 0);
+    }
+
+    /**
+     * Ajuste l'instantané une fois la transaction validée : une transaction annulée ne doit
+     * laisser aucune trace dans les KPIs.
+     */
+    public void apply(Change change) {
+        Counters counters = snapshot.get();
+        if (counters != null && change != null) {
+            counters.apply(change);
+        }
+    }
+
+    private Uni<Counters> load() {
+        Uni<Counters> pending = inFlight.get();
+        if (pending != null) {
+            return pending;
+        }
+
+        LocalDate startOfMonth = LocalDate.now().withDayOfMonth(1);
+        long start = System.currentTimeMillis();
+        Uni<Counters> query = client.preparedQuery(SNAPSHOT_SQL)
+                .execute(Tuple.of(startOfMonth))
+                .map(rows -> Counters.from(rows.iterator().next(), startOfMonth))
+                .invoke(counters -> {
+                    snapshot.set(counters);
+                    LOG.debugf("Instantané des KPIs d'impayés recalculé en %d ms", System.currentTimeMillis() - start);
+                })
+                .eventually(() -> inFlight.set(null))
+                .memoize().indefinitely();
+
+        if (inFlight.compareAndSet(null, query)) {
+            return query;
+        }
+        Uni<Counters> concurrent = inFlight.get();
+        return concurrent != null ? concurrent : query;
+    }
+
+    public record LoanState(LoanStatus status, BigDecimal overdueAmount, Integer daysOverdue, Integer reminderLevel) {
+
+        boolean unpaid() {
+            return overdueAmount != null && overdueAmount.signum() > 0;
+        }
+    }
+
+    /**
+     * Delta d'un prêt (et de son paiement éventuel) sur l'instantané.
+     */
+    public record Change(LoanState before, LoanState after, BigDecimal paymentAmount, LocalDate paymentDate,
+                         int paymentDaysOverdue) {
+    }
+
+    /**
+     * Compteurs bruts de l'instantané ; les pourcentages sont dérivés à la lecture.
+     */
+    private static final class Counters {
+        private final LocalDate month;
+        private final Instant computedAt = Instant.now();
+
+        private BigDecimal totalUnpaid;
+        private long unpaidCount;
+        private long activeCount;
+        private BigDecimal age0To7;
+        private BigDecimal age8To30;
+        private BigDecimal ageOver30;
+        private long withReminder;
+        private final long[] levels = new long[5];
+        private long regularized;
+        private long latePayments;
+        private long lateDays;
+        private BigDecimal recoveredThisMonth;
+
+        private Counters(LocalDate month) {
+            this.month = month;
+        }
+
+        static Counters from(Row row, LocalDate month) {
+            Counters c = new Counters(month);
+            c.totalUnpaid = row.getBigDecimal("total_unpaid");
+            c.unpaidCount = row.getLong("unpaid_count");
+            c.activeCount = row.getLong("active_count");
+            c.age0To7 = row.getBigDecimal("age_0_7");
+            c.age8To30 = row.getBigDecimal("age_8_30");
+            c.ageOver30 = row.getBigDecimal("age_over_30");
+            c.withReminder = row.getLong("with_reminder");
+            for (int level = 0; level < c.levels.length; level++) {
+                c.levels[level] = row.getLong("level_" + level);
+            }
+            c.regularized = row.getLong("regularized");
+            c.latePayments = row.getLong("late_payments");
+            c.lateDays = row.getLong("late_days");
+            c.recoveredThisMonth = row.getBigDecimal("recovered_month");
+            return c;
+        }
+
+        boolean isFresh(Duration maxStaleness) {
+            return month.equals(LocalDate.now().withDayOfMonth(1))
+                    && computedAt.plus(maxStaleness).isAfter(Instant.now());
+        }
+
+        synchronized void apply(Change change) {
+            apply(change.before(), -1);
+            apply(change.after(), 1);
+
+            LocalDate paymentDate = change.paymentDate();
+            if (change.paymentAmount() == null || paymentDate == null || paymentDate.isBefore(month)) {
+                return;
+            }
+            recoveredThisMonth = recoveredThisMonth.add(change.paymentAmount());
+            if (change.paymentDaysOverdue() > 0) {
+                latePayments++;
+                lateDays += change.paymentDaysOverdue();
+                // Un prêt déjà à jour avant ce paiement a pu être compté ; le recalcul complet tranche
+                if (change.before() != null && change.before().unpaid() && !change.after().unpaid()) {
+                    regularized++;
+                }
+            }
+        }
+
+        // Mêmes prédicats que SNAPSHOT_SQL
+        private void apply(LoanState state, int sign) {
+            if (state == null) {
+                return;
+            }
+            BigDecimal amount = state.overdueAmount() != null ? state.overdueAmount() : BigDecimal.ZERO;
+            BigDecimal signed = sign > 0 ? amount : amount.negate();
+
+            if (state.status() == LoanStatus.ACTIVE) {
+                activeCount += sign;
+            }
+            if (amount.signum() > 0) {
+                totalUnpaid = totalUnpaid.add(signed);
+                unpaidCount += sign;
+                Integer level = state.reminderLevel();
+                if (level != null && level > 0) {
+                    withReminder += sign;
+                }
+                if (level != null && level >= 0 && level < levels.length) {
+                    levels[level] += sign;
+                }
+            }
+            Integer days = state.daysOverdue();
+            if (days != null && days >= 0) {
+                if (days <= 7) {
+                    age0To7 = age0To7.add(signed);
+                } else if (days <= 30) {
+                    age8To30 = age8To30.add(signed);
+                } else {
+                    ageOver30 = ageOver30.add(signed);
+                }
+            }
+        }
+
+        synchronized UnpaidKPIs toKpis() {
+            UnpaidKPIs kpis = new UnpaidKPIs();
+
+            // État global
+            kpis.setTotalUnpaidAmount(totalUnpaid);
+            kpis.setUnpaidDriversCount((int) unpaidCount);
+            kpis.setUnpaidRate(activeCount > 0 ? (double) unpaidCount / activeCount * 100 : 0.0);
+
+            // Ancienneté des impayés
+            UnpaidKPIs.AgeRanges ranges = new UnpaidKPIs.AgeRanges();
+            ranges.setLessThan7Days(age0To7);
+            ranges.setBetween7And30Days(age8To30);
+            ranges.setMoreThan30Days(ageOver30);
+            kpis.setAgeRanges(ranges);
+
+            // Recouvrement
+            UnpaidKPIs.RecoveryStats recovery = new UnpaidKPIs.RecoveryStats();
+            recovery.setAmountRecoveredThisMonth(recoveredThisMonth);
+            // Prêts régularisés parmi ceux en retard ce mois-ci (toujours impayés ou régularisés)
+            long overdueThisMonth = regularized + unpaidCount;
+            recovery.setRegularizationPercentage(overdueThisMonth > 0 ? (double) regularized / overdueThisMonth * 100 : 0.0);
+            // Retard moyen des paiements en retard du mois, en jours
+            recovery.setAverageDaysToRegularization(latePayments > 0 ? (int) Math.round((double) lateDays / latePayments) : 0);
+            kpis.setRecoveryStats(recovery);
+
+            // Relances
+            long noReminder = levels[0];
+            long reminded = noReminder + withReminder;
+            UnpaidKPIs.ReminderDistribution distribution = new UnpaidKPIs.ReminderDistribution();
+            distribution.setNone((int) levels[0]);
+            distribution.setFirstReminder((int) levels[1]);
+            distribution.setSecondReminder((int) levels[2]);
+            distribution.setPhoneCall((int) levels[3]);
+            distribution.setFinalReminder((int) levels[4]);
+
+            UnpaidKPIs.ReminderStats reminders = new UnpaidKPIs.ReminderStats();
+            reminders.setPercentageWithoutReminder(reminded > 0 ? (double) noReminder / reminded * 100 : 0.0);
+            reminders.setPercentageWhatsappSent(reminded > 0 ? (double) withReminder / reminded * 100 : 0.0);
+            reminders.setDistribution(distribution);
+            kpis.setReminderStats(reminders);
+
+            return kpis;
+        }
+    }
+}
@@ -1,6 +1,8 @@
 package africa.flot.domain.event;
 
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
 import java.io.Serializable;
 import java.time.Instant;
 import java.util.UUID;
@@ -16,6 +18,14 @@ public abstract class DomainEvent implements Serializable {
         this.occurredOn = Instant.now();
     }
 
+    /**
+     * Reconstitue un événement relu depuis l'outbox.
+     */
+    protected DomainEvent(UUID eventId, Instant occurredOn) {
+        this.eventId = eventId != null ? eventId : UUID.randomUUID();
+        this.occurredOn = occurredOn != null ? occurredOn : Instant.now();
+    }
+
     public UUID getEventId() {
         return eventId;
     }
@@ -23,4 +33,10 @@ public abstract class DomainEvent implements Serializable {
     public Instant getOccurredOn() {
         return occurredOn;
     }
+
+    /**
+     * Agrégat concerné : les événements d'un même agrégat sont relayés dans l'ordre d'écriture.
+     */
+    @JsonIgnore
+    public abstract UUID getAggregateId();
 }
@@ -0,0 +1,87 @@
+package africa.flot.domain.event;
+
+import africa.flot.domain.model.enums.PaymentMethod;
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * Paiement confirmé par le fournisseur, à enregistrer sur le prêt.
+ */
+public class PaymentConfirmedEvent extends DomainEvent {
+
+    private final UUID loanId;
+    private final Double amount;
+    private final PaymentMethod paymentMethod;
+    private final String externalReference;
+    private final String paymentIntentId;
+    private final String notes;
+    private final String createdBy;
+
+    public PaymentConfirmedEvent(UUID loanId, Double amount, PaymentMethod paymentMethod, String externalReference,
+                                 String paymentIntentId, String notes, String createdBy) {
+        super();
+        this.loanId = loanId;
+        this.amount = amount;
+        this.paymentMethod = paymentMethod;
+        this.externalReference = externalReference;
+        this.paymentIntentId = paymentIntentId;
+        this.notes = notes;
+        this.createdBy = createdBy;
+    }
+
+    @JsonCreator
+    PaymentConfirmedEvent(@JsonProperty("eventId") UUID eventId,
+                          @JsonProperty("occurredOn") Instant occurredOn,
+                          @JsonProperty("loanId") UUID loanId,
+                          @JsonProperty("amount") Double amount,
+                          @JsonProperty("paymentMethod") PaymentMethod paymentMethod,
+                          @JsonProperty("externalReference") String externalReference,
+                          @JsonProperty("paymentIntentId") String paymentIntentId,
+                          @JsonProperty("notes") String notes,
+                          @JsonProperty("createdBy") String createdBy) {
+        super(eventId, occurredOn);
+        this.loanId = loanId;
+        this.amount = amount;
+        this.paymentMethod = paymentMethod;
+        this.externalReference = externalReference;
+        this.paymentIntentId = paymentIntentId;
+        this.notes = notes;
+        this.createdBy = createdBy;
+    }
+
+    public UUID getLoanId() {
+        return loanId;
+    }
+
+    public Double getAmount() {
+        return amount;
+    }
+
+    public PaymentMethod getPaymentMethod() {
+        return paymentMethod;
+    }
+
+    public String getExternalReference() {
+        return externalReference;
+    }
+
+    public String getPaymentIntentId() {
+        return paymentIntentId;
+    }
+
+    public String getNotes() {
+        return notes;
+    }
+
+    public String getCreatedBy() {
+        return createdBy;
+    }
+
+    @Override
+    public UUID getAggregateId() {
+        return loanId;
+    }
+}
@@ -1,5 +1,9 @@
 package africa.flot.domain.event;
 
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.time.Instant;
 import java.util.UUID;
 
 public class SubscriberCreatedEvent extends DomainEvent {
@@ -13,6 +17,16 @@ public class SubscriberCreatedEvent extends DomainEvent {
         this.email = email;
     }
 
+    @JsonCreator
+    SubscriberCreatedEvent(@JsonProperty("eventId") UUID eventId,
+                           @JsonProperty("occurredOn") Instant occurredOn,
+                           @JsonProperty("subscriberId") UUID subscriberId,
+                           @JsonProperty("email") String email) {
+        super(eventId, occurredOn);
+        this.subscriberId = subscriberId;
+        this.email = email;
+    }
+
     public UUID getSubscriberId() {
         return subscriberId;
     }
@@ -20,4 +34,9 @@ public class SubscriberCreatedEvent extends DomainEvent {
     public String getEmail() {
         return email;
     }
-}
\ No newline at end of file
+
+    @Override
+    public UUID getAggregateId() {
+        return subscriberId;
+    }
+}
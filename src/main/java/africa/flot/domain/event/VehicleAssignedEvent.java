@@ -1,5 +1,9 @@
 package africa.flot.domain.event;
 
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.time.Instant;
 import java.util.UUID;
 
 public class VehicleAssignedEvent extends DomainEvent {
@@ -13,6 +17,16 @@ public class VehicleAssignedEvent extends DomainEvent {
         this.subscriberId = subscriberId;
     }
 
+    @JsonCreator
+    VehicleAssignedEvent(@JsonProperty("eventId") UUID eventId,
+                         @JsonProperty("occurredOn") Instant occurredOn,
+                         @JsonProperty("vehicleId") UUID vehicleId,
+                         @JsonProperty("subscriberId") UUID subscriberId) {
+        super(eventId, occurredOn);
+        this.vehicleId = vehicleId;
+        this.subscriberId = subscriberId;
+    }
+
     public UUID getVehicleId() {
         return vehicleId;
     }
@@ -20,4 +34,9 @@ public class VehicleAssignedEvent extends DomainEvent {
     public UUID getSubscriberId() {
         return subscriberId;
     }
+
+    @Override
+    public UUID getAggregateId() {
+        return vehicleId;
+    }
 }
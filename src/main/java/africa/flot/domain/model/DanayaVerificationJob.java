@@ -0,0 +1,66 @@
+package africa.flot.domain.model;
+
+import africa.flot.domain.model.enums.VerificationJobStatus;
+import io.quarkus.hibernate.reactive.panache.PanacheEntityBase;
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Vérification Danaya en attente de résultat, interrogée par {@code DanayaVerificationTracker}.
+ */
+@Entity
+@Table(name = "danaya_verification_jobs", indexes = {
+        @Index(name = "idx_danaya_jobs_status_next_poll", columnList = "status, next_poll_at")
+})
+@Getter
+@Setter
+public class DanayaVerificationJob extends PanacheEntityBase {
+
+    @Id
+    private UUID id;
+
+    @Column(name = "lead_id", nullable = false)
+    private UUID leadId;
+
+    // clientFileToAnalyzeId retourné par Danaya à l'upload
+    @Column(name = "verification_id", nullable = false)
+    private UUID verificationId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "status", nullable = false)
+    private VerificationJobStatus status = VerificationJobStatus.PENDING;
+
+    @Column(name = "attempts", nullable = false)
+    private Integer attempts = 0;
+
+    @Column(name = "next_poll_at", nullable = false)
+    private LocalDateTime nextPollAt;
+
+    @Column(name = "last_error", columnDefinition = "TEXT")
+    private String lastError;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+
+    @Column(name = "completed_at")
+    private LocalDateTime completedAt;
+
+    @PrePersist
+    void onCreate() {
+        if (id == null) id = UUID.randomUUID();
+        if (createdAt == null) createdAt = LocalDateTime.now();
+        updatedAt = LocalDateTime.now();
+    }
+
+    @PreUpdate
+    void onUpdate() {
+        updatedAt = LocalDateTime.now();
+    }
+}
@@ -0,0 +1,76 @@
+package africa.flot.domain.model;
+
+import africa.flot.domain.model.enums.OutboxEventStatus;
+import io.quarkus.hibernate.reactive.panache.PanacheEntityBase;
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Événement de domaine enregistré dans la transaction de l'opération qui l'a produit,
+ * puis relayé vers ses handlers par {@code DomainEventRelay}.
+ */
+@Entity
+@Table(name = "domain_outbox", indexes = {
+        @Index(name = "idx_domain_outbox_status_next_attempt", columnList = "status, next_attempt_at"),
+        @Index(name = "idx_domain_outbox_aggregate_seq", columnList = "aggregate_id, seq")
+})
+@Getter
+@Setter
+public class DomainOutboxEvent extends PanacheEntityBase {
+
+    // Identifiant de l'événement (DomainEvent.eventId)
+    @Id
+    private UUID id;
+
+    // Ordre d'écriture, attribué par la base : départage les événements d'une même transaction
+    @Column(name = "seq", insertable = false, updatable = false, columnDefinition = "BIGSERIAL")
+    private Long seq;
+
+    @Column(name = "aggregate_id", nullable = false)
+    private UUID aggregateId;
+
+    @Column(name = "event_type", nullable = false)
+    private String eventType;
+
+    @Column(name = "payload", nullable = false, columnDefinition = "TEXT")
+    private String payload;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "status", nullable = false)
+    private OutboxEventStatus status = OutboxEventStatus.PENDING;
+
+    @Column(name = "attempts", nullable = false)
+    private Integer attempts = 0;
+
+    // Prochaine tentative, ou fin de réservation pour un événement en cours de relais
+    @Column(name = "next_attempt_at", nullable = false)
+    private LocalDateTime nextAttemptAt;
+
+    @Column(name = "last_error", columnDefinition = "TEXT")
+    private String lastError;
+
+    @Column(name = "occurred_at", nullable = false)
+    private LocalDateTime occurredAt;
+
+    @Column(name = "processed_at")
+    private LocalDateTime processedAt;
+
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+
+    @PrePersist
+    void onCreate() {
+        if (occurredAt == null) occurredAt = LocalDateTime.now();
+        if (nextAttemptAt == null) nextAttemptAt = occurredAt;
+        updatedAt = LocalDateTime.now();
+    }
+
+    @PreUpdate
+    void onUpdate() {
+        updatedAt = LocalDateTime.now();
+    }
+}
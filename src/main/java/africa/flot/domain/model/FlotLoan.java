@@ -13,7 +13,9 @@ import java.time.LocalDateTime;
 import java.util.UUID;
 
 @Entity
-@Table(name = "flot_loans")
+@Table(name = "flot_loans", indexes = {
+        @Index(name = "idx_flot_loans_created_at_id", columnList = "created_at, id")
+})
 @Getter
 @Setter
 public class FlotLoan extends PanacheEntityBase {
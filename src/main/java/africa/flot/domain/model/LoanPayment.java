@@ -14,7 +14,13 @@ import java.time.LocalDateTime;
 import java.util.UUID;
 
 @Entity
-@Table(name = "loan_payments")
+@Table(name = "loan_payments", indexes = {
+        @Index(name = "idx_loan_payments_loan_payment_date", columnList = "loan_id, payment_date, id"),
+        @Index(name = "idx_loan_payments_created_at_id", columnList = "created_at, id"),
+        // Détection des paiements déjà appliqués ; l'unicité (loan_id, payment_intent_id) est un index
+        // partiel créé au démarrage (SchemaConstraints)
+        @Index(name = "idx_loan_payments_loan_external_ref", columnList = "loan_id, external_reference")
+})
 @Getter
 @Setter
 public class LoanPayment extends PanacheEntityBase {
@@ -12,7 +12,9 @@ import java.time.LocalDateTime;
 import java.util.UUID;
 
 @Entity
-@Table(name = "loan_reminders")
+@Table(name = "loan_reminders", indexes = {
+        @Index(name = "idx_loan_reminders_loan_sent_at", columnList = "loan_id, sent_at, id")
+})
 @Getter
 @Setter
 public class LoanReminder extends PanacheEntityBase {
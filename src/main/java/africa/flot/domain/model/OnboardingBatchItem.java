@@ -0,0 +1,69 @@
+package africa.flot.domain.model;
+
+import africa.flot.domain.model.enums.OnboardingStep;
+import io.quarkus.hibernate.reactive.panache.PanacheEntityBase;
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Point de reprise d'un lead dans un lot d'onboarding Fineract (client, prêt, approbation, compte).
+ */
+@Entity
+@Table(name = "onboarding_batch_items", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_onboarding_batch_lead", columnNames = {"batch_id", "lead_id"})
+})
+@Getter
+@Setter
+public class OnboardingBatchItem extends PanacheEntityBase {
+
+    @Id
+    private UUID id;
+
+    @Column(name = "batch_id", nullable = false)
+    private UUID batchId;
+
+    @Column(name = "lead_id", nullable = false)
+    private UUID leadId;
+
+    @Column(name = "vehicle_id", nullable = false)
+    private UUID vehicleId;
+
+    @Column(name = "product_id", nullable = false)
+    private Integer productId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "step", nullable = false)
+    private OnboardingStep step = OnboardingStep.PENDING;
+
+    @Column(name = "fineract_client_id")
+    private Integer fineractClientId;
+
+    @Column(name = "attempts", nullable = false)
+    private Integer attempts = 0;
+
+    // Erreur de la dernière tentative ; null si l'étape courante a réussi
+    @Column(name = "last_error", columnDefinition = "TEXT")
+    private String lastError;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+
+    @PrePersist
+    void onCreate() {
+        if (id == null) id = UUID.randomUUID();
+        if (createdAt == null) createdAt = LocalDateTime.now();
+        updatedAt = LocalDateTime.now();
+    }
+
+    @PreUpdate
+    void onUpdate() {
+        updatedAt = LocalDateTime.now();
+    }
+}
@@ -0,0 +1,87 @@
+package africa.flot.domain.model;
+
+import africa.flot.domain.model.enums.SmsCategory;
+import africa.flot.domain.model.enums.SmsOutboxStatus;
+import io.quarkus.hibernate.reactive.panache.PanacheEntityBase;
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * SMS en attente d'envoi ou déjà traité.
+ *
+ * Les messages sont insérés dans la transaction métier qui les produit, puis envoyés par
+ * {@code SmsOutboxDispatcher} ; l'état de livraison est conservé par message.
+ */
+@Entity
+@Table(name = "sms_outbox", indexes = {
+        @Index(name = "idx_sms_outbox_status_next_attempt", columnList = "status, next_attempt_at"),
+        @Index(name = "idx_sms_outbox_reference", columnList = "reference_id")
+})
+@Getter
+@Setter
+public class SmsOutboxMessage extends PanacheEntityBase {
+
+    @Id
+    private UUID id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "category", nullable = false)
+    private SmsCategory category;
+
+    @Column(name = "recipient", nullable = false)
+    private String recipient;
+
+    // Effacé après l'envoi pour les messages sensibles (identifiants)
+    @Column(name = "message", columnDefinition = "TEXT")
+    private String message;
+
+    @Column(name = "sms_count", nullable = false)
+    private Integer smsCount;
+
+    @Column(name = "sensitive", nullable = false)
+    private boolean sensitive;
+
+    // Objet métier à l'origine du message (relance, compte...)
+    @Column(name = "reference_id")
+    private UUID referenceId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "status", nullable = false)
+    private SmsOutboxStatus status = SmsOutboxStatus.PENDING;
+
+    @Column(name = "attempts", nullable = false)
+    private Integer attempts = 0;
+
+    // Prochaine tentative, ou fin de réservation pour un message en cours d'envoi
+    @Column(name = "next_attempt_at", nullable = false)
+    private LocalDateTime nextAttemptAt;
+
+    @Column(name = "last_error", columnDefinition = "TEXT")
+    private String lastError;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    @Column(name = "sent_at")
+    private LocalDateTime sentAt;
+
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+
+    @PrePersist
+    void onCreate() {
+        if (id == null) id = UUID.randomUUID();
+        if (createdAt == null) createdAt = LocalDateTime.now();
+        if (nextAttemptAt == null) nextAttemptAt = createdAt;
+        updatedAt = LocalDateTime.now();
+    }
+
+    @PreUpdate
+    void onUpdate() {
+        updatedAt = LocalDateTime.now();
+    }
+}
@@ -0,0 +1,84 @@
+package africa.flot.domain.model;
+
+import africa.flot.domain.model.enums.InboxEventStatus;
+import io.quarkus.hibernate.reactive.panache.PanacheEntityBase;
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Événement de webhook reçu, conservé tel quel avant traitement asynchrone.
+ *
+ * Les lignes sont insérées par SQL direct ({@code ON CONFLICT DO NOTHING} sur la clé d'événement) ;
+ * l'entité sert à la définition du schéma et aux consultations.
+ */
+@Entity
+@Table(name = "webhook_inbox", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_webhook_inbox_event", columnNames = {"source", "event_key"})
+}, indexes = {
+        @Index(name = "idx_webhook_inbox_status_next_attempt", columnList = "status, next_attempt_at"),
+        @Index(name = "idx_webhook_inbox_ordering", columnList = "ordering_key, received_at")
+})
+@Getter
+@Setter
+public class WebhookInboxEvent extends PanacheEntityBase {
+
+    @Id
+    private UUID id;
+
+    @Column(name = "source", nullable = false)
+    private String source;
+
+    // Identifiant de l'événement chez l'émetteur, ou à défaut type + objet + statut
+    @Column(name = "event_key", nullable = false)
+    private String eventKey;
+
+    @Column(name = "event_type")
+    private String eventType;
+
+    // Les événements d'une même clé (intent de paiement) sont traités dans l'ordre de réception
+    @Column(name = "ordering_key", nullable = false)
+    private String orderingKey;
+
+    @Column(name = "payload", nullable = false, columnDefinition = "TEXT")
+    private String payload;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "status", nullable = false)
+    private InboxEventStatus status = InboxEventStatus.PENDING;
+
+    @Column(name = "attempts", nullable = false)
+    private Integer attempts = 0;
+
+    // Prochaine tentative, ou fin de réservation pour un événement en cours de traitement
+    @Column(name = "next_attempt_at", nullable = false)
+    private LocalDateTime nextAttemptAt;
+
+    @Column(name = "last_error", columnDefinition = "TEXT")
+    private String lastError;
+
+    @Column(name = "received_at", nullable = false)
+    private LocalDateTime receivedAt;
+
+    @Column(name = "processed_at")
+    private LocalDateTime processedAt;
+
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+
+    @PrePersist
+    void onCreate() {
+        if (id == null) id = UUID.randomUUID();
+        if (receivedAt == null) receivedAt = LocalDateTime.now();
+        if (nextAttemptAt == null) nextAttemptAt = receivedAt;
+        updatedAt = LocalDateTime.now();
+    }
+
+    @PreUpdate
+    void onUpdate() {
+        updatedAt = LocalDateTime.now();
+    }
+}
@@ -0,0 +1,9 @@
+package africa.flot.domain.model.enums;
+
+public enum InboxEventStatus {
+    PENDING,
+    PROCESSING,
+    PROCESSED,
+    // Abandonné après le nombre maximal de tentatives
+    DEAD
+}
@@ -0,0 +1,13 @@
+package africa.flot.domain.model.enums;
+
+/**
+ * Dernière étape franchie par un lead dans un lot d'onboarding Fineract.
+ * Une reprise du lot repart de l'étape suivante.
+ */
+public enum OnboardingStep {
+    PENDING,
+    CLIENT_CREATED,
+    LOAN_CREATED,
+    LOAN_APPROVED,
+    COMPLETED
+}
@@ -1,7 +1,7 @@
 package africa.flot.domain.model.enums;
 
 public enum ReminderStatus {
-    SENT,                 // Relance envoyée
+    SENT,                 // Relance envoyée (SMS : mise en file, voir sms_outbox)
     DELIVERED,            // Relance délivrée
     READ,                 // Relance lue
     ACKNOWLEDGED,         // Chauffeur a répondu
@@ -0,0 +1,7 @@
+package africa.flot.domain.model.enums;
+
+public enum SmsCategory {
+    WELCOME,     // Identifiants de connexion, contenu effacé après envoi
+    REMINDER,    // Relance d'impayé, référence la LoanReminder
+    ADHOC        // Envoi manuel depuis le back-office
+}
@@ -0,0 +1,9 @@
+package africa.flot.domain.model.enums;
+
+public enum SmsOutboxStatus {
+    PENDING,
+    SENDING,
+    SENT,
+    // Abandonné après le nombre maximal de tentatives ou refusé par le fournisseur
+    DEAD
+}
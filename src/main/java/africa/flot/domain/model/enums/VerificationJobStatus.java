@@ -0,0 +1,8 @@
+package africa.flot.domain.model.enums;
+
+public enum VerificationJobStatus {
+    PENDING,     // En attente du résultat Danaya
+    COMPLETED,   // Résultat reçu et enregistré
+    FAILED,      // Vérification en erreur côté Danaya
+    TIMED_OUT    // Nombre maximal d'interrogations atteint
+}
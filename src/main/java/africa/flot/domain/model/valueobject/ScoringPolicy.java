@@ -0,0 +1,58 @@
+package africa.flot.domain.model.valueobject;
+
+/**
+ * Paramètres de décision du scoring V2 : poids maximaux des trois composantes (40/40/20 dans la
+ * politique en vigueur), score total minimal d'acceptation et note minimale au test de conduite.
+ *
+ * Les barèmes de points (informations, activité VTC, note de test) restent ceux du scoring V2 ;
+ * un poids différent de celui du barème met la composante à l'échelle.
+ */
+public record ScoringPolicy(
+        String name,
+        double infoWeight,
+        double vtcWeight,
+        double testWeight,
+        double passingScore,
+        double minimumTestScore) {
+
+    // Maximum de chaque barème de points
+    public static final double INFO_SCALE = 40.0;
+    public static final double VTC_SCALE = 40.0;
+    public static final double TEST_SCALE = 20.0;
+
+    /**
+     * Composante « informations personnelles » à partir des points bruts du barème.
+     */
+    public double info(double points) {
+        return Math.min(Math.max(points, 0), INFO_SCALE) * infoWeight / INFO_SCALE;
+    }
+
+    /**
+     * Composante « activité VTC » à partir des points bruts du barème.
+     */
+    public double vtc(double points) {
+        return Math.min(Math.max(points, 0), VTC_SCALE) * vtcWeight / VTC_SCALE;
+    }
+
+    /**
+     * Note de test suffisante : présente ({@code NaN} sinon) et strictement supérieure à la note
+     * minimale. Indépendant du poids de la composante.
+     */
+    public boolean passesTest(double note) {
+        return !Double.isNaN(note) && note > minimumTestScore;
+    }
+
+    /**
+     * Composante « test de conduite » : nulle si la note n'est pas suffisante.
+     */
+    public double test(double note) {
+        return passesTest(note) ? Math.min(note, TEST_SCALE) * testWeight / TEST_SCALE : 0;
+    }
+
+    /**
+     * Acceptation : score total suffisant et note de test suffisante (refus automatique sinon).
+     */
+    public boolean approves(double total, boolean testPassed) {
+        return testPassed && total >= passingScore;
+    }
+}
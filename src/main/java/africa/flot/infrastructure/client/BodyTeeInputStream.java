@@ -0,0 +1,95 @@
+package africa.flot.infrastructure.client;
+
+import java.io.ByteArrayOutputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Copie au fil de la lecture les premiers octets d'un corps de réponse, sans le mettre
+ * en mémoire à l'avance. Le consommateur lit le flux d'origine ; la copie, bornée à
+ * {@code limit} octets, est transmise une seule fois, à la fin du flux ou à sa fermeture.
+ */
+final class BodyTeeInputStream extends FilterInputStream {
+
+    @FunctionalInterface
+    interface Completion {
+        void complete(String capturedBody, long totalBytes, boolean truncated);
+    }
+
+    private final int limit;
+    private final ByteArrayOutputStream capture;
+    private final Completion completion;
+    private long total;
+    private boolean truncated;
+    private boolean completed;
+
+    BodyTeeInputStream(InputStream in, int limit, Completion completion) {
+        super(in);
+        this.limit = limit;
+        this.capture = new ByteArrayOutputStream(Math.min(limit, 512));
+        this.completion = completion;
+    }
+
+    @Override
+    public int read() throws IOException {
+        int b = super.read();
+        if (b < 0) {
+            complete();
+        } else {
+            total++;
+            if (capture.size() < limit) {
+                capture.write(b);
+            } else {
+                truncated = true;
+            }
+        }
+        return b;
+    }
+
+    @Override
+    public int read(byte[] buffer, int offset, int length) throws IOException {
+        int n = super.read(buffer, offset, length);
+        if (n < 0) {
+            complete();
+        } else {
+            total += n;
+            int room = limit - capture.size();
+            if (room > 0) {
+                capture.write(buffer, offset, Math.min(n, room));
+            }
+            if (n > room) {
+                truncated = true;
+            }
+        }
+        return n;
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+        long skipped = super.skip(n);
+        if (skipped > 0) {
+            total += skipped;
+            truncated = true;
+        }
+        return skipped;
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            super.close();
+        } finally {
+            complete();
+        }
+    }
+
+    private void complete() {
+        if (completed) {
+            return;
+        }
+        completed = true;
+        completion.complete(capture.toString(StandardCharsets.UTF_8), total, truncated);
+    }
+}
@@ -23,7 +23,7 @@ import io.smallrye.mutiny.Uni;
 @RegisterRestClient(configKey = "fineract-api")
 @ClientHeaderParam(name = "fineract-platform-tenantid", value = "default")
 @RegisterProvider(FineractAuthenticationProvider.class)
-@RegisterProvider(FineractLoggingFilter.class)
+@RegisterProvider(HttpExchangeLoggingFilter.class)
 public interface FineractClient {
 
     /**
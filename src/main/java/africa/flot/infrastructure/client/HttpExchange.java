@@ -0,0 +1,21 @@
+package africa.flot.infrastructure.client;
+
+import java.util.Map;
+
+/**
+ * Échange HTTP avec un service externe, tel que transmis à {@link HttpExchangeRecorder}.
+ * Les en-têtes et corps sont déjà expurgés et tronqués ; les corps sont null hors échantillon.
+ *
+ * @param responseBytes taille réelle du corps de réponse lu, -1 si inconnue
+ */
+public record HttpExchange(String client,
+                           String method,
+                           String uri,
+                           int status,
+                           long durationMs,
+                           Map<String, String> requestHeaders,
+                           String requestBody,
+                           String responseBody,
+                           long responseBytes,
+                           boolean truncated) {
+}
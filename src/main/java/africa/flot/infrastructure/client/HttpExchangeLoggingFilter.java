@@ -0,0 +1,114 @@
+package africa.flot.infrastructure.client;
+
+import io.vertx.core.json.Json;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import jakarta.ws.rs.client.ClientRequestContext;
+import jakarta.ws.rs.client.ClientRequestFilter;
+import jakarta.ws.rs.client.ClientResponseContext;
+import jakarta.ws.rs.client.ClientResponseFilter;
+import org.jboss.logging.Logger;
+
+import java.lang.reflect.Method;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Transmet les échanges des clients REST à {@link HttpExchangeRecorder}.
+ *
+ * Le corps de réponse n'est jamais lu par le filtre : quand l'échange est capturé, le flux est
+ * enveloppé pour copier ses premiers octets pendant que le client REST le lit, et l'échange
+ * est enregistré à la fin de la lecture. Les autres échanges sont enregistrés sans corps,
+ * dès la réception des en-têtes.
+ */
+@ApplicationScoped
+public class HttpExchangeLoggingFilter implements ClientRequestFilter, ClientResponseFilter {
+
+    private static final Logger LOG = Logger.getLogger(HttpExchangeLoggingFilter.class);
+    private static final String START_PROPERTY = HttpExchangeLoggingFilter.class.getName() + ".start";
+    private static final String INVOKED_METHOD_PROPERTY = "org.eclipse.microprofile.rest.client.invokedMethod";
+
+    @Inject
+    HttpExchangeRecorder recorder;
+
+    @Override
+    public void filter(ClientRequestContext requestContext) {
+        requestContext.setProperty(START_PROPERTY, System.nanoTime());
+    }
+
+    @Override
+    public void filter(ClientRequestContext requestContext, ClientResponseContext responseContext) {
+        try {
+            String client = clientName(requestContext);
+            int status = responseContext.getStatus();
+            long durationMs = elapsedMillis(requestContext);
+            String method = requestContext.getMethod();
+            String uri = requestContext.getUri().toString();
+
+            if (!recorder.captureBodies(client, status)) {
+                recorder.record(new HttpExchange(client, method, uri, status, durationMs, null, null, null,
+                        responseContext.getLength(), false));
+                return;
+            }
+
+            int maxBodyBytes = recorder.maxBodyBytes();
+            Map<String, String> headers = requestHeaders(requestContext);
+            String requestBody = HttpExchangeRedactor.body(truncate(requestBody(requestContext), maxBodyBytes));
+
+            if (!responseContext.hasEntity()) {
+                recorder.record(new HttpExchange(client, method, uri, status, durationMs, headers, requestBody, null, 0, false));
+                return;
+            }
+            responseContext.setEntityStream(new BodyTeeInputStream(responseContext.getEntityStream(), maxBodyBytes,
+                    (body, totalBytes, truncated) -> recorder.record(new HttpExchange(client, method, uri, status, durationMs,
+                            headers, requestBody, HttpExchangeRedactor.body(body), totalBytes, truncated))));
+        } catch (RuntimeException e) {
+            // L'enregistrement ne doit jamais faire échouer l'appel
+            LOG.warnf("Enregistrement de l'échange HTTP impossible: %s", e.getMessage());
+        }
+    }
+
+    private static String clientName(ClientRequestContext requestContext) {
+        if (requestContext.getProperty(INVOKED_METHOD_PROPERTY) instanceof Method method) {
+            return method.getDeclaringClass().getSimpleName();
+        }
+        return requestContext.getUri().getHost();
+    }
+
+    private static long elapsedMillis(ClientRequestContext requestContext) {
+        if (requestContext.getProperty(START_PROPERTY) instanceof Long start) {
+            return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        }
+        return -1;
+    }
+
+    private static Map<String, String> requestHeaders(ClientRequestContext requestContext) {
+        Map<String, String> headers = new HashMap<>();
+        requestContext.getStringHeaders().forEach((name, values) ->
+                headers.put(name, HttpExchangeRedactor.header(name, String.join(",", values))));
+        return headers;
+    }
+
+    private static String requestBody(ClientRequestContext requestContext) {
+        if (!requestContext.hasEntity()) {
+            return null;
+        }
+        Object entity = requestContext.getEntity();
+        if (entity instanceof String text) {
+            return text;
+        }
+        try {
+            return Json.encode(entity);
+        } catch (RuntimeException e) {
+            return String.valueOf(entity);
+        }
+    }
+
+    private static String truncate(String value, int maxLength) {
+        if (value == null || value.length() <= maxLength) {
+            return value;
+        }
+        return value.substring(0, maxLength);
+    }
+}
@@ -0,0 +1,22 @@
+package africa.flot.infrastructure.client;
+
+/**
+ * Destination des échanges HTTP des clients REST (Fineract, Hub2, Jetfy).
+ *
+ * L'implémentation par défaut écrit une ligne JSON par échange dans la catégorie de log
+ * {@code HTTP_EXCHANGE} ; un autre bean CDI implémentant cette interface la remplace.
+ */
+public interface HttpExchangeRecorder {
+
+    /**
+     * Indique si les corps de cet échange doivent être capturés, une fois le statut connu.
+     */
+    boolean captureBodies(String client, int status);
+
+    /**
+     * Nombre maximal d'octets de corps conservés par échange.
+     */
+    int maxBodyBytes();
+
+    void record(HttpExchange exchange);
+}
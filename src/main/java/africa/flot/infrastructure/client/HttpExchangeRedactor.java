@@ -0,0 +1,39 @@
+package africa.flot.infrastructure.client;
+
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * Expurge les secrets des échanges HTTP avant leur enregistrement.
+ */
+final class HttpExchangeRedactor {
+
+    static final String MASK = "***";
+
+    private static final Set<String> SENSITIVE_HEADERS = Set.of(
+            "authorization", "proxy-authorization", "apikey", "x-api-key", "cookie", "set-cookie");
+
+    // Valeur d'un champ JSON sensible, y compris une valeur coupée par la troncature
+    private static final Pattern SENSITIVE_FIELD = Pattern.compile(
+            "(\"(?:password|passwordHash|temporaryPassword|passwd|pin|otp|token|accessToken|refreshToken"
+                    + "|apiKey|api_key|secret|clientSecret|authorization)\"\\s*:\\s*)\"(?:[^\"\\\\]|\\\\.)*(?:\"|$)",
+            Pattern.CASE_INSENSITIVE);
+
+    // Identifiants envoyés en clair dans le SMS de bienvenue
+    private static final Pattern SMS_PASSWORD = Pattern.compile("(Mot de passe\\s*:\\s*)\\S+");
+
+    private HttpExchangeRedactor() {
+    }
+
+    static String header(String name, String value) {
+        return SENSITIVE_HEADERS.contains(name.toLowerCase()) ? MASK : value;
+    }
+
+    static String body(String body) {
+        if (body == null || body.isEmpty()) {
+            return body;
+        }
+        String redacted = SENSITIVE_FIELD.matcher(body).replaceAll("$1\"" + MASK + "\"");
+        return SMS_PASSWORD.matcher(redacted).replaceAll("$1" + MASK);
+    }
+}
@@ -3,12 +3,14 @@ package africa.flot.infrastructure.client;
 import io.smallrye.mutiny.Uni;
 import jakarta.ws.rs.*;
 import jakarta.ws.rs.core.MediaType;
+import org.eclipse.microprofile.rest.client.annotation.RegisterProvider;
 import org.eclipse.microprofile.rest.client.inject.RegisterRestClient;
 
 import java.util.Map;
 
 //@RegisterRestClient(configKey = "hub2-api")
 @RegisterRestClient(baseUri = "https://api.hub2.com")
+@RegisterProvider(HttpExchangeLoggingFilter.class)
 @Path("/")
 public interface Hub2ApiClient {
 
@@ -4,9 +4,11 @@ import africa.flot.infrastructure.service.JetfySmsService;
 import io.smallrye.mutiny.Uni;
 import jakarta.ws.rs.*;
 import jakarta.ws.rs.core.MediaType;
+import org.eclipse.microprofile.rest.client.annotation.RegisterProvider;
 import org.eclipse.microprofile.rest.client.inject.RegisterRestClient;
 
 @RegisterRestClient(configKey = "jetfy-api")
+@RegisterProvider(HttpExchangeLoggingFilter.class)
 public interface JetfyClient {
     @POST
     @Path("/api/v1/sms/send")
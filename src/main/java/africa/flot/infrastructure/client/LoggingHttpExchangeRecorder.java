@@ -0,0 +1,78 @@
+package africa.flot.infrastructure.client;
+
+import io.quarkus.arc.DefaultBean;
+import io.vertx.core.json.JsonObject;
+import jakarta.enterprise.context.ApplicationScoped;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
+
+import java.util.HashMap;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Enregistre chaque échange sous forme d'une ligne JSON dans la catégorie {@code HTTP_EXCHANGE},
+ * servie par un handler de fichier asynchrone : le thread appelant ne fait que mettre la ligne
+ * en file. Les corps ne sont capturés que pour les erreurs et une fraction des autres échanges
+ * ({@code http.exchange.sample-rate}), ou pour tous si la catégorie est en DEBUG.
+ */
+@DefaultBean
+@ApplicationScoped
+public class LoggingHttpExchangeRecorder implements HttpExchangeRecorder {
+
+    private static final Logger EXCHANGE_LOG = Logger.getLogger("HTTP_EXCHANGE");
+
+    @ConfigProperty(name = "http.exchange.enabled", defaultValue = "true")
+    boolean enabled;
+
+    @ConfigProperty(name = "http.exchange.sample-rate", defaultValue = "0.05")
+    double sampleRate;
+
+    @ConfigProperty(name = "http.exchange.max-body-bytes", defaultValue = "2048")
+    int maxBodyBytes;
+
+    @Override
+    public boolean captureBodies(String client, int status) {
+        if (!enabled) {
+            return false;
+        }
+        // Les erreurs sont toujours capturées, les succès seulement par échantillon
+        return status >= 400 || EXCHANGE_LOG.isDebugEnabled() || ThreadLocalRandom.current().nextDouble() < sampleRate;
+    }
+
+    @Override
+    public int maxBodyBytes() {
+        return maxBodyBytes;
+    }
+
+    @Override
+    public void record(HttpExchange exchange) {
+        if (!enabled) {
+            return;
+        }
+        JsonObject line = new JsonObject()
+                .put("client", exchange.client())
+                .put("method", exchange.method())
+                .put("uri", exchange.uri())
+                .put("status", exchange.status())
+                .put("durationMs", exchange.durationMs());
+        if (exchange.responseBytes() >= 0) {
+            line.put("responseBytes", exchange.responseBytes());
+        }
+        if (exchange.requestHeaders() != null && !exchange.requestHeaders().isEmpty()) {
+            line.put("requestHeaders", new JsonObject(new HashMap<>(exchange.requestHeaders())));
+        }
+        if (exchange.requestBody() != null) {
+            line.put("requestBody", exchange.requestBody());
+        }
+        if (exchange.responseBody() != null) {
+            line.put("responseBody", exchange.responseBody());
+            line.put("truncated", exchange.truncated());
+        }
+
+        if (exchange.status() >= 400) {
+            EXCHANGE_LOG.warn(line.encode());
+        } else {
+            EXCHANGE_LOG.info(line.encode());
+        }
+    }
+}
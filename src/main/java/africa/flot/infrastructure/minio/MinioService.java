@@ -1,23 +1,31 @@
 package africa.flot.infrastructure.minio;
 
-import io.minio.GetObjectArgs;
+import io.minio.GetPresignedObjectUrlArgs;
 import io.minio.MinioClient;
+import io.minio.http.Method;
 import io.smallrye.mutiny.Uni;
-import io.smallrye.mutiny.infrastructure.Infrastructure;
 import io.smallrye.mutiny.unchecked.Unchecked;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.http.HttpClient;
+import io.vertx.core.http.HttpClientOptions;
+import io.vertx.core.http.HttpClientRequest;
+import io.vertx.core.http.HttpClientResponse;
+import io.vertx.core.http.HttpHeaders;
+import io.vertx.core.http.RequestOptions;
+import io.vertx.core.streams.ReadStream;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import jakarta.enterprise.context.ApplicationScoped;
 import jakarta.inject.Inject;
 import org.jboss.logging.Logger;
 
-import java.io.InputStream;
-import java.nio.file.Files;
-import java.nio.file.Path;
-import java.nio.file.StandardCopyOption;
+import java.util.concurrent.TimeUnit;
 
 @ApplicationScoped
 public class MinioService {
 
     private static final Logger LOG = Logger.getLogger(MinioService.class);
+    private static final int PRESIGNED_URL_EXPIRY_MINUTES = 5;
 
     @Inject
     MinioClient minioClient;
@@ -25,22 +33,75 @@ public class MinioService {
     @Inject
     io.vertx.mutiny.core.Vertx vertx;
 
-    public Uni<Path> getFile(String bucketName, String objectName, String outputPath) {
-        return vertx.executeBlocking(Uni.createFrom().item(Unchecked.supplier(() -> {
-            try (InputStream fileStream = minioClient.getObject(
-                    GetObjectArgs.builder()
-                            .bucket(bucketName)
-                            .object(objectName)
-                            .build()
-            )) {
-                Path filePath = Path.of(outputPath);
-                Files.copy(fileStream, filePath, StandardCopyOption.REPLACE_EXISTING);
-                LOG.infof("Fichier récupéré depuis Minio : %s [path=%s]", objectName, filePath);
-                return filePath;
-            } catch (Exception e) {
-                LOG.errorf("Erreur lors de la récupération du fichier %s depuis Minio : %s", objectName, e.getMessage());
-                throw new RuntimeException("Erreur lors de la récupération du fichier depuis Minio : " + e.getMessage(), e);
-            }
-        })));
+    private HttpClient httpClient;
+
+    @PostConstruct
+    void init() {
+        httpClient = vertx.getDelegate().createHttpClient(new HttpClientOptions().setConnectTimeout(5000));
+    }
+
+    @PreDestroy
+    void close() {
+        httpClient.close();
+    }
+
+    /**
+     * Ouvre le contenu d'un objet Minio sous forme de flux Vert.x, sans fichier temporaire.
+     *
+     * L'objet est lu via une URL présignée par le client HTTP non bloquant ; le flux est retourné
+     * en pause et doit être consommé (pipe) ou abandonné via {@link ObjectStream#discard()}.
+     */
+    public Uni<ObjectStream> openStream(String bucketName, String objectName) {
+        // La signature est locale ; seule la première résolution de région peut faire un appel réseau
+        return vertx.executeBlocking(Uni.createFrom().item(Unchecked.supplier(() -> minioClient.getPresignedObjectUrl(
+                        GetPresignedObjectUrlArgs.builder()
+                                .method(Method.GET)
+                                .bucket(bucketName)
+                                .object(objectName)
+                                .expiry(PRESIGNED_URL_EXPIRY_MINUTES, TimeUnit.MINUTES)
+                                .build()))))
+                .flatMap(url -> Uni.createFrom().<ObjectStream>emitter(emitter -> httpClient.request(new RequestOptions().setAbsoluteURI(url))
+                        .compose(HttpClientRequest::send)
+                        .onSuccess(response -> {
+                            response.pause();
+                            if (response.statusCode() != 200) {
+                                response.request().reset();
+                                emitter.fail(new RuntimeException(String.format(
+                                        "Erreur lors de la récupération du fichier depuis Minio : %s [status=%d]", objectName, response.statusCode())));
+                                return;
+                            }
+                            LOG.infof("Flux ouvert depuis Minio : %s", objectName);
+                            emitter.complete(new ObjectStream(response, contentLength(response), objectName));
+                        })
+                        .onFailure(emitter::fail)))
+                .onFailure().invoke(e -> LOG.errorf("Erreur lors de la récupération du fichier %s depuis Minio : %s", objectName, e.getMessage()));
+    }
+
+    private static long contentLength(HttpClientResponse response) {
+        String header = response.getHeader(HttpHeaders.CONTENT_LENGTH);
+        try {
+            return header != null ? Long.parseLong(header) : -1;
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    /**
+     * Flux d'un objet Minio ; {@code length} vaut -1 si la taille n'est pas connue.
+     */
+    public record ObjectStream(HttpClientResponse response, long length, String objectName) {
+
+        public ReadStream<Buffer> stream() {
+            return response;
+        }
+
+        public String fileName() {
+            int slash = objectName.lastIndexOf('/');
+            return slash >= 0 ? objectName.substring(slash + 1) : objectName;
+        }
+
+        public void discard() {
+            response.request().reset();
+        }
     }
 }
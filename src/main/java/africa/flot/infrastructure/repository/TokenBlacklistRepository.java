@@ -1,36 +1,191 @@
 package africa.flot.infrastructure.repository;
 
-import io.quarkus.redis.client.reactive.ReactiveRedisClient;
+import africa.flot.infrastructure.util.BloomFilter;
+import africa.flot.infrastructure.util.TokenHash;
+import io.quarkus.redis.datasource.ReactiveRedisDataSource;
+import io.quarkus.redis.datasource.keys.KeyScanArgs;
+import io.quarkus.runtime.StartupEvent;
+import io.quarkus.scheduler.Scheduled;
 import io.smallrye.mutiny.Uni;
 import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
 import jakarta.inject.Inject;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
 import org.jboss.logging.Logger;
 
-import java.util.List;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
 
+/**
+ * Blacklist des jetons révoqués.
+ *
+ * Les entrées Redis sont indexées par l'empreinte SHA-256 du jeton ({@code blacklist:<sha256>})
+ * et ne stockent plus le jeton brut. Chaque nœud tient un filtre de Bloom des empreintes
+ * révoquées, reconstruit depuis Redis au démarrage puis périodiquement, et alimenté par les
+ * notifications keyspace : une réponse négative du filtre évite l'aller-retour Redis. Les anciennes
+ * entrées {@code blacklist:<jeton brut>} sont migrées au chargement du filtre ; tant qu'il n'est
+ * pas chargé, elles sont aussi vérifiées directement.
+ */
 @ApplicationScoped
 public class TokenBlacklistRepository {
 
     private static final Logger LOG = Logger.getLogger(TokenBlacklistRepository.class);
 
     @Inject
-    ReactiveRedisClient redisClient;
+    ReactiveRedisDataSource redis;
 
     private static final String TOKEN_BLACKLIST_PREFIX = "blacklist:";
+    private static final int HASH_LENGTH = 64;
+
+    @ConfigProperty(name = "auth.blacklist.expected-entries", defaultValue = "100000")
+    long expectedEntries;
+
+    @ConfigProperty(name = "auth.blacklist.false-positive-rate", defaultValue = "0.001")
+    double falsePositiveRate;
+
+    // Active les notifications "set" sur les chaînes si l'instance Redis l'autorise (CONFIG SET)
+    @ConfigProperty(name = "auth.blacklist.configure-keyspace-events", defaultValue = "false")
+    boolean configureKeyspaceEvents;
+
+    // Filtre courant ; null tant qu'il n'a pas été chargé depuis Redis
+    private volatile BloomFilter filter;
+    // Filtre en cours de reconstruction, alimenté en parallèle du filtre courant
+    private volatile BloomFilter rebuilding;
+
+    void onStart(@Observes StartupEvent ev) {
+        Uni<Void> keyspaceConfig = configureKeyspaceEvents
+                ? redis.execute("CONFIG", "SET", "notify-keyspace-events", "E$")
+                .onFailure().invoke(e -> LOG.warnf("Activation des notifications keyspace impossible: %s", e.getMessage()))
+                .onFailure().recoverWithNull()
+                .replaceWithVoid()
+                : Uni.createFrom().voidItem();
+
+        keyspaceConfig.subscribe().with(v -> {
+            subscribeToKeyEvents();
+            rebuild().subscribe().with(
+                    count -> LOG.infof("Filtre de la blacklist chargé: %d jetons révoqués", count),
+                    e -> LOG.error("Chargement du filtre de la blacklist impossible, vérification via Redis", e));
+        });
+    }
 
     public Uni<Boolean> add(String token, long expirationTimeInSeconds) {
-        String redisKey = TOKEN_BLACKLIST_PREFIX + token;
-        return redisClient.setex(redisKey, String.valueOf(expirationTimeInSeconds), token)
-                .onItem().transform(response -> {
+        String hash = TokenHash.of(token);
+        return redis.value(String.class).setex(TOKEN_BLACKLIST_PREFIX + hash, expirationTimeInSeconds, "1")
+                .map(v -> {
+                    recordRevoked(hash);
                     LOG.info("Token ajouté à la blacklist avec une expiration de " + expirationTimeInSeconds + " secondes.");
-                    return response != null && response.toString().equalsIgnoreCase("OK");
+                    return true;
                 })
                 .onFailure().invoke(e -> LOG.error("Erreur lors de l'ajout du token à la blacklist", e));
     }
 
     public Uni<Boolean> isTokenBlacklisted(String token) {
-        String redisKey = TOKEN_BLACKLIST_PREFIX + token;
-        return redisClient.exists(List.of(redisKey))
-                .onItem().transform(response -> response.toInteger() > 0);
+        String hash = TokenHash.of(token);
+        BloomFilter current = filter;
+        if (current == null) {
+            // Filtre non chargé : les anciennes entrées "blacklist:<jeton brut>" ne sont peut-être pas encore migrées
+            return redis.key().exists(TOKEN_BLACKLIST_PREFIX + hash, TOKEN_BLACKLIST_PREFIX + token)
+                    .map(count -> count > 0);
+        }
+        if (!current.mightContain(hash)) {
+            return Uni.createFrom().item(false);
+        }
+        return redis.key().exists(TOKEN_BLACKLIST_PREFIX + hash);
+    }
+
+    /**
+     * Enregistre localement une révocation connue par un autre canal (pub/sub, notification keyspace).
+     */
+    public void recordRevoked(String hash) {
+        BloomFilter current = filter;
+        if (current != null) {
+            current.put(hash);
+        }
+        BloomFilter next = rebuilding;
+        if (next != null) {
+            next.put(hash);
+        }
+    }
+
+    /**
+     * Le filtre de Bloom ne supporte pas la suppression : il est reconstruit périodiquement
+     * pour oublier les jetons expirés.
+     */
+    @Scheduled(every = "${auth.blacklist.rebuild-interval:1h}", delayed = "${auth.blacklist.rebuild-interval:1h}",
+            identity = "rebuild-token-blacklist-filter")
+    Uni<Void> scheduledRebuild() {
+        return rebuild()
+                .invoke(count -> LOG.debugf("Filtre de la blacklist reconstruit: %d jetons révoqués", count))
+                .onFailure().invoke(e -> LOG.warnf("Reconstruction du filtre de la blacklist impossible: %s", e.getMessage()))
+                .onFailure().recoverWithNull()
+                .replaceWithVoid();
+    }
+
+    private Uni<Long> rebuild() {
+        BloomFilter next = new BloomFilter(expectedEntries, falsePositiveRate);
+        rebuilding = next;
+        AtomicLong count = new AtomicLong();
+
+        return redis.key().scan(new KeyScanArgs().match(TOKEN_BLACKLIST_PREFIX + "*").count(1000))
+                .toMulti()
+                .onItem().transformToUniAndConcatenate(key -> {
+                    String suffix = key.substring(TOKEN_BLACKLIST_PREFIX.length());
+                    if (isHash(suffix)) {
+                        next.put(suffix);
+                        count.incrementAndGet();
+                        return Uni.createFrom().voidItem();
+                    }
+                    return migrateLegacyEntry(key, suffix).invoke(hash -> {
+                        next.put(hash);
+                        count.incrementAndGet();
+                    }).replaceWithVoid();
+                })
+                .collect().last()
+                .map(v -> {
+                    filter = next;
+                    rebuilding = null;
+                    return count.get();
+                })
+                .onFailure().invoke(() -> rebuilding = null);
+    }
+
+    // Anciennes entrées "blacklist:<jeton brut>" : réécrites sous l'empreinte avec le TTL restant
+    private Uni<String> migrateLegacyEntry(String key, String token) {
+        String hash = TokenHash.of(token);
+        return redis.key().ttl(key)
+                .chain(ttl -> {
+                    if (ttl > 0) {
+                        return redis.value(String.class).setex(TOKEN_BLACKLIST_PREFIX + hash, ttl, "1");
+                    }
+                    // -1 : entrée sans expiration, conservée telle quelle ; -2 : entrée déjà expirée
+                    return ttl == -1
+                            ? redis.value(String.class).set(TOKEN_BLACKLIST_PREFIX + hash, "1")
+                            : Uni.createFrom().voidItem();
+                })
+                .chain(() -> redis.key().del(key))
+                .replaceWith(hash);
+    }
+
+    private void subscribeToKeyEvents() {
+        redis.pubsub(String.class)
+                .subscribeToPattern("__keyevent@*__:set")
+                .select().where(key -> key.startsWith(TOKEN_BLACKLIST_PREFIX))
+                .map(key -> key.substring(TOKEN_BLACKLIST_PREFIX.length()))
+                .select().where(TokenBlacklistRepository::isHash)
+                .onFailure().retry().withBackOff(Duration.ofSeconds(1), Duration.ofSeconds(30)).indefinitely()
+                .subscribe().with(this::recordRevoked,
+                        e -> LOG.error("Abonnement aux notifications de la blacklist abandonné", e));
+    }
+
+    private static boolean isHash(String value) {
+        if (value.length() != HASH_LENGTH) {
+            return false;
+        }
+        for (int i = 0; i < HASH_LENGTH; i++) {
+            if (Character.digit(value.charAt(i), 16) < 0) {
+                return false;
+            }
+        }
+        return true;
     }
-}
\ No newline at end of file
+}
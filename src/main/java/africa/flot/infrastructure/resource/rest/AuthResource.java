@@ -4,6 +4,7 @@ import africa.flot.application.auth.AdminAuthCommand;
 import africa.flot.application.auth.SubscriberAuthCommand;
 import africa.flot.application.dto.command.ChangePasswordCommand;
 import africa.flot.infrastructure.security.AuthService;
+import africa.flot.infrastructure.security.HashingSaturatedException;
 import africa.flot.infrastructure.util.ApiResponseBuilder;
 import io.minio.MinioClient;
 import io.quarkus.hibernate.reactive.panache.common.WithSession;
@@ -26,6 +27,7 @@ import org.eclipse.microprofile.openapi.annotations.tags.Tag;
 import org.jboss.logging.Logger;
 
 import java.time.Duration;
+import java.util.UUID;
 
 @Path("/auth")
 @ApplicationScoped
@@ -58,6 +60,7 @@ public class AuthResource {
     @APIResponse(responseCode = "200", description = "Authentication successful", content = @Content(mediaType = MediaType.APPLICATION_JSON))
     @APIResponse(responseCode = "401", description = "Invalid credentials", content = @Content(mediaType = MediaType.APPLICATION_JSON))
     @APIResponse(responseCode = "400", description = "Invalid input", content = @Content(mediaType = MediaType.APPLICATION_JSON))
+    @APIResponse(responseCode = "429", description = "Authentication service saturated", content = @Content(mediaType = MediaType.APPLICATION_JSON))
     public Uni<Response> loginSubscriber(SubscriberAuthCommand command) {
         if (command == null || command.phone() == null || command.password() == null) {
             ERROR_LOG.warn("loginSubscriber: Invalid command received, phone or password is null");
@@ -82,6 +85,10 @@ public class AuthResource {
                         ERROR_LOG.warn("loginSubscriber: Authentication failed for phone: " + command.phone());
                         return Uni.createFrom().item(ApiResponseBuilder.failure("Invalid credentials", Response.Status.UNAUTHORIZED));
                     }
+                })
+                .onFailure(HashingSaturatedException.class).recoverWithItem(e -> {
+                    ERROR_LOG.warn("loginSubscriber: Password hashing saturated, rejecting login for phone: " + command.phone());
+                    return ApiResponseBuilder.failure(e.getMessage(), Response.Status.TOO_MANY_REQUESTS);
                 });
     }
 
@@ -94,6 +101,7 @@ public class AuthResource {
     @APIResponse(responseCode = "200", description = "Authentication successful", content = @Content(mediaType = MediaType.APPLICATION_JSON))
     @APIResponse(responseCode = "401", description = "Invalid credentials or session", content = @Content(mediaType = MediaType.APPLICATION_JSON))
     @APIResponse(responseCode = "400", description = "Invalid input", content = @Content(mediaType = MediaType.APPLICATION_JSON))
+    @APIResponse(responseCode = "429", description = "Authentication service saturated", content = @Content(mediaType = MediaType.APPLICATION_JSON))
     public Uni<Response> loginAdmin(AdminAuthCommand command) {
         if (command == null || command.email() == null || command.apiKey() == null || command.sessionId() == null) {
             ERROR_LOG.warn("loginAdmin: email, API Key, or session ID is null");
@@ -109,6 +117,9 @@ public class AuthResource {
                 ERROR_LOG.warn("loginAdmin: Authentication failed for email: " + command.email());
                 return ApiResponseBuilder.failure("Invalid credentials or session", Response.Status.UNAUTHORIZED);
             }
+        }).onFailure(HashingSaturatedException.class).recoverWithItem(e -> {
+            ERROR_LOG.warn("loginAdmin: Password hashing saturated, rejecting login for email: " + command.email());
+            return ApiResponseBuilder.failure(e.getMessage(), Response.Status.TOO_MANY_REQUESTS);
         });
     }
 
@@ -146,6 +157,19 @@ public class AuthResource {
         });
     }
 
+    @POST
+    @Path("/profile-cache/lead/{leadId}/invalidate")
+    @RolesAllowed("ADMIN")
+    @Operation(summary = "Invalidate a cached profile", description = "Drops the cached /me profile and photo URL of a lead after a profile or photo change.")
+    @APIResponse(responseCode = "200", description = "Profile cache invalidated", content = @Content(mediaType = MediaType.APPLICATION_JSON))
+    public Uni<Response> invalidateProfile(@PathParam("leadId") UUID leadId) {
+        return authService.invalidateLeadProfile(leadId)
+                .map(v -> {
+                    AUDIT_LOG.info("invalidateProfile: Profile cache invalidated for lead: " + leadId);
+                    return ApiResponseBuilder.success();
+                });
+    }
+
     @POST
     @Path("/logout")
     @RolesAllowed({"SUBSCRIBER", "ADMIN"})
@@ -184,6 +208,7 @@ public class AuthResource {
     @APIResponse(responseCode = "200", description = "Password changed successfully", content = @Content(mediaType = MediaType.APPLICATION_JSON))
     @APIResponse(responseCode = "400", description = "Invalid input", content = @Content(mediaType = MediaType.APPLICATION_JSON))
     @APIResponse(responseCode = "401", description = "User not authenticated", content = @Content(mediaType = MediaType.APPLICATION_JSON))
+    @APIResponse(responseCode = "429", description = "Authentication service saturated", content = @Content(mediaType = MediaType.APPLICATION_JSON))
     public Uni<Response> changePassword(@Context SecurityContext securityContext, ChangePasswordCommand command) {
         if (command == null || command.getOldPassword() == null || command.getNewPassword() == null) {
             ERROR_LOG.warn("changePassword: Invalid input provided for password change");
@@ -1,7 +1,10 @@
 package africa.flot.infrastructure.resource.rest;
 
+import africa.flot.application.dto.command.BatchOnboardingCommande;
 import africa.flot.application.dto.command.InitLoanCommande;
+import africa.flot.domain.model.exception.BusinessException;
 import africa.flot.infrastructure.service.FeneractServiceClientImpl;
+import africa.flot.infrastructure.service.FineractOnboardingBatchService;
 import africa.flot.infrastructure.util.ApiResponseBuilder;
 import io.smallrye.mutiny.Uni;
 import jakarta.annotation.security.RolesAllowed;
@@ -17,6 +20,8 @@ import org.eclipse.microprofile.openapi.annotations.media.Schema;
 import org.eclipse.microprofile.openapi.annotations.tags.Tag;
 import org.jboss.logging.Logger;
 
+import java.util.UUID;
+
 @Path("/clients")
 @Produces(MediaType.APPLICATION_JSON)
 @Consumes(MediaType.APPLICATION_JSON)
@@ -31,6 +36,9 @@ public class ClientResource {
     @Inject
     FeneractServiceClientImpl fineractService;
 
+    @Inject
+    FineractOnboardingBatchService onboardingBatchService;
+
     @POST
     @RolesAllowed("ADMIN")
     @Operation(summary = "Create a client", description = "Creates a new client in the system.")
@@ -59,4 +67,45 @@ public class ClientResource {
                             Response.Status.INTERNAL_SERVER_ERROR);
                 });
     }
+
+    @POST
+    @Path("/batch")
+    @RolesAllowed("ADMIN")
+    @Operation(summary = "Onboard a cohort of clients",
+            description = "Creates Fineract clients and approved loans for a list of leads. "
+                    + "Sending the same batchId again resumes each lead from its last completed step.")
+    @APIResponse(
+            responseCode = "200",
+            description = "Per-lead onboarding results",
+            content = @Content(mediaType = MediaType.APPLICATION_JSON)
+    )
+    public Uni<Response> onboardBatch(
+            @RequestBody(description = "Leads, vehicles and products to onboard", required = true) BatchOnboardingCommande command) {
+        BUSINESS_LOG.info("Starting batch client onboarding");
+        return onboardingBatchService.onboard(command)
+                .onItem().transform(report -> {
+                    AUDIT_LOG.info("Batch onboarding " + report.getBatchId() + ": "
+                            + report.getCompleted() + "/" + report.getTotal() + " clients onboarded");
+                    return ApiResponseBuilder.success(report);
+                })
+                .onFailure().recoverWithItem(throwable -> {
+                    ERROR_LOG.error("Error occurred during batch onboarding", throwable);
+                    return ApiResponseBuilder.failure(
+                            throwable.getMessage(),
+                            throwable instanceof BusinessException
+                                    ? Response.Status.BAD_REQUEST
+                                    : Response.Status.INTERNAL_SERVER_ERROR);
+                });
+    }
+
+    @GET
+    @Path("/batch/{batchId}")
+    @RolesAllowed("ADMIN")
+    @Operation(summary = "Get batch onboarding status", description = "Returns the checkpoint of each lead in the batch.")
+    public Uni<Response> getBatchStatus(@PathParam("batchId") UUID batchId) {
+        return onboardingBatchService.status(batchId)
+                .onItem().transform(report -> report.getTotal() == 0
+                        ? ApiResponseBuilder.failure("Batch not found", Response.Status.NOT_FOUND)
+                        : ApiResponseBuilder.success(report));
+    }
 }
@@ -1,6 +1,7 @@
 package africa.flot.infrastructure.resource.rest;
 
 import africa.flot.application.dto.command.DocumentRequest;
+import africa.flot.domain.model.enums.VerificationJobStatus;
 import africa.flot.infrastructure.repository.LeadRepository;
 import africa.flot.infrastructure.service.dayana.DanayaService;
 import africa.flot.infrastructure.util.ApiResponseBuilder;
@@ -39,15 +40,20 @@ public class DocumentResource {
     @POST
     @Path("/verify")
     @RolesAllowed("ADMIN")
-    @Operation(summary = "Verify documents", description = "Verifies a lead's documents using the Danaya service.")
+    @Operation(summary = "Verify documents", description = "Uploads a lead's documents to Danaya and returns a verification job to poll.")
+    @APIResponse(
+            responseCode = "202",
+            description = "Verification started",
+            content = @Content(mediaType = MediaType.APPLICATION_JSON)
+    )
     @APIResponse(
             responseCode = "200",
-            description = "Verification successful",
+            description = "Lead already verified",
             content = @Content(mediaType = MediaType.APPLICATION_JSON)
     )
     @APIResponse(
             responseCode = "400",
-            description = "Invalid input or verification failure",
+            description = "Invalid input or upload failure",
             content = @Content(mediaType = MediaType.APPLICATION_JSON)
     )
     @APIResponse(
@@ -60,14 +66,16 @@ public class DocumentResource {
         BUSINESS_LOG.info("Starting document verification for lead: " + request.getLeadId());
         return leadRepository.existsById(request.getLeadId())
                 .flatMap(exists -> exists ?
-                        danayaService.verifyIdDocumentWithPolling(
+                        danayaService.startVerification(
                                         request.getBucketName(),
                                         request.getFrontImageName(),
                                         request.getBackImageName(),
                                         request.getLeadId()
                                 )
-                                .onItem().invoke(result -> AUDIT_LOG.info("Document verification succeeded for lead: " + request.getLeadId()))
-                                .onItem().transform(ApiResponseBuilder::success)
+                                .onItem().invoke(job -> AUDIT_LOG.info("Document verification started for lead: " + request.getLeadId() + ", job: " + job.getJobId()))
+                                .onItem().transform(job -> job.getStatus() == VerificationJobStatus.COMPLETED
+                                        ? ApiResponseBuilder.success(job)
+                                        : ApiResponseBuilder.success(job, Response.Status.ACCEPTED))
                                 .onFailure().recoverWithItem(throwable -> {
                                     ERROR_LOG.error("Document verification failed for lead: " + request.getLeadId(), throwable);
                                     return ApiResponseBuilder.failure(throwable.getMessage(), Response.Status.BAD_REQUEST);
@@ -76,6 +84,32 @@ public class DocumentResource {
                 );
     }
 
+    @GET
+    @Path("/verify/{jobId}")
+    @RolesAllowed("ADMIN")
+    @Operation(summary = "Get verification job", description = "Returns the status of a document verification job and its result once completed.")
+    @APIResponse(
+            responseCode = "200",
+            description = "Verification job retrieved",
+            content = @Content(mediaType = MediaType.APPLICATION_JSON)
+    )
+    @APIResponse(
+            responseCode = "404",
+            description = "Verification job not found",
+            content = @Content(mediaType = MediaType.APPLICATION_JSON)
+    )
+    public Uni<Response> getVerificationJob(
+            @PathParam("jobId") @Schema(description = "UUID of the verification job", required = true) UUID jobId) {
+        return danayaService.getVerificationJob(jobId)
+                .onItem().transform(ApiResponseBuilder::success)
+                .onFailure(NotFoundException.class).recoverWithItem(throwable ->
+                        ApiResponseBuilder.failure(throwable.getMessage(), Response.Status.NOT_FOUND))
+                .onFailure().recoverWithItem(throwable -> {
+                    ERROR_LOG.error("Error fetching verification job: " + jobId, throwable);
+                    return ApiResponseBuilder.failure(throwable.getMessage(), Response.Status.INTERNAL_SERVER_ERROR);
+                });
+    }
+
     @GET
     @Path("/kyb/status/{leadId}")
     @RolesAllowed("ADMIN")
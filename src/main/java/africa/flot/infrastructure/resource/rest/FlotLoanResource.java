@@ -2,10 +2,15 @@ package africa.flot.infrastructure.resource.rest;
 
 import africa.flot.application.dto.command.*;
 import africa.flot.application.service.FlotLoanService;
+import africa.flot.application.service.LoanExportService;
+import africa.flot.application.service.ReminderDispatchPipeline;
 import africa.flot.application.service.UnpaidManagementService;
 import africa.flot.infrastructure.security.SecurityService;
 import africa.flot.infrastructure.util.ApiResponseBuilder;
+import africa.flot.infrastructure.util.KeysetCursor;
+import io.smallrye.mutiny.Multi;
 import io.smallrye.mutiny.Uni;
+import io.vertx.core.json.JsonObject;
 import jakarta.annotation.security.RolesAllowed;
 import jakarta.inject.Inject;
 import jakarta.validation.Valid;
@@ -43,9 +48,11 @@ import java.util.UUID;
  * - getUnpaidKPIs: Calculates and retrieves KPIs related to unpaid loans.
  * - processOverdueLoans: Forces the processing of overdue loans.
  * - sendAutomaticReminders: Triggers the automatic sending of reminders.
- * - getAllLoans: Retrieves all loans with pagination.
+ * - getAllLoans: Retrieves all loans with cursor (keyset) pagination.
+ * - exportLoans / exportPayments: Streams the whole portfolio as a JSON array.
  * - getPaymentSchedule: Retrieves the payment schedule for a specific loan.
- * - getPaymentsByLead: Lists all payments associated with a specific lead.
+ * - getPaymentsByLead: Lists the payments associated with a specific lead, with cursor pagination.
+ * - getReminders: Lists the reminders sent for a loan, with cursor pagination.
  */
 @Path("/loans-v2")
 @Produces(MediaType.APPLICATION_JSON)
@@ -63,6 +70,12 @@ public class FlotLoanResource {
     @Inject
     UnpaidManagementService unpaidManagementService;
 
+    @Inject
+    ReminderDispatchPipeline reminderDispatchPipeline;
+
+    @Inject
+    LoanExportService loanExportService;
+
     @Inject
     SecurityService securityService;
 
@@ -102,7 +115,7 @@ public class FlotLoanResource {
 
         BUSINESS_LOG.debugf("Récupération détails prêt %s", loanId);
 
-        return securityService.validateLeadAccess(loanId.toString())
+        return securityService.validateLoanAccess(loanId)
                 .chain(() -> flotLoanService.getLoanDetails(loanId))
                 .map(details -> {
                     AUDIT_LOG.infof("Consultation détails prêt - ID: %s", loanId);
@@ -229,9 +242,10 @@ public class FlotLoanResource {
         BUSINESS_LOG.info("Traitement manuel des prêts en retard");
 
         return flotLoanService.processOverdueLoans()
-                .map(v -> {
-                    AUDIT_LOG.info("Traitement manuel des impayés effectué");
-                    return ApiResponseBuilder.success("Traitement effectué avec succès");
+                .map(report -> {
+                    AUDIT_LOG.infof("Traitement manuel des impayés effectué - %d prêts mis à jour",
+                            report.getUpdatedLoans());
+                    return ApiResponseBuilder.success(report);
                 })
                 .onFailure().recoverWithItem(throwable -> {
                     ERROR_LOG.errorf("Erreur lors du traitement des impayés: %s", throwable.getMessage());
@@ -250,10 +264,10 @@ public class FlotLoanResource {
     public Uni<Response> sendAutomaticReminders() {
         BUSINESS_LOG.info("Envoi manuel des relances automatiques");
 
-        return unpaidManagementService.sendAutomaticReminders()
-                .map(v -> {
-                    AUDIT_LOG.info("Envoi manuel des relances effectué");
-                    return ApiResponseBuilder.success("Relances envoyées avec succès");
+        return reminderDispatchPipeline.run()
+                .map(report -> {
+                    AUDIT_LOG.infof("Envoi manuel des relances effectué: %s", report);
+                    return ApiResponseBuilder.success(report);
                 })
                 .onFailure().recoverWithItem(throwable -> {
                     ERROR_LOG.errorf("Erreur lors de l'envoi des relances: %s", throwable.getMessage());
@@ -266,19 +280,24 @@ public class FlotLoanResource {
 
     @GET
     @RolesAllowed("ADMIN")
-    @Operation(summary = "Récupérer tous les prêts", description = "Liste tous les prêts avec pagination")
-    @APIResponse(responseCode = "200", description = "Liste des prêts")
+    @Operation(summary = "Récupérer tous les prêts",
+            description = "Liste les prêts du plus récent au plus ancien, paginés par curseur (nextCursor de la page précédente)")
+    @APIResponse(responseCode = "200", description = "Page de prêts")
+    @APIResponse(responseCode = "400", description = "Curseur invalide")
     public Uni<Response> getAllLoans(
-            @QueryParam("page") @DefaultValue("0") int page,
+            @Parameter(description = "Curseur de la page suivante") @QueryParam("cursor") String cursor,
             @QueryParam("size") @DefaultValue("20") int size) {
 
         BUSINESS_LOG.info("Récupération de tous les prêts");
 
-        return flotLoanService.getAllLoans(page, size)
-                .map(loans -> {
-                    AUDIT_LOG.info("Liste des prêts récupérée - Nombre: " + loans.size());
-                    return ApiResponseBuilder.success(loans);
+        return Uni.createFrom().item(() -> KeysetCursor.decode(cursor))
+                .chain(after -> flotLoanService.getAllLoans(after, size))
+                .map(page -> {
+                    AUDIT_LOG.info("Liste des prêts récupérée - Nombre: " + page.getSize());
+                    return ApiResponseBuilder.success(page);
                 })
+                .onFailure(IllegalArgumentException.class).recoverWithItem(throwable ->
+                        ApiResponseBuilder.failure(throwable.getMessage(), Response.Status.BAD_REQUEST))
                 .onFailure().recoverWithItem(throwable -> {
                     ERROR_LOG.errorf("Erreur lors de la récupération des prêts: %s", throwable.getMessage());
                     return ApiResponseBuilder.failure(
@@ -288,6 +307,32 @@ public class FlotLoanResource {
                 });
     }
 
+    @GET
+    @Path("/export")
+    @RolesAllowed("ADMIN")
+    @Operation(summary = "Exporter le portefeuille",
+            description = "Tableau JSON de tous les prêts, écrit en flux au fil de la lecture")
+    @APIResponse(responseCode = "200", description = "Prêts")
+    public Multi<JsonObject> exportLoans() {
+        AUDIT_LOG.info("Export du portefeuille de prêts");
+        return loanExportService.exportLoans()
+                .onFailure().invoke(throwable ->
+                        ERROR_LOG.errorf("Erreur lors de l'export des prêts: %s", throwable.getMessage()));
+    }
+
+    @GET
+    @Path("/payments/export")
+    @RolesAllowed("ADMIN")
+    @Operation(summary = "Exporter les paiements",
+            description = "Tableau JSON de tous les paiements, écrit en flux au fil de la lecture")
+    @APIResponse(responseCode = "200", description = "Paiements")
+    public Multi<JsonObject> exportPayments() {
+        AUDIT_LOG.info("Export des paiements");
+        return loanExportService.exportPayments()
+                .onFailure().invoke(throwable ->
+                        ERROR_LOG.errorf("Erreur lors de l'export des paiements: %s", throwable.getMessage()));
+    }
+
     @GET
     @Path("/{loanId}/payment-schedule")
     @RolesAllowed({"ADMIN", "SUBSCRIBER"})
@@ -299,7 +344,7 @@ public class FlotLoanResource {
 
         BUSINESS_LOG.debugf("Récupération du calendrier de paiement pour le prêt %s", loanId);
 
-        return securityService.validateLeadAccess(loanId.toString())
+        return securityService.validateLoanAccess(loanId)
                 .chain(() -> flotLoanService.getPaymentSchedule(loanId))
                 .map(schedule -> {
                     AUDIT_LOG.infof("Calendrier de paiement récupéré - ID: %s", loanId);
@@ -321,19 +366,26 @@ public class FlotLoanResource {
     @GET
     @Path("/lead/{leadId}/payments")
     @RolesAllowed({"ADMIN", "SUBSCRIBER"})
-    @Operation(summary = "Paiements d'un lead", description = "Liste tous les paiements d'un lead")
-    @APIResponse(responseCode = "200", description = "Liste des paiements")
+    @Operation(summary = "Paiements d'un lead",
+            description = "Liste les paiements d'un lead du plus récent au plus ancien, paginés par curseur")
+    @APIResponse(responseCode = "200", description = "Page de paiements")
+    @APIResponse(responseCode = "400", description = "Curseur invalide")
     public Uni<Response> getPaymentsByLead(
-            @Parameter(description = "ID du lead") @PathParam("leadId") UUID leadId) {
+            @Parameter(description = "ID du lead") @PathParam("leadId") UUID leadId,
+            @Parameter(description = "Curseur de la page suivante") @QueryParam("cursor") String cursor,
+            @QueryParam("size") @DefaultValue("50") int size) {
 
         BUSINESS_LOG.debugf("Récupération des paiements pour le lead %s", leadId);
 
         return securityService.validateLeadAccess(leadId.toString())
-                .chain(() -> flotLoanService.getPaymentsByLead(leadId))
-                .map(payments -> {
-                    AUDIT_LOG.infof("Paiements récupérés - Lead: %s, Nombre: %d", leadId, payments.size());
-                    return ApiResponseBuilder.success(payments);
+                .map(ignored -> KeysetCursor.decode(cursor))
+                .chain(after -> flotLoanService.getPaymentsByLead(leadId, after, size))
+                .map(page -> {
+                    AUDIT_LOG.infof("Paiements récupérés - Lead: %s, Nombre: %d", leadId, page.getSize());
+                    return ApiResponseBuilder.success(page);
                 })
+                .onFailure(IllegalArgumentException.class).recoverWithItem(throwable ->
+                        ApiResponseBuilder.failure(throwable.getMessage(), Response.Status.BAD_REQUEST))
                 .onFailure().recoverWithItem(throwable -> {
                     ERROR_LOG.errorf("Erreur lors de la récupération des paiements: %s", throwable.getMessage());
                     return ApiResponseBuilder.failure(
@@ -342,4 +394,36 @@ public class FlotLoanResource {
                     );
                 });
     }
+
+    @GET
+    @Path("/{loanId}/reminders")
+    @RolesAllowed({"ADMIN", "SUBSCRIBER"})
+    @Operation(summary = "Relances d'un prêt",
+            description = "Liste les relances d'un prêt de la plus récente à la plus ancienne, paginées par curseur")
+    @APIResponse(responseCode = "200", description = "Page de relances")
+    @APIResponse(responseCode = "400", description = "Curseur invalide")
+    public Uni<Response> getReminders(
+            @Parameter(description = "ID du prêt") @PathParam("loanId") UUID loanId,
+            @Parameter(description = "Curseur de la page suivante") @QueryParam("cursor") String cursor,
+            @QueryParam("size") @DefaultValue("50") int size) {
+
+        BUSINESS_LOG.debugf("Récupération des relances pour le prêt %s", loanId);
+
+        return securityService.validateLoanAccess(loanId)
+                .map(ignored -> KeysetCursor.decode(cursor))
+                .chain(after -> flotLoanService.getRemindersByLoan(loanId, after, size))
+                .map(page -> {
+                    AUDIT_LOG.infof("Relances récupérées - Prêt: %s, Nombre: %d", loanId, page.getSize());
+                    return ApiResponseBuilder.success(page);
+                })
+                .onFailure(IllegalArgumentException.class).recoverWithItem(throwable ->
+                        ApiResponseBuilder.failure(throwable.getMessage(), Response.Status.BAD_REQUEST))
+                .onFailure().recoverWithItem(throwable -> {
+                    ERROR_LOG.errorf("Erreur lors de la récupération des relances: %s", throwable.getMessage());
+                    return ApiResponseBuilder.failure(
+                            "Erreur lors de la récupération",
+                            Response.Status.INTERNAL_SERVER_ERROR
+                    );
+                });
+    }
 }
\ No newline at end of file
@@ -1,22 +1,17 @@
 package africa.flot.infrastructure.resource.rest;
 
-import africa.flot.application.config.Hub2Config;
-import africa.flot.application.service.Hub2PaymentService;
+import africa.flot.application.service.Hub2WebhookInbox;
+import africa.flot.infrastructure.security.Hub2SignatureVerifier;
 import io.smallrye.mutiny.Uni;
+import io.vertx.core.json.DecodeException;
+import io.vertx.core.json.JsonObject;
 import jakarta.inject.Inject;
 import jakarta.ws.rs.*;
 import jakarta.ws.rs.core.MediaType;
 import jakarta.ws.rs.core.Response;
 import org.jboss.logging.Logger;
 
-import javax.crypto.Mac;
-import javax.crypto.spec.SecretKeySpec;
 import java.nio.charset.StandardCharsets;
-import java.security.InvalidKeyException;
-import java.security.MessageDigest;
-import java.security.NoSuchAlgorithmException;
-import java.util.Base64;
-import java.util.Map;
 
 @Path("/webhooks/hub2")
 @Consumes(MediaType.APPLICATION_JSON)
@@ -26,62 +21,44 @@ public class Hub2WebhookResource {
     private static final Logger LOG = Logger.getLogger(Hub2WebhookResource.class);
 
     @Inject
-    Hub2PaymentService paymentService;
+    Hub2SignatureVerifier signatureVerifier;
 
     @Inject
-    Hub2Config hub2Config;
+    Hub2WebhookInbox webhookInbox;
 
+    /**
+     * Reçoit un webhook HUB2 : signature vérifiée sur le corps brut, puis enregistrement dans la
+     * boîte de réception. Le traitement du paiement est asynchrone ({@link Hub2WebhookInbox}).
+     */
     @POST
     @Path("/payment")
     public Uni<Response> handlePaymentWebhook(
             @HeaderParam("Hub2-Signature") String signature,
-            Map<String, Object> payload) {
+            byte[] body) {
 
         LOG.info("Webhook HUB2 reçu");
 
-        // 1. Vérifier la signature
-        if (!verifySignature(payload, signature)) {
+        // 1. Vérifier la signature sur les octets reçus, avant toute désérialisation
+        if (!signatureVerifier.verify(body, signature)) {
             LOG.warn("Signature de webhook HUB2 invalide");
             return Uni.createFrom().item(Response.status(Response.Status.UNAUTHORIZED).build());
         }
 
-        // 2. Traiter le payload
-        return paymentService.processPaymentWebhook(payload)
-                .map(v -> Response.ok().build())
-                .onFailure().recoverWithItem(throwable -> {
-                    LOG.errorf("Erreur lors du traitement du webhook: %s", throwable.getMessage());
-                    // Retourner 200 même en cas d'erreur pour éviter les retentatives
-                    return Response.ok().build();
-                });
-    }
-
-    /**
-     * Vérifie la signature du webhook en utilisant le secret fourni
-     */
-    private boolean verifySignature(Map<String, Object> payload, String receivedSignature) {
-        if (receivedSignature == null || receivedSignature.isEmpty()) {
-            return false;
-        }
-
+        String rawBody = new String(body, StandardCharsets.UTF_8);
+        JsonObject payload;
         try {
-            String payloadJson = io.vertx.core.json.JsonObject.mapFrom(payload).encode();
-
-            Mac sha256_HMAC = Mac.getInstance("HmacSHA256");
-            SecretKeySpec secretKey = new SecretKeySpec(
-                    hub2Config.getWebhookSecret().getBytes(StandardCharsets.UTF_8),
-                    "HmacSHA256");
-
-            sha256_HMAC.init(secretKey);
-            String calculatedSignature = Base64.getEncoder()
-                    .encodeToString(sha256_HMAC.doFinal(payloadJson.getBytes(StandardCharsets.UTF_8)));
-
-            return MessageDigest.isEqual(
-                    calculatedSignature.getBytes(StandardCharsets.UTF_8),
-                    receivedSignature.getBytes(StandardCharsets.UTF_8));
-
-        } catch (NoSuchAlgorithmException | InvalidKeyException e) {
-            LOG.error("Erreur lors de la vérification de la signature", e);
-            return false;
+            payload = new JsonObject(rawBody);
+        } catch (DecodeException e) {
+            LOG.warnf("Webhook HUB2 illisible: %s", e.getMessage());
+            return Uni.createFrom().item(Response.status(Response.Status.BAD_REQUEST).build());
         }
+
+        // 2. Enregistrer l'événement ; seul un échec d'enregistrement demande à HUB2 de réessayer
+        return webhookInbox.append(rawBody, payload)
+                .map(inserted -> Response.ok().build())
+                .onFailure().recoverWithItem(throwable -> {
+                    LOG.errorf("Erreur lors de l'enregistrement du webhook: %s", throwable.getMessage());
+                    return Response.status(Response.Status.SERVICE_UNAVAILABLE).build();
+                });
     }
-}
\ No newline at end of file
+}
@@ -1,7 +1,12 @@
 package africa.flot.infrastructure.resource.rest;
 
+import africa.flot.application.dto.command.CohortScoringCommande;
+import africa.flot.application.dto.command.ScoringSimulationCommande;
 import africa.flot.application.usecase.lead.CalculateLeadScore;
 import africa.flot.domain.model.LeadScore;
+import africa.flot.domain.model.exception.BusinessException;
+import africa.flot.infrastructure.service.CohortScoringService;
+import africa.flot.infrastructure.service.ScoringPolicySimulator;
 import africa.flot.infrastructure.util.ApiResponseBuilder;
 import io.smallrye.mutiny.Uni;
 import io.smallrye.mutiny.unchecked.Unchecked;
@@ -33,6 +38,12 @@ public class LeadScoreResource {
     @Inject
     CalculateLeadScore calculateLeadScore;
 
+    @Inject
+    CohortScoringService cohortScoringService;
+
+    @Inject
+    ScoringPolicySimulator scoringPolicySimulator;
+
     @Deprecated(since = "1.2.0", forRemoval = true)
     @POST
     @Path("/{leadId}/calculate")
@@ -67,6 +78,80 @@ public class LeadScoreResource {
                 });
     }
 
+    @POST
+    @Path("/cohort")
+    @RolesAllowed("ADMIN")
+    @Operation(
+            summary = "Score a cohort of leads",
+            description = "Scores the given leads, or every qualified lead without a score when no list is provided, "
+                    + "and returns one decision per lead."
+    )
+    @APIResponse(
+            responseCode = "200",
+            description = "Per-lead scoring decisions",
+            content = @Content(mediaType = MediaType.APPLICATION_JSON)
+    )
+    @APIResponse(
+            responseCode = "400",
+            description = "Cohort too large",
+            content = @Content(mediaType = MediaType.APPLICATION_JSON)
+    )
+    public Uni<Response> scoreCohort(CohortScoringCommande command) {
+        BUSINESS_LOG.info("Starting cohort lead scoring");
+        return cohortScoringService.score(command != null ? command : new CohortScoringCommande())
+                .map(report -> {
+                    AUDIT_LOG.info("Cohort scoring: " + report.getApproved() + " approved, "
+                            + report.getRejected() + " rejected, " + report.getSkipped() + " skipped");
+                    return ApiResponseBuilder.success(report);
+                })
+                .onFailure().recoverWithItem(throwable -> {
+                    ERROR_LOG.error("Error during cohort lead scoring", throwable);
+                    return ApiResponseBuilder.failure(
+                            throwable.getMessage(),
+                            throwable instanceof BusinessException
+                                    ? Response.Status.BAD_REQUEST
+                                    : Response.Status.INTERNAL_SERVER_ERROR
+                    );
+                });
+    }
+
+    @POST
+    @Path("/simulation")
+    @RolesAllowed("ADMIN")
+    @Operation(
+            summary = "Simulate scoring policies",
+            description = "Evaluates candidate weights and thresholds over every lead and compares approval rates "
+                    + "and repayment outcomes with the current policy. Nothing is persisted."
+    )
+    @APIResponse(
+            responseCode = "200",
+            description = "Approval rate deltas and confusion matrix per policy",
+            content = @Content(mediaType = MediaType.APPLICATION_JSON)
+    )
+    @APIResponse(
+            responseCode = "400",
+            description = "Invalid or too many candidate policies",
+            content = @Content(mediaType = MediaType.APPLICATION_JSON)
+    )
+    public Uni<Response> simulatePolicies(ScoringSimulationCommande command) {
+        BUSINESS_LOG.info("Starting scoring policy simulation");
+        return scoringPolicySimulator.simulate(command != null ? command : new ScoringSimulationCommande())
+                .map(report -> {
+                    AUDIT_LOG.info("Scoring simulation: " + report.getCandidates().size() + " policies over "
+                            + report.getLeads() + " leads");
+                    return ApiResponseBuilder.success(report);
+                })
+                .onFailure().recoverWithItem(throwable -> {
+                    ERROR_LOG.error("Error during scoring policy simulation", throwable);
+                    return ApiResponseBuilder.failure(
+                            throwable.getMessage(),
+                            throwable instanceof BusinessException
+                                    ? Response.Status.BAD_REQUEST
+                                    : Response.Status.INTERNAL_SERVER_ERROR
+                    );
+                });
+    }
+
     @GET
     @Path("/{leadId}")
     @RolesAllowed("ADMIN")
@@ -54,7 +54,7 @@ public class MobileMoneyPaymentResource {
         LOG.infof("Initiation paiement Mobile Money %.2f pour prêt %s avec %s",
                 command.getAmount(), loanId, command.getProvider());
 
-        return securityService.validateLeadAccess(loanId.toString())
+        return securityService.validateLoanAccess(loanId)
                 .chain(() -> hub2PaymentService.initiatePayment(command))
                 .map(result -> {
                     LOG.infof("Paiement Mobile Money initié - ID: %s", result.getPaymentIntentId());
@@ -111,7 +111,7 @@ public class MobileMoneyPaymentResource {
         command.setPaymentIntentToken(token);
         command.setOtp(otp);
 
-        return securityService.validateLeadAccess(loanId.toString())
+        return securityService.validateLoanAccess(loanId)
                 .chain(() -> hub2PaymentService.completePayment(command))
                 .map(result -> {
                     LOG.infof("Paiement Mobile Money finalisé - statut: %s", result.getTransactionStatus());
@@ -150,7 +150,7 @@ public class MobileMoneyPaymentResource {
 
         LOG.infof("Vérification statut paiement %s pour prêt %s", paymentIntentId, loanId);
 
-        return securityService.validateLeadAccess(loanId.toString())
+        return securityService.validateLoanAccess(loanId)
                 .chain(() -> hub2PaymentService.checkPaymentStatus(paymentIntentId, token))
                 .map(status -> {
                     LOG.infof("Statut du paiement récupéré: %s", status.get("status"));
@@ -176,7 +176,7 @@ public class MobileMoneyPaymentResource {
 
         LOG.infof("Récupération des intents de paiement pour le prêt %s", loanId);
 
-        return securityService.validateLeadAccess(loanId.toString())
+        return securityService.validateLoanAccess(loanId)
                 .chain(() -> {
                     // Récupérer le prêt pour obtenir le leadId
                     return FlotLoan.<FlotLoan>findById(loanId)
@@ -211,7 +211,7 @@ public class MobileMoneyPaymentResource {
 
         LOG.infof("Calcul du montant dû pour le prêt %s", loanId);
 
-        return securityService.validateLeadAccess(loanId.toString())
+        return securityService.validateLoanAccess(loanId)
                 .chain(() -> FlotLoan.<FlotLoan>findById(loanId))
                 .map(loan -> {
                     // Calculer le montant dû (échéance hebdomadaire ou montant en impayé si supérieur)
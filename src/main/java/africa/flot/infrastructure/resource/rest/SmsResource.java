@@ -1,8 +1,10 @@
 package africa.flot.infrastructure.resource.rest;
 
-import africa.flot.domain.model.Account;
+import africa.flot.application.service.SmsOutbox;
+import africa.flot.domain.model.enums.SmsCategory;
 import africa.flot.infrastructure.service.JetfySmsService;
 import africa.flot.infrastructure.util.ApiResponseBuilder;
+import io.quarkus.hibernate.reactive.panache.Panache;
 import io.smallrye.mutiny.Uni;
 import jakarta.annotation.security.RolesAllowed;
 import jakarta.inject.Inject;
@@ -19,7 +21,9 @@ import org.eclipse.microprofile.openapi.annotations.responses.APIResponse;
 import org.eclipse.microprofile.openapi.annotations.tags.Tag;
 import org.jboss.logging.Logger;
 
+import java.util.HashMap;
 import java.util.Map;
+import java.util.UUID;
 
 @Path("/sms")
 @Produces(MediaType.APPLICATION_JSON)
@@ -34,6 +38,9 @@ public class SmsResource {
     @Inject
     JetfySmsService smsService;
 
+    @Inject
+    SmsOutbox smsOutbox;
+
     /**
      * Endpoint to retrieve SMS balance.
      */
@@ -72,15 +79,15 @@ public class SmsResource {
     }
 
     /**
-     * Endpoint to send SMS.
+     * Endpoint to send SMS. The message is queued and sent asynchronously.
      */
     @POST
     @Path("/send")
     @RolesAllowed("ADMIN")
-    @Operation(summary = "Send SMS", description = "Send an SMS to a specified phone number.")
+    @Operation(summary = "Send SMS", description = "Queue an SMS to a specified phone number; delivery is asynchronous.")
     @APIResponse(
             responseCode = "200",
-            description = "SMS sent successfully",
+            description = "SMS queued successfully",
             content = @Content(mediaType = MediaType.APPLICATION_JSON, schema = @Schema(implementation = Map.class))
     )
     @APIResponse(
@@ -90,48 +97,58 @@ public class SmsResource {
     )
     @APIResponse(
             responseCode = "500",
-            description = "Error while sending SMS",
+            description = "Error while queuing SMS",
             content = @Content(mediaType = MediaType.APPLICATION_JSON)
     )
     public Uni<Response> sendSms(
             @Valid @RequestBody(description = "Details of the SMS to be sent", required = true) SendSmsRequest request) {
-        BUSINESS_LOG.info("Attempting to send SMS to " + request.phoneNumber);
-
-        // Temporary account creation for testing
-        Account tempAccount = new Account();
-        tempAccount.setUsername(request.phoneNumber);
+        BUSINESS_LOG.info("Queuing SMS to " + request.phoneNumber);
 
-        return smsService.sendSMS(request.phoneNumber, request.message, tempAccount)
-                .map(response -> {
-                    if (response.getStatus() == Response.Status.OK.getStatusCode()) {
-                        AUDIT_LOG.info("SMS sent successfully to " + request.phoneNumber);
-                        return ApiResponseBuilder.success(Map.of(
-                                "message", "SMS sent successfully",
-                                "recipient", request.phoneNumber,
-                                "smsCount", calculateSmsCount(request.message)
-                        ));
-                    } else {
-                        ERROR_LOG.warn("Failed to send SMS to " + request.phoneNumber);
-                        return ApiResponseBuilder.failure(
-                                "Failed to send SMS",
-                                Response.Status.fromStatusCode(response.getStatus())
-                        );
-                    }
+        return Panache.withTransaction(() -> smsOutbox.enqueue(SmsCategory.ADHOC, request.phoneNumber, request.message, null))
+                .map(queued -> {
+                    AUDIT_LOG.info("SMS queued for " + request.phoneNumber + " [id=" + queued.getId() + "]");
+                    return ApiResponseBuilder.success(Map.of(
+                            "id", queued.getId(),
+                            "status", queued.getStatus(),
+                            "recipient", request.phoneNumber,
+                            "smsCount", queued.getSmsCount()
+                    ));
                 })
                 .onFailure().recoverWithItem(throwable -> {
-                    ERROR_LOG.error("Error while sending SMS to " + request.phoneNumber, throwable);
+                    ERROR_LOG.error("Error while queuing SMS to " + request.phoneNumber, throwable);
                     return ApiResponseBuilder.failure(
-                            "Error while sending SMS: " + throwable.getMessage(),
+                            "Error while queuing SMS: " + throwable.getMessage(),
                             Response.Status.INTERNAL_SERVER_ERROR
                     );
                 });
     }
 
     /**
-     * Calculate the number of SMS messages required based on message length.
+     * Endpoint to check the delivery state of a queued SMS.
      */
-    private int calculateSmsCount(String message) {
-        return (message.length() + 159) / 160;
+    @GET
+    @Path("/outbox/{id}")
+    @RolesAllowed("ADMIN")
+    @Operation(summary = "Get SMS delivery state", description = "Retrieve the delivery state of a queued SMS.")
+    @APIResponse(responseCode = "200", description = "Delivery state retrieved", content = @Content(mediaType = MediaType.APPLICATION_JSON))
+    @APIResponse(responseCode = "404", description = "Unknown SMS", content = @Content(mediaType = MediaType.APPLICATION_JSON))
+    public Uni<Response> getSmsStatus(@PathParam("id") UUID id) {
+        return smsOutbox.find(id)
+                .map(message -> {
+                    if (message == null) {
+                        return ApiResponseBuilder.failure("SMS not found", Response.Status.NOT_FOUND);
+                    }
+                    Map<String, Object> state = new HashMap<>();
+                    state.put("id", message.getId());
+                    state.put("category", message.getCategory());
+                    state.put("recipient", message.getRecipient());
+                    state.put("status", message.getStatus());
+                    state.put("attempts", message.getAttempts());
+                    state.put("lastError", message.getLastError());
+                    state.put("createdAt", message.getCreatedAt());
+                    state.put("sentAt", message.getSentAt());
+                    return ApiResponseBuilder.success(state);
+                });
     }
 
     /**
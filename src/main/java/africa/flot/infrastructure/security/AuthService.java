@@ -5,18 +5,15 @@ import africa.flot.application.ports.OldPasswordRepository;
 import africa.flot.domain.model.Account;
 import africa.flot.domain.model.Lead;
 import africa.flot.domain.model.OldPassword;
+import africa.flot.domain.model.User;
 import africa.flot.infrastructure.repository.AccountRepository;
 import africa.flot.infrastructure.repository.SessionRepository;
 import africa.flot.infrastructure.repository.TokenBlacklistRepository;
 import africa.flot.infrastructure.repository.impl.UserRepositoryImpl;
+import africa.flot.infrastructure.security.CredentialHasher.Caller;
 import africa.flot.infrastructure.util.ApiResponseBuilder;
-import com.fasterxml.jackson.databind.ObjectMapper;
-import io.minio.GetPresignedObjectUrlArgs;
-import io.minio.MinioClient;
-import io.minio.http.Method;
-import io.quarkus.elytron.security.common.BcryptUtil;
+import io.quarkus.hibernate.reactive.panache.Panache;
 import io.quarkus.hibernate.reactive.panache.common.WithTransaction;
-import io.quarkus.redis.client.reactive.ReactiveRedisClient;
 import io.smallrye.jwt.build.Jwt;
 import io.smallrye.mutiny.Uni;
 import io.vertx.mutiny.pgclient.PgPool;
@@ -44,9 +41,15 @@ public class AuthService {
     @Inject
     TokenBlacklistRepository tokenBlacklistRepository;
 
+    @Inject
+    TokenVerificationCache tokenVerificationCache;
+
     @Inject
     OldPasswordRepository oldPasswordRepository;
 
+    @Inject
+    CredentialHasher credentialHasher;
+
     @ConfigProperty(name = "mp.jwt.verify.issuer", defaultValue = "flot")
     String issuer;
 
@@ -63,104 +66,46 @@ public class AuthService {
     String expectedApiKey;
 
     @Inject
-    ReactiveRedisClient redisClient;
-
-    @Inject
-    MinioClient minioClient;
+    UserProfileCache profileCache;
 
     @Inject
     PgPool client;
 
-    private static final String USER_CACHE_KEY = "user:info:";
-    private static final ObjectMapper objectMapper = new ObjectMapper();
-
-    public Uni<Map<String, Object>> getUserInfo(String identifier, String role) {
-        String cacheKey = USER_CACHE_KEY + role + ":" + identifier;
-
-        return redisClient.get(cacheKey)
-                .onItem().transformToUni(cached -> {
-                    if (cached != null) {
-                        try {
-                            LOG.info("Cache hit for user: " + identifier);
-                            @SuppressWarnings("unchecked")
-                            Map<String, Object> result = objectMapper.readValue(cached.toString(), Map.class);
-                            return Uni.createFrom().item(result);
-                        } catch (Exception e) {
-                            LOG.error("Error deserializing cached user info", e);
-                        }
-                    }
-                    return fetchAndCacheUserInfo(identifier, role, cacheKey);
-                });
-    }
+    private static final String PHOTO_OBJECT_SQL =
+            "SELECT a.name FROM attachments a " +
+            "JOIN attachment_lists al ON a.attachment_lists_id = al.id " +
+            "WHERE al.slug = 'PHOTO' AND a.key_form_id = $1 LIMIT 1";
 
+    public Uni<UserProfile.Info> getUserInfo(String identifier, String role) {
+        return profileCache.get(role, identifier, () -> loadProfile(identifier, role));
+    }
 
-    private Uni<Map<String, Object>> fetchAndCacheUserInfo(String identifier, String role, String cacheKey) {
+    private Uni<UserProfile.Cached> loadProfile(String identifier, String role) {
         return getAuthenticatedUser(identifier, role)
-                .onItem().transformToUni(user -> {
-                    if (user == null) {
-                        return Uni.createFrom().nullItem();
-                    }
-
-                    if (role.equals("ADMIN")) {
-                        Map<String, Object> adminData = Map.of("user", user, "photoUrl", null);
-                        return cacheAndReturn(adminData, cacheKey);
+                .onItem().ifNotNull().transformToUni(user -> {
+                    if (user instanceof Lead lead) {
+                        return findPhotoObject(lead)
+                                .map(photo -> new UserProfile.Cached(UserProfile.of(lead, identifier), photo));
                     }
-
-                    Lead lead = (Lead) user;
-                    return client.preparedQuery(
-                                    "SELECT a.name FROM attachments a " +
-                                            "JOIN attachment_lists al ON a.attachment_lists_id = al.id " +
-                                            "WHERE al.slug = 'PHOTO' AND a.key_form_id = $1")
-                            .execute(Tuple.of(lead.getKeyForm()))
-                            .onItem().transformToUni(rows -> {
-                                if (!rows.iterator().hasNext()) {
-                                    Map<String, Object> noPhotoData = Map.of("user", user, "photoUrl", null);
-                                    return cacheAndReturn(noPhotoData, cacheKey);
-                                }
-
-                                try {
-                                    String fileName = rows.iterator().next().getString("name");
-                                    String photoUrl = minioClient.getPresignedObjectUrl(
-                                            GetPresignedObjectUrlArgs.builder()
-                                                    .bucket("flotkyb")
-                                                    .object(fileName)
-                                                    .method(Method.GET)
-                                                    .expiry((int) jwtDuration.getSeconds())
-                                                    .build()
-                                    );
-                                    Map<String, Object> photoData = Map.of("user", user, "photoUrl", photoUrl);
-                                    return cacheAndReturn(photoData, cacheKey);
-                                } catch (Exception e) {
-                                    LOG.error("Error generating presigned URL", e);
-                                    Map<String, Object> errorData = Map.of("user", user, "photoUrl", null);
-                                    return cacheAndReturn(errorData, cacheKey);
-                                }
-                            });
+                    return Uni.createFrom().item(new UserProfile.Cached(UserProfile.of((User) user), null));
                 });
     }
 
-    private Uni<Map<String, Object>> cacheAndReturn(Map<String, Object> data, String cacheKey) {
-        try {
-            String jsonData = objectMapper.writeValueAsString(data);
-            return redisClient.setex(cacheKey, String.valueOf(jwtDuration.getSeconds()), jsonData)
-                    .onItem().transform(result -> {
-                        LOG.info("User info cached successfully");
-                        return data;
-                    })
-                    .onFailure().recoverWithItem(e -> {
-                        LOG.error("Failed to cache user info", e);
-                        return data;
-                    });
-        } catch (Exception e) {
-            LOG.error("Error serializing user info", e);
-            return Uni.createFrom().item(data);
+    private Uni<String> findPhotoObject(Lead lead) {
+        if (lead.getKeyForm() == null) {
+            return Uni.createFrom().nullItem();
         }
+        return client.preparedQuery(PHOTO_OBJECT_SQL)
+                .execute(Tuple.of(lead.getKeyForm()))
+                .map(rows -> rows.iterator().hasNext() ? rows.iterator().next().getString("name") : null);
     }
 
     public Uni<Void> invalidateUserCache(String identifier, String role) {
-        String cacheKey = USER_CACHE_KEY + role + ":" + identifier;
-        return redisClient.del(List.of(cacheKey))
-                .onItem().transform(result -> null);
+        return profileCache.invalidate(role, identifier);
+    }
+
+    public Uni<Void> invalidateLeadProfile(UUID leadId) {
+        return profileCache.invalidateLead(leadId);
     }
 
     public Uni<Boolean> authenticateSubscriber(String username, String password) {
@@ -170,18 +115,31 @@ public class AuthService {
         }
 
         return accountRepository.findByUsername(username)
-                .onItem().transform(account -> {
+                .onItem().transformToUni(account -> {
                     if (account != null && account.isActive) {
-                        boolean matches = BcryptUtil.matches(password, account.passwordHash);
-                        LOG.info("Tentative d'authentif1ication abonné pour " + username + ": " + (matches ? "réussie" : "échouée"));
-                        return matches;
+                        return credentialHasher.verify(Caller.LOGIN, password, account.passwordHash)
+                                .call(verification -> verification.needsRehash()
+                                        ? upgradePasswordHash(account, verification.upgradedHash())
+                                        : Uni.createFrom().voidItem())
+                                .map(verification -> {
+                                    LOG.info("Tentative d'authentif1ication abonné pour " + username + ": " + (verification.matches() ? "réussie" : "échouée"));
+                                    return verification.matches();
+                                });
                     }
                     LOG.warn("Aucun compte actif trouvé pour l'utilisateur : " + username);
-                    return false;
+                    return Uni.createFrom().item(false);
                 })
                 .onFailure().invoke(e -> LOG.error("Erreur lors de l'authentification abonné", e));
     }
 
+    // Un hash d'un coût différent du coût configuré est remplacé à la connexion ; un échec n'empêche pas la connexion
+    private Uni<Void> upgradePasswordHash(Account account, String upgradedHash) {
+        return Panache.withTransaction(() -> accountRepository.updatePassword(account.id, upgradedHash))
+                .invoke(() -> LOG.info("Hash du mot de passe mis à jour au coût courant pour : " + account.username))
+                .onFailure().invoke(e -> LOG.warn("Mise à jour du hash impossible pour " + account.username + ": " + e.getMessage()))
+                .onFailure().recoverWithNull();
+    }
+
     public Uni<Boolean> authenticateAdmin(String email, String password) {
         if (email == null || email.isEmpty() || password == null || password.isEmpty()) {
             LOG.warn("Tentative d'authentification admin avec des identifiants vides ou nuls");
@@ -194,14 +152,13 @@ public class AuthService {
         }
 
         return userRepository.findByEmail(email)
-                .onItem().transform(user -> {
+                .onItem().transformToUni(user -> {
                     if (user != null) {
-                        boolean matches = BcryptUtil.matches(password, user.password);
-                        LOG.info("Tentative d'authentification admin pour " + email + ": " + (matches ? "réussie" : "échouée"));
-                        return matches;
+                        return credentialHasher.matchesAny(Caller.LOGIN, password, user.password)
+                                .invoke(matches -> LOG.info("Tentative d'authentification admin pour " + email + ": " + (matches ? "réussie" : "échouée")));
                     }
                     LOG.warn("Aucun admin trouvé pour l'email : " + email);
-                    return false;
+                    return Uni.createFrom().item(false);
                 })
                 .onFailure().invoke(e -> LOG.error("Erreur lors de l'authentification admin", e));
     }
@@ -266,11 +223,9 @@ public class AuthService {
             return Uni.createFrom().failure(new IllegalArgumentException("Le mot de passe ne peut pas être vide ou nul"));
         }
 
-        return Uni.createFrom().item(() -> {
-            String hashedPassword = BcryptUtil.bcryptHash(password);
-            LOG.info("Mot de passe haché avec succès");
-            return hashedPassword;
-        }).onFailure().invoke(e -> LOG.error("Erreur lors du hachage du mot de passe", e));
+        return credentialHasher.hash(Caller.PROVISIONING, password)
+                .invoke(() -> LOG.info("Mot de passe haché avec succès"))
+                .onFailure().invoke(e -> LOG.error("Erreur lors du hachage du mot de passe", e));
     }
 
     public Uni<Void> createAccount(UUID subscriberId, String username, String password) {
@@ -339,7 +294,8 @@ public class AuthService {
     public Uni<Boolean> invalidateToken(String token) {
         // Définir la durée de validité restante du jeton en secondes (par exemple, 3600 secondes pour 1 heure)
         long expirationTimeInSeconds = jwtDuration.getSeconds();
-        return tokenBlacklistRepository.add(token, expirationTimeInSeconds);
+        return tokenBlacklistRepository.add(token, expirationTimeInSeconds)
+                .call(added -> tokenVerificationCache.publishRevocation(token));
     }
 
 
@@ -369,56 +325,24 @@ public class AuthService {
                         ));
                     }
 
-                    // Vérifier si c'est un mot de passe temporaire ou le mot de passe actuel
-                    boolean isTemporaryPassword = account.temporaryPassword != null &&
-                            BcryptUtil.matches(oldPassword, account.temporaryPassword);
-                    boolean isCurrentPassword = BcryptUtil.matches(oldPassword, account.passwordHash);
-
-                    if (!isTemporaryPassword && !isCurrentPassword) {
-                        LOG.warn("changePassword: Ancien mot de passe incorrect pour " + username);
-                        return Uni.createFrom().item(ApiResponseBuilder.failure(
-                                "Ancien mot de passe incorrect",
-                                Response.Status.UNAUTHORIZED
-                        ));
-                    }
-
-                    String newHash = BcryptUtil.bcryptHash(newPassword);
-
-                    // Vérifier si le nouveau mot de passe a déjà été utilisé
-                    return oldPasswordRepository.isPasswordUsed(account.id, newHash)
-                            .onItem().transformToUni(isUsed -> {
-                                if (isUsed) {
-                                    LOG.warn("changePassword: Nouveau mot de passe déjà utilisé pour " + username);
+                    // Vérifier si c'est un mot de passe temporaire ou le mot de passe actuel, en une seule tâche
+                    return credentialHasher.matchesAny(Caller.PASSWORD_CHANGE, oldPassword, account.temporaryPassword, account.passwordHash)
+                            .onItem().transformToUni(matches -> {
+                                if (!matches) {
+                                    LOG.warn("changePassword: Ancien mot de passe incorrect pour " + username);
                                     return Uni.createFrom().item(ApiResponseBuilder.failure(
-                                            "Ce mot de passe a déjà été utilisé",
-                                            Response.Status.CONFLICT
+                                            "Ancien mot de passe incorrect",
+                                            Response.Status.UNAUTHORIZED
                                     ));
                                 }
-
-                                // Mettre à jour le mot de passe
-                                account.passwordHash = newHash;
-                                account.temporaryPassword = null;
-                                account.passwordChanged = true;
-
-                                return accountRepository.updatePassword(account.getLead().getId(), account.passwordHash)
-                                        .onItem().transformToUni(updated -> {
-                                            LOG.info("Mot de passe changé avec succès pour : " + username);
-
-                                            // Sauvegarder dans l'historique des mots de passe
-                                            OldPassword oldPasswordEntity = new OldPassword();
-                                            oldPasswordEntity.account = account;
-                                            oldPasswordEntity.passwordHash = newHash;
-
-                                            return oldPasswordRepository.saveOldPassword(oldPasswordEntity)
-                                                    .onItem().transformToUni(saved ->
-                                                            invalidateUserCache(username, "SUBSCRIBER")
-                                                                    .onItem().transform(v ->
-                                                                            ApiResponseBuilder.success("Mot de passe mis à jour avec succès")
-                                                                    )
-                                                    );
-                                        });
+                                return credentialHasher.hash(Caller.PASSWORD_CHANGE, newPassword)
+                                        .onItem().transformToUni(newHash -> storeNewPassword(account, username, newHash));
                             });
                 })
+                .onFailure(HashingSaturatedException.class).recoverWithItem(e -> ApiResponseBuilder.failure(
+                        e.getMessage(),
+                        Response.Status.TOO_MANY_REQUESTS
+                ))
                 .onFailure().recoverWithItem(e -> {
                     LOG.error("Erreur lors de la modification du mot de passe", e);
                     return ApiResponseBuilder.failure(
@@ -428,6 +352,43 @@ public class AuthService {
                 });
     }
 
+    private Uni<Response> storeNewPassword(Account account, String username, String newHash) {
+        // Vérifier si le nouveau mot de passe a déjà été utilisé
+        return oldPasswordRepository.isPasswordUsed(account.id, newHash)
+                .onItem().transformToUni(isUsed -> {
+                    if (isUsed) {
+                        LOG.warn("changePassword: Nouveau mot de passe déjà utilisé pour " + username);
+                        return Uni.createFrom().item(ApiResponseBuilder.failure(
+                                "Ce mot de passe a déjà été utilisé",
+                                Response.Status.CONFLICT
+                        ));
+                    }
+
+                    // Mettre à jour le mot de passe
+                    account.passwordHash = newHash;
+                    account.temporaryPassword = null;
+                    account.passwordChanged = true;
+
+                    return accountRepository.updatePassword(account.getLead().getId(), account.passwordHash)
+                            .onItem().transformToUni(updated -> {
+                                LOG.info("Mot de passe changé avec succès pour : " + username);
+
+                                // Sauvegarder dans l'historique des mots de passe
+                                OldPassword oldPasswordEntity = new OldPassword();
+                                oldPasswordEntity.account = account;
+                                oldPasswordEntity.passwordHash = newHash;
+
+                                return oldPasswordRepository.saveOldPassword(oldPasswordEntity)
+                                        .onItem().transformToUni(saved ->
+                                                invalidateUserCache(username, "SUBSCRIBER")
+                                                        .onItem().transform(v ->
+                                                                ApiResponseBuilder.success("Mot de passe mis à jour avec succès")
+                                                        )
+                                        );
+                            });
+                });
+    }
+
     public Uni<Map<String, Object>> authenticateAdminWithApiKeyAndSession(String email, String apiKey, String sessionId) {
         if (email == null || apiKey == null || sessionId == null) {
             LOG.warn("authenticateAdminWithApiKeyAndSession: email, API Key, or session ID is null");
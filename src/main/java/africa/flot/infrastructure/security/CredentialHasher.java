@@ -0,0 +1,191 @@
+package africa.flot.infrastructure.security;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.quarkus.elytron.security.common.BcryptUtil;
+import io.smallrye.mutiny.Uni;
+import io.vertx.core.Context;
+import io.vertx.core.Vertx;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Hachage et vérification des mots de passe (bcrypt) hors des event loops Vert.x.
+ *
+ * Le travail bcrypt s'exécute sur un pool de threads dédié et dimensionné : c'est du calcul
+ * pur, des threads virtuels n'apporteraient pas de parallélisme supplémentaire. Chaque type
+ * d'appelant dispose d'un quota de tâches en attente ou en cours ; au-delà, la demande est
+ * rejetée immédiatement ({@link HashingSaturatedException}, 429) plutôt que de s'accumuler.
+ * Le résultat est rendu sur le contexte Vert.x de l'appelant, ce qui préserve la session
+ * Hibernate Reactive en cours.
+ */
+@ApplicationScoped
+public class CredentialHasher {
+
+    private static final Logger LOG = Logger.getLogger(CredentialHasher.class);
+
+    /**
+     * Origine d'une demande de hachage ; les quotas sont indépendants, une vague de connexions
+     * ne bloque pas la création des comptes et inversement.
+     */
+    public enum Caller {
+        LOGIN, PASSWORD_CHANGE, PROVISIONING
+    }
+
+    /**
+     * Résultat d'une vérification ; {@code upgradedHash} est renseigné lorsque le mot de passe
+     * est correct mais que le hash stocké n'a pas le coût configuré.
+     */
+    public record Verification(boolean matches, String upgradedHash) {
+        public boolean needsRehash() {
+            return upgradedHash != null;
+        }
+    }
+
+    @Inject
+    MeterRegistry registry;
+
+    @ConfigProperty(name = "auth.hashing.pool-size", defaultValue = "0")
+    int poolSize;
+
+    @ConfigProperty(name = "auth.hashing.bcrypt-cost", defaultValue = "10")
+    int bcryptCost;
+
+    @ConfigProperty(name = "auth.hashing.queue-limit.login", defaultValue = "64")
+    int loginQueueLimit;
+
+    @ConfigProperty(name = "auth.hashing.queue-limit.password-change", defaultValue = "16")
+    int passwordChangeQueueLimit;
+
+    @ConfigProperty(name = "auth.hashing.queue-limit.provisioning", defaultValue = "32")
+    int provisioningQueueLimit;
+
+    private ThreadPoolExecutor executor;
+    private final Map<Caller, Semaphore> permits = new EnumMap<>(Caller.class);
+    private final Map<Caller, Counter> rejected = new EnumMap<>(Caller.class);
+    private Timer hashTimer;
+    private Timer verifyTimer;
+
+    @PostConstruct
+    void init() {
+        int threads = poolSize > 0 ? poolSize : Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+        AtomicInteger index = new AtomicInteger();
+        // File non bornée : l'admission est contrôlée en amont par les quotas par appelant
+        executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(), runnable -> {
+            Thread thread = new Thread(runnable, "credential-hasher-" + index.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        permits.put(Caller.LOGIN, new Semaphore(loginQueueLimit));
+        permits.put(Caller.PASSWORD_CHANGE, new Semaphore(passwordChangeQueueLimit));
+        permits.put(Caller.PROVISIONING, new Semaphore(provisioningQueueLimit));
+        for (Caller caller : Caller.values()) {
+            rejected.put(caller, Counter.builder("flot.auth.hashing.rejected")
+                    .description("Demandes de hachage rejetées faute de capacité")
+                    .tag("caller", caller.name().toLowerCase())
+                    .register(registry));
+        }
+
+        hashTimer = Timer.builder("flot.auth.hashing.duration").tag("operation", "hash")
+                .description("Durée des opérations bcrypt").register(registry);
+        verifyTimer = Timer.builder("flot.auth.hashing.duration").tag("operation", "verify")
+                .description("Durée des opérations bcrypt").register(registry);
+        Gauge.builder("flot.auth.hashing.queue", executor, e -> e.getQueue().size())
+                .description("Tâches bcrypt en attente d'un thread").register(registry);
+        Gauge.builder("flot.auth.hashing.active", executor, ThreadPoolExecutor::getActiveCount)
+                .description("Tâches bcrypt en cours").register(registry);
+
+        LOG.infof("Pool de hachage des mots de passe: %d thread(s), coût bcrypt %d", threads, bcryptCost);
+    }
+
+    @PreDestroy
+    void close() {
+        executor.shutdownNow();
+    }
+
+    public Uni<String> hash(Caller caller, String password) {
+        return submit(caller, () -> hashTimer.record(() -> BcryptUtil.bcryptHash(password, bcryptCost)));
+    }
+
+    /**
+     * Vérifie un mot de passe et, s'il est correct, calcule dans la même tâche le nouveau hash
+     * au coût configuré lorsque le hash stocké est d'un autre coût.
+     */
+    public Uni<Verification> verify(Caller caller, String password, String storedHash) {
+        return submit(caller, () -> {
+            boolean matches = storedHash != null && verifyTimer.record(() -> BcryptUtil.matches(password, storedHash));
+            if (matches && cost(storedHash) != bcryptCost) {
+                return new Verification(true, hashTimer.record(() -> BcryptUtil.bcryptHash(password, bcryptCost)));
+            }
+            return new Verification(matches, null);
+        });
+    }
+
+    /**
+     * Vérifie un mot de passe contre plusieurs hashs dans une seule tâche, en s'arrêtant au premier
+     * qui correspond. Les hashs {@code null} sont ignorés.
+     */
+    public Uni<Boolean> matchesAny(Caller caller, String password, String... storedHashes) {
+        return submit(caller, () -> {
+            for (String storedHash : storedHashes) {
+                if (storedHash != null && verifyTimer.record(() -> BcryptUtil.matches(password, storedHash))) {
+                    return true;
+                }
+            }
+            return false;
+        });
+    }
+
+    private <T> Uni<T> submit(Caller caller, Supplier<T> work) {
+        return Uni.createFrom().deferred(() -> {
+            Semaphore semaphore = permits.get(caller);
+            if (!semaphore.tryAcquire()) {
+                rejected.get(caller).increment();
+                LOG.warnf("Pool de hachage saturé pour %s (file: %d)", caller, executor.getQueue().size());
+                return Uni.createFrom().failure(new HashingSaturatedException(caller));
+            }
+            return Uni.createFrom().item(work)
+                    .runSubscriptionOn(executor)
+                    .emitOn(callerContext())
+                    .eventually(semaphore::release);
+        });
+    }
+
+    // Retour sur le contexte Vert.x appelant (session Hibernate Reactive), à défaut sur le pool lui-même
+    private static Executor callerContext() {
+        Context context = Vertx.currentContext();
+        if (context == null) {
+            return Runnable::run;
+        }
+        return command -> context.runOnContext(v -> command.run());
+    }
+
+    // Coût d'un hash bcrypt au format modulaire ($2a$10$...), -1 s'il n'est pas lisible
+    static int cost(String storedHash) {
+        if (storedHash.length() < 7 || storedHash.charAt(0) != '$' || storedHash.charAt(3) != '$') {
+            return -1;
+        }
+        try {
+            return Integer.parseInt(storedHash.substring(4, 6));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+}
@@ -0,0 +1,12 @@
+package africa.flot.infrastructure.security;
+
+/**
+ * Levée quand le pool de hachage des mots de passe ne peut plus accepter de tâche
+ * pour un appelant donné. Traduite en 429 par les ressources REST.
+ */
+public class HashingSaturatedException extends RuntimeException {
+
+    public HashingSaturatedException(CredentialHasher.Caller caller) {
+        super("Service d'authentification saturé, réessayez plus tard (" + caller.name().toLowerCase() + ")");
+    }
+}
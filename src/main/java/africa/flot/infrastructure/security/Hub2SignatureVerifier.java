@@ -0,0 +1,62 @@
+package africa.flot.infrastructure.security;
+
+import africa.flot.application.config.Hub2Config;
+import jakarta.annotation.PostConstruct;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import org.jboss.logging.Logger;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.util.Base64;
+
+/**
+ * Vérifie la signature HMAC-SHA256 des webhooks HUB2 sur les octets bruts reçus.
+ *
+ * Une instance de {@link Mac} initialisée avec le secret est conservée par thread :
+ * {@code doFinal} la réinitialise, elle est donc réutilisable d'un appel à l'autre.
+ */
+@ApplicationScoped
+public class Hub2SignatureVerifier {
+
+    private static final Logger LOG = Logger.getLogger(Hub2SignatureVerifier.class);
+    private static final String ALGORITHM = "HmacSHA256";
+
+    @Inject
+    Hub2Config hub2Config;
+
+    private SecretKeySpec secretKey;
+
+    private final ThreadLocal<Mac> macs = ThreadLocal.withInitial(this::newMac);
+
+    @PostConstruct
+    void init() {
+        secretKey = new SecretKeySpec(hub2Config.getWebhookSecret().getBytes(StandardCharsets.UTF_8), ALGORITHM);
+    }
+
+    public boolean verify(byte[] body, String receivedSignature) {
+        if (receivedSignature == null || receivedSignature.isEmpty() || body == null) {
+            return false;
+        }
+        Mac mac = macs.get();
+        if (mac == null) {
+            return false;
+        }
+        byte[] expected = Base64.getEncoder().encode(mac.doFinal(body));
+        return MessageDigest.isEqual(expected, receivedSignature.trim().getBytes(StandardCharsets.UTF_8));
+    }
+
+    private Mac newMac() {
+        try {
+            Mac mac = Mac.getInstance(ALGORITHM);
+            mac.init(secretKey);
+            return mac;
+        } catch (GeneralSecurityException e) {
+            LOG.error("Erreur lors de l'initialisation de la vérification de signature", e);
+            return null;
+        }
+    }
+}
@@ -1,8 +1,5 @@
 package africa.flot.infrastructure.security;
 
-import africa.flot.infrastructure.repository.TokenBlacklistRepository;
-import io.smallrye.jwt.auth.principal.JWTParser;
-import io.smallrye.jwt.auth.principal.ParseException;
 import io.smallrye.mutiny.Uni;
 import io.vertx.core.json.JsonObject;
 import jakarta.annotation.Priority;
@@ -14,7 +11,6 @@ import jakarta.ws.rs.container.ResourceInfo;
 import jakarta.ws.rs.core.Context;
 import jakarta.ws.rs.core.Response;
 import jakarta.ws.rs.ext.Provider;
-import org.eclipse.microprofile.jwt.JsonWebToken;
 import org.jboss.logging.Logger;
 import org.jboss.resteasy.reactive.server.ServerRequestFilter;
 
@@ -27,10 +23,7 @@ public class JwtAuthenticationFilter {
     private static final Logger LOG = Logger.getLogger(JwtAuthenticationFilter.class);
 
     @Inject
-    TokenBlacklistRepository tokenBlacklistRepository;
-
-    @Inject
-    JWTParser parser;
+    TokenVerificationCache tokenVerificationCache;
 
     @Context
     ResourceInfo resourceInfo;
@@ -50,10 +43,10 @@ public class JwtAuthenticationFilter {
             );
         }
 
-        return tokenBlacklistRepository.isTokenBlacklisted(token)
+        return tokenVerificationCache.verify(token)
                 .onFailure().invoke(e -> LOG.error("Erreur lors de la vérification du token", e))
-                .onItem().transformToUni(isBlacklisted -> {
-                    if (isBlacklisted) {
+                .onItem().transformToUni(verified -> {
+                    if (verified.isRevoked()) {
                         return abortRequest(
                                 "Token invalidé",
                                 "INVALID_TOKEN",
@@ -61,18 +54,12 @@ public class JwtAuthenticationFilter {
                         );
                     }
 
-                    if (isSubscriberToken(token)) {
-                        boolean requirePasswordChange = Boolean.parseBoolean(
-                                extractClaimFromToken(token, "requirePasswordChange")
+                    if (verified.isSubscriber() && verified.requiresPasswordChange()) {
+                        return abortRequest(
+                                "Le mot de passe doit être modifié",
+                                "PASSWORD_CHANGE_REQUIRED",
+                                Response.Status.FORBIDDEN
                         );
-
-                        if (requirePasswordChange) {
-                            return abortRequest(
-                                    "Le mot de passe doit être modifié",
-                                    "PASSWORD_CHANGE_REQUIRED",
-                                    Response.Status.FORBIDDEN
-                            );
-                        }
                     }
                     return Uni.createFrom().nullItem();
                 })
@@ -89,35 +76,6 @@ public class JwtAuthenticationFilter {
                 });
     }
 
-    private boolean isSubscriberToken(String token) {
-        try {
-            JsonWebToken jwt = parser.parse(token);
-            return jwt.getGroups().contains("SUBSCRIBER");
-        } catch (ParseException e) {
-            LOG.error("Erreur lors de la vérification du type de token", e);
-            return false;
-        }
-    }
-
-    private String extractClaimFromToken(String token, String claimName) {
-        try {
-            JsonWebToken jwt = parser.parse(token);
-            Object claim = jwt.getClaim(claimName);
-
-            if (claim instanceof String) {
-                return (String) claim;
-            } else if (claim instanceof jakarta.json.JsonValue) {
-                return claim.toString();
-            } else if (claim != null) {
-                return claim.toString();
-            }
-            return null;
-        } catch (ParseException e) {
-            LOG.error("Erreur lors de l'extraction du claim " + claimName, e);
-            return null;
-        }
-    }
-
     private boolean isPasswordChangeEndpoint(ContainerRequestContext requestContext) {
         String path = requestContext.getUriInfo().getPath();
         String method = requestContext.getMethod();
@@ -0,0 +1,108 @@
+package africa.flot.infrastructure.security;
+
+import africa.flot.infrastructure.util.ExpiringCache;
+import io.smallrye.mutiny.Uni;
+import io.vertx.mutiny.pgclient.PgPool;
+import io.vertx.mutiny.sqlclient.Tuple;
+import jakarta.annotation.PostConstruct;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
+
+import java.time.Duration;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Index local des rattachements utilisés par les contrôles d'accès des abonnés :
+ * nom d'utilisateur → lead (pour les jetons émis sans claim {@code subscriberId}) et
+ * lead → prêts détenus.
+ *
+ * Un prêt ne change jamais de lead : un prêt connu est accepté sans requête, et un prêt inconnu
+ * déclenche au plus un rechargement par lead et par {@code auth.ownership.refresh-interval}
+ * (cas d'un prêt créé depuis le dernier chargement).
+ */
+@ApplicationScoped
+public class LeadOwnershipIndex {
+
+    private static final Logger LOG = Logger.getLogger(LeadOwnershipIndex.class);
+
+    private static final String LEAD_BY_USERNAME_SQL =
+            "SELECT lead_id FROM accounts WHERE username = $1";
+
+    private static final String LOANS_BY_LEAD_SQL =
+            "SELECT id FROM flot_loans WHERE lead_id = $1";
+
+    @Inject
+    PgPool client;
+
+    @ConfigProperty(name = "auth.ownership.max-size", defaultValue = "20000")
+    int maxSize;
+
+    @ConfigProperty(name = "auth.ownership.ttl", defaultValue = "PT30M")
+    Duration ttl;
+
+    @ConfigProperty(name = "auth.ownership.refresh-interval", defaultValue = "PT10S")
+    Duration refreshInterval;
+
+    private ExpiringCache<String, UUID> leadsByUsername;
+    private ExpiringCache<UUID, LoanEntry> loansByLead;
+
+    @PostConstruct
+    void init() {
+        leadsByUsername = new ExpiringCache<>(maxSize);
+        loansByLead = new ExpiringCache<>(maxSize);
+    }
+
+    /**
+     * Lead rattaché à un compte abonné, ou {@code null} si le compte n'existe pas.
+     */
+    public Uni<UUID> leadOf(String username) {
+        UUID cached = leadsByUsername.get(username);
+        if (cached != null) {
+            return Uni.createFrom().item(cached);
+        }
+        return client.preparedQuery(LEAD_BY_USERNAME_SQL)
+                .execute(Tuple.of(username))
+                .map(rows -> rows.iterator().hasNext() ? rows.iterator().next().getUUID("lead_id") : null)
+                .invoke(leadId -> {
+                    if (leadId != null) {
+                        leadsByUsername.put(username, leadId, System.currentTimeMillis() + ttl.toMillis());
+                    }
+                });
+    }
+
+    /**
+     * Indique si le prêt appartient au lead.
+     */
+    public Uni<Boolean> owns(UUID leadId, UUID loanId) {
+        long now = System.currentTimeMillis();
+        LoanEntry cached = loansByLead.get(leadId);
+        if (cached != null) {
+            if (cached.loanIds.contains(loanId)) {
+                return Uni.createFrom().item(true);
+            }
+            if (now - cached.loadedAt < refreshInterval.toMillis()) {
+                return Uni.createFrom().item(false);
+            }
+        }
+        return loadLoans(leadId, now).map(loanIds -> loanIds.contains(loanId));
+    }
+
+    private Uni<Set<UUID>> loadLoans(UUID leadId, long now) {
+        return client.preparedQuery(LOANS_BY_LEAD_SQL)
+                .execute(Tuple.of(leadId))
+                .map(rows -> {
+                    Set<UUID> loanIds = new HashSet<>();
+                    rows.forEach(row -> loanIds.add(row.getUUID("id")));
+                    loansByLead.put(leadId, new LoanEntry(Set.copyOf(loanIds), now), now + ttl.toMillis());
+                    LOG.debugf("Prêts du lead %s chargés: %d", leadId, loanIds.size());
+                    return loanIds;
+                });
+    }
+
+    private record LoanEntry(Set<UUID> loanIds, long loadedAt) {
+    }
+}
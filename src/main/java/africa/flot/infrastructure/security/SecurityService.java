@@ -1,29 +1,39 @@
 package africa.flot.infrastructure.security;
 
-import africa.flot.domain.model.Account;
-import io.quarkus.hibernate.reactive.panache.common.WithSession;
 import io.quarkus.security.identity.SecurityIdentity;
 import io.smallrye.mutiny.Uni;
-import io.smallrye.mutiny.unchecked.Unchecked;
 import jakarta.enterprise.context.ApplicationScoped;
 import jakarta.inject.Inject;
 import jakarta.ws.rs.NotFoundException;
+import org.eclipse.microprofile.jwt.JsonWebToken;
 import org.jboss.logging.Logger;
 
+import java.util.UUID;
+
+/**
+ * Contrôles d'accès des abonnés à leurs propres ressources.
+ *
+ * Le lead de l'abonné est lu dans le claim signé {@code subscriberId} du jeton ; les jetons
+ * qui n'en ont pas passent par {@link LeadOwnershipIndex}. Un refus renvoie 404 plutôt que 403
+ * pour ne pas révéler l'existence de la ressource.
+ */
 @ApplicationScoped
 public class SecurityService {
     private static final Logger LOG = Logger.getLogger(SecurityService.class);
     private static final Logger AUDIT_LOG = Logger.getLogger("AUDIT");
     private static final Logger errorf_LOG = Logger.getLogger("errorf");
+    private static final String SUBSCRIBER_ID_CLAIM = "subscriberId";
 
     @Inject
     SecurityIdentity identity;
 
+    @Inject
+    LeadOwnershipIndex ownershipIndex;
+
     public String getToken() {
         return identity.getPrincipal().getName(); // ou extraire le token s'il est stocké
     }
 
-    @WithSession
     public Uni<Void> validateLeadAccess(String leadId) {
         // If not a SUBSCRIBER, no need to validate
         if (!identity.hasRole("SUBSCRIBER")) {
@@ -35,23 +45,62 @@ public class SecurityService {
         String username = identity.getPrincipal().getName();
         AUDIT_LOG.debugf("Validating lead access for SUBSCRIBER %s to Lead %s", username, leadId);
 
-        return Account.<Account>find("username = ?1", username)
-                .firstResult()
-                .onItem().invoke(Unchecked.consumer(account -> {
-                    if (account == null) {
-                        AUDIT_LOG.errorf("Account not found for username: %s", username);
-                        throw new NotFoundException("Resource not found");
-                    }
-
-                    if (!account.getLead().getId().toString().equals(leadId)) {
+        return currentLeadId(username)
+                .map(ownLeadId -> {
+                    if (!ownLeadId.toString().equals(leadId)) {
                         AUDIT_LOG.errorf("Unauthorized access attempt - User: %s tried to access Lead: %s",
                                 username, leadId);
-                        // Return 404 instead of 403 to not reveal resource existence
                         throw new NotFoundException("Resource not found");
                     }
+                    AUDIT_LOG.debugf("Access validated for SUBSCRIBER %s to Lead %s", username, leadId);
+                    return ownLeadId;
+                })
+                .replaceWithVoid();
+    }
 
-                    AUDIT_LOG.infof("Access validated for SUBSCRIBER %s to Lead %s", username, leadId);
-                }))
+    /**
+     * Vérifie que le prêt appartient au lead de l'abonné connecté.
+     */
+    public Uni<Void> validateLoanAccess(UUID loanId) {
+        if (!identity.hasRole("SUBSCRIBER")) {
+            AUDIT_LOG.debugf("Skipping validation for non-SUBSCRIBER user: %s",
+                    identity.getPrincipal().getName());
+            return Uni.createFrom().voidItem();
+        }
+
+        String username = identity.getPrincipal().getName();
+        AUDIT_LOG.debugf("Validating loan access for SUBSCRIBER %s to Loan %s", username, loanId);
+
+        return currentLeadId(username)
+                .chain(ownLeadId -> ownershipIndex.owns(ownLeadId, loanId))
+                .map(owned -> {
+                    if (!owned) {
+                        AUDIT_LOG.errorf("Unauthorized access attempt - User: %s tried to access Loan: %s",
+                                username, loanId);
+                        throw new NotFoundException("Resource not found");
+                    }
+                    AUDIT_LOG.debugf("Access validated for SUBSCRIBER %s to Loan %s", username, loanId);
+                    return owned;
+                })
                 .replaceWithVoid();
     }
-}
\ No newline at end of file
+
+    // Claim signé si présent (jetons émis à la connexion), sinon index local puis base
+    private Uni<UUID> currentLeadId(String username) {
+        if (identity.getPrincipal() instanceof JsonWebToken jwt) {
+            Object claim = jwt.getClaim(SUBSCRIBER_ID_CLAIM);
+            if (claim != null) {
+                try {
+                    return Uni.createFrom().item(UUID.fromString(claim.toString().replace("\"", "")));
+                } catch (IllegalArgumentException e) {
+                    LOG.warnf("Claim %s invalide pour %s", SUBSCRIBER_ID_CLAIM, username);
+                }
+            }
+        }
+        return ownershipIndex.leadOf(username)
+                .onItem().ifNull().failWith(() -> {
+                    AUDIT_LOG.errorf("Account not found for username: %s", username);
+                    return new NotFoundException("Resource not found");
+                });
+    }
+}
@@ -0,0 +1,167 @@
+package africa.flot.infrastructure.security;
+
+import africa.flot.infrastructure.repository.TokenBlacklistRepository;
+import africa.flot.infrastructure.util.ExpiringCache;
+import africa.flot.infrastructure.util.TokenHash;
+import io.quarkus.redis.datasource.ReactiveRedisDataSource;
+import io.quarkus.runtime.StartupEvent;
+import io.smallrye.jwt.auth.principal.JWTParser;
+import io.smallrye.jwt.auth.principal.ParseException;
+import io.smallrye.mutiny.Uni;
+import jakarta.annotation.PostConstruct;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.inject.Inject;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.eclipse.microprofile.jwt.JsonWebToken;
+import org.jboss.logging.Logger;
+
+import java.time.Duration;
+
+/**
+ * Cache local des jetons déjà vérifiés, indexé par l'empreinte du jeton.
+ *
+ * Chaque entrée conserve les claims utiles au filtre d'authentification et le verdict
+ * de la blacklist. Le jeton n'est donc analysé qu'une fois, et Redis n'est interrogé
+ * qu'après expiration du verdict ({@code auth.token-cache.blacklist-ttl}). Les révocations
+ * sont diffusées à tous les nœuds par pub/sub Redis.
+ */
+@ApplicationScoped
+public class TokenVerificationCache {
+
+    private static final Logger LOG = Logger.getLogger(TokenVerificationCache.class);
+    private static final String REVOCATION_CHANNEL = "auth:token-revoked";
+
+    @Inject
+    JWTParser parser;
+
+    @Inject
+    TokenBlacklistRepository tokenBlacklistRepository;
+
+    @Inject
+    ReactiveRedisDataSource redis;
+
+    @ConfigProperty(name = "auth.token-cache.max-size", defaultValue = "10000")
+    int maxSize;
+
+    @ConfigProperty(name = "auth.token-cache.ttl", defaultValue = "PT5M")
+    Duration ttl;
+
+    @ConfigProperty(name = "auth.token-cache.blacklist-ttl", defaultValue = "PT30S")
+    Duration blacklistTtl;
+
+    private ExpiringCache<String, VerifiedToken> entries;
+
+    @PostConstruct
+    void init() {
+        entries = new ExpiringCache<>(maxSize);
+    }
+
+    void onStart(@Observes StartupEvent ev) {
+        redis.pubsub(String.class)
+                .subscribe(REVOCATION_CHANNEL)
+                .onFailure().invoke(e -> LOG.warnf("Abonnement aux révocations de jetons interrompu: %s", e.getMessage()))
+                .onFailure().retry().withBackOff(Duration.ofSeconds(1), Duration.ofSeconds(30)).indefinitely()
+                .subscribe().with(this::markRevoked,
+                        e -> LOG.error("Abonnement aux révocations de jetons abandonné", e));
+    }
+
+    /**
+     * Vérifie un jeton : claims depuis le cache ou analysés une seule fois,
+     * verdict de blacklist depuis le cache tant qu'il est frais.
+     */
+    public Uni<VerifiedToken> verify(String token) {
+        String hash = TokenHash.of(token);
+        long now = System.currentTimeMillis();
+
+        VerifiedToken cached = entries.get(hash);
+        if (cached == null) {
+            cached = parse(token, now);
+            if (cached.cacheable) {
+                entries.put(hash, cached, cached.expiresAt);
+            }
+        }
+
+        VerifiedToken verified = cached;
+        if (verified.revoked || now - verified.blacklistCheckedAt < blacklistTtl.toMillis()) {
+            return Uni.createFrom().item(verified);
+        }
+        return tokenBlacklistRepository.isTokenBlacklisted(token)
+                .map(blacklisted -> {
+                    verified.recordVerdict(blacklisted, System.currentTimeMillis());
+                    return verified;
+                });
+    }
+
+    /**
+     * Marque le jeton comme révoqué localement puis prévient les autres nœuds.
+     */
+    public Uni<Void> publishRevocation(String token) {
+        String hash = TokenHash.of(token);
+        markRevoked(hash);
+        return redis.pubsub(String.class).publish(REVOCATION_CHANNEL, hash)
+                .onFailure().invoke(e -> LOG.warnf("Diffusion de la révocation impossible: %s", e.getMessage()))
+                .onFailure().recoverWithNull();
+    }
+
+    void markRevoked(String hash) {
+        tokenBlacklistRepository.recordRevoked(hash);
+        VerifiedToken cached = entries.get(hash);
+        if (cached != null) {
+            cached.recordVerdict(true, System.currentTimeMillis());
+        }
+    }
+
+    private VerifiedToken parse(String token, long now) {
+        try {
+            JsonWebToken jwt = parser.parse(token);
+            boolean subscriber = jwt.getGroups().contains("SUBSCRIBER");
+            Object claim = jwt.getClaim("requirePasswordChange");
+            boolean requirePasswordChange = claim != null && Boolean.parseBoolean(claim.toString());
+
+            // Une entrée ne survit jamais au jeton lui-même
+            long expiresAt = now + ttl.toMillis();
+            if (jwt.getExpirationTime() > 0) {
+                expiresAt = Math.min(expiresAt, jwt.getExpirationTime() * 1000);
+            }
+            return new VerifiedToken(subscriber, requirePasswordChange, expiresAt, true);
+        } catch (ParseException e) {
+            LOG.error("Erreur lors de la vérification du type de token", e);
+            return new VerifiedToken(false, false, now, false);
+        }
+    }
+
+    public static final class VerifiedToken {
+        private final boolean subscriber;
+        private final boolean requirePasswordChange;
+        private final long expiresAt;
+        private final boolean cacheable;
+        private volatile boolean revoked;
+        private volatile long blacklistCheckedAt = Long.MIN_VALUE / 2;
+
+        private VerifiedToken(boolean subscriber, boolean requirePasswordChange, long expiresAt, boolean cacheable) {
+            this.subscriber = subscriber;
+            this.requirePasswordChange = requirePasswordChange;
+            this.expiresAt = expiresAt;
+            this.cacheable = cacheable;
+        }
+
+        private void recordVerdict(boolean blacklisted, long checkedAt) {
+            // Une révocation est définitive pour la durée de vie du jeton
+            revoked = revoked || blacklisted;
+            blacklistCheckedAt = checkedAt;
+        }
+
+        public boolean isSubscriber() {
+            return subscriber;
+        }
+
+        public boolean requiresPasswordChange() {
+            return requirePasswordChange;
+        }
+
+        public boolean isRevoked() {
+            return revoked;
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package africa.flot.infrastructure.security;
+
+import africa.flot.domain.model.Lead;
+import africa.flot.domain.model.User;
+
+/**
+ * Profil minimal renvoyé par {@code /auth/me} : uniquement les champs affichés par les applications.
+ */
+public record UserProfile(
+        String id,
+        String role,
+        String username,
+        String fullname,
+        String firstName,
+        String lastName,
+        String email,
+        String phoneNumber,
+        String status,
+        Boolean active) {
+
+    public static UserProfile of(Lead lead, String username) {
+        return new UserProfile(
+                String.valueOf(lead.getId()),
+                "SUBSCRIBER",
+                username,
+                lead.getFullname(),
+                lead.getFirstName(),
+                lead.getLastName(),
+                lead.getEmail(),
+                lead.getPhoneNumber(),
+                lead.getStatus() != null ? lead.getStatus().name() : null,
+                lead.getActive());
+    }
+
+    public static UserProfile of(User user) {
+        return new UserProfile(
+                String.valueOf(user.id),
+                "ADMIN",
+                user.email,
+                user.name,
+                null,
+                null,
+                user.email,
+                null,
+                null,
+                true);
+    }
+
+    /**
+     * Réponse de {@code /auth/me} : le profil et une URL présignée de la photo, si elle existe.
+     */
+    public record Info(UserProfile user, String photoUrl) {
+    }
+
+    /**
+     * Valeur mise en cache : le profil et le nom de l'objet photo dans MinIO. L'URL présignée
+     * est calculée à part, sa durée de validité étant indépendante de celle du profil.
+     */
+    public record Cached(UserProfile user, String photoObject) {
+    }
+}
@@ -0,0 +1,312 @@
+package africa.flot.infrastructure.security;
+
+import africa.flot.infrastructure.util.ExpiringCache;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.minio.GetPresignedObjectUrlArgs;
+import io.minio.MinioClient;
+import io.minio.http.Method;
+import io.quarkus.redis.datasource.ReactiveRedisDataSource;
+import io.quarkus.runtime.StartupEvent;
+import io.smallrye.mutiny.Uni;
+import io.smallrye.mutiny.infrastructure.Infrastructure;
+import jakarta.annotation.PostConstruct;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.inject.Inject;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Cache des profils servis par {@code /auth/me}.
+ *
+ * Deux niveaux : un cache local au nœud à durée courte, puis Redis (profil compact sérialisé).
+ * Les appels concurrents sur une clé absente sont regroupés en un seul chargement. L'URL
+ * présignée de la photo est mise en cache séparément, jusqu'à peu avant sa propre expiration,
+ * de sorte qu'une URL servie reste toujours valable au moins {@code auth.profile.photo-url-margin}.
+ *
+ * Les invalidations ({@link #invalidate}, {@link #invalidateLead}) sont diffusées aux autres nœuds
+ * par pub/sub Redis ; une application tierce qui modifie un lead ou sa photo peut publier
+ * {@code lead:<id>} sur le même canal. Une indisponibilité de Redis n'est jamais bloquante.
+ */
+@ApplicationScoped
+public class UserProfileCache {
+
+    private static final Logger LOG = Logger.getLogger(UserProfileCache.class);
+    private static final String KEY_PREFIX = "user:profile:";
+    private static final String LEAD_INDEX_PREFIX = "user:profile-lead:";
+    private static final String PHOTO_URL_PREFIX = "user:photo-url:";
+    private static final String INVALIDATION_CHANNEL = "auth:profile-invalidated";
+    private static final String LEAD_MESSAGE = "lead:";
+    private static final String PHOTO_BUCKET = "flotkyb";
+
+    @Inject
+    ReactiveRedisDataSource redis;
+
+    @Inject
+    ObjectMapper objectMapper;
+
+    @Inject
+    MinioClient minioClient;
+
+    @Inject
+    MeterRegistry registry;
+
+    @ConfigProperty(name = "auth.profile.ttl", defaultValue = "PT15M")
+    Duration ttl;
+
+    @ConfigProperty(name = "auth.profile.near-ttl", defaultValue = "PT30S")
+    Duration nearTtl;
+
+    @ConfigProperty(name = "auth.profile.max-size", defaultValue = "10000")
+    int maxSize;
+
+    @ConfigProperty(name = "auth.profile.photo-url-expiry", defaultValue = "PT1H")
+    Duration photoUrlExpiry;
+
+    @ConfigProperty(name = "auth.profile.photo-url-margin", defaultValue = "PT5M")
+    Duration photoUrlMargin;
+
+    private ExpiringCache<String, UserProfile.Cached> entries;
+    // Chaque URL expire à son servableUntil, indépendamment du profil
+    private ExpiringCache<String, PhotoUrl> photoUrls;
+    private final Map<String, Uni<UserProfile.Cached>> inFlight = new ConcurrentHashMap<>();
+    // Incrémenté à chaque invalidation : un chargement commencé avant n'est pas conservé localement
+    private final AtomicLong invalidations = new AtomicLong();
+
+    @PostConstruct
+    void init() {
+        entries = new ExpiringCache<>(maxSize);
+        photoUrls = new ExpiringCache<>(maxSize);
+    }
+
+    void onStart(@Observes StartupEvent ev) {
+        redis.pubsub(String.class)
+                .subscribe(INVALIDATION_CHANNEL)
+                .onFailure().invoke(e -> LOG.warnf("Abonnement aux invalidations de profils interrompu: %s", e.getMessage()))
+                .onFailure().retry().withBackOff(Duration.ofSeconds(1), Duration.ofSeconds(30)).indefinitely()
+                .subscribe().with(this::onInvalidation,
+                        e -> LOG.error("Abonnement aux invalidations de profils abandonné", e));
+    }
+
+    /**
+     * Profil et URL de photo d'un utilisateur ; {@code loader} n'est appelé que si le profil
+     * n'est ni en cache local ni dans Redis, et une seule fois pour des appels concurrents.
+     * Retourne {@code null} si l'utilisateur n'existe pas (ce résultat n'est pas mis en cache).
+     */
+    public Uni<UserProfile.Info> get(String role, String identifier, Supplier<Uni<UserProfile.Cached>> loader) {
+        return profile(key(role, identifier), loader)
+                .onItem().ifNotNull().transformToUni(cached -> photoUrl(cached.photoObject())
+                        .map(url -> new UserProfile.Info(cached.user(), url)));
+    }
+
+    /**
+     * Invalide le profil d'un utilisateur sur tous les nœuds.
+     */
+    public Uni<Void> invalidate(String role, String identifier) {
+        String key = key(role, identifier);
+        evictLocal(key);
+        return redis.key().del(KEY_PREFIX + key)
+                .chain(() -> redis.pubsub(String.class).publish(INVALIDATION_CHANNEL, key))
+                .onFailure().invoke(e -> LOG.warnf("Invalidation du profil impossible pour %s: %s", key, e.getMessage()))
+                .onFailure().recoverWithNull()
+                .replaceWithVoid();
+    }
+
+    /**
+     * Invalide le profil de l'abonné rattaché à un lead (changement de profil ou de photo).
+     */
+    public Uni<Void> invalidateLead(UUID leadId) {
+        return redis.value(String.class).get(LEAD_INDEX_PREFIX + leadId)
+                .onFailure().recoverWithNull()
+                .chain(key -> {
+                    if (key == null) {
+                        // Profil absent de Redis : seuls les caches locaux peuvent encore le contenir
+                        return redis.pubsub(String.class).publish(INVALIDATION_CHANNEL, LEAD_MESSAGE + leadId)
+                                .onFailure().recoverWithNull()
+                                .replaceWithVoid();
+                    }
+                    int separator = key.indexOf(':');
+                    return invalidate(key.substring(0, separator), key.substring(separator + 1));
+                });
+    }
+
+    private Uni<UserProfile.Cached> profile(String key, Supplier<Uni<UserProfile.Cached>> loader) {
+        UserProfile.Cached cached = entries.get(key);
+        if (cached != null) {
+            hit("near");
+            return Uni.createFrom().item(cached);
+        }
+
+        Uni<UserProfile.Cached> pending = inFlight.get(key);
+        if (pending != null) {
+            return pending;
+        }
+        long version = invalidations.get();
+        Uni<UserProfile.Cached> load = fromRedis(key)
+                .invoke(value -> {
+                    if (value != null) {
+                        hit("redis");
+                    }
+                })
+                .onItem().ifNull().switchTo(() -> loader.get()
+                        .invoke(value -> hit("load"))
+                        .call(value -> value != null ? toRedis(key, value) : Uni.createFrom().voidItem()))
+                .invoke(value -> {
+                    if (value != null && invalidations.get() == version) {
+                        store(key, value);
+                    }
+                })
+                .eventually(() -> {
+                    inFlight.remove(key);
+                })
+                .memoize().indefinitely();
+
+        Uni<UserProfile.Cached> concurrent = inFlight.putIfAbsent(key, load);
+        return concurrent != null ? concurrent : load;
+    }
+
+    private Uni<String> photoUrl(String object) {
+        if (object == null) {
+            return Uni.createFrom().nullItem();
+        }
+        PhotoUrl cached = photoUrls.get(object);
+        if (cached != null) {
+            return Uni.createFrom().item(cached.url);
+        }
+        return redis.value(String.class).get(PHOTO_URL_PREFIX + object)
+                .onFailure().recoverWithNull()
+                .map(value -> value != null ? PhotoUrl.parse(value) : null)
+                .chain(shared -> shared != null && shared.servableUntil > System.currentTimeMillis()
+                        ? Uni.createFrom().item(shared)
+                        : presign(object))
+                .invoke(url -> {
+                    if (url != null) {
+                        photoUrls.put(object, url, url.servableUntil);
+                    }
+                })
+                .map(url -> url != null ? url.url : null);
+    }
+
+    // La signature MinIO peut interroger le serveur (région du bucket) : hors boucle d'événements
+    private Uni<PhotoUrl> presign(String object) {
+        return Uni.createFrom().item(() -> {
+                    long signedAt = System.currentTimeMillis();
+                    try {
+                        String url = minioClient.getPresignedObjectUrl(GetPresignedObjectUrlArgs.builder()
+                                .bucket(PHOTO_BUCKET)
+                                .object(object)
+                                .method(Method.GET)
+                                .expiry((int) photoUrlExpiry.toSeconds())
+                                .build());
+                        return new PhotoUrl(url, signedAt + photoUrlExpiry.toMillis() - photoUrlMargin.toMillis());
+                    } catch (Exception e) {
+                        LOG.error("Error generating presigned URL", e);
+                        return null;
+                    }
+                })
+                .runSubscriptionOn(Infrastructure.getDefaultWorkerPool())
+                .call(url -> {
+                    if (url == null) {
+                        return Uni.createFrom().voidItem();
+                    }
+                    long seconds = (url.servableUntil - System.currentTimeMillis()) / 1000;
+                    if (seconds <= 0) {
+                        return Uni.createFrom().voidItem();
+                    }
+                    return redis.value(String.class).setex(PHOTO_URL_PREFIX + object, seconds, url.format())
+                            .onFailure().recoverWithNull();
+                });
+    }
+
+    private Uni<UserProfile.Cached> fromRedis(String key) {
+        return redis.value(String.class).get(KEY_PREFIX + key)
+                .map(json -> {
+                    if (json == null) {
+                        return null;
+                    }
+                    try {
+                        return objectMapper.readValue(json, UserProfile.Cached.class);
+                    } catch (JsonProcessingException e) {
+                        LOG.warnf("Profil en cache illisible, ignoré: %s", key);
+                        return null;
+                    }
+                })
+                .onFailure().invoke(e -> LOG.debugf("Cache des profils Redis indisponible pour %s: %s", key, e.getMessage()))
+                .onFailure().recoverWithNull();
+    }
+
+    private Uni<Void> toRedis(String key, UserProfile.Cached value) {
+        try {
+            String json = objectMapper.writeValueAsString(value);
+            Uni<Void> index = "SUBSCRIBER".equals(value.user().role())
+                    ? redis.value(String.class).setex(LEAD_INDEX_PREFIX + value.user().id(), ttl.toSeconds(), key)
+                    : Uni.createFrom().voidItem();
+            return redis.value(String.class).setex(KEY_PREFIX + key, ttl.toSeconds(), json)
+                    .chain(() -> index)
+                    .onFailure().invoke(e -> LOG.debugf("Écriture du profil dans Redis impossible pour %s: %s", key, e.getMessage()))
+                    .onFailure().recoverWithNull();
+        } catch (JsonProcessingException e) {
+            return Uni.createFrom().voidItem();
+        }
+    }
+
+    private void onInvalidation(String message) {
+        if (message.startsWith(LEAD_MESSAGE)) {
+            String leadId = message.substring(LEAD_MESSAGE.length());
+            invalidations.incrementAndGet();
+            entries.removeIf(value -> leadId.equals(value.user().id()));
+            return;
+        }
+        evictLocal(message);
+    }
+
+    private void store(String key, UserProfile.Cached value) {
+        entries.put(key, value, System.currentTimeMillis() + nearTtl.toMillis());
+    }
+
+    // La photo a pu changer avec le profil : l'URL en cache est abandonnée aussi
+    private void evictLocal(String key) {
+        invalidations.incrementAndGet();
+        UserProfile.Cached removed = entries.remove(key);
+        if (removed != null && removed.photoObject() != null) {
+            photoUrls.remove(removed.photoObject());
+        }
+    }
+
+    private void hit(String tier) {
+        registry.counter("flot.auth.profile.cache", "tier", tier).increment();
+    }
+
+    private static String key(String role, String identifier) {
+        return role + ":" + identifier;
+    }
+
+    // servableUntil : fin de validité de l'URL moins la marge garantie au client
+    private record PhotoUrl(String url, long servableUntil) {
+
+        String format() {
+            return servableUntil + "|" + url;
+        }
+
+        static PhotoUrl parse(String value) {
+            int separator = value.indexOf('|');
+            if (separator < 0) {
+                return null;
+            }
+            try {
+                return new PhotoUrl(value.substring(separator + 1), Long.parseLong(value.substring(0, separator)));
+            } catch (NumberFormatException e) {
+                return null;
+            }
+        }
+    }
+}
@@ -0,0 +1,241 @@
+package africa.flot.infrastructure.service;
+
+import africa.flot.application.dto.command.CohortScoringCommande;
+import africa.flot.application.dto.response.CohortScoringReport;
+import africa.flot.application.dto.response.CohortScoringReport.Decision;
+import africa.flot.application.dto.response.CohortScoringReport.ItemResult;
+import africa.flot.domain.model.Lead;
+import africa.flot.domain.model.exception.BusinessException;
+import io.quarkus.hibernate.reactive.panache.Panache;
+import io.smallrye.mutiny.Multi;
+import io.smallrye.mutiny.Uni;
+import io.smallrye.mutiny.infrastructure.Infrastructure;
+import io.vertx.mutiny.pgclient.PgPool;
+import io.vertx.mutiny.sqlclient.Row;
+import io.vertx.mutiny.sqlclient.RowSet;
+import io.vertx.mutiny.sqlclient.Tuple;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
+
+import java.time.LocalDateTime;
+import java.util.*;
+
+/**
+ * Scoring V2 d'une cohorte de leads.
+ *
+ * L'éligibilité de toute la cohorte (déjà scoré, qualifié, scorable, documents valides) est lue
+ * en une requête, les leads éligibles en une seconde. Le calcul, purement en mémoire, est réparti
+ * par tranches sur le pool de workers, puis les {@code lead_scores} sont insérés par lots. Un lead
+ * scoré entre-temps par un autre appel n'est pas scoré une seconde fois : l'index unique
+ * {@code uk_lead_scores_lead} (voir SchemaConstraints) fait ignorer l'insertion.
+ */
+@ApplicationScoped
+public class CohortScoringService {
+
+    private static final Logger LOG = Logger.getLogger(CohortScoringService.class);
+    private static final Logger AUDIT_LOG = Logger.getLogger("AUDIT");
+
+    // $1 = identifiants des leads
+    private static final String ELIGIBILITY_SQL = """
+            SELECT l.id,
+                   EXISTS (SELECT 1 FROM lead_scores s WHERE s.lead_id = l.id) AS scored,
+                   EXISTS (SELECT 1 FROM qualified_prospects q WHERE q.lead_id = l.id AND q.status) AS qualified,
+                   EXISTS (SELECT 1 FROM scorings c WHERE c.lead_id = l.id AND c.status) AS can_score,
+                   EXISTS (SELECT 1 FROM kybdocuments k WHERE k.lead_id = l.id AND k.cniuploadee
+                           AND k.permisconduiteuploade AND k.justificatifdomicileuploade) AS documents_valid
+            FROM leads l WHERE l.id = ANY($1)
+            """;
+
+    // $1 = nombre maximal de leads
+    private static final String QUALIFIED_UNSCORED_SQL = """
+            SELECT DISTINCT q.lead_id FROM qualified_prospects q
+            WHERE q.status AND NOT EXISTS (SELECT 1 FROM lead_scores s WHERE s.lead_id = q.lead_id)
+            ORDER BY q.lead_id LIMIT $1
+            """;
+
+    private static final String INSERT_SCORE_SQL =
+            "INSERT INTO lead_scores (id, lead_id, personal_data_score, vtc_experience_score, driving_record_score, " +
+            "total_score, created_at, algorithm_version, is_approved) " +
+            "VALUES ($1, $2, $3, $4, $5, $6, $7, 'V2', $8) " +
+            "ON CONFLICT (lead_id) DO NOTHING";
+
+    @Inject
+    ScoringServiceV2Impl scoringService;
+
+    @Inject
+    PgPool client;
+
+    @ConfigProperty(name = "scoring.cohort.max-size", defaultValue = "2000")
+    int maxSize;
+
+    @ConfigProperty(name = "scoring.cohort.chunk-size", defaultValue = "100")
+    int chunkSize;
+
+    // 0 = nombre de cœurs
+    @ConfigProperty(name = "scoring.cohort.parallelism", defaultValue = "0")
+    int parallelism;
+
+    @ConfigProperty(name = "scoring.cohort.insert-batch-size", defaultValue = "500")
+    int insertBatchSize;
+
+    public Uni<CohortScoringReport> score(CohortScoringCommande commande) {
+        long start = System.currentTimeMillis();
+        List<UUID> requested = commande.getLeadIds() != null
+                ? new ArrayList<>(new LinkedHashSet<>(commande.getLeadIds()))
+                : null;
+        if (requested != null && requested.size() > maxSize) {
+            return Uni.createFrom().failure(
+                    new BusinessException("La cohorte dépasse la taille maximale de " + maxSize + " leads"));
+        }
+        int limit = commande.getLimit() != null ? Math.min(commande.getLimit(), maxSize) : maxSize;
+
+        Uni<List<UUID>> cohort = requested != null
+                ? Uni.createFrom().item(requested)
+                : client.preparedQuery(QUALIFIED_UNSCORED_SQL).execute(Tuple.of(limit))
+                        .map(rows -> {
+                            List<UUID> ids = new ArrayList<>(rows.size());
+                            rows.forEach(row -> ids.add(row.getUUID("lead_id")));
+                            return ids;
+                        });
+
+        return cohort
+                .flatMap(leadIds -> leadIds.isEmpty()
+                        ? Uni.createFrom().item(List.<ItemResult>of())
+                        : scoreCohort(leadIds))
+                .map(items -> {
+                    CohortScoringReport report = CohortScoringReport.of(items, System.currentTimeMillis() - start);
+                    AUDIT_LOG.infof("Scoring de cohorte terminé - %d leads, %d acceptés, %d refusés, %d ignorés en %d ms",
+                            report.getTotal(), report.getApproved(), report.getRejected(), report.getSkipped(),
+                            report.getDurationMs());
+                    return report;
+                });
+    }
+
+    private Uni<List<ItemResult>> scoreCohort(List<UUID> leadIds) {
+        Map<UUID, ItemResult> results = new LinkedHashMap<>();
+        leadIds.forEach(id -> results.put(id, ItemResult.of(id, Decision.NOT_FOUND)));
+
+        return client.preparedQuery(ELIGIBILITY_SQL)
+                .execute(Tuple.of(leadIds.toArray(UUID[]::new)))
+                .map(rows -> {
+                    List<UUID> eligible = new ArrayList<>();
+                    for (Row row : rows) {
+                        UUID id = row.getUUID("id");
+                        Decision decision = eligibility(row);
+                        results.get(id).setDecision(decision);
+                        if (decision == null) {
+                            eligible.add(id);
+                        }
+                    }
+                    return eligible;
+                })
+                .flatMap(eligible -> eligible.isEmpty()
+                        ? Uni.createFrom().item(List.<ItemResult>of())
+                        : Panache.withSession(() -> Lead.<Lead>list("id in ?1", eligible))
+                                .flatMap(this::compute)
+                                .flatMap(this::insert))
+                .map(scored -> {
+                    scored.forEach(item -> results.put(item.getLeadId(), item));
+                    return List.copyOf(results.values());
+                });
+    }
+
+    // null = éligible ; mêmes contrôles, dans le même ordre, que ScoringServiceV2Impl.calculateScore
+    private static Decision eligibility(Row row) {
+        if (row.getBoolean("scored")) {
+            return Decision.ALREADY_SCORED;
+        }
+        if (!row.getBoolean("qualified")) {
+            return Decision.NOT_QUALIFIED;
+        }
+        if (!row.getBoolean("can_score")) {
+            return Decision.NOT_SCORABLE;
+        }
+        if (!row.getBoolean("documents_valid")) {
+            return Decision.DOCUMENTS_INVALID;
+        }
+        return null;
+    }
+
+    // Calcul en mémoire, par tranches sur le pool de workers
+    private Uni<List<ItemResult>> compute(List<Lead> leads) {
+        int workers = parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors();
+        List<List<Lead>> chunks = new ArrayList<>();
+        for (int i = 0; i < leads.size(); i += chunkSize) {
+            chunks.add(leads.subList(i, Math.min(i + chunkSize, leads.size())));
+        }
+        return Multi.createFrom().iterable(chunks)
+                .onItem().transformToUni(chunk -> Uni.createFrom().item(() -> scoreChunk(chunk))
+                        .runSubscriptionOn(Infrastructure.getDefaultWorkerPool()))
+                .merge(workers)
+                .collect().asList()
+                .map(results -> results.stream().flatMap(List::stream).toList());
+    }
+
+    private List<ItemResult> scoreChunk(List<Lead> chunk) {
+        List<ItemResult> items = new ArrayList<>(chunk.size());
+        for (Lead lead : chunk) {
+            try {
+                ScoringServiceV2Impl.Breakdown breakdown = scoringService.breakdown(lead);
+                ItemResult item = ItemResult.of(lead.getId(), breakdown.approved() ? Decision.APPROVED : Decision.REJECTED);
+                item.setInfoScore(breakdown.info());
+                item.setVtcScore(breakdown.vtc());
+                item.setTestScore(breakdown.test());
+                item.setTotalScore(breakdown.total());
+                items.add(item);
+            } catch (RuntimeException e) {
+                LOG.errorf(e, "Erreur lors du calcul du score pour le lead %s", lead.getId());
+                ItemResult item = ItemResult.of(lead.getId(), Decision.ERROR);
+                item.setError(e.getMessage());
+                items.add(item);
+            }
+        }
+        return items;
+    }
+
+    // Insertion par lots ; un lead scoré entre-temps (0 ligne insérée) est signalé comme déjà scoré
+    private Uni<List<ItemResult>> insert(List<ItemResult> items) {
+        List<ItemResult> scored = items.stream().filter(item -> item.getDecision() != Decision.ERROR).toList();
+        List<List<ItemResult>> batches = new ArrayList<>();
+        for (int i = 0; i < scored.size(); i += insertBatchSize) {
+            batches.add(scored.subList(i, Math.min(i + insertBatchSize, scored.size())));
+        }
+        LocalDateTime now = LocalDateTime.now();
+        return Multi.createFrom().iterable(batches)
+                .onItem().transformToUniAndConcatenate(batch -> client.preparedQuery(INSERT_SCORE_SQL)
+                        .executeBatch(batch.stream().map(item -> toTuple(item, now)).toList())
+                        .invoke(rows -> markAlreadyScored(batch, rows)))
+                .collect().last()
+                .replaceWith(items);
+    }
+
+    private static Tuple toTuple(ItemResult item, LocalDateTime now) {
+        ScoringServiceV2Impl.Breakdown breakdown = new ScoringServiceV2Impl.Breakdown(item.getInfoScore(),
+                item.getVtcScore(), item.getTestScore(), item.getTotalScore(), item.getDecision() == Decision.APPROVED);
+        var normalized = breakdown.toDetailedScore();
+        return Tuple.tuple()
+                .addUUID(UUID.randomUUID())
+                .addUUID(item.getLeadId())
+                .addDouble(normalized.getPersonalDataScore())
+                .addDouble(normalized.getVtcExperienceScore())
+                .addDouble(normalized.getDrivingRecordScore())
+                .addDouble(normalized.getTotalScore())
+                .addLocalDateTime(now)
+                .addBoolean(breakdown.approved());
+    }
+
+    private static void markAlreadyScored(List<ItemResult> batch, RowSet<Row> rows) {
+        RowSet<Row> current = rows;
+        for (ItemResult item : batch) {
+            if (current == null) {
+                return;
+            }
+            if (current.rowCount() == 0) {
+                item.setDecision(Decision.ALREADY_SCORED);
+            }
+            current = current.next();
+        }
+    }
+}
@@ -4,20 +4,23 @@ import africa.flot.application.dto.command.CreateFeneratClientCommande;
 import africa.flot.application.dto.command.InitLoanCommande;
 import africa.flot.application.mappers.LeadToFeneratClientMapper;
 import africa.flot.application.ports.LoanApprovalService;
+import africa.flot.application.service.SmsOutbox;
 import africa.flot.domain.model.Account;
 import africa.flot.domain.model.Lead;
+import africa.flot.domain.model.SmsOutboxMessage;
 import africa.flot.domain.model.Vehicle;
+import africa.flot.domain.model.enums.SmsCategory;
 import africa.flot.domain.model.exception.BusinessException;
 import africa.flot.domain.service.LoanService;
 import africa.flot.infrastructure.client.FineractClient;
+import africa.flot.infrastructure.security.CredentialHasher;
+import africa.flot.infrastructure.security.CredentialHasher.Caller;
 import africa.flot.infrastructure.util.PasswordGenerator;
 import com.fasterxml.jackson.databind.ObjectMapper;
-import io.quarkus.elytron.security.common.BcryptUtil;
 import io.quarkus.hibernate.reactive.panache.Panache;
 import io.quarkus.hibernate.reactive.panache.common.WithSession;
 import io.quarkus.panache.common.Parameters;
 import io.smallrye.mutiny.Uni;
-import io.smallrye.mutiny.unchecked.Unchecked;
 import io.vertx.core.json.JsonObject;
 import jakarta.annotation.PostConstruct;
 import jakarta.enterprise.context.ApplicationScoped;
@@ -47,7 +50,10 @@ public class FeneractServiceClientImpl {
     LoanService loanService;
 
     @Inject
-    JetfySmsService smsService;
+    SmsOutbox smsOutbox;
+
+    @Inject
+    CredentialHasher credentialHasher;
 
     @Inject
     LoanApprovalService loanApprovalService;
@@ -77,95 +83,109 @@ public class FeneractServiceClientImpl {
                         .onItem().ifNull().failWith(() ->
                                 new NotFoundException("Véhicule introuvable : " + commande.getVehicleId())
                         )
-                        .flatMap(vehicle -> {
-                            // Mapper le Lead vers la commande pour Fineract
-                            CreateFeneratClientCommande cmd = LeadToFeneratClientMapper.toCommand(lead);
-                            validateCommand(cmd);
-
-                            // Créer le payload pour l'appel Fineract
-                            JsonObject payload = createFineractRequest(cmd);
-
-                            // Appeler le client Fineract pour créer le client
-                            return fineractClient.createClient(payload)
-                                    .onItem().invoke(resp -> LOG.info("Réponse createClient -> HTTP " + resp.getStatus()))
-                                    .flatMap(resp -> {
-                                        if (resp.getStatus() < 200 || resp.getStatus() >= 300) {
-                                            return Uni.createFrom().failure(
-                                                    new BusinessException("Échec création client Fineract, HTTP=" + resp.getStatus())
-                                            );
-                                        }
-
-                                        // Extraire le clientId de la réponse
-                                        JsonObject json = JsonObject.mapFrom(resp.readEntity(Map.class));
-                                        Integer clientId = json.getInteger("clientId");
-                                        if (clientId == null) {
-                                            return Uni.createFrom().failure(
-                                                    new BusinessException("Impossible de lire clientId dans la réponse Fineract.")
-                                            );
-                                        }
-
-                                        // Créer un prêt pour le client
-                                        return loanService.createLoan(clientId, commande.getProduitId(), vehicle.price, lead.getId())
-                                                .map(loanResp -> Map.of(
-                                                        "loanResponse", loanResp,
-                                                        "lead", lead,
-                                                        "clientId", clientId
-                                                ));
-                                    });
-                        }))
-                .flatMap(Unchecked.function(data -> {
-                    Response loanResp = (Response) data.get("loanResponse");
-                    Lead lead = (Lead) data.get("lead");
-                    Integer clientId = (Integer) data.get("clientId");
-                    String resourceExternalId = String.valueOf(lead.getId());
-                    // Vérifier si le prêt a été créé avec succès
-                    if (loanResp.getStatus() == Response.Status.OK.getStatusCode()) {
-                        // Approuver le prêt nouvellement créé
-                        return loanApprovalService.approveLoan(String.valueOf(resourceExternalId))
-                                .onItem().transformToUni(approvalResp -> {
-                                    if (approvalResp.getStatus() != Response.Status.OK.getStatusCode()) {
-                                        LOG.error("Échec de l'approbation du prêt");
-                                        return Uni.createFrom().failure(
-                                                new BusinessException("Échec de l'approbation du prêt")
-                                        );
-                                    }
-                                    LOG.info("Prêt approuvé avec succès");
-                                    // Continuer avec la création du compte et l'envoi du SMS
-                                    String generatedPassword = PasswordGenerator.generate();
-                                    String clientUsername = formatPhoneNumber(lead.getPhoneNumber());
-
-                                    Account account = new Account();
-                                    account.setLead(lead);
-                                    account.setUsername(clientUsername);
-                                    account.setPasswordHash(BcryptUtil.bcryptHash(generatedPassword));
-                                    account.setTemporaryPassword(BcryptUtil.bcryptHash(generatedPassword));
-                                    account.setActive(true);
-                                    account.setPasswordChanged(false);
-                                    account.setFineractClientId(clientId);
-
-                                    return account.<Account>persistAndFlush()
-                                            .flatMap(savedAccount ->
-                                                    sendWelcomeSms(clientUsername, generatedPassword, account, lead)
-                                                            .map(smsResp -> Response.ok("Client + Prêt créé et approuvé + SMS envoyé").build())
-                                                            .onFailure().recoverWithItem(error -> {
-                                                                LOG.error("Échec envoi SMS, mais Client + Prêt approuvé + Compte OK", error);
-                                                                return Response.ok("Client + Prêt approuvé + Compte créés, SMS échoué").build();
-                                                            })
-                                            );
-                                });
-                    }  else {
-                        return Uni.createFrom().item(
-                                Response.status(Response.Status.INTERNAL_SERVER_ERROR)
-                                        .entity("Échec création du Prêt")
-                                        .build()
+                        .flatMap(vehicle -> createFineractClient(lead)
+                                // Créer un prêt pour le client
+                                .flatMap(clientId -> createLoan(clientId, commande.getProduitId(), vehicle, lead)
+                                        .flatMap(loanResp -> {
+                                            // Vérifier si le prêt a été créé avec succès
+                                            if (loanResp.getStatus() != Response.Status.OK.getStatusCode()) {
+                                                return Uni.createFrom().item(
+                                                        Response.status(Response.Status.INTERNAL_SERVER_ERROR)
+                                                                .entity("Échec création du Prêt")
+                                                                .build()
+                                                );
+                                            }
+                                            // Approuver le prêt nouvellement créé, puis créer le compte et mettre le SMS en file
+                                            return approveLoan(lead)
+                                                    .flatMap(v -> Panache.withTransaction(() -> createAccount(lead, clientId)));
+                                        }))))
+                .onFailure().invoke(err -> LOG.error("Erreur createClient()", err));
+    }
+
+    /**
+     * Crée le client Fineract correspondant au lead et retourne son identifiant.
+     */
+    Uni<Integer> createFineractClient(Lead lead) {
+        // Mapper le Lead vers la commande pour Fineract
+        CreateFeneratClientCommande cmd = LeadToFeneratClientMapper.toCommand(lead);
+        try {
+            validateCommand(cmd);
+        } catch (BusinessException e) {
+            return Uni.createFrom().failure(e);
+        }
+
+        // Créer le payload pour l'appel Fineract
+        JsonObject payload = createFineractRequest(cmd);
+
+        // Appeler le client Fineract pour créer le client
+        return fineractClient.createClient(payload)
+                .onItem().invoke(resp -> LOG.info("Réponse createClient -> HTTP " + resp.getStatus()))
+                .flatMap(resp -> {
+                    if (resp.getStatus() < 200 || resp.getStatus() >= 300) {
+                        return Uni.createFrom().failure(
+                                new BusinessException("Échec création client Fineract, HTTP=" + resp.getStatus())
                         );
                     }
-                }))
-                .onFailure().invoke(err -> LOG.error("Erreur createClient()", err));
+
+                    // Extraire le clientId de la réponse
+                    JsonObject json = JsonObject.mapFrom(resp.readEntity(Map.class));
+                    Integer clientId = json.getInteger("clientId");
+                    if (clientId == null) {
+                        return Uni.createFrom().failure(
+                                new BusinessException("Impossible de lire clientId dans la réponse Fineract.")
+                        );
+                    }
+                    return Uni.createFrom().item(clientId);
+                });
+    }
+
+    Uni<Response> createLoan(Integer clientId, Integer productId, Vehicle vehicle, Lead lead) {
+        return loanService.createLoan(clientId, productId, vehicle.price, lead.getId());
+    }
+
+    /**
+     * Approuve le prêt du lead, identifié dans Fineract par l'identifiant du lead.
+     */
+    Uni<Void> approveLoan(Lead lead) {
+        return loanApprovalService.approveLoan(String.valueOf(lead.getId()))
+                .flatMap(approvalResp -> {
+                    if (approvalResp.getStatus() != Response.Status.OK.getStatusCode()) {
+                        LOG.error("Échec de l'approbation du prêt");
+                        return Uni.createFrom().failure(
+                                new BusinessException("Échec de l'approbation du prêt")
+                        );
+                    }
+                    LOG.info("Prêt approuvé avec succès");
+                    return Uni.createFrom().voidItem();
+                });
     }
 
+    /**
+     * Crée le compte d'accès du client et met en file le SMS de bienvenue.
+     * Doit être appelé dans une transaction Hibernate Reactive.
+     */
+    Uni<Response> createAccount(Lead lead, Integer clientId) {
+        String generatedPassword = PasswordGenerator.generate();
+        String clientUsername = formatPhoneNumber(lead.getPhoneNumber());
+
+        // Un seul hachage : le mot de passe définitif et le temporaire sont identiques à la création
+        return credentialHasher.hash(Caller.PROVISIONING, generatedPassword).flatMap(passwordHash -> {
+            Account account = new Account();
+            account.setLead(lead);
+            account.setUsername(clientUsername);
+            account.setPasswordHash(passwordHash);
+            account.setTemporaryPassword(passwordHash);
+            account.setActive(true);
+            account.setPasswordChanged(false);
+            account.setFineractClientId(clientId);
+
+            return account.<Account>persistAndFlush()
+                    .flatMap(savedAccount -> queueWelcomeSms(clientUsername, generatedPassword, savedAccount, lead))
+                    .map(queued -> Response.ok("Client + Prêt créé et approuvé + SMS en file d'envoi").build());
+        });
+    }
 
-    private Uni<Response> sendWelcomeSms(String clientUsername, String password, Account account, Lead lead) {
+    private Uni<SmsOutboxMessage> queueWelcomeSms(String clientUsername, String password, Account account, Lead lead) {
         String message = String.format(
                 "👋 Bienvenue %s %s chez FLOT Mobility!\n\n" +
                         "🔑 Vos identifiants FLOT:\n" +
@@ -181,18 +201,7 @@ public class FeneractServiceClientImpl {
                 clientUsername,
                 password
         );
-        return smsService.sendSMS(lead.getPhoneNumber(), message, account)
-                .onFailure().recoverWithItem(error -> {
-                    LOG.error("Échec envoi SMS initial", error);
-                    account.setPendingWelcomeSms(true);
-                    account.setTemporaryPassword(password);
-                    account.setSmsRetryCount(0);
-                    return account.<Account>persistAndFlush()
-                            .map(savedAccount -> Response.ok()
-                                    .entity("Client + Prêt + Compte créés, SMS en attente de réessai")
-                                    .build())
-                            .await().indefinitely();
-                });
+        return smsOutbox.enqueue(SmsCategory.WELCOME, lead.getPhoneNumber(), message, account.getId());
     }
 
     private JsonObject createFineractRequest(CreateFeneratClientCommande cmd) {
@@ -0,0 +1,259 @@
+package africa.flot.infrastructure.service;
+
+import africa.flot.application.dto.command.BatchOnboardingCommande;
+import africa.flot.application.dto.command.InitLoanCommande;
+import africa.flot.application.dto.response.BatchOnboardingReport;
+import africa.flot.domain.model.Account;
+import africa.flot.domain.model.Lead;
+import africa.flot.domain.model.OnboardingBatchItem;
+import africa.flot.domain.model.Vehicle;
+import africa.flot.domain.model.enums.OnboardingStep;
+import africa.flot.domain.model.exception.BusinessException;
+import io.quarkus.hibernate.reactive.panache.Panache;
+import io.smallrye.common.vertx.VertxContext;
+import io.smallrye.mutiny.Multi;
+import io.smallrye.mutiny.Uni;
+import io.vertx.core.Context;
+import io.vertx.mutiny.pgclient.PgPool;
+import io.vertx.mutiny.sqlclient.Tuple;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import jakarta.ws.rs.core.Response;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
+
+import java.util.*;
+import java.util.concurrent.Executor;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Onboarding Fineract d'une cohorte de leads (client, prêt, approbation, compte + SMS).
+ *
+ * Les leads et véhicules du lot sont chargés en une requête chacun, puis les appels Fineract
+ * passent par un pipeline à concurrence bornée ({@code onboarding.batch.concurrency}). Chaque
+ * lead a sa ligne dans {@code onboarding_batch_items}, mise à jour après chaque étape :
+ * relancer le même lot reprend chaque lead à l'étape suivant la dernière réussie, sans recréer
+ * un client ou un prêt déjà enregistré dans Fineract.
+ */
+@ApplicationScoped
+@Deprecated(since = "1.1.0", forRemoval = true)
+public class FineractOnboardingBatchService {
+
+    private static final Logger LOG = Logger.getLogger(FineractOnboardingBatchService.class);
+    private static final Logger AUDIT_LOG = Logger.getLogger("AUDIT");
+
+    private static final String CHECKPOINT_SQL =
+            "UPDATE onboarding_batch_items SET step = $2, fineract_client_id = $3, attempts = $4, last_error = $5, " +
+            "updated_at = LOCALTIMESTAMP WHERE id = $1";
+
+    @Inject
+    FeneractServiceClientImpl fineractService;
+
+    @Inject
+    PgPool client;
+
+    @Inject
+    io.vertx.mutiny.core.Vertx vertx;
+
+    @ConfigProperty(name = "onboarding.batch.concurrency", defaultValue = "8")
+    int concurrency;
+
+    @ConfigProperty(name = "onboarding.batch.max-items", defaultValue = "500")
+    int maxItems;
+
+    /**
+     * Lance ou reprend un lot. Sans {@code items}, un lot existant est repris tel qu'enregistré.
+     */
+    public Uni<BatchOnboardingReport> onboard(BatchOnboardingCommande commande) {
+        UUID batchId = commande.getBatchId() != null ? commande.getBatchId() : UUID.randomUUID();
+        List<InitLoanCommande> commands = commande.getItems() != null ? commande.getItems() : List.of();
+        try {
+            validate(commande.getBatchId(), commands);
+        } catch (BusinessException e) {
+            return Uni.createFrom().failure(e);
+        }
+
+        long start = System.currentTimeMillis();
+        return Panache.withTransaction(() -> register(batchId, commands))
+                .flatMap(items -> Panache.withSession(() -> prefetch(items))
+                        .flatMap(cohort -> Multi.createFrom().iterable(items)
+                                .onItem().transformToUni(item -> onboardItem(item, cohort)).merge(concurrency)
+                                .collect().asList()
+                                .replaceWith(items)))
+                .map(items -> {
+                    BatchOnboardingReport report = BatchOnboardingReport.of(batchId,
+                            items.stream().map(BatchOnboardingReport.ItemResult::of).toList(),
+                            System.currentTimeMillis() - start);
+                    AUDIT_LOG.infof("Lot d'onboarding %s terminé - %d/%d leads onboardés en %d ms",
+                            batchId, report.getCompleted(), report.getTotal(), report.getDurationMs());
+                    return report;
+                });
+    }
+
+    /**
+     * État des points de reprise d'un lot, sans relancer les traitements.
+     */
+    public Uni<BatchOnboardingReport> status(UUID batchId) {
+        return Panache.withSession(() -> OnboardingBatchItem.<OnboardingBatchItem>list("batchId = ?1 ORDER BY createdAt", batchId))
+                .map(items -> BatchOnboardingReport.of(batchId,
+                        items.stream().map(BatchOnboardingReport.ItemResult::of).toList(), 0));
+    }
+
+    private void validate(UUID batchId, List<InitLoanCommande> commands) {
+        if (batchId == null && commands.isEmpty()) {
+            throw new BusinessException("Le lot doit contenir au moins un lead");
+        }
+        if (commands.size() > maxItems) {
+            throw new BusinessException("Le lot dépasse la taille maximale de " + maxItems + " leads");
+        }
+        List<String> errors = new ArrayList<>();
+        Set<UUID> leadIds = new HashSet<>();
+        for (int i = 0; i < commands.size(); i++) {
+            InitLoanCommande command = commands.get(i);
+            if (command.getLeadId() == null || command.getVehicleId() == null || command.getProduitId() == null) {
+                errors.add("élément " + i + " : leadId, vehicleId et produitId sont obligatoires");
+            } else if (!leadIds.add(command.getLeadId())) {
+                errors.add("élément " + i + " : lead en double " + command.getLeadId());
+            }
+        }
+        if (!errors.isEmpty()) {
+            throw new BusinessException(String.join(", ", errors));
+        }
+    }
+
+    // Crée les points de reprise manquants ; ceux déjà enregistrés pour le lot font foi
+    private Uni<List<OnboardingBatchItem>> register(UUID batchId, List<InitLoanCommande> commands) {
+        return OnboardingBatchItem.<OnboardingBatchItem>list("batchId = ?1 ORDER BY createdAt", batchId)
+                .flatMap(existing -> {
+                    Map<UUID, OnboardingBatchItem> byLead = existing.stream()
+                            .collect(Collectors.toMap(OnboardingBatchItem::getLeadId, Function.identity(),
+                                    (a, b) -> a, LinkedHashMap::new));
+                    List<OnboardingBatchItem> created = new ArrayList<>();
+                    for (InitLoanCommande command : commands) {
+                        if (!byLead.containsKey(command.getLeadId())) {
+                            OnboardingBatchItem item = new OnboardingBatchItem();
+                            item.setBatchId(batchId);
+                            item.setLeadId(command.getLeadId());
+                            item.setVehicleId(command.getVehicleId());
+                            item.setProductId(command.getProduitId());
+                            item.setStep(OnboardingStep.PENDING);
+                            created.add(item);
+                            byLead.put(command.getLeadId(), item);
+                        }
+                    }
+                    if (!existing.isEmpty()) {
+                        LOG.infof("Reprise du lot d'onboarding %s : %d lead(s) déjà enregistré(s)", batchId, existing.size());
+                    }
+                    List<OnboardingBatchItem> items = new ArrayList<>(byLead.values());
+                    return created.isEmpty()
+                            ? Uni.createFrom().item(items)
+                            : OnboardingBatchItem.persist(created).replaceWith(items);
+                });
+    }
+
+    // Une requête pour les leads, une pour les véhicules, quelle que soit la taille du lot
+    private Uni<Cohort> prefetch(List<OnboardingBatchItem> items) {
+        List<UUID> leadIds = items.stream()
+                .filter(item -> item.getStep() != OnboardingStep.COMPLETED)
+                .map(OnboardingBatchItem::getLeadId).toList();
+        List<UUID> vehicleIds = items.stream()
+                .filter(item -> item.getStep() == OnboardingStep.PENDING || item.getStep() == OnboardingStep.CLIENT_CREATED)
+                .map(OnboardingBatchItem::getVehicleId).distinct().toList();
+        if (leadIds.isEmpty()) {
+            return Uni.createFrom().item(new Cohort(Map.of(), Map.of()));
+        }
+
+        Uni<List<Vehicle>> vehicles = vehicleIds.isEmpty()
+                ? Uni.createFrom().item(List.<Vehicle>of())
+                : Vehicle.<Vehicle>list("id IN ?1", vehicleIds);
+        return Lead.<Lead>list("id IN ?1", leadIds)
+                .flatMap(leads -> vehicles.map(loaded -> new Cohort(
+                        leads.stream().collect(Collectors.toMap(Lead::getId, Function.identity())),
+                        loaded.stream().collect(Collectors.toMap(v -> v.id, Function.identity())))));
+    }
+
+    private Uni<OnboardingBatchItem> onboardItem(OnboardingBatchItem item, Cohort cohort) {
+        if (item.getStep() == OnboardingStep.COMPLETED) {
+            return Uni.createFrom().item(item);
+        }
+
+        // Un contexte dupliqué par lead : chaque lead a sa propre session Hibernate Reactive
+        Context context = VertxContext.createNewDuplicatedContext(vertx.getDelegate().getOrCreateContext());
+        Executor onContext = command -> context.runOnContext(v -> command.run());
+
+        item.setAttempts(item.getAttempts() + 1);
+        return Uni.createFrom().deferred(() -> advance(item, cohort, onContext))
+                .runSubscriptionOn(onContext)
+                .onFailure().recoverWithUni(error -> {
+                    LOG.errorf("Onboarding du lead %s interrompu à l'étape %s : %s",
+                            item.getLeadId(), item.getStep(), error.getMessage());
+                    item.setLastError(error.getMessage());
+                    return checkpoint(item);
+                });
+    }
+
+    // Enchaîne les étapes restantes à partir de la dernière étape réussie
+    private Uni<OnboardingBatchItem> advance(OnboardingBatchItem item, Cohort cohort, Executor onContext) {
+        Lead lead = cohort.leads().get(item.getLeadId());
+        if (lead == null) {
+            return Uni.createFrom().failure(new BusinessException("Lead introuvable : " + item.getLeadId()));
+        }
+
+        return switch (item.getStep()) {
+            case PENDING -> fineractService.createFineractClient(lead)
+                    .flatMap(clientId -> {
+                        item.setFineractClientId(clientId);
+                        return complete(item, OnboardingStep.CLIENT_CREATED);
+                    })
+                    .flatMap(saved -> advance(saved, cohort, onContext));
+            case CLIENT_CREATED -> {
+                Vehicle vehicle = cohort.vehicles().get(item.getVehicleId());
+                if (vehicle == null) {
+                    yield Uni.createFrom().failure(new BusinessException("Véhicule introuvable : " + item.getVehicleId()));
+                }
+                yield fineractService.createLoan(item.getFineractClientId(), item.getProductId(), vehicle, lead)
+                        .flatMap(loanResp -> loanResp.getStatus() == Response.Status.OK.getStatusCode()
+                                ? complete(item, OnboardingStep.LOAN_CREATED)
+                                : Uni.createFrom().failure(new BusinessException("Échec création du Prêt, HTTP=" + loanResp.getStatus())))
+                        .flatMap(saved -> advance(saved, cohort, onContext));
+            }
+            case LOAN_CREATED -> fineractService.approveLoan(lead)
+                    .flatMap(v -> complete(item, OnboardingStep.LOAN_APPROVED))
+                    .flatMap(saved -> advance(saved, cohort, onContext));
+            // Les appels Fineract peuvent avoir changé de contexte : la transaction repart sur celui du lead
+            case LOAN_APPROVED -> Uni.createFrom().deferred(() -> Panache.withTransaction(() -> createAccountOnce(lead, item.getFineractClientId())))
+                    .runSubscriptionOn(onContext)
+                    .flatMap(v -> complete(item, OnboardingStep.COMPLETED));
+            case COMPLETED -> Uni.createFrom().item(item);
+        };
+    }
+
+    // Un compte déjà créé lors d'une tentative précédente n'est pas recréé
+    private Uni<Void> createAccountOnce(Lead lead, Integer clientId) {
+        return Account.<Account>find("lead.id", lead.getId()).firstResult()
+                .flatMap(existing -> existing != null
+                        ? Uni.createFrom().voidItem()
+                        : fineractService.createAccount(lead, clientId).replaceWithVoid());
+    }
+
+    private Uni<OnboardingBatchItem> complete(OnboardingBatchItem item, OnboardingStep step) {
+        item.setStep(step);
+        item.setLastError(null);
+        return checkpoint(item);
+    }
+
+    private Uni<OnboardingBatchItem> checkpoint(OnboardingBatchItem item) {
+        return client.preparedQuery(CHECKPOINT_SQL)
+                .execute(Tuple.tuple()
+                        .addUUID(item.getId())
+                        .addString(item.getStep().name())
+                        .addInteger(item.getFineractClientId())
+                        .addInteger(item.getAttempts())
+                        .addString(item.getLastError()))
+                .replaceWith(item);
+    }
+
+    private record Cohort(Map<UUID, Lead> leads, Map<UUID, Vehicle> vehicles) {
+    }
+}
@@ -3,10 +3,14 @@ package africa.flot.infrastructure.service;
 import africa.flot.application.mappers.LeadToFeneratClientMapper;
 import africa.flot.application.dto.command.InitLoanCommande;
 import africa.flot.application.service.FlotLoanService;
+import africa.flot.application.service.SmsOutbox;
 import africa.flot.application.dto.command.CreateLoanCommand;
 import africa.flot.domain.model.*;
+import africa.flot.domain.model.enums.SmsCategory;
+import africa.flot.infrastructure.security.CredentialHasher;
+import africa.flot.infrastructure.security.CredentialHasher.Caller;
 import africa.flot.infrastructure.util.PasswordGenerator;
-import io.quarkus.elytron.security.common.BcryptUtil;
+import io.quarkus.hibernate.reactive.panache.Panache;
 import io.quarkus.hibernate.reactive.panache.common.WithSession;
 import io.smallrye.mutiny.Uni;
 import io.smallrye.mutiny.unchecked.Unchecked;
@@ -24,7 +28,10 @@ public class FlotClientServiceImpl {
     FlotLoanService flotLoanService;
 
     @Inject
-    JetfySmsService smsService;
+    SmsOutbox smsOutbox;
+
+    @Inject
+    CredentialHasher credentialHasher;
 
     @WithSession
     public Uni<Response> createClient(InitLoanCommande commande) {
@@ -52,53 +59,38 @@ public class FlotClientServiceImpl {
                                         String generatedPassword = PasswordGenerator.generate();
                                         String clientUsername = formatPhoneNumber(lead.getPhoneNumber());
 
-                                        Account account = new Account();
-                                        account.setLead(lead);
-                                        account.setUsername(clientUsername);
-                                        account.setPasswordHash(BcryptUtil.bcryptHash(generatedPassword));
-                                        account.setTemporaryPassword(BcryptUtil.bcryptHash(generatedPassword));
-                                        account.setActive(true);
-                                        account.setPasswordChanged(false);
-
-                                        return account.<Account>persistAndFlush()
-                                                .flatMap(savedAccount ->
-                                                        sendWelcomeSms(clientUsername, generatedPassword, account, lead)
-                                                                .map(smsResp -> {
-                                                                    LOG.infof("Client créé avec succès: Lead %s, Prêt %s, Compte %s",
-                                                                            lead.getId(), loan.getId(), account.getId());
-                                                                    return Response.ok()
-                                                                            .entity(new ClientCreationResponse(
-                                                                                    loan.getId(),
-                                                                                    account.getId(),
-                                                                                    "Client et prêt créés avec succès"
-                                                                            ))
-                                                                            .build();
-                                                                })
-                                                                .onFailure().recoverWithItem(error -> {
-                                                                    LOG.error("Échec envoi SMS, mais Client + Prêt + Compte OK", error);
-
-                                                                    // Marquer le SMS comme en attente
-                                                                    account.setPendingWelcomeSms(true);
-                                                                    account.setTemporaryPassword(generatedPassword);
-                                                                    account.setSmsRetryCount(0);
-                                                                    account.persistAndFlush().await().indefinitely();
-
-                                                                    return Response.ok()
-                                                                            .entity(new ClientCreationResponse(
-                                                                                    loan.getId(),
-                                                                                    account.getId(),
-                                                                                    "Client et prêt créés, SMS en attente de réessai"
-                                                                            ))
-                                                                            .build();
-                                                                })
-                                                );
+                                        // Un seul hachage : le mot de passe définitif et le temporaire sont identiques à la création
+                                        return credentialHasher.hash(Caller.PROVISIONING, generatedPassword).flatMap(passwordHash -> {
+                                            Account account = new Account();
+                                            account.setLead(lead);
+                                            account.setUsername(clientUsername);
+                                            account.setPasswordHash(passwordHash);
+                                            account.setTemporaryPassword(passwordHash);
+                                            account.setActive(true);
+                                            account.setPasswordChanged(false);
+
+                                            // Le compte et son SMS de bienvenue sont enregistrés ensemble
+                                            return Panache.withTransaction(() -> account.<Account>persistAndFlush()
+                                                            .flatMap(savedAccount -> queueWelcomeSms(clientUsername, generatedPassword, savedAccount, lead)))
+                                                    .map(queued -> {
+                                                        LOG.infof("Client créé avec succès: Lead %s, Prêt %s, Compte %s",
+                                                                lead.getId(), loan.getId(), account.getId());
+                                                        return Response.ok()
+                                                                .entity(new ClientCreationResponse(
+                                                                        loan.getId(),
+                                                                        account.getId(),
+                                                                        "Client et prêt créés avec succès, SMS en file d'envoi"
+                                                                ))
+                                                                .build();
+                                                    });
+                                        });
                                     });
                         })
                 )
                 .onFailure().invoke(err -> LOG.error("Erreur createClient()", err));
     }
 
-    private Uni<Response> sendWelcomeSms(String clientUsername, String password, Account account, Lead lead) {
+    private Uni<SmsOutboxMessage> queueWelcomeSms(String clientUsername, String password, Account account, Lead lead) {
         String message = String.format(
                 "👋 Bienvenue %s %s chez FLOT Mobility!\n\n" +
                         "🔑 Vos identifiants FLOT:\n" +
@@ -115,7 +107,7 @@ public class FlotClientServiceImpl {
                 password
         );
 
-        return smsService.sendSMS(lead.getPhoneNumber(), message, account);
+        return smsOutbox.enqueue(SmsCategory.WELCOME, lead.getPhoneNumber(), message, account.getId());
     }
 
     private String formatPhoneNumber(String phoneNumber) {
@@ -5,7 +5,6 @@ import africa.flot.domain.model.Account;
 import africa.flot.infrastructure.client.JetfyClient;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import io.smallrye.mutiny.Uni;
-import io.smallrye.mutiny.unchecked.Unchecked;
 import jakarta.enterprise.context.ApplicationScoped;
 import jakarta.inject.Inject;
 import jakarta.ws.rs.*;
@@ -16,6 +15,8 @@ import org.eclipse.microprofile.rest.client.inject.RegisterRestClient;
 import org.eclipse.microprofile.rest.client.inject.RestClient;
 import org.jboss.logging.Logger;
 
+import java.util.List;
+
 @ApplicationScoped
 public class JetfySmsService implements SmsService {
 
@@ -32,37 +33,22 @@ public class JetfySmsService implements SmsService {
     @RestClient
     JetfyClient jetfyClient;
 
+    @Inject
+    SmsCreditLedger creditLedger;
+
     private String getAuthHeader() {
         return "Bearer " + apiToken;
     }
 
-    private Uni<Boolean> checkBalance(int requiredSmsCount) {
-        int requiredAmount = requiredSmsCount * COST_PER_SMS;
-
-        return jetfyClient.getBalance(getAuthHeader())
-                .map(Unchecked.function(response -> {
-                    if ("success".equals(response.status)) {
-                        boolean hasSufficientBalance = response.data >= requiredAmount;  // Utilisation de data au lieu de balance
-                        if (!hasSufficientBalance) {
-                            LOG.warnf("Solde insuffisant. Requis: %d XOF (pour %d SMS), Disponible: %d XOF",
-                                    requiredAmount, requiredSmsCount, response.data);
-                        }
-                        return hasSufficientBalance;
-                    }
-                    throw new RuntimeException("Échec de la récupération du solde SMS: " + response.status);
-                }));
-    }
-
+    /**
+     * Solde réel chez Jetfy ; recale au passage l'estimation du {@link SmsCreditLedger}.
+     */
     public Uni<Integer> getSmsBalance() {
-        return jetfyClient.getBalance(getAuthHeader())
-                .map(Unchecked.function(response -> {
-                    if ("success".equals(response.status)) {
-                        LOG.infof("Solde SMS actuel: %d XOF", response.data);  // Utilisation de data
-                        return response.data;  // Retourne data au lieu de balance
-                    }
-                    LOG.errorf("Échec de la récupération du solde SMS: %s", response.status);
-                    throw new RuntimeException("Échec de la récupération du solde SMS: " + response.status);
-                }))
+        return creditLedger.reconcile()
+                .map(balance -> {
+                    LOG.infof("Solde SMS actuel: %d XOF", balance);
+                    return balance.intValue();
+                })
                 .onFailure().invoke(error ->
                         LOG.error("Erreur lors de la récupération du solde SMS", error)
                 );
@@ -75,7 +61,7 @@ public class JetfySmsService implements SmsService {
             int smsCount = calculateSmsCount(message);
             int totalCost = smsCount * COST_PER_SMS;
 
-            return checkBalance(smsCount)
+            return creditLedger.tryReserve(smsCount)
                     .flatMap(balanceOk -> {
                         if (!balanceOk) {
                             return Uni.createFrom().item(Response.status(Response.Status.PAYMENT_REQUIRED)
@@ -111,15 +97,42 @@ public class JetfySmsService implements SmsService {
                                     return Response.serverError()
                                             .entity(new ErrorResponse("error", error.getMessage()))
                                             .build();
-                                });
+                                })
+                                .call(response -> response.getStatus() == Response.Status.OK.getStatusCode()
+                                        ? Uni.createFrom().voidItem()
+                                        : creditLedger.refund(smsCount));
                     });
         }).flatMap(uni -> uni);
     }
 
-    private int calculateSmsCount(String message) {
+    /**
+     * Envoie un même message à un ou plusieurs destinataires en une requête Jetfy
+     * (destinataires séparés par des virgules). Échoue si Jetfy refuse l'envoi.
+     */
+    public Uni<ApiResponse> deliver(List<String> recipients, String message) {
+        SmsRequest smsRequest = new SmsRequest(senderId, String.join(",", recipients), message);
+        return jetfyClient.sendSms(getAuthHeader(), smsRequest)
+                .map(response -> {
+                    if (!"success".equals(response.status)) {
+                        throw new SmsRejectedException(response.message);
+                    }
+                    return response;
+                });
+    }
+
+    public static int calculateSmsCount(String message) {
         return (message.length() + 159) / 160;
     }
 
+    /**
+     * Envoi refusé par Jetfy (réponse reçue avec un statut d'échec).
+     */
+    public static class SmsRejectedException extends RuntimeException {
+        public SmsRejectedException(String message) {
+            super("Envoi SMS refusé par Jetfy: " + message);
+        }
+    }
+
     public static class SmsRequest {
         @JsonProperty("sender_id")
         public String senderId;
@@ -0,0 +1,305 @@
+package africa.flot.infrastructure.service;
+
+import africa.flot.application.dto.command.ScoringSimulationCommande;
+import africa.flot.application.dto.response.ScoringSimulationReport;
+import africa.flot.application.dto.response.ScoringSimulationReport.PolicyResult;
+import africa.flot.domain.model.Lead;
+import africa.flot.domain.model.exception.BusinessException;
+import africa.flot.domain.model.valueobject.ScoringPolicy;
+import io.quarkus.hibernate.reactive.panache.Panache;
+import io.smallrye.mutiny.Multi;
+import io.smallrye.mutiny.Uni;
+import io.smallrye.mutiny.infrastructure.Infrastructure;
+import io.vertx.mutiny.pgclient.PgPool;
+import io.vertx.mutiny.sqlclient.Row;
+import io.vertx.mutiny.sqlclient.Tuple;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.IntStream;
+
+/**
+ * Simulation de politiques de scoring sur l'ensemble des leads.
+ *
+ * Les points bruts de chaque lead (barèmes informations et VTC, note de test) et l'issue de ses
+ * prêts sont chargés une fois dans des tableaux de primitives, conservés {@code snapshot-ttl}.
+ * Chaque politique candidate est ensuite évaluée en parallèle par tranches, sans accès base, et
+ * comparée à la politique en vigueur.
+ */
+@ApplicationScoped
+public class ScoringPolicySimulator {
+
+    private static final Logger LOG = Logger.getLogger(ScoringPolicySimulator.class);
+    private static final Logger AUDIT_LOG = Logger.getLogger("AUDIT");
+
+    private static final byte NO_LOAN = 0;
+    private static final byte PERFORMING = 1;
+    private static final byte DEFAULTED = 2;
+
+    private static final UUID FIRST_ID = new UUID(0L, 0L);
+
+    // $1 = semaines de retard à partir desquelles un prêt est considéré en défaut
+    private static final String OUTCOME_SQL = """
+            SELECT lead_id,
+                   bool_or(status = 'DEFAULTED' OR unpaid_status = 'DEFAUT_PAIEMENT'
+                           OR COALESCE(weeks_overdue, 0) >= $1) AS defaulted
+            FROM flot_loans WHERE status <> 'CANCELLED'
+            GROUP BY lead_id
+            """;
+
+    @Inject
+    PgPool client;
+
+    @ConfigProperty(name = "scoring.simulation.page-size", defaultValue = "1000")
+    int pageSize;
+
+    @ConfigProperty(name = "scoring.simulation.chunk-size", defaultValue = "4096")
+    int chunkSize;
+
+    @ConfigProperty(name = "scoring.simulation.max-candidates", defaultValue = "20")
+    int maxCandidates;
+
+    @ConfigProperty(name = "scoring.simulation.bad-weeks-overdue", defaultValue = "4")
+    int badWeeksOverdue;
+
+    @ConfigProperty(name = "scoring.simulation.snapshot-ttl", defaultValue = "PT1H")
+    Duration snapshotTtl;
+
+    private final AtomicReference<Snapshot> snapshot = new AtomicReference<>();
+    private final AtomicReference<Uni<Snapshot>> loading = new AtomicReference<>();
+
+    public Uni<ScoringSimulationReport> simulate(ScoringSimulationCommande commande) {
+        List<ScoringPolicy> candidates = commande.getCandidates() != null ? commande.getCandidates() : List.of();
+        if (candidates.size() > maxCandidates) {
+            return Uni.createFrom().failure(
+                    new BusinessException("Au plus " + maxCandidates + " politiques peuvent être simulées"));
+        }
+        for (ScoringPolicy policy : candidates) {
+            if (policy == null || policy.infoWeight() < 0 || policy.vtcWeight() < 0 || policy.testWeight() < 0) {
+                return Uni.createFrom().failure(
+                        new BusinessException("Politique invalide : les poids doivent être positifs"));
+            }
+        }
+
+        long start = System.currentTimeMillis();
+        return snapshot(commande.isRefresh())
+                .flatMap(data -> Uni.createFrom().item(() -> run(data, candidates))
+                        .runSubscriptionOn(Infrastructure.getDefaultWorkerPool()))
+                .map(report -> {
+                    report.setDurationMs(System.currentTimeMillis() - start);
+                    AUDIT_LOG.infof("Simulation de scoring - %d politiques sur %d leads en %d ms",
+                            candidates.size(), report.getLeads(), report.getDurationMs());
+                    return report;
+                });
+    }
+
+    private ScoringSimulationReport run(Snapshot data, List<ScoringPolicy> candidates) {
+        ScoringPolicy current = ScoringServiceV2Impl.currentPolicy();
+        boolean[] baseline = new boolean[data.size];
+        IntStream.range(0, data.size).parallel().forEach(i -> baseline[i] = data.approves(current, i));
+
+        ScoringSimulationReport report = new ScoringSimulationReport();
+        report.setLeads(data.size);
+        report.setLeadsWithOutcome(data.withOutcome);
+        report.setSkippedLeads(data.skipped);
+        report.setDataLoadedAt(data.loadedAt);
+        PolicyResult base = evaluate(data, current, baseline).toResult(current, data.size, null);
+        report.setBaseline(base);
+        report.setCandidates(candidates.stream()
+                .map(policy -> evaluate(data, policy, baseline).toResult(policy, data.size, base))
+                .toList());
+        return report;
+    }
+
+    private Counts evaluate(Snapshot data, ScoringPolicy policy, boolean[] baseline) {
+        int chunks = (data.size + chunkSize - 1) / chunkSize;
+        return IntStream.range(0, chunks).parallel()
+                .mapToObj(chunk -> {
+                    Counts counts = new Counts();
+                    int end = Math.min(data.size, (chunk + 1) * chunkSize);
+                    for (int i = chunk * chunkSize; i < end; i++) {
+                        counts.record(data.approves(policy, i), baseline[i], data.outcome[i]);
+                    }
+                    return counts;
+                })
+                .reduce(new Counts(), Counts::merge);
+    }
+
+    private Uni<Snapshot> snapshot(boolean refresh) {
+        Snapshot cached = snapshot.get();
+        if (!refresh && cached != null
+                && cached.loadedAt.plus(snapshotTtl).isAfter(LocalDateTime.now())) {
+            return Uni.createFrom().item(cached);
+        }
+        Uni<Snapshot> pending = loading.get();
+        if (pending != null) {
+            return pending;
+        }
+        Uni<Snapshot> load = load()
+                .invoke(snapshot::set)
+                .eventually(() -> loading.set(null))
+                .memoize().indefinitely();
+        return loading.compareAndSet(null, load) ? load : Objects.requireNonNullElse(loading.get(), load);
+    }
+
+    private Uni<Snapshot> load() {
+        long start = System.currentTimeMillis();
+        Columns columns = new Columns(pageSize);
+        AtomicReference<UUID> after = new AtomicReference<>(FIRST_ID);
+
+        return outcomes()
+                .flatMap(outcomes -> Multi.createBy().repeating()
+                        .uni(() -> Panache.withSession(() -> Lead.<Lead>find("id > ?1 ORDER BY id", after.get())
+                                .range(0, pageSize - 1).list()))
+                        .whilst(page -> page.size() == pageSize)
+                        .onItem().invoke(page -> {
+                            for (Lead lead : page) {
+                                columns.add(lead, outcomes);
+                            }
+                            if (!page.isEmpty()) {
+                                after.set(page.get(page.size() - 1).getId());
+                            }
+                        })
+                        .collect().last()
+                        .map(ignored -> columns.build()))
+                .invoke(data -> LOG.infof("Données de simulation chargées - %d leads (%d avec prêt, %d ignorés) en %d ms",
+                        data.size, data.withOutcome, data.skipped, System.currentTimeMillis() - start));
+    }
+
+    private Uni<Map<UUID, Byte>> outcomes() {
+        return client.preparedQuery(OUTCOME_SQL).execute(Tuple.of(badWeeksOverdue))
+                .map(rows -> {
+                    Map<UUID, Byte> outcomes = new HashMap<>(rows.size() * 2);
+                    for (Row row : rows) {
+                        outcomes.put(row.getUUID("lead_id"),
+                                Boolean.TRUE.equals(row.getBoolean("defaulted")) ? DEFAULTED : PERFORMING);
+                    }
+                    return outcomes;
+                });
+    }
+
+    /**
+     * Points bruts et issue des prêts, un indice par lead.
+     */
+    private record Snapshot(int size, double[] infoPoints, double[] vtcPoints, double[] testNote,
+                            byte[] outcome, int withOutcome, int skipped, LocalDateTime loadedAt) {
+
+        boolean approves(ScoringPolicy policy, int i) {
+            double note = testNote[i];
+            double total = policy.info(infoPoints[i]) + policy.vtc(vtcPoints[i]) + policy.test(note);
+            return policy.approves(total, policy.passesTest(note));
+        }
+    }
+
+    private static final class Columns {
+        private double[] infoPoints;
+        private double[] vtcPoints;
+        private double[] testNote;
+        private byte[] outcome;
+        private int size;
+        private int withOutcome;
+        private int skipped;
+
+        Columns(int capacity) {
+            infoPoints = new double[capacity];
+            vtcPoints = new double[capacity];
+            testNote = new double[capacity];
+            outcome = new byte[capacity];
+        }
+
+        void add(Lead lead, Map<UUID, Byte> outcomes) {
+            double info;
+            double vtc;
+            try {
+                info = ScoringServiceV2Impl.infoPoints(lead);
+                vtc = ScoringServiceV2Impl.vtcPoints(lead);
+            } catch (RuntimeException e) {
+                // Données incomplètes (même cas que le scoring unitaire en erreur)
+                skipped++;
+                return;
+            }
+            if (size == infoPoints.length) {
+                int capacity = size * 2;
+                infoPoints = Arrays.copyOf(infoPoints, capacity);
+                vtcPoints = Arrays.copyOf(vtcPoints, capacity);
+                testNote = Arrays.copyOf(testNote, capacity);
+                outcome = Arrays.copyOf(outcome, capacity);
+            }
+            infoPoints[size] = info;
+            vtcPoints[size] = vtc;
+            testNote[size] = lead.getDrivingTestScore() != null ? lead.getDrivingTestScore() : Double.NaN;
+            byte result = outcomes.getOrDefault(lead.getId(), NO_LOAN);
+            outcome[size] = result;
+            if (result != NO_LOAN) {
+                withOutcome++;
+            }
+            size++;
+        }
+
+        Snapshot build() {
+            return new Snapshot(size, Arrays.copyOf(infoPoints, size), Arrays.copyOf(vtcPoints, size),
+                    Arrays.copyOf(testNote, size), Arrays.copyOf(outcome, size), withOutcome, skipped,
+                    LocalDateTime.now());
+        }
+    }
+
+    private static final class Counts {
+        long approved;
+        long newlyApproved;
+        long newlyRejected;
+        long approvedPerforming;
+        long approvedDefaulted;
+        long rejectedPerforming;
+        long rejectedDefaulted;
+
+        void record(boolean approvedNow, boolean approvedBefore, byte outcome) {
+            if (approvedNow) {
+                approved++;
+                if (!approvedBefore) newlyApproved++;
+                if (outcome == PERFORMING) approvedPerforming++;
+                else if (outcome == DEFAULTED) approvedDefaulted++;
+            } else {
+                if (approvedBefore) newlyRejected++;
+                if (outcome == PERFORMING) rejectedPerforming++;
+                else if (outcome == DEFAULTED) rejectedDefaulted++;
+            }
+        }
+
+        static Counts merge(Counts a, Counts b) {
+            Counts merged = new Counts();
+            merged.approved = a.approved + b.approved;
+            merged.newlyApproved = a.newlyApproved + b.newlyApproved;
+            merged.newlyRejected = a.newlyRejected + b.newlyRejected;
+            merged.approvedPerforming = a.approvedPerforming + b.approvedPerforming;
+            merged.approvedDefaulted = a.approvedDefaulted + b.approvedDefaulted;
+            merged.rejectedPerforming = a.rejectedPerforming + b.rejectedPerforming;
+            merged.rejectedDefaulted = a.rejectedDefaulted + b.rejectedDefaulted;
+            return merged;
+        }
+
+        PolicyResult toResult(ScoringPolicy policy, int leads, PolicyResult baseline) {
+            PolicyResult result = new PolicyResult();
+            result.setPolicy(policy);
+            result.setApproved(approved);
+            result.setApprovalRate(leads > 0 ? 100.0 * approved / leads : 0);
+            result.setApprovalRateDelta(baseline != null ? result.getApprovalRate() - baseline.getApprovalRate() : 0);
+            result.setNewlyApproved(newlyApproved);
+            result.setNewlyRejected(newlyRejected);
+            result.setApprovedPerforming(approvedPerforming);
+            result.setApprovedDefaulted(approvedDefaulted);
+            result.setRejectedPerforming(rejectedPerforming);
+            result.setRejectedDefaulted(rejectedDefaulted);
+            long approvedWithOutcome = approvedPerforming + approvedDefaulted;
+            result.setDefaultRateAmongApproved(approvedWithOutcome > 0
+                    ? 100.0 * approvedDefaulted / approvedWithOutcome
+                    : null);
+            return result;
+        }
+    }
+}
@@ -4,6 +4,7 @@ import africa.flot.application.ports.ScoringService;
 import africa.flot.domain.model.*;
 import africa.flot.domain.model.enums.MaritalStatus;
 import africa.flot.domain.model.valueobject.DetailedScore;
+import africa.flot.domain.model.valueobject.ScoringPolicy;
 import io.quarkus.hibernate.reactive.panache.common.WithTransaction;
 import io.smallrye.mutiny.Uni;
 import jakarta.enterprise.context.ApplicationScoped;
@@ -43,6 +44,8 @@ public class ScoringServiceV2Impl implements ScoringService {
     private static final double STEST_MAX = 20.0;
     private static final double PASSING_SCORE = 70.0;
     private static final double MINIMUM_TEST_SCORE = 15.0;
+    private static final ScoringPolicy POLICY =
+            new ScoringPolicy("V2", SINFO_MAX, SYANGO_MAX, STEST_MAX, PASSING_SCORE, MINIMUM_TEST_SCORE);
 
     @Override
     public Uni<DetailedScore> calculateScore(Lead lead) {
@@ -106,7 +109,8 @@ public class ScoringServiceV2Impl implements ScoringService {
         leadScore.setDrivingRecordScore(score.getDrivingRecordScore());
         leadScore.setVtcExperienceScore(score.getVtcExperienceScore());
         leadScore.setTotalScore(score.getTotalScore());
-        leadScore.setApproved(score.getTotalScore() >= PASSING_SCORE / 10 && score.getVtcExperienceScore() > MINIMUM_TEST_SCORE / 10);
+        // Total normalisé sur 10 (× 10 pour /100) ; la composante test n'est non nulle que si la note est suffisante
+        leadScore.setApproved(isApproved(score.getTotalScore() * 10, score.getDrivingRecordScore() > 0));
         leadScore.setCreatedAt(LocalDateTime.now());
         leadScore.setAlgorithmVersion("V2");
 
@@ -118,20 +122,7 @@ public class ScoringServiceV2Impl implements ScoringService {
         LOG.infof("Calcul du score V2 détaillé pour le lead %s", lead.getId());
 
         try {
-            // Calcul du score informations personnelles (Sinfos)
-            double sInfos = calculateInfoScore(lead);
-
-            // Calcul du score activité VTC/Yango (Syango) à partir des données du Lead
-            double sYango = calculateVtcScore(lead);
-
-            // Calcul du score test de conduite (Stest) à partir des données du Lead
-            double sTest = calculateTestScore(lead);
-
-            // Calcul du score total
-            double totalScore = sInfos + sYango + sTest;
-
-            // Déterminer si le score est suffisant pour approbation
-            boolean isApproved = (totalScore >= PASSING_SCORE && sTest > MINIMUM_TEST_SCORE);
+            Breakdown breakdown = breakdown(lead);
 
             LOG.infof("""
                     Scores V2 détaillés pour le lead %s:
@@ -140,16 +131,10 @@ public class ScoringServiceV2Impl implements ScoringService {
                     - Score test de conduite: %.2f/20
                     - Score total: %.2f/100
                     - Décision: %s""",
-                    lead.getId(), sInfos, sYango, sTest, totalScore,
-                    isApproved ? "ACCEPTÉ" : "REFUSÉ");
+                    lead.getId(), breakdown.info(), breakdown.vtc(), breakdown.test(), breakdown.total(),
+                    breakdown.approved() ? "ACCEPTÉ" : "REFUSÉ");
 
-            // Normaliser les scores sur 10 pour la compatibilité avec l'existant
-            return new DetailedScore(
-                    sInfos / 4,       // Sur 10 au lieu de 40
-                    sYango / 4,       // Sur 10 au lieu de 40
-                    sTest / 2,        // Sur 10 au lieu de 20
-                    totalScore / 10   // Sur 10 au lieu de 100
-            );
+            return breakdown.toDetailedScore();
 
         } catch (Exception e) {
             LOG.errorf(e, "Erreur lors du calcul du score V2 détaillé pour le lead %s", lead.getId());
@@ -157,7 +142,47 @@ public class ScoringServiceV2Impl implements ScoringService {
         }
     }
 
+    /**
+     * Calcul pur du score V2 (sans journalisation ni accès base), partagé avec le scoring par cohorte.
+     */
+    Breakdown breakdown(Lead lead) {
+        // Calcul du score informations personnelles (Sinfos)
+        double sInfos = calculateInfoScore(lead);
+
+        // Calcul du score activité VTC/Yango (Syango) à partir des données du Lead
+        double sYango = calculateVtcScore(lead);
+
+        // Calcul du score test de conduite (Stest) à partir des données du Lead
+        double testNote = testNote(lead);
+        double sTest = POLICY.test(testNote);
+
+        // Calcul du score total
+        double totalScore = sInfos + sYango + sTest;
+
+        return new Breakdown(sInfos, sYango, sTest, totalScore, isApproved(totalScore, POLICY.passesTest(testNote)));
+    }
+
+    // Décision d'approbation : total brut sur 100, et note de test suffisante
+    static boolean isApproved(double totalScore, boolean testPassed) {
+        return POLICY.approves(totalScore, testPassed);
+    }
+
+    /**
+     * Politique de décision en vigueur, point de comparaison des simulations.
+     */
+    public static ScoringPolicy currentPolicy() {
+        return POLICY;
+    }
+
     private double calculateInfoScore(Lead lead) {
+        // Plafonné entre 0 et SINFO_MAX
+        return POLICY.info(infoPoints(lead));
+    }
+
+    /**
+     * Points bruts du barème « informations personnelles », avant plafonnement.
+     */
+    static double infoPoints(Lead lead) {
         double score = 0;
 
         // Pidentité = 5 si l'identité est vérifiée, sinon 0
@@ -200,11 +225,18 @@ public class ScoringServiceV2Impl implements ScoringService {
         boolean reasonableDebt = isReasonableDebtLevel(lead);
         score += reasonableDebt ? 5 : -5;
 
-        // Plafonner le score entre 0 et SINFO_MAX
-        return Math.min(Math.max(score, 0), SINFO_MAX);
+        return score;
     }
 
     private double calculateVtcScore(Lead lead) {
+        // Plafonné entre 0 et SYANGO_MAX
+        return POLICY.vtc(vtcPoints(lead));
+    }
+
+    /**
+     * Points bruts du barème « activité VTC », avant plafonnement.
+     */
+    static double vtcPoints(Lead lead) {
         double score = 0;
 
         // Pcourses = 5 si >300 courses, sinon 0
@@ -236,22 +268,20 @@ public class ScoringServiceV2Impl implements ScoringService {
         Integer accidents = lead.getAccidentCount();
         score += (accidents != null && accidents == 0) ? 10 : -10;
 
-        // Plafonner le score entre 0 et SYANGO_MAX
-        return Math.min(Math.max(score, 0), SYANGO_MAX);
+        return score;
     }
 
-    private double calculateTestScore(Lead lead) {
+    // Note brute du test de conduite, NaN si absente.
+    // Stest = note_test si note_test > 15, sinon 0 (refus automatique)
+    private static double testNote(Lead lead) {
         // Dans notre cas, nous utiliserons une donnée existante dans Lead
         // comme approximation du score de test de conduite
         // Par exemple, on peut utiliser un champ comme drivingTestScore
         Double testScore = lead.getDrivingTestScore();
-
-        // Stest = note_test si note_test > 15, sinon 0 (refus automatique)
-        return (testScore != null && testScore > MINIMUM_TEST_SCORE) ?
-                Math.min(testScore, STEST_MAX) : 0;
+        return testScore != null ? testScore : Double.NaN;
     }
 
-    private boolean isPremiumLocation(String location) {
+    private static boolean isPremiumLocation(String location) {
         // Liste des quartiers premium (à définir selon les besoins business)
         String[] premiumLocations = {"Cocody", "Plateau", "Riviera", "Zone 4", "Deux Plateaux"};
         if (location == null) return false;
@@ -262,7 +292,7 @@ public class ScoringServiceV2Impl implements ScoringService {
         return false;
     }
 
-    private boolean isReasonableDebtLevel(Lead lead) {
+    private static boolean isReasonableDebtLevel(Lead lead) {
         // Logique d'évaluation de l'endettement (à définir selon les besoins business)
         // Par exemple, si l'endettement existant représente moins de 30% des revenus
         double debt = lead.getDebtAmount() != null ? lead.getDebtAmount().doubleValue() : 0.0;
@@ -278,4 +308,15 @@ public class ScoringServiceV2Impl implements ScoringService {
 
     private record ValidationResult(boolean valid, String message) {
     }
+
+    /**
+     * Scores bruts d'un lead (informations /40, activité VTC /40, test /20, total /100) et décision.
+     */
+    record Breakdown(double info, double vtc, double test, double total, boolean approved) {
+
+        // Normaliser les scores sur 10 pour la compatibilité avec l'existant
+        DetailedScore toDetailedScore() {
+            return new DetailedScore(info / 4, vtc / 4, test / 2, total / 10);
+        }
+    }
 }
\ No newline at end of file
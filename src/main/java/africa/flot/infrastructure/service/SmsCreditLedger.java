@@ -0,0 +1,197 @@
+package africa.flot.infrastructure.service;
+
+import africa.flot.infrastructure.client.JetfyClient;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.quarkus.redis.datasource.ReactiveRedisDataSource;
+import io.quarkus.scheduler.Scheduled;
+import io.smallrye.mutiny.Uni;
+import jakarta.annotation.PostConstruct;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.eclipse.microprofile.rest.client.inject.RestClient;
+import org.jboss.logging.Logger;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Estimation locale du crédit SMS Jetfy (en XOF), partagée entre les nœuds via Redis.
+ *
+ * Chaque envoi réserve son coût par un décrément atomique conditionnel (script Lua) au lieu
+ * d'interroger le solde Jetfy ; un envoi qui échoue est recrédité. L'estimation est recalée
+ * sur le solde réel périodiquement, lorsqu'elle passe sous le seuil bas, ou lorsqu'elle est
+ * inconnue. Si Redis est indisponible, la réservation se fait sur la copie locale du nœud.
+ */
+@ApplicationScoped
+public class SmsCreditLedger {
+
+    private static final Logger LOG = Logger.getLogger(SmsCreditLedger.class);
+    private static final String BALANCE_KEY = "sms:credit:balance";
+    private static final long UNKNOWN = -2;
+    private static final long INSUFFICIENT = -1;
+
+    // Retourne le nouveau solde, -1 si le solde est insuffisant, -2 s'il est inconnu
+    private static final String RESERVE_SCRIPT =
+            "local v = redis.call('GET', KEYS[1]) " +
+            "if not v then return -2 end " +
+            "if tonumber(v) < tonumber(ARGV[1]) then return -1 end " +
+            "return redis.call('DECRBY', KEYS[1], ARGV[1])";
+
+    @Inject
+    ReactiveRedisDataSource redis;
+
+    @Inject
+    @RestClient
+    JetfyClient jetfyClient;
+
+    @Inject
+    MeterRegistry registry;
+
+    @ConfigProperty(name = "quarkus.jetfy.api.token")
+    String apiToken;
+
+    @ConfigProperty(name = "sms.credit.low-water-mark", defaultValue = "1500")
+    long lowWaterMark;
+
+    // Délai minimal entre deux recalages déclenchés par le seuil bas ou un solde insuffisant
+    @ConfigProperty(name = "sms.credit.min-reconcile-interval", defaultValue = "PT1M")
+    Duration minReconcileInterval;
+
+    // Dernière valeur connue sur ce nœud ; -1 tant qu'aucun solde n'a été lu
+    private final AtomicLong estimate = new AtomicLong(-1);
+    private final AtomicBoolean reconciling = new AtomicBoolean();
+    private final AtomicLong lastReconcileAt = new AtomicLong();
+    private Counter lowBalanceCounter;
+
+    @PostConstruct
+    void init() {
+        Gauge.builder("flot.sms.credit", estimate, AtomicLong::get)
+                .description("Crédit SMS Jetfy estimé (XOF)")
+                .baseUnit("XOF")
+                .register(registry);
+        lowBalanceCounter = Counter.builder("flot.sms.credit.low")
+                .description("Passages du crédit SMS sous le seuil bas")
+                .register(registry);
+    }
+
+    /**
+     * Réserve le coût de {@code smsCount} SMS. Retourne {@code false} si le crédit estimé est insuffisant.
+     */
+    public Uni<Boolean> tryReserve(int smsCount) {
+        long amount = (long) smsCount * JetfySmsService.COST_PER_SMS;
+        return reserve(amount)
+                .flatMap(result -> result == UNKNOWN
+                        ? reconcile().onFailure().recoverWithNull().chain(() -> reserve(amount))
+                        : Uni.createFrom().item(result))
+                .map(result -> {
+                    if (result == UNKNOWN) {
+                        // Solde Jetfy illisible : l'envoi est tenté, Jetfy refusera s'il est réellement insuffisant
+                        LOG.warn("Crédit SMS inconnu, envoi autorisé sans vérification");
+                        return true;
+                    }
+                    if (result == INSUFFICIENT) {
+                        LOG.warnf("Crédit SMS estimé insuffisant pour %d SMS (%d XOF)", smsCount, amount);
+                        // Le compte a pu être rechargé depuis le dernier recalage
+                        reconcileSoon();
+                        return false;
+                    }
+                    estimate.set(result);
+                    if (result < lowWaterMark) {
+                        lowBalanceCounter.increment();
+                        LOG.warnf("ALERTE: crédit SMS bas, %d XOF restants (seuil %d XOF)", result, lowWaterMark);
+                        reconcileSoon();
+                    }
+                    return true;
+                });
+    }
+
+    /**
+     * Recrédite le coût de SMS réservés mais non envoyés.
+     */
+    public Uni<Void> refund(int smsCount) {
+        if (smsCount <= 0) {
+            return Uni.createFrom().voidItem();
+        }
+        long amount = (long) smsCount * JetfySmsService.COST_PER_SMS;
+        return redis.value(Long.class).incrby(BALANCE_KEY, amount)
+                .invoke(estimate::set)
+                .onFailure().invoke(e -> {
+                    LOG.debugf("Recrédit SMS dans Redis impossible: %s", e.getMessage());
+                    estimate.updateAndGet(v -> v < 0 ? v : v + amount);
+                })
+                .onFailure().recoverWithNull()
+                .replaceWithVoid();
+    }
+
+    /**
+     * Lit le solde réel chez Jetfy et remplace l'estimation.
+     */
+    public Uni<Long> reconcile() {
+        return jetfyClient.getBalance("Bearer " + apiToken)
+                .map(response -> {
+                    if (!"success".equals(response.status)) {
+                        throw new IllegalStateException("Échec de la récupération du solde SMS: " + response.status);
+                    }
+                    return (long) response.data;
+                })
+                .call(balance -> redis.value(Long.class).set(BALANCE_KEY, balance)
+                        .onFailure().invoke(e -> LOG.debugf("Écriture du crédit SMS dans Redis impossible: %s", e.getMessage()))
+                        .onFailure().recoverWithNull())
+                .invoke(balance -> {
+                    long previous = estimate.getAndSet(balance);
+                    lastReconcileAt.set(System.currentTimeMillis());
+                    LOG.infof("Crédit SMS recalé: %d XOF (estimation précédente: %d XOF)", balance, previous);
+                });
+    }
+
+    @Scheduled(every = "${sms.credit.reconcile-every:10m}", identity = "sms-credit-reconcile",
+            concurrentExecution = Scheduled.ConcurrentExecution.SKIP)
+    Uni<Void> scheduledReconcile() {
+        return reconcile()
+                .onFailure().invoke(e -> LOG.warnf("Recalage du crédit SMS impossible: %s", e.getMessage()))
+                .onFailure().recoverWithNull()
+                .replaceWithVoid();
+    }
+
+    private Uni<Long> reserve(long amount) {
+        return redis.execute("EVAL", RESERVE_SCRIPT, "1", BALANCE_KEY, String.valueOf(amount))
+                .map(response -> response.toLong())
+                .onFailure().recoverWithItem(e -> {
+                    LOG.debugf("Crédit SMS Redis indisponible, réservation locale: %s", e.getMessage());
+                    return reserveLocally(amount);
+                });
+    }
+
+    private long reserveLocally(long amount) {
+        while (true) {
+            long current = estimate.get();
+            if (current < 0) {
+                return UNKNOWN;
+            }
+            if (current < amount) {
+                return INSUFFICIENT;
+            }
+            if (estimate.compareAndSet(current, current - amount)) {
+                return current - amount;
+            }
+        }
+    }
+
+    // Recalage en arrière-plan, au plus un à la fois et pas plus souvent que l'intervalle minimal
+    private void reconcileSoon() {
+        if (System.currentTimeMillis() - lastReconcileAt.get() < minReconcileInterval.toMillis()
+                || !reconciling.compareAndSet(false, true)) {
+            return;
+        }
+        reconcile()
+                .eventually(() -> {
+                    reconciling.set(false);
+                })
+                .subscribe().with(balance -> {
+                }, e -> LOG.warnf("Recalage du crédit SMS impossible: %s", e.getMessage()));
+    }
+}
@@ -2,24 +2,26 @@ package africa.flot.infrastructure.service.dayana;
 
 import africa.flot.application.dto.query.DanayaVerificationResult;
 import africa.flot.infrastructure.logging.LoggerUtil;
+import africa.flot.infrastructure.minio.MinioService;
 import io.quarkus.runtime.LaunchMode;
 import io.smallrye.mutiny.Uni;
-import io.smallrye.mutiny.subscription.UniEmitter;
-import io.vertx.core.AsyncResult;
+import io.vertx.core.Future;
 import io.vertx.core.Vertx;
 import io.vertx.core.buffer.Buffer;
+import io.vertx.core.http.HttpClient;
+import io.vertx.core.http.HttpClientOptions;
+import io.vertx.core.http.HttpClientResponse;
+import io.vertx.core.http.HttpHeaders;
+import io.vertx.core.http.HttpMethod;
+import io.vertx.core.http.RequestOptions;
 import io.vertx.core.json.JsonObject;
 import io.vertx.ext.web.client.HttpResponse;
 import io.vertx.ext.web.client.WebClient;
 import io.vertx.ext.web.client.WebClientOptions;
-import io.vertx.ext.web.multipart.MultipartForm;
 import jakarta.enterprise.context.ApplicationScoped;
 import jakarta.inject.Inject;
 import org.eclipse.microprofile.config.inject.ConfigProperty;
 
-import java.io.IOException;
-import java.nio.file.Files;
-import java.nio.file.Path;
 import java.util.Arrays;
 import java.util.List;
 import java.util.UUID;
@@ -31,6 +33,7 @@ public class DanayaApiClient {
     LoggerUtil logger;
 
     private final WebClient webClient;
+    private final HttpClient httpClient;
 
     @ConfigProperty(name = "quarkus.rest-client.danaya-api.url")
     String baseUrl;
@@ -49,54 +52,82 @@ public class DanayaApiClient {
                 .setConnectTimeout(5000)
                 .setIdleTimeout(10000);
         this.webClient = WebClient.create(vertx, options);
+        this.httpClient = vertx.createHttpClient(new HttpClientOptions()
+                .setConnectTimeout(5000)
+                .setIdleTimeout(10000));
     }
 
-    public Uni<JsonObject> uploadIdDocuments(Path frontImage, Path backImage) {
-        MultipartForm form = createMultipartForm(frontImage, backImage);
-        return Uni.createFrom().emitter(em -> webClient.postAbs(baseUrl + "/v2/clients-files/upload-files")
+    /**
+     * Envoie le recto et le verso de la CNI en multipart, en transférant directement les flux
+     * Minio dans le corps de la requête : ni fichier temporaire, ni copie bloquante.
+     */
+    public Uni<JsonObject> uploadIdDocuments(MinioService.ObjectStream front, MinioService.ObjectStream back) {
+        String boundary = "flot-" + UUID.randomUUID();
+        Buffer head = Buffer.buffer()
+                .appendString(formField(boundary, "documentType", "CNI"))
+                .appendString(formField(boundary, "verificationsToApply", String.join(",", DEFAULT_VERIFICATIONS)))
+                .appendString(fileHeader(boundary, "idDocumentFront", front.fileName()));
+        Buffer middle = Buffer.buffer("\r\n").appendString(fileHeader(boundary, "idDocumentBack", back.fileName()));
+        Buffer tail = Buffer.buffer("\r\n--" + boundary + "--\r\n");
+
+        RequestOptions options = new RequestOptions()
+                .setMethod(HttpMethod.POST)
+                .setAbsoluteURI(baseUrl + "/v2/clients-files/upload-files")
                 .putHeader("Api-Key", apiKey)
                 .putHeader("Api-Secret", apiSecret)
-                .sendMultipartForm(form, ar -> handleUploadResponse(em, frontImage, backImage, ar)));
-    }
+                .putHeader(HttpHeaders.CONTENT_TYPE, "multipart/form-data; boundary=" + boundary);
 
-    private MultipartForm createMultipartForm(Path frontImage, Path backImage) {
-        return MultipartForm.create()
-                .binaryFileUpload("idDocumentFront", frontImage.getFileName().toString(), frontImage.toString(), "image/jpeg")
-                .binaryFileUpload("idDocumentBack", backImage.getFileName().toString(), backImage.toString(), "image/jpeg")
-                .attribute("documentType", "CNI")
-                .attribute("verificationsToApply", String.join(",", DEFAULT_VERIFICATIONS));
-    }
-
-    private void handleUploadResponse(UniEmitter<? super JsonObject> emitter, Path frontImage, Path backImage, AsyncResult<HttpResponse<Buffer>> ar) {
-        cleanupFiles(frontImage, backImage);
-        if (ar.succeeded()) {
-            HttpResponse<Buffer> response = ar.result();
-            if (response.statusCode() == 200) {
-                emitter.complete(response.bodyAsJsonObject());
+        Future<JsonObject> upload = httpClient.request(options).compose(request -> {
+            if (front.length() >= 0 && back.length() >= 0) {
+                long total = head.length() + front.length() + middle.length() + back.length() + tail.length();
+                request.putHeader(HttpHeaders.CONTENT_LENGTH, String.valueOf(total));
             } else {
-                emitter.fail(new RuntimeException(String.format("Erreur API Danaya [status=%d, message=%s]", response.statusCode(), response.statusMessage())));
+                request.setChunked(true);
             }
-        } else {
-            emitter.fail(ar.cause());
-        }
+
+            Future<HttpClientResponse> response = request.response();
+            request.write(head)
+                    .compose(v -> front.stream().pipe().endOnComplete(false).to(request))
+                    .compose(v -> request.write(middle))
+                    .compose(v -> back.stream().pipe().endOnComplete(false).to(request))
+                    .compose(v -> request.end(tail))
+                    .onFailure(e -> {
+                        logger.error("Échec de l'envoi des documents à Danaya", e);
+                        request.reset(0, e);
+                    });
+
+            return response.compose(resp -> resp.body().compose(body -> resp.statusCode() == 200
+                    ? Future.succeededFuture(body.toJsonObject())
+                    : Future.failedFuture(new RuntimeException(String.format("Erreur API Danaya [status=%d, message=%s]", resp.statusCode(), resp.statusMessage())))));
+        });
+
+        return Uni.createFrom().<JsonObject>emitter(em -> upload.onSuccess(em::complete).onFailure(em::fail))
+                .onTermination().invoke(() -> {
+                    // Libère les connexions Minio si un flux n'a pas été consommé jusqu'au bout
+                    if (upload.failed()) {
+                        front.discard();
+                        back.discard();
+                    }
+                });
     }
 
-    private void cleanupFiles(Path... files) {
-        for (Path file : files) {
-            try {
-                Files.deleteIfExists(file);
-                logger.danayaDebug("Fichier temporaire supprimé [path=" + file + "]");
-            } catch (IOException e) {
-                logger.error("Échec suppression fichier [path=" + file + "]", e);
-            }
-        }
+    private static String formField(String boundary, String name, String value) {
+        return "--" + boundary + "\r\n"
+                + "Content-Disposition: form-data; name=\"" + name + "\"\r\n\r\n"
+                + value + "\r\n";
+    }
+
+    private static String fileHeader(String boundary, String name, String fileName) {
+        return "--" + boundary + "\r\n"
+                + "Content-Disposition: form-data; name=\"" + name + "\"; filename=\"" + fileName + "\"\r\n"
+                + "Content-Type: image/jpeg\r\n\r\n";
     }
 
     public Uni<DanayaVerificationResult> getVerificationStatus(UUID verificationUuid) {
         if (LaunchMode.current() == LaunchMode.DEVELOPMENT) {
             logger.danayaDebug("Mode développement détecté - utilisation de données simulées.");
             return Uni.createFrom().item(loadMockResponse())
-                    .map(DanayaResponseParser::parseDanayaResponse);
+                    .map(DanayaResponseParser::parse);
         } else {
             return Uni.createFrom().emitter(emitter -> {
                 String url = baseUrl + "/v2/clients-files/client-file-to-analyze-id/" + verificationUuid;
@@ -109,8 +140,12 @@ public class DanayaApiClient {
                             if (ar.succeeded()) {
                                 HttpResponse<Buffer> response = ar.result();
                                 if (response.statusCode() == 200) {
-                                    DanayaVerificationResult result = DanayaResponseParser.parseDanayaResponse(response.bodyAsJsonObject());
-                                    emitter.complete(result);
+                                    try {
+                                        // Décodage en flux directement depuis le tampon réseau
+                                        emitter.complete(DanayaResponseParser.parse(response.body()));
+                                    } catch (RuntimeException e) {
+                                        emitter.fail(e);
+                                    }
                                 } else {
                                     emitter.fail(new RuntimeException(String.format("Erreur API [status=%d, message=%s]", response.statusCode(), response.statusMessage())));
                                 }
@@ -122,7 +157,7 @@ public class DanayaApiClient {
         }
     }
 
-    private JsonObject loadMockResponse() {
+    private String loadMockResponse() {
         String jsonResponse = """
                 {
                     "id": 1103,
@@ -223,6 +258,6 @@ public class DanayaApiClient {
                         }
                     ]
                 }""";
-        return new JsonObject(jsonResponse);
+        return jsonResponse;
     }
 }
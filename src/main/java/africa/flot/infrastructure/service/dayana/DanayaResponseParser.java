@@ -1,115 +1,298 @@
 package africa.flot.infrastructure.service.dayana;
 
 import africa.flot.application.dto.query.DanayaVerificationResult;
-import africa.flot.infrastructure.logging.LoggerUtil;
-import io.vertx.core.json.JsonObject;
-import jakarta.enterprise.context.ApplicationScoped;
-import jakarta.inject.Inject;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import io.netty.buffer.ByteBufInputStream;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.json.DecodeException;
+import org.jboss.logging.Logger;
 
+import java.io.IOException;
 import java.util.UUID;
 
-@ApplicationScoped
-public class DanayaResponseParser {
+/**
+ * Décodeur en flux des réponses de vérification Danaya.
+ *
+ * Le JSON est lu jeton par jeton et lié directement à {@link DanayaVerificationResult}, sans
+ * arbre intermédiaire : les champs non exploités (URLs des images, données de contrôle, documents
+ * autres que la CNI) sont sautés sans être décodés. Le rawData du DB_CHECK n'est décodé qu'au
+ * premier accès à la résidence ou à la filiation.
+ */
+public final class DanayaResponseParser {
 
-    @Inject
-    LoggerUtil logger;
+    private static final Logger LOG = Logger.getLogger("africa.flot.infrastructure.dayana");
 
-    public static DanayaVerificationResult parseDanayaResponse(JsonObject response) {
-        LoggerUtil logger = new LoggerUtil(); // Créez une instance si nécessaire
-        logger.danayaDebug("Parsing Danaya response");
+    // Thread-safe une fois configurée, partagée par tous les appels
+    private static final JsonFactory JSON = new JsonFactory();
 
-        DanayaVerificationResult result = new DanayaVerificationResult();
-        result.setId(UUID.fromString(response.getString("clientFileToAnalyzeId")));
-        result.setCreatedAt(response.getString("createdAt"));
+    private DanayaResponseParser() {
+    }
 
+    public static DanayaVerificationResult parse(Buffer body) {
+        try (JsonParser parser = JSON.createParser(new ByteBufInputStream(body.getByteBuf()))) {
+            return readResult(parser);
+        } catch (IOException e) {
+            throw new DecodeException("Réponse Danaya illisible : " + e.getMessage(), e);
+        }
+    }
 
+    public static DanayaVerificationResult parse(String body) {
+        try (JsonParser parser = JSON.createParser(body)) {
+            return readResult(parser);
+        } catch (IOException e) {
+            throw new DecodeException("Réponse Danaya illisible : " + e.getMessage(), e);
+        }
+    }
+
+    private static DanayaVerificationResult readResult(JsonParser parser) throws IOException {
+        LOG.debug("Parsing Danaya response");
+        expect(parser.nextToken(), JsonToken.START_OBJECT);
+
+        DanayaVerificationResult result = new DanayaVerificationResult();
         DanayaVerificationResult.PersonalInfo personalInfo = new DanayaVerificationResult.PersonalInfo();
         result.setPersonalInfo(personalInfo);
+        result.setVerificationScores(new DanayaVerificationResult.VerificationScores());
 
-        DanayaVerificationResult.VerificationScores verificationScores = new DanayaVerificationResult.VerificationScores();
-        result.setVerificationScores(verificationScores);
-
-        if (response.containsKey("documents") && !response.getJsonArray("documents").isEmpty()) {
-            JsonObject document = response.getJsonArray("documents").stream()
-                    .map(obj -> (JsonObject) obj)
-                    .filter(doc -> "CNI".equals(doc.getString("type")))
-                    .findFirst()
-                    .orElse(null);
-
-            if (document != null) {
-                JsonObject ocrData = document.getJsonObject("ocrExtractedData");
-                if (ocrData != null) {
-                    logger.danayaDebug("OCR data found, extracting information");
-
-                    DanayaVerificationResult.Identity identity = new DanayaVerificationResult.Identity();
-                    identity.setFirstName(ocrData.getString("first_name"));
-                    identity.setLastName(ocrData.getString("last_name"));
-                    identity.setDateOfBirth(ocrData.getString("date_of_birth"));
-                    identity.setDocumentExpiry(ocrData.getString("document_expiry"));
-                    identity.setNni(ocrData.getString("nni"));
-                    identity.setGender(ocrData.getString("gender"));
-                    identity.setPlaceOfBirth(ocrData.getString("place_of_birth"));
-                    identity.setNationality(ocrData.getString("nationality"));
-                    identity.setDocumentNumber(ocrData.getString("document_number"));
-
-                    personalInfo.setIdentity(identity);
-
-                    DanayaVerificationResult.FamilyInfo familyInfo = new DanayaVerificationResult.FamilyInfo();
-                    personalInfo.setFamilyInfo(familyInfo);
-
-                    DanayaVerificationResult.Residence residence = new DanayaVerificationResult.Residence();
-                    personalInfo.setResidence(residence);
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            JsonToken value = parser.nextToken();
+            switch (field) {
+                case "clientFileToAnalyzeId" -> {
+                    String id = text(parser, value);
+                    result.setId(id != null ? UUID.fromString(id) : null);
                 }
+                case "createdAt" -> result.setCreatedAt(text(parser, value));
+                case "documents" -> readDocuments(parser, value, result);
+                default -> parser.skipChildren();
+            }
+        }
+        return result;
+    }
 
-                if (document.containsKey("verificationResults")) {
-                    logger.danayaDebug("Processing verification results");
-                    document.getJsonArray("verificationResults").stream()
-                            .map(obj -> (JsonObject) obj)
-                            .forEach(verification -> {
-                                String type = verification.getString("type");
-
-                                if ("EXPIRATION_CHECK".equals(type)) {
-                                    JsonObject scoring = verification.getJsonObject("scoring");
-                                    verificationScores.setExpiration(scoring.getString("score"));
-                                } else if ("DB_CHECK".equals(type)) {
-                                    JsonObject scoring = verification.getJsonObject("scoring");
-                                    result.setStatus(scoring.getString("score"));
-                                    DanayaVerificationResult.DBCheckScores dbCheckScores = new DanayaVerificationResult.DBCheckScores();
-                                    dbCheckScores.setFirstName(scoring.getInteger("firstNameMatchingScore", 0));
-                                    dbCheckScores.setLastName(scoring.getInteger("lastNameMatchingScore", 0));
-                                    dbCheckScores.setDateOfBirth(scoring.getInteger("dateOfBirthMatchingScore", 0));
-                                    dbCheckScores.setGender(scoring.getInteger("genderMatchingScore", 0));
-                                    verificationScores.setDbCheck(dbCheckScores);
-
-                                    String rawDataString = scoring.getString("rawData");
-                                    if (rawDataString != null) {
-                                        JsonObject rawData = new JsonObject(rawDataString);
-
-                                        DanayaVerificationResult.Residence residence = personalInfo.getResidence();
-                                        residence.setAddress(rawData.getString("RESIDENCE_ADR_1"));
-                                        residence.setTown(rawData.getString("RESIDENCE_TOWN"));
-
-                                        DanayaVerificationResult.ParentInfo father = new DanayaVerificationResult.ParentInfo();
-                                        father.setFirstName(rawData.getString("FATHER_FIRST_NAME"));
-                                        father.setLastName(rawData.getString("FATHER_LAST_NAME"));
-                                        father.setBirthDate(rawData.getString("FATHER_BIRTH_DATE"));
-                                        father.setUin(rawData.getString("FATHER_UIN"));
-                                        personalInfo.getFamilyInfo().setFather(father);
-
-                                        DanayaVerificationResult.ParentInfo mother = new DanayaVerificationResult.ParentInfo();
-                                        mother.setFirstName(rawData.getString("MOTHER_FIRST_NAME"));
-                                        mother.setLastName(rawData.getString("MOTHER_LAST_NAME"));
-                                        mother.setBirthDate(rawData.getString("MOTHER_BIRTH_DATE"));
-                                        mother.setUin(rawData.getString("MOTHER_UIN"));
-                                        personalInfo.getFamilyInfo().setMother(mother);
-
-                                        personalInfo.getFamilyInfo().setSpouseName(rawData.getString("SPOUSE_NAME"));
-                                    }
-                                }
-                            });
+    private static void readDocuments(JsonParser parser, JsonToken value, DanayaVerificationResult result) throws IOException {
+        if (value != JsonToken.START_ARRAY) {
+            parser.skipChildren();
+            return;
+        }
+        boolean cniFound = false;
+        while (parser.nextToken() == JsonToken.START_OBJECT) {
+            if (cniFound) {
+                parser.skipChildren();
+                continue;
+            }
+            // L'ordre des champs n'est pas garanti : le document est lu avant de connaître son type
+            Document document = readDocument(parser);
+            if ("CNI".equals(document.type)) {
+                document.applyTo(result);
+                cniFound = true;
+            }
+        }
+    }
+
+    private static Document readDocument(JsonParser parser) throws IOException {
+        Document document = new Document();
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            JsonToken value = parser.nextToken();
+            switch (field) {
+                case "type" -> document.type = text(parser, value);
+                case "ocrExtractedData" -> document.identity = readIdentity(parser, value);
+                case "verificationResults" -> readVerifications(parser, value, document);
+                default -> parser.skipChildren();
+            }
+        }
+        return document;
+    }
+
+    private static DanayaVerificationResult.Identity readIdentity(JsonParser parser, JsonToken value) throws IOException {
+        if (value != JsonToken.START_OBJECT) {
+            parser.skipChildren();
+            return null;
+        }
+        DanayaVerificationResult.Identity identity = new DanayaVerificationResult.Identity();
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            JsonToken token = parser.nextToken();
+            switch (field) {
+                case "first_name" -> identity.setFirstName(text(parser, token));
+                case "last_name" -> identity.setLastName(text(parser, token));
+                case "date_of_birth" -> identity.setDateOfBirth(text(parser, token));
+                case "document_expiry" -> identity.setDocumentExpiry(text(parser, token));
+                case "nni" -> identity.setNni(text(parser, token));
+                case "gender" -> identity.setGender(text(parser, token));
+                case "place_of_birth" -> identity.setPlaceOfBirth(text(parser, token));
+                case "nationality" -> identity.setNationality(text(parser, token));
+                case "document_number" -> identity.setDocumentNumber(text(parser, token));
+                default -> parser.skipChildren();
+            }
+        }
+        return identity;
+    }
+
+    private static void readVerifications(JsonParser parser, JsonToken value, Document document) throws IOException {
+        if (value != JsonToken.START_ARRAY) {
+            parser.skipChildren();
+            return;
+        }
+        while (parser.nextToken() == JsonToken.START_OBJECT) {
+            String type = null;
+            Scoring scoring = null;
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.currentName();
+                JsonToken token = parser.nextToken();
+                switch (field) {
+                    case "type" -> type = text(parser, token);
+                    case "scoring" -> scoring = readScoring(parser, token);
+                    default -> parser.skipChildren();
+                }
+            }
+            if (scoring == null) {
+                continue;
+            }
+            if ("EXPIRATION_CHECK".equals(type)) {
+                document.expiration = scoring;
+            } else if ("DB_CHECK".equals(type)) {
+                document.dbCheck = scoring;
+            }
+        }
+    }
+
+    private static Scoring readScoring(JsonParser parser, JsonToken value) throws IOException {
+        if (value != JsonToken.START_OBJECT) {
+            parser.skipChildren();
+            return null;
+        }
+        Scoring scoring = new Scoring();
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            JsonToken token = parser.nextToken();
+            switch (field) {
+                case "score" -> scoring.score = text(parser, token);
+                case "firstNameMatchingScore" -> scoring.firstName = number(parser, token);
+                case "lastNameMatchingScore" -> scoring.lastName = number(parser, token);
+                case "dateOfBirthMatchingScore" -> scoring.dateOfBirth = number(parser, token);
+                case "genderMatchingScore" -> scoring.gender = number(parser, token);
+                // Chaîne JSON conservée telle quelle, décodée à la demande
+                case "rawData" -> scoring.rawData = text(parser, token);
+                default -> parser.skipChildren();
+            }
+        }
+        return scoring;
+    }
+
+    /**
+     * Complète la résidence et la filiation à partir du rawData DB_CHECK. Appelé au premier accès.
+     */
+    static void applyCivilStatus(String rawData, DanayaVerificationResult.PersonalInfo personalInfo) {
+        DanayaVerificationResult.Residence residence = personalInfo.getResidence();
+        if (residence == null) {
+            residence = new DanayaVerificationResult.Residence();
+            personalInfo.setResidence(residence);
+        }
+        DanayaVerificationResult.FamilyInfo familyInfo = personalInfo.getFamilyInfo();
+        if (familyInfo == null) {
+            familyInfo = new DanayaVerificationResult.FamilyInfo();
+            personalInfo.setFamilyInfo(familyInfo);
+        }
+        DanayaVerificationResult.ParentInfo father = new DanayaVerificationResult.ParentInfo();
+        DanayaVerificationResult.ParentInfo mother = new DanayaVerificationResult.ParentInfo();
+        familyInfo.setFather(father);
+        familyInfo.setMother(mother);
+
+        try (JsonParser parser = JSON.createParser(rawData)) {
+            expect(parser.nextToken(), JsonToken.START_OBJECT);
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.currentName();
+                JsonToken token = parser.nextToken();
+                switch (field) {
+                    case "RESIDENCE_ADR_1" -> residence.setAddress(text(parser, token));
+                    case "RESIDENCE_TOWN" -> residence.setTown(text(parser, token));
+                    case "FATHER_FIRST_NAME" -> father.setFirstName(text(parser, token));
+                    case "FATHER_LAST_NAME" -> father.setLastName(text(parser, token));
+                    case "FATHER_BIRTH_DATE" -> father.setBirthDate(text(parser, token));
+                    case "FATHER_UIN" -> father.setUin(text(parser, token));
+                    case "MOTHER_FIRST_NAME" -> mother.setFirstName(text(parser, token));
+                    case "MOTHER_LAST_NAME" -> mother.setLastName(text(parser, token));
+                    case "MOTHER_BIRTH_DATE" -> mother.setBirthDate(text(parser, token));
+                    case "MOTHER_UIN" -> mother.setUin(text(parser, token));
+                    case "SPOUSE_NAME" -> familyInfo.setSpouseName(text(parser, token));
+                    default -> parser.skipChildren();
+                }
+            }
+        } catch (IOException e) {
+            // La vérification reste exploitable sans l'état civil détaillé
+            LOG.warnf("rawData DB_CHECK illisible, état civil ignoré : %s", e.getMessage());
+        }
+    }
+
+    private static String text(JsonParser parser, JsonToken token) throws IOException {
+        if (token == JsonToken.VALUE_NULL) {
+            return null;
+        }
+        if (token.isScalarValue()) {
+            return parser.getText();
+        }
+        parser.skipChildren();
+        return null;
+    }
+
+    private static Integer number(JsonParser parser, JsonToken token) throws IOException {
+        if (token.isNumeric()) {
+            return parser.getIntValue();
+        }
+        parser.skipChildren();
+        return 0;
+    }
+
+    private static void expect(JsonToken actual, JsonToken expected) throws IOException {
+        if (actual != expected) {
+            throw new IOException("attendu " + expected + ", reçu " + actual);
+        }
+    }
+
+    private static final class Scoring {
+        String score;
+        Integer firstName = 0;
+        Integer lastName = 0;
+        Integer dateOfBirth = 0;
+        Integer gender = 0;
+        String rawData;
+    }
+
+    private static final class Document {
+        String type;
+        DanayaVerificationResult.Identity identity;
+        Scoring expiration;
+        Scoring dbCheck;
+
+        void applyTo(DanayaVerificationResult result) {
+            DanayaVerificationResult.PersonalInfo personalInfo = result.getPersonalInfo();
+            if (identity != null) {
+                LOG.debug("OCR data found, extracting information");
+                personalInfo.setIdentity(identity);
+                personalInfo.setResidence(new DanayaVerificationResult.Residence());
+                personalInfo.setFamilyInfo(new DanayaVerificationResult.FamilyInfo());
+            }
+            DanayaVerificationResult.VerificationScores scores = result.getVerificationScores();
+            if (expiration != null) {
+                scores.setExpiration(expiration.score);
+            }
+            if (dbCheck != null) {
+                result.setStatus(dbCheck.score);
+                DanayaVerificationResult.DBCheckScores dbCheckScores = new DanayaVerificationResult.DBCheckScores();
+                dbCheckScores.setFirstName(dbCheck.firstName);
+                dbCheckScores.setLastName(dbCheck.lastName);
+                dbCheckScores.setDateOfBirth(dbCheck.dateOfBirth);
+                dbCheckScores.setGender(dbCheck.gender);
+                scores.setDbCheck(dbCheckScores);
+
+                String rawData = dbCheck.rawData;
+                if (rawData != null) {
+                    personalInfo.deferCivilStatus(info -> applyCivilStatus(rawData, info));
                 }
             }
         }
-        return result;
     }
 }
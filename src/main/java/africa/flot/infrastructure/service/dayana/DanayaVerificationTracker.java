@@ -0,0 +1,220 @@
+package africa.flot.infrastructure.service.dayana;
+
+import africa.flot.application.dto.query.DanayaVerificationResult;
+import africa.flot.domain.model.DanayaVerificationJob;
+import africa.flot.domain.model.enums.VerificationJobStatus;
+import africa.flot.infrastructure.logging.LoggerUtil;
+import africa.flot.infrastructure.util.Backoff;
+import io.quarkus.hibernate.reactive.panache.common.WithSession;
+import io.quarkus.hibernate.reactive.panache.common.WithTransaction;
+import io.quarkus.scheduler.Scheduled;
+import io.smallrye.mutiny.Multi;
+import io.smallrye.mutiny.Uni;
+import io.vertx.mutiny.pgclient.PgPool;
+import io.vertx.mutiny.sqlclient.Row;
+import io.vertx.mutiny.sqlclient.Tuple;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Suivi des vérifications Danaya en attente.
+ *
+ * Les vérifications sont persistées dans {@code danaya_verification_jobs} et un unique job
+ * planifié interroge Danaya pour toutes celles qui sont dues, avec une concurrence bornée.
+ * Chaque nouvelle interrogation est replanifiée avec un backoff exponentiel et de la gigue.
+ * Les lignes sont réservées par {@code FOR UPDATE SKIP LOCKED} : plusieurs instances peuvent
+ * tourner sans interroger deux fois la même vérification.
+ */
+@ApplicationScoped
+public class DanayaVerificationTracker {
+
+    // $1 = maintenant, $2 = fin de réservation, $3 = taille du lot
+    private static final String CLAIM_DUE_SQL =
+            "UPDATE danaya_verification_jobs j SET next_poll_at = $2, updated_at = LOCALTIMESTAMP " +
+            "FROM (SELECT id FROM danaya_verification_jobs WHERE status = 'PENDING' AND next_poll_at <= $1 " +
+            "ORDER BY next_poll_at LIMIT $3 FOR UPDATE SKIP LOCKED) due " +
+            "WHERE j.id = due.id " +
+            "RETURNING j.id, j.lead_id, j.verification_id, j.attempts";
+
+    private static final String UPDATE_JOB_SQL =
+            "UPDATE danaya_verification_jobs SET status = $2, attempts = $3, next_poll_at = $4, last_error = $5, " +
+            "completed_at = $6, updated_at = LOCALTIMESTAMP WHERE id = $1";
+
+    @Inject
+    LoggerUtil logger;
+
+    @Inject
+    PgPool client;
+
+    @Inject
+    DanayaApiClient danayaApiClient;
+
+    @Inject
+    DanayaService danayaService;
+
+    @ConfigProperty(name = "quarkus.rest-client.danaya-api.polling-interval-seconds", defaultValue = "5")
+    int pollingIntervalSeconds;
+
+    @ConfigProperty(name = "quarkus.rest-client.danaya-api.initial-delay-seconds", defaultValue = "3")
+    int initialDelaySeconds;
+
+    @ConfigProperty(name = "quarkus.rest-client.danaya-api.max-polling-attempts", defaultValue = "60")
+    int maxPollingAttempts;
+
+    @ConfigProperty(name = "danaya.tracker.batch-size", defaultValue = "50")
+    int batchSize;
+
+    @ConfigProperty(name = "danaya.tracker.concurrency", defaultValue = "8")
+    int concurrency;
+
+    @ConfigProperty(name = "danaya.tracker.max-backoff-seconds", defaultValue = "60")
+    int maxBackoffSeconds;
+
+    @ConfigProperty(name = "danaya.tracker.lease-seconds", defaultValue = "120")
+    int leaseSeconds;
+
+    @WithTransaction
+    public Uni<DanayaVerificationJob> track(UUID verificationId, UUID leadId) {
+        DanayaVerificationJob job = new DanayaVerificationJob();
+        job.setLeadId(leadId);
+        job.setVerificationId(verificationId);
+        job.setStatus(VerificationJobStatus.PENDING);
+        job.setAttempts(0);
+        job.setNextPollAt(LocalDateTime.now().plusSeconds(initialDelaySeconds));
+        return job.<DanayaVerificationJob>persist()
+                .invoke(saved -> logger.danayaInfo(String.format("Vérification suivie [job=%s, uuid=%s, leadId=%s]",
+                        saved.getId(), verificationId, leadId)));
+    }
+
+    @WithSession
+    public Uni<DanayaVerificationJob> findJob(UUID jobId) {
+        return DanayaVerificationJob.findById(jobId);
+    }
+
+    @WithSession
+    public Uni<Optional<DanayaVerificationJob>> findPendingJob(UUID leadId) {
+        return DanayaVerificationJob.<DanayaVerificationJob>find("leadId = ?1 AND status = ?2 ORDER BY createdAt DESC",
+                        leadId, VerificationJobStatus.PENDING)
+                .firstResult()
+                .map(Optional::ofNullable);
+    }
+
+    @Scheduled(every = "${danaya.tracker.every:5s}", identity = "danaya-verification-tracker",
+            concurrentExecution = Scheduled.ConcurrentExecution.SKIP)
+    Uni<Void> pollDueVerifications() {
+        LocalDateTime now = LocalDateTime.now();
+        return client.preparedQuery(CLAIM_DUE_SQL)
+                .execute(Tuple.of(now, now.plusSeconds(leaseSeconds), batchSize))
+                .onItem().transformToMulti(rows -> Multi.createFrom().iterable(rows))
+                .map(ClaimedJob::from)
+                .onItem().transformToUni(this::poll).merge(concurrency)
+                .onItem().transformToUniAndConcatenate(this::apply)
+                .collect().asList()
+                .invoke(outcomes -> {
+                    if (!outcomes.isEmpty()) {
+                        logger.danayaDebug(String.format("%d vérification(s) Danaya interrogée(s)", outcomes.size()));
+                    }
+                })
+                .onFailure().invoke(e -> logger.error("Erreur lors de l'interrogation des vérifications Danaya", e))
+                .onFailure().recoverWithNull()
+                .replaceWithVoid();
+    }
+
+    private Uni<Outcome> poll(ClaimedJob job) {
+        return danayaApiClient.getVerificationStatus(job.verificationId())
+                .map(result -> classify(job, result))
+                .onFailure().recoverWithItem(error -> {
+                    String message = String.valueOf(error.getMessage());
+                    if (message.contains("404")) {
+                        logger.danayaDebug("Document en cours d'initialisation, nouvelle tentative après délai.");
+                        return Outcome.pending(job, "Document en cours d'initialisation");
+                    }
+                    return Outcome.pending(job, message);
+                });
+    }
+
+    private Outcome classify(ClaimedJob job, DanayaVerificationResult result) {
+        String status = result.getStatus();
+        logger.danayaDebug(String.format("Statut vérification [uuid=%s, status=%s]", job.verificationId(), status));
+        if (status == null || "EN_COURS".equals(status)) {
+            return Outcome.pending(job, null);
+        } else if ("VALID".equals(status)) {
+            return new Outcome(job, VerificationJobStatus.COMPLETED, result, null);
+        } else if ("ERREUR".equals(status)) {
+            return new Outcome(job, VerificationJobStatus.FAILED, null,
+                    String.format("Échec de la vérification [uuid=%s]", job.verificationId()));
+        }
+        return new Outcome(job, VerificationJobStatus.FAILED, null,
+                String.format("Statut de vérification invalide [uuid=%s, status=%s]", job.verificationId(), status));
+    }
+
+    private Uni<Outcome> apply(Outcome outcome) {
+        ClaimedJob job = outcome.job();
+        int attempts = job.attempts() + 1;
+
+        if (outcome.status() == VerificationJobStatus.COMPLETED) {
+            return danayaService.updateKYBStatus(outcome.result(), job.leadId())
+                    .invoke(() -> logger.auditAction("SYSTEM", "VERIFICATION_SUCCESS",
+                            String.format("Vérification réussie [uuid=%s]", job.verificationId())))
+                    .chain(() -> update(job.id(), VerificationJobStatus.COMPLETED, attempts, LocalDateTime.now(), null, LocalDateTime.now()))
+                    // L'enregistrement a échoué : la vérification reste due et sera réinterrogée
+                    .onFailure().invoke(e -> logger.error("Échec de l'enregistrement du résultat [uuid=" + job.verificationId() + "]", e))
+                    .onFailure().recoverWithUni(e -> update(job.id(), VerificationJobStatus.PENDING, attempts,
+                            nextPollAt(attempts), e.getMessage(), null))
+                    .replaceWith(outcome);
+        }
+
+        if (outcome.status() == VerificationJobStatus.FAILED) {
+            logger.error(outcome.error());
+            return update(job.id(), VerificationJobStatus.FAILED, attempts, LocalDateTime.now(), outcome.error(), LocalDateTime.now())
+                    .replaceWith(outcome);
+        }
+
+        // Toujours en cours : chaque interrogation compte, y compris les réponses EN_COURS
+        if (attempts >= maxPollingAttempts) {
+            String errorMsg = String.format("Délai d'attente dépassé [uuid=%s, tentatives=%d]", job.verificationId(), attempts);
+            logger.error(errorMsg);
+            logger.auditAction("SYSTEM", "VERIFICATION_TIMEOUT",
+                    String.format("Timeout vérification [uuid=%s, attempts=%d]", job.verificationId(), attempts));
+            return update(job.id(), VerificationJobStatus.TIMED_OUT, attempts, LocalDateTime.now(), errorMsg, LocalDateTime.now())
+                    .replaceWith(outcome);
+        }
+        return update(job.id(), VerificationJobStatus.PENDING, attempts, nextPollAt(attempts), outcome.error(), null)
+                .replaceWith(outcome);
+    }
+
+    private Uni<Void> update(UUID jobId, VerificationJobStatus status, int attempts, LocalDateTime nextPollAt,
+                             String lastError, LocalDateTime completedAt) {
+        return client.preparedQuery(UPDATE_JOB_SQL)
+                .execute(Tuple.tuple()
+                        .addUUID(jobId)
+                        .addString(status.name())
+                        .addInteger(attempts)
+                        .addLocalDateTime(nextPollAt)
+                        .addString(lastError)
+                        .addLocalDateTime(completedAt))
+                .replaceWithVoid();
+    }
+
+    private LocalDateTime nextPollAt(int attempts) {
+        return Backoff.nextAttemptAt(attempts, pollingIntervalSeconds, maxBackoffSeconds, 6);
+    }
+
+    private record ClaimedJob(UUID id, UUID leadId, UUID verificationId, int attempts) {
+        static ClaimedJob from(Row row) {
+            return new ClaimedJob(row.getUUID("id"), row.getUUID("lead_id"),
+                    row.getUUID("verification_id"), row.getInteger("attempts"));
+        }
+    }
+
+    private record Outcome(ClaimedJob job, VerificationJobStatus status, DanayaVerificationResult result, String error) {
+        static Outcome pending(ClaimedJob job, String error) {
+            return new Outcome(job, VerificationJobStatus.PENDING, null, error);
+        }
+    }
+}
@@ -0,0 +1,203 @@
+package africa.flot.infrastructure.service.loan;
+
+import africa.flot.infrastructure.util.ExpiringCache;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.quarkus.redis.datasource.ReactiveRedisDataSource;
+import io.quarkus.runtime.StartupEvent;
+import io.smallrye.mutiny.Uni;
+import jakarta.annotation.PostConstruct;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.inject.Inject;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Cache à deux niveaux des réponses Fineract en lecture (produits de prêt, détails de prêt).
+ *
+ * Le premier niveau est local au nœud (JSON déjà analysé), le second est partagé dans Redis
+ * (JSON sérialisé, avec TTL). Les lectures concurrentes d'une même clé absente des deux niveaux
+ * sont regroupées en un seul appel Fineract. Après une commande sur un prêt (remboursement,
+ * approbation), l'entrée est supprimée de Redis et l'invalidation est diffusée aux autres nœuds
+ * par pub/sub. Une indisponibilité de Redis n'est jamais bloquante : le cache est alors ignoré.
+ *
+ * Chaque invalidation incrémente aussi une génération Redis par clé : un chargement ne publie sa
+ * valeur dans Redis que si la génération lue avant l'appel Fineract est inchangée, de sorte qu'un
+ * chargement en cours au moment d'une invalidation ne réécrit pas une valeur périmée.
+ *
+ * Les {@link JsonNode} servis sont partagés entre appelants et ne doivent pas être modifiés.
+ */
+@ApplicationScoped
+public class FineractResponseCache {
+
+    private static final Logger LOG = Logger.getLogger(FineractResponseCache.class);
+    private static final String KEY_PREFIX = "fineract:";
+    private static final String INVALIDATION_CHANNEL = "fineract:cache-invalidated";
+    private static final String LOAN_PRODUCT = "loan-product:";
+    private static final String LOAN = "loan:";
+    private static final String GENERATION_PREFIX = "fineract:generation:";
+    // Durée de vie d'une génération : très supérieure à la durée d'un chargement
+    private static final String GENERATION_TTL_SECONDS = "3600";
+
+    // KEYS[1] = génération, KEYS[2] = entrée ; ARGV[1] = TTL de la génération
+    private static final String INVALIDATE_SCRIPT =
+            "redis.call('INCR', KEYS[1]) " +
+            "redis.call('EXPIRE', KEYS[1], ARGV[1]) " +
+            "return redis.call('DEL', KEYS[2])";
+
+    // KEYS[1] = génération, KEYS[2] = entrée ; ARGV[1] = génération lue avant le chargement, ARGV[2] = TTL, ARGV[3] = JSON
+    private static final String STORE_SCRIPT =
+            "if (redis.call('GET', KEYS[1]) or '0') ~= ARGV[1] then return 0 end " +
+            "redis.call('SETEX', KEYS[2], ARGV[2], ARGV[3]) " +
+            "return 1";
+
+    @Inject
+    ReactiveRedisDataSource redis;
+
+    @Inject
+    ObjectMapper objectMapper;
+
+    @ConfigProperty(name = "fineract.cache.max-size", defaultValue = "5000")
+    int maxSize;
+
+    @ConfigProperty(name = "fineract.cache.loan-product-ttl", defaultValue = "PT6H")
+    Duration loanProductTtl;
+
+    @ConfigProperty(name = "fineract.cache.loan-ttl", defaultValue = "PT30S")
+    Duration loanTtl;
+
+    private ExpiringCache<String, JsonNode> entries;
+    private final Map<String, Uni<JsonNode>> inFlight = new ConcurrentHashMap<>();
+    // Incrémenté à chaque invalidation : un chargement commencé avant n'est pas conservé localement
+    private final AtomicLong invalidations = new AtomicLong();
+
+    @PostConstruct
+    void init() {
+        entries = new ExpiringCache<>(maxSize);
+    }
+
+    void onStart(@Observes StartupEvent ev) {
+        redis.pubsub(String.class)
+                .subscribe(INVALIDATION_CHANNEL)
+                .onFailure().invoke(e -> LOG.warnf("Abonnement aux invalidations du cache Fineract interrompu: %s", e.getMessage()))
+                .onFailure().retry().withBackOff(Duration.ofSeconds(1), Duration.ofSeconds(30)).indefinitely()
+                .subscribe().with(this::evictLocal,
+                        e -> LOG.error("Abonnement aux invalidations du cache Fineract abandonné", e));
+    }
+
+    public Uni<JsonNode> loanProduct(Integer productId, Supplier<Uni<JsonNode>> loader) {
+        return get(LOAN_PRODUCT + productId, loanProductTtl, loader);
+    }
+
+    /**
+     * Détails complets d'un prêt ({@code associations=all}), partagés par les vues mobile,
+     * back-office et historique.
+     */
+    public Uni<JsonNode> loan(String loanExternalId, Supplier<Uni<JsonNode>> loader) {
+        return get(LOAN + loanExternalId, loanTtl, loader);
+    }
+
+    /**
+     * Invalide les détails d'un prêt sur tous les nœuds, après une commande qui le modifie.
+     */
+    public Uni<Void> invalidateLoan(String loanExternalId) {
+        String key = LOAN + loanExternalId;
+        evictLocal(key);
+        return redis.execute("EVAL", INVALIDATE_SCRIPT, "2", GENERATION_PREFIX + key, KEY_PREFIX + key,
+                        GENERATION_TTL_SECONDS)
+                .chain(() -> redis.pubsub(String.class).publish(INVALIDATION_CHANNEL, key))
+                .onFailure().invoke(e -> LOG.warnf("Invalidation du cache Fineract impossible pour %s: %s", key, e.getMessage()))
+                .onFailure().recoverWithNull()
+                .replaceWithVoid();
+    }
+
+    private Uni<JsonNode> get(String key, Duration ttl, Supplier<Uni<JsonNode>> loader) {
+        JsonNode cached = entries.get(key);
+        if (cached != null) {
+            return Uni.createFrom().item(cached);
+        }
+
+        Uni<JsonNode> pending = inFlight.get(key);
+        if (pending != null) {
+            return pending;
+        }
+        long version = invalidations.get();
+        Uni<JsonNode> load = fromRedis(key)
+                .onItem().ifNull().switchTo(() -> generation(key)
+                        .chain(generation -> loader.get().call(value -> toRedis(key, value, ttl, generation))))
+                .invoke(value -> {
+                    if (invalidations.get() == version) {
+                        store(key, value, ttl);
+                    }
+                })
+                .eventually(() -> {
+                    inFlight.remove(key);
+                })
+                .memoize().indefinitely();
+
+        Uni<JsonNode> concurrent = inFlight.putIfAbsent(key, load);
+        return concurrent != null ? concurrent : load;
+    }
+
+    private Uni<JsonNode> fromRedis(String key) {
+        return redis.value(String.class).get(KEY_PREFIX + key)
+                .map(json -> {
+                    if (json == null) {
+                        return null;
+                    }
+                    try {
+                        return objectMapper.readTree(json);
+                    } catch (JsonProcessingException e) {
+                        LOG.warnf("Entrée du cache Fineract illisible, ignorée: %s", key);
+                        return null;
+                    }
+                })
+                .onFailure().invoke(e -> LOG.debugf("Cache Fineract Redis indisponible pour %s: %s", key, e.getMessage()))
+                .onFailure().recoverWithNull();
+    }
+
+    // null si Redis est indisponible : la valeur chargée ne sera alors pas publiée
+    private Uni<String> generation(String key) {
+        return redis.value(String.class).get(GENERATION_PREFIX + key)
+                .map(generation -> generation != null ? generation : "0")
+                .onFailure().recoverWithNull();
+    }
+
+    private Uni<Void> toRedis(String key, JsonNode value, Duration ttl, String generation) {
+        if (generation == null) {
+            return Uni.createFrom().voidItem();
+        }
+        try {
+            String json = objectMapper.writeValueAsString(value);
+            return redis.execute("EVAL", STORE_SCRIPT, "2", GENERATION_PREFIX + key, KEY_PREFIX + key,
+                            generation, String.valueOf(ttl.toSeconds()), json)
+                    .invoke(response -> {
+                        if (response.toInteger() == 0) {
+                            LOG.debugf("Entrée Fineract invalidée pendant son chargement, non publiée: %s", key);
+                        }
+                    })
+                    .replaceWithVoid()
+                    .onFailure().invoke(e -> LOG.debugf("Écriture du cache Fineract Redis impossible pour %s: %s", key, e.getMessage()))
+                    .onFailure().recoverWithNull();
+        } catch (JsonProcessingException e) {
+            return Uni.createFrom().voidItem();
+        }
+    }
+
+    private void store(String key, JsonNode value, Duration ttl) {
+        entries.put(key, value, System.currentTimeMillis() + ttl.toMillis());
+    }
+
+    private void evictLocal(String key) {
+        invalidations.incrementAndGet();
+        entries.remove(key);
+    }
+}
@@ -31,6 +31,9 @@ public class LoanApprovalServiceImpl implements LoanApprovalService {
     @RestClient
     FineractClient fineractClient;
 
+    @Inject
+    FineractResponseCache responseCache;
+
     @Inject
     ObjectMapper objectMapper;
 
@@ -94,6 +97,8 @@ public class LoanApprovalServiceImpl implements LoanApprovalService {
                                 finalResponse.getStatus(), loanExternalId);
                     }
                 })
+                // Le prêt a pu changer même en cas d'échec partiel : ses détails en cache sont invalidés
+                .eventually(() -> responseCache.invalidateLoan(loanExternalId))
                 .onFailure().invoke(e ->
                         errorf_LOG.errorf("Erreur lors du processus d'approbation/décaissement - ExternalId: {} - Message: {}",
                                 loanExternalId, e.getMessage())
@@ -33,6 +33,9 @@ public class LoanRepaymentServiceImpl implements LoanRepaymentService {
     @RestClient
     FineractClient fineractClient;
 
+    @Inject
+    FineractResponseCache responseCache;
+
     @Inject
     ObjectMapper objectMapper;
 
@@ -79,6 +82,8 @@ public class LoanRepaymentServiceImpl implements LoanRepaymentService {
                                 response.getStatus(), loanExternalId);
                     }
                 })
+                // Les détails du prêt en cache ne reflètent plus le remboursement
+                .eventually(() -> responseCache.invalidateLoan(loanExternalId))
                 .onFailure().invoke(e ->
                         errorf_LOG.errorf("Error in repayment process - LoanId: {} - Message: {}",
                                 loanExternalId, e.getMessage())
@@ -44,6 +44,9 @@ public class LoanServiceImpl implements LoanService {
     @Inject
     ObjectMapper objectMapper;
 
+    @Inject
+    FineractResponseCache responseCache;
+
     @Inject
     Vertx vertx;
 
@@ -59,20 +62,42 @@ public class LoanServiceImpl implements LoanService {
     public Uni<Response> getLoanProduct(Integer productId) {
         BUSINESS_LOG.debugf("Récupération du produit de prêt: "+ productId);
 
-        return Uni.createFrom().item(productId)
-                .runSubscriptionOn(Infrastructure.getDefaultWorkerPool())
-                .flatMap(fineractClient::getLoanProduct)
+        return loanProduct(productId)
                 .emitOn(vertxExecutor)
-                .onItem().invoke(response -> {
-                    if (response.getStatus() == Response.Status.OK.getStatusCode()) {
-                        BUSINESS_LOG.infof("Produit de prêt {} récupéré avec succès", productId);
-                    } else {
-                        errorf_LOG.errorf("Échec de la récupération du produit {}: {}",
-                                productId, response.getStatus());
-                    }
+                .onItem().transform(loanProduct -> {
+                    BUSINESS_LOG.infof("Produit de prêt {} récupéré avec succès", productId);
+                    return Response.ok(loanProduct).build();
+                })
+                .onFailure(BusinessException.class).recoverWithItem(e -> {
+                    errorf_LOG.errorf("Échec de la récupération du produit {}: {}", productId, e.getMessage());
+                    return Response.status(Response.Status.BAD_GATEWAY).entity(e.getMessage()).build();
                 });
     }
 
+    /**
+     * Produit de prêt depuis le cache Fineract ; il change rarement et reste en cache longtemps.
+     */
+    private Uni<JsonNode> loanProduct(Integer productId) {
+        return responseCache.loanProduct(productId, () -> fineractClient.getLoanProduct(productId)
+                .onItem().transform(Unchecked.function(response -> {
+                    validateResponse(response, "Failed to fetch loan product");
+                    return response.readEntity(JsonNode.class);
+                })));
+    }
+
+    /**
+     * Détails complets d'un prêt, communs aux vues mobile, back-office et historique :
+     * un seul appel Fineract pour toutes ces vues tant que l'entrée est en cache.
+     */
+    private Uni<JsonNode> loanDetails(UUID externalId, String errorfMessage) {
+        String loanExternalId = String.valueOf(externalId);
+        return responseCache.loan(loanExternalId, () -> fineractClient.getLoanByExternalId(loanExternalId, "all", "guarantors,futureSchedule")
+                .onItem().transform(Unchecked.function(response -> {
+                    validateResponse(response, errorfMessage);
+                    return response.readEntity(JsonNode.class);
+                })));
+    }
+
     @Override
     public Uni<Response> getClientByExternalId(UUID externalId) {
         BUSINESS_LOG.debugf("Récupération du client: {}", externalId);
@@ -96,18 +121,15 @@ public class LoanServiceImpl implements LoanService {
     public Uni<JsonObject> getLoanDetailsForMobile(UUID externalId) {
         BUSINESS_LOG.debugf("Récupération des détails du prêt pour mobile: {}", externalId);
 
-        return fineractClient.getLoanByExternalId(String.valueOf(externalId), "all", "guarantors,futureSchedule")
-                .onItem().transform(Unchecked.function(response -> {
-                    validateResponse(response, "Erreur lors de la récupération des détails du prêt pour l'application mobile.");
-
+        return loanDetails(externalId, "Erreur lors de la récupération des détails du prêt pour l'application mobile.")
+                .onItem().transform(loanData -> {
                     AUDIT_LOG.infof("Accès aux détails du prêt (mobile) - LoanId: {}", externalId);
 
-                    JsonNode loanData = response.readEntity(JsonNode.class);
                     JsonObject result = extractMobileData(loanData);
 
                     BUSINESS_LOG.infof("Détails du prêt (mobile) extraits avec succès pour: {}", externalId);
                     return result;
-                }))
+                })
                 .onFailure().invoke(e ->
                         errorf_LOG.errorf("Erreur lors de la récupération des détails du prêt mobile: {}", e.getMessage())
                 );
@@ -157,18 +179,15 @@ public class LoanServiceImpl implements LoanService {
     public Uni<JsonObject> getLoanDetailsForBackOffice(UUID externalId) {
         BUSINESS_LOG.debugf("Récupération des détails du prêt pour back-office: {}", externalId);
 
-        return fineractClient.getLoanByExternalId(String.valueOf(externalId), "all", "guarantors,futureSchedule")
-                .onItem().transform(Unchecked.function(response -> {
-                    validateResponse(response, "Erreur lors de la récupération des détails du prêt pour le back-office.");
-
+        return loanDetails(externalId, "Erreur lors de la récupération des détails du prêt pour le back-office.")
+                .onItem().transform(loanData -> {
                     AUDIT_LOG.infof("Accès aux détails du prêt (back-office) - LoanId: {}", externalId);
 
-                    JsonNode loanData = response.readEntity(JsonNode.class);
                     JsonObject result = extractBackOfficeData(loanData);
 
                     BUSINESS_LOG.infof("Détails du prêt (back-office) extraits avec succès pour: {}", externalId);
                     return result;
-                }))
+                })
                 .onFailure().invoke(e ->
                         errorf_LOG.errorf("Erreur lors de la récupération des détails du prêt back-office: {}", e.getMessage())
                 );
@@ -324,18 +343,15 @@ public class LoanServiceImpl implements LoanService {
     public Uni<List<JsonObject>> getLoanRepaymentHistory(UUID externalId) {
         BUSINESS_LOG.debugf("Récupération de l'historique des paiements: {}", externalId);
 
-        return fineractClient.getLoanByExternalId(String.valueOf(externalId), "all", "guarantors,futureSchedule")
-                .onItem().transform(Unchecked.function(response -> {
-                    validateResponse(response, "Erreur lors de la récupération de l'historique des paiements.");
-
+        return loanDetails(externalId, "Erreur lors de la récupération de l'historique des paiements.")
+                .onItem().transform(loanData -> {
                     AUDIT_LOG.infof("Accès à l'historique des paiements - LoanId: {}", externalId);
 
-                    JsonNode loanData = response.readEntity(JsonNode.class);
                     List<JsonObject> result = extractRepaymentHistory(loanData);
 
                     BUSINESS_LOG.infof("Historique des paiements extrait avec succès pour: {}", externalId);
                     return result;
-                }))
+                })
                 .onFailure().invoke(e ->
                         errorf_LOG.errorf("Erreur lors de la récupération de l'historique des paiements: {}", e.getMessage())
                 );
@@ -373,19 +389,12 @@ public class LoanServiceImpl implements LoanService {
         BUSINESS_LOG.infof("Création d'un prêt - Client: {}, Produit: {}, Montant: {}",
                 clientId, productId, amount);
 
-        return Uni.createFrom().item(productId)
-                .runSubscriptionOn(Infrastructure.getDefaultWorkerPool())
-                .flatMap(fineractClient::getLoanProduct)
+        return loanProduct(productId)
                 .emitOn(vertxExecutor)
-                .onItem().transform(Unchecked.function(response -> {
-                    if (response.getStatus() != Response.Status.OK.getStatusCode()) {
-                        errorf_LOG.errorf("Échec de la récupération du produit de prêt: {}", response.getStatus());
-                        throw new BusinessException("Failed to fetch loan product");
-                    }
-                    JsonNode loanProduct = response.readEntity(JsonNode.class);
+                .onItem().transform(loanProduct -> {
                     BUSINESS_LOG.debugf("Produit de prêt récupéré, création de la requête");
                     return createLoanRequest(clientId, productId, amount, loanProduct, String.valueOf(externalId));
-                }))
+                })
                 .runSubscriptionOn(Infrastructure.getDefaultWorkerPool())
                 .onItem().transformToUni(fineractClient::createLoan)
                 .emitOn(vertxExecutor)
@@ -0,0 +1,48 @@
+package africa.flot.infrastructure.startup;
+
+import io.quarkus.runtime.StartupEvent;
+import io.vertx.mutiny.pgclient.PgPool;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.inject.Inject;
+import org.jboss.logging.Logger;
+
+import java.util.List;
+
+/**
+ * Index que la génération de schéma Hibernate ne sait pas exprimer (index partiels) ou n'ajoute
+ * pas sur une table existante (unicité).
+ *
+ * Créés au démarrage, après la mise à jour du schéma, avec {@code IF NOT EXISTS} : l'opération
+ * est sans effet une fois l'index en place. Un échec (table absente, doublons existants) est
+ * journalisé sans bloquer le démarrage.
+ */
+@ApplicationScoped
+public class SchemaConstraints {
+
+    private static final Logger LOG = Logger.getLogger(SchemaConstraints.class);
+
+    private static final List<String> STATEMENTS = List.of(
+            // Un intent HUB2 ne peut être appliqué qu'une fois sur un prêt
+            "CREATE UNIQUE INDEX IF NOT EXISTS uk_loan_payments_loan_intent " +
+                    "ON loan_payments (loan_id, payment_intent_id) WHERE payment_intent_id IS NOT NULL",
+            // Un seul score par lead, quel que soit le chemin de scoring (unitaire ou cohorte)
+            "CREATE UNIQUE INDEX IF NOT EXISTS uk_lead_scores_lead ON lead_scores (lead_id)",
+            // Vérification d'ordre du relais : seuls les événements non terminés de l'agrégat sont parcourus
+            "CREATE INDEX IF NOT EXISTS idx_domain_outbox_unfinished " +
+                    "ON domain_outbox (aggregate_id, seq) WHERE status IN ('PENDING', 'PROCESSING')"
+    );
+
+    @Inject
+    PgPool client;
+
+    void onStart(@Observes StartupEvent ev) {
+        for (String statement : STATEMENTS) {
+            try {
+                client.query(statement).execute().await().indefinitely();
+            } catch (Exception e) {
+                LOG.errorf("Index non créé, à traiter manuellement : %s (%s)", statement, e.getMessage());
+            }
+        }
+    }
+}
@@ -3,6 +3,7 @@ package africa.flot.infrastructure.util;
 import jakarta.ws.rs.core.Response;
 import jakarta.ws.rs.core.Response.Status;
 import org.jboss.logging.Logger;
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -11,24 +12,38 @@ public class ApiResponseBuilder {
     private static final Logger LOG = Logger.getLogger(ApiResponseBuilder.class);
 
     public static Response success(Object data) {
-        LOG.info("ApiResponseBuilder.success: Building success response with data: " + data);
-        Map<String, Object> response = new HashMap<>();
+        LOG.debugf("ApiResponseBuilder.success: Building success response with %s", describe(data));
+        Map<String, Object> response = new HashMap<>(4);
         response.put("status", "success");
         response.put("data", data);
         return Response.ok(response).build();
     }
 
     public static Response success(Object data, Status status) {
-        LOG.info("ApiResponseBuilder.success: Building success response with data: " + data);
-        Map<String, Object> response = new HashMap<>();
+        LOG.debugf("ApiResponseBuilder.success: Building success response with %s", describe(data));
+        Map<String, Object> response = new HashMap<>(4);
         response.put("status", status);
         response.put("data", data);
         return Response.ok(response).build();
     }
 
+    // Type et taille seulement : le contenu peut être volumineux et contenir des données personnelles
+    private static String describe(Object data) {
+        if (data == null) {
+            return "no data";
+        }
+        if (data instanceof Collection<?> collection) {
+            return data.getClass().getSimpleName() + "[" + collection.size() + "]";
+        }
+        if (data instanceof Map<?, ?> map) {
+            return data.getClass().getSimpleName() + "{" + map.size() + "}";
+        }
+        return data.getClass().getSimpleName();
+    }
+
 
     public static Response success() {
-        LOG.info("ApiResponseBuilder.success: Building success response without data");
+        LOG.debug("ApiResponseBuilder.success: Building success response without data");
         Map<String, String> response = new HashMap<>();
         response.put("status", "success");
         return Response.ok(response).build();
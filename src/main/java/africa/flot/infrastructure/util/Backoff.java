@@ -0,0 +1,23 @@
+package africa.flot.infrastructure.util;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Backoff exponentiel plafonné des files persistées (outbox, inbox, suivi des vérifications).
+ *
+ * Le délai de la n-ième tentative vaut {@code base × 2^(n-1)}, l'exposant étant limité à
+ * {@code maxDoublings} et le délai à {@code maxSeconds}. Jusqu'à 20 % de gigue s'y ajoutent
+ * pour étaler les reprises des éléments en échec au même moment.
+ */
+public final class Backoff {
+
+    private Backoff() {
+    }
+
+    public static LocalDateTime nextAttemptAt(int attempts, long baseSeconds, long maxSeconds, int maxDoublings) {
+        long delay = Math.min(maxSeconds, baseSeconds << Math.min(Math.max(attempts, 1) - 1, maxDoublings));
+        long jitterMillis = ThreadLocalRandom.current().nextLong(delay * 200 + 1);
+        return LocalDateTime.now().plusSeconds(delay).plusNanos(jitterMillis * 1_000_000);
+    }
+}
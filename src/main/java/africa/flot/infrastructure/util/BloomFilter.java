@@ -0,0 +1,54 @@
+package africa.flot.infrastructure.util;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Filtre de Bloom thread-safe sur des empreintes SHA-256 hexadécimales (voir {@link TokenHash}).
+ * Les positions sont dérivées des 128 premiers bits de l'empreinte par double hachage,
+ * sans recalcul de hash.
+ */
+public class BloomFilter {
+
+    private final AtomicLongArray words;
+    private final long numBits;
+    private final int numHashes;
+
+    public BloomFilter(long expectedInsertions, double falsePositiveRate) {
+        if (expectedInsertions <= 0 || falsePositiveRate <= 0 || falsePositiveRate >= 1) {
+            throw new IllegalArgumentException("Paramètres du filtre de Bloom invalides");
+        }
+        long bits = (long) Math.ceil(-expectedInsertions * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2)));
+        this.numBits = Math.max(64, bits);
+        this.numHashes = Math.max(1, (int) Math.round((double) numBits / expectedInsertions * Math.log(2)));
+        this.words = new AtomicLongArray((int) ((numBits + 63) / 64));
+    }
+
+    public void put(String hexHash) {
+        long h1 = Long.parseUnsignedLong(hexHash, 0, 16, 16);
+        long h2 = Long.parseUnsignedLong(hexHash, 16, 32, 16);
+        for (int i = 0; i < numHashes; i++) {
+            long bit = Math.floorMod(h1 + i * h2, numBits);
+            int index = (int) (bit >>> 6);
+            long mask = 1L << bit;
+            long current;
+            do {
+                current = words.get(index);
+                if ((current & mask) != 0) {
+                    break;
+                }
+            } while (!words.compareAndSet(index, current, current | mask));
+        }
+    }
+
+    public boolean mightContain(String hexHash) {
+        long h1 = Long.parseUnsignedLong(hexHash, 0, 16, 16);
+        long h2 = Long.parseUnsignedLong(hexHash, 16, 32, 16);
+        for (int i = 0; i < numHashes; i++) {
+            long bit = Math.floorMod(h1 + i * h2, numBits);
+            if ((words.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,91 @@
+package africa.flot.infrastructure.util;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Predicate;
+
+/**
+ * Cache local borné, thread-safe, dont chaque entrée porte sa propre échéance.
+ *
+ * Une entrée échue n'est plus servie et est retirée à la lecture ; celles qui ne sont pas relues
+ * sont purgées lors d'une écriture, au plus une fois par minute. À capacité atteinte, les entrées
+ * échues sont retirées en premier, puis des entrées arbitraires jusqu'à 90 % de la capacité.
+ */
+public class ExpiringCache<K, V> {
+
+    private static final long SWEEP_INTERVAL_MILLIS = 60_000;
+
+    private final int maxSize;
+    private final Map<K, Entry<V>> entries = new ConcurrentHashMap<>();
+    private volatile long nextSweepAt;
+
+    public ExpiringCache(int maxSize) {
+        if (maxSize <= 0) {
+            throw new IllegalArgumentException("La capacité du cache doit être positive");
+        }
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * Valeur associée à la clé, ou {@code null} si elle est absente ou échue.
+     */
+    public V get(K key) {
+        Entry<V> entry = entries.get(key);
+        if (entry == null) {
+            return null;
+        }
+        if (entry.expiresAt <= System.currentTimeMillis()) {
+            entries.remove(key, entry);
+            return null;
+        }
+        return entry.value;
+    }
+
+    /**
+     * Associe la valeur à la clé jusqu'à {@code expiresAt} (epoch en millisecondes).
+     */
+    public void put(K key, V value, long expiresAt) {
+        long now = System.currentTimeMillis();
+        if (entries.size() >= maxSize) {
+            evict(now);
+        } else if (now >= nextSweepAt) {
+            removeExpired(now);
+        }
+        entries.put(key, new Entry<>(value, expiresAt));
+    }
+
+    /**
+     * Retire l'entrée et retourne sa valeur, échue ou non.
+     */
+    public V remove(K key) {
+        Entry<V> removed = entries.remove(key);
+        return removed != null ? removed.value : null;
+    }
+
+    public void removeIf(Predicate<? super V> predicate) {
+        entries.values().removeIf(entry -> predicate.test(entry.value));
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    private void evict(long now) {
+        removeExpired(now);
+        Iterator<K> keys = entries.keySet().iterator();
+        int target = maxSize * 9 / 10;
+        while (entries.size() > target && keys.hasNext()) {
+            keys.next();
+            keys.remove();
+        }
+    }
+
+    private void removeExpired(long now) {
+        nextSweepAt = now + SWEEP_INTERVAL_MILLIS;
+        entries.values().removeIf(entry -> entry.expiresAt <= now);
+    }
+
+    private record Entry<V>(V value, long expiresAt) {
+    }
+}
@@ -0,0 +1,68 @@
+package africa.flot.infrastructure.util;
+
+import io.smallrye.mutiny.Uni;
+
+import java.time.Duration;
+
+/**
+ * Limiteur de débit à seau de jetons, thread-safe.
+ * Un appel à {@link #reserve()} consomme un jeton et retourne le délai à attendre
+ * avant de pouvoir l'utiliser (zéro si un jeton était disponible) ; {@link #throttle()} en est
+ * la forme non bloquante.
+ */
+public class TokenBucket {
+
+    private final long capacity;
+    private final long nanosPerToken;
+    private double tokens;
+    private long lastRefill;
+
+    public TokenBucket(double tokensPerSecond, long capacity) {
+        if (tokensPerSecond <= 0 || capacity <= 0) {
+            throw new IllegalArgumentException("Le débit et la capacité doivent être positifs");
+        }
+        this.capacity = capacity;
+        this.nanosPerToken = (long) (1_000_000_000L / tokensPerSecond);
+        this.tokens = capacity;
+        this.lastRefill = System.nanoTime();
+    }
+
+    public synchronized Duration reserve() {
+        refill();
+        tokens -= 1;
+        if (tokens >= 0) {
+            return Duration.ZERO;
+        }
+        // Jeton emprunté sur le futur : attendre qu'il soit regénéré
+        return Duration.ofNanos((long) (-tokens * nanosPerToken));
+    }
+
+    /**
+     * Consomme un jeton et complète une fois qu'il est utilisable, sans bloquer le thread appelant.
+     */
+    public Uni<Void> throttle() {
+        Duration wait = reserve();
+        if (wait.isZero()) {
+            return Uni.createFrom().voidItem();
+        }
+        return Uni.createFrom().voidItem().onItem().delayIt().by(wait);
+    }
+
+    public synchronized boolean tryAcquire() {
+        refill();
+        if (tokens >= 1) {
+            tokens -= 1;
+            return true;
+        }
+        return false;
+    }
+
+    private void refill() {
+        long now = System.nanoTime();
+        double generated = (double) (now - lastRefill) / nanosPerToken;
+        if (generated > 0) {
+            tokens = Math.min(capacity, tokens + generated);
+            lastRefill = now;
+        }
+    }
+}
@@ -0,0 +1,154 @@
+package africa.flot.infrastructure.service.dayana;
+
+import africa.flot.application.dto.query.DanayaVerificationResult;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.json.DecodeException;
+import io.vertx.core.json.JsonObject;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.lang.reflect.Field;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Décodage des réponses Danaya sur la réponse réelle de {@code fixtures/danaya-verification.json}.
+ */
+class DanayaResponseParserTest {
+
+    private static final String FIXTURE = "fixtures/danaya-verification.json";
+
+    @Test
+    void parsesIdentityAndScores() {
+        DanayaVerificationResult result = DanayaResponseParser.parse(Buffer.buffer(fixture()));
+
+        assertEquals(UUID.fromString("73b9c527-119e-41a8-a00d-007b64b058cf"), result.getId());
+        assertEquals("2024-10-25 11:21:06", result.getCreatedAt());
+
+        DanayaVerificationResult.Identity identity = result.getPersonalInfo().getIdentity();
+        assertEquals("N'GORAN ELOGE", identity.getFirstName());
+        assertEquals("YAO", identity.getLastName());
+        assertEquals("24/12/1999", identity.getDateOfBirth());
+        assertEquals("04/08/2032", identity.getDocumentExpiry());
+        assertEquals("11990219313", identity.getNni());
+        assertEquals("M", identity.getGender());
+        assertEquals("TOUMODI S/P (CIV)", identity.getPlaceOfBirth());
+        assertEquals("IVOIRIENNE", identity.getNationality());
+        assertEquals("CI004582778", identity.getDocumentNumber());
+
+        // Le statut est celui du DB_CHECK, pas celui du dossier ("A_TRAITER")
+        assertNull(result.getStatus());
+        DanayaVerificationResult.VerificationScores scores = result.getVerificationScores();
+        assertEquals("VALID", scores.getExpiration());
+        assertEquals(100, scores.getDbCheck().getFirstName());
+        assertEquals(100, scores.getDbCheck().getLastName());
+        assertEquals(100, scores.getDbCheck().getDateOfBirth());
+        assertEquals(100, scores.getDbCheck().getGender());
+        assertTrue(result.isValid());
+    }
+
+    @Test
+    void usesDbCheckScoreAsStatus() {
+        JsonObject response = new JsonObject(fixture());
+        dbCheckScorings(response).forEach(scoring -> scoring.put("score", "VALID"));
+
+        DanayaVerificationResult result = DanayaResponseParser.parse(response.encode());
+
+        assertEquals("VALID", result.getStatus());
+    }
+
+    @Test
+    void decodesCivilStatusOnFirstAccess() throws ReflectiveOperationException {
+        DanayaVerificationResult.PersonalInfo personalInfo = DanayaResponseParser.parse(fixture()).getPersonalInfo();
+
+        DanayaVerificationResult.Residence pending = (DanayaVerificationResult.Residence) field(personalInfo, "residence");
+        assertNull(pending.getAddress(), "le rawData ne doit pas être décodé avant le premier accès");
+
+        DanayaVerificationResult.Residence residence = personalInfo.getResidence();
+        assertEquals("MERMOZ", residence.getAddress());
+        assertEquals("COCODY", residence.getTown());
+
+        DanayaVerificationResult.FamilyInfo family = personalInfo.getFamilyInfo();
+        assertEquals("KOUASSI VICTOR", family.getFather().getFirstName());
+        assertEquals("YAO", family.getFather().getLastName());
+        assertEquals("1945-01-01", family.getFather().getBirthDate());
+        assertEquals("", family.getFather().getUin());
+        assertEquals("AMOIN MARGUERITE", family.getMother().getFirstName());
+        assertEquals("KASSE", family.getMother().getLastName());
+        assertEquals("XX/XX/XXXX", family.getMother().getBirthDate());
+        assertEquals("", family.getSpouseName());
+
+        // Décodé une seule fois
+        assertSame(residence, personalInfo.getResidence());
+        assertSame(family.getFather(), personalInfo.getFamilyInfo().getFather());
+    }
+
+    @Test
+    void keepsScoresWithoutOcrSection() {
+        JsonObject response = new JsonObject(fixture());
+        response.getJsonArray("documents").getJsonObject(0).remove("ocrExtractedData");
+
+        DanayaVerificationResult result = DanayaResponseParser.parse(response.encode());
+
+        assertNull(result.getPersonalInfo().getIdentity());
+        assertEquals("VALID", result.getVerificationScores().getExpiration());
+        assertTrue(result.isValid());
+        // L'état civil reste disponible depuis le DB_CHECK
+        assertEquals("COCODY", result.getPersonalInfo().getResidence().getTown());
+    }
+
+    @Test
+    void ignoresMalformedRawData() {
+        JsonObject response = new JsonObject(fixture());
+        dbCheckScorings(response).forEach(scoring -> scoring.put("rawData", "{\"RESIDENCE_TOWN\": \"COC"));
+
+        DanayaVerificationResult result = DanayaResponseParser.parse(response.encode());
+
+        assertEquals("YAO", result.getPersonalInfo().getIdentity().getLastName());
+        assertTrue(result.isValid());
+        DanayaVerificationResult.Residence residence = result.getPersonalInfo().getResidence();
+        assertNotNull(residence);
+        assertNull(residence.getTown());
+        assertNull(result.getPersonalInfo().getFamilyInfo().getFather().getFirstName());
+    }
+
+    @Test
+    void rejectsNonObjectResponse() {
+        assertThrows(DecodeException.class, () -> DanayaResponseParser.parse("[]"));
+    }
+
+    private static List<JsonObject> dbCheckScorings(JsonObject response) {
+        return response.getJsonArray("documents").getJsonObject(0).getJsonArray("verificationResults").stream()
+                .map(JsonObject.class::cast)
+                .filter(check -> "DB_CHECK".equals(check.getString("type")))
+                .map(check -> check.getJsonObject("scoring"))
+                .toList();
+    }
+
+    private static Object field(Object target, String name) throws ReflectiveOperationException {
+        Field field = target.getClass().getDeclaredField(name);
+        field.setAccessible(true);
+        return field.get(target);
+    }
+
+    private static String fixture() {
+        try (InputStream in = DanayaResponseParserTest.class.getClassLoader().getResourceAsStream(FIXTURE)) {
+            if (in == null) {
+                throw new IllegalStateException("Fixture introuvable: " + FIXTURE);
+            }
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,160 @@
+package africa.flot.loadtest;
+
+import africa.flot.domain.model.Account;
+import africa.flot.domain.model.FlotLoan;
+import africa.flot.domain.model.Lead;
+import africa.flot.domain.model.Vehicle;
+import africa.flot.domain.model.enums.LoanStatus;
+import africa.flot.domain.model.enums.UnpaidStatus;
+import io.minio.BucketExistsArgs;
+import io.minio.MakeBucketArgs;
+import io.minio.MinioClient;
+import io.minio.PutObjectArgs;
+import io.quarkus.elytron.security.common.BcryptUtil;
+import io.quarkus.hibernate.reactive.panache.Panache;
+import io.quarkus.test.common.http.TestHTTPResource;
+import io.quarkus.test.junit.QuarkusTest;
+import io.quarkus.test.junit.TestProfile;
+import io.quarkus.vertx.VertxContextSupport;
+import io.smallrye.jwt.build.Jwt;
+import jakarta.inject.Inject;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import java.io.ByteArrayInputStream;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.net.URI;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Test de charge de bout en bout sur un nœud démarré avec le profil {@link LoadTestProfile}.
+ *
+ * Désactivé par défaut ; à lancer explicitement :
+ * {@code ./mvnw test -Dtest=ApiLoadTest -Dloadtest=true -Dloadtest.steps=8,32,64 -Dloadtest.step-duration=PT60S}
+ */
+@QuarkusTest
+@TestProfile(LoadTestProfile.class)
+@EnabledIfSystemProperty(named = "loadtest", matches = "true")
+class ApiLoadTest {
+
+    private static final String PASSWORD = "Flot-loadtest-2025";
+    private static final BigDecimal VEHICLE_PRICE = new BigDecimal("10800000.00");
+
+    @TestHTTPResource("/")
+    URI baseUrl;
+
+    @Inject
+    MinioClient minioClient;
+
+    @ConfigProperty(name = "hub2.webhook-secret")
+    String webhookSecret;
+
+    @ConfigProperty(name = "auth.hashing.bcrypt-cost", defaultValue = "10")
+    int bcryptCost;
+
+    @Test
+    void replayTrafficMix() throws Exception {
+        List<LoadDriver.Subscriber> subscribers = seedSubscribers(Integer.getInteger("loadtest.subscribers-count", 500));
+        seedKycDocuments();
+
+        String adminToken = Jwt.issuer(LoadTestProfile.JWT_ISSUER)
+                .subject("loadtest@flot.africa")
+                .groups(Set.of("ADMIN"))
+                .claim("email", "loadtest@flot.africa")
+                .expiresIn(Duration.ofHours(6))
+                .sign();
+
+        LoadDriver.Settings settings = LoadDriver.Settings.of(baseUrl, subscribers, adminToken, webhookSecret,
+                LoadTestProfile.BUCKET);
+        List<LoadDriver.StepReport> reports = new LoadDriver(settings).run();
+
+        assertFalse(reports.isEmpty());
+        for (LoadDriver.StepReport report : reports) {
+            assertTrue(report.endpoints().stream().anyMatch(endpoint -> endpoint.requests() > 0),
+                    "Aucune requête mesurée au palier " + report.concurrency());
+        }
+    }
+
+    /**
+     * Abonnés avec compte actif et prêt en cours, insérés en une transaction.
+     */
+    private List<LoadDriver.Subscriber> seedSubscribers(int count) throws Throwable {
+        String passwordHash = BcryptUtil.bcryptHash(PASSWORD, bcryptCost);
+        Vehicle vehicle = new Vehicle();
+        vehicle.model = "Atto 3";
+        vehicle.brand = "BYD";
+        vehicle.serialNumber = "LOADTEST-" + UUID.randomUUID();
+        vehicle.licensePlate = "LT-" + System.currentTimeMillis();
+        vehicle.serviceStartDate = LocalDate.now().minusMonths(6);
+        vehicle.energyType = "ELECTRIC";
+        vehicle.batteryCapacity = 60.5;
+        vehicle.theoreticalRange = 420;
+        vehicle.price = VEHICLE_PRICE;
+
+        List<LoadDriver.Subscriber> subscribers = new ArrayList<>(count);
+        VertxContextSupport.subscribeAndAwait(() -> Panache.withTransaction(() -> vehicle.<Vehicle>persist()
+                .chain(saved -> Panache.getSession().chain(session -> {
+                    List<Object> entities = new ArrayList<>(count * 3);
+                    for (int i = 0; i < count; i++) {
+                        String phone = String.format("+22507%08d", i);
+                        Lead lead = new Lead();
+                        lead.setId(UUID.randomUUID());
+                        lead.setFirstName("Chauffeur");
+                        lead.setLastName("Charge " + i);
+                        lead.setPhoneNumber(phone);
+                        lead.setActive(true);
+
+                        Account account = new Account();
+                        account.lead = lead;
+                        account.username = phone;
+                        account.passwordHash = passwordHash;
+                        account.passwordChanged = true;
+
+                        FlotLoan loan = new FlotLoan();
+                        loan.setId(UUID.randomUUID());
+                        loan.setLeadId(lead.getId());
+                        loan.setVehicleId(saved.id);
+                        loan.setPrincipal(VEHICLE_PRICE);
+                        loan.setWeeklyAmount(VEHICLE_PRICE.divide(BigDecimal.valueOf(144), 2, RoundingMode.HALF_UP));
+                        loan.setStartDate(LocalDate.now().minusWeeks(10));
+                        loan.setEndDate(LocalDate.now().minusWeeks(10).plusMonths(36));
+                        loan.setNextDueDate(LocalDate.now().plusDays(i % 7 - 3));
+                        loan.setStatus(LoanStatus.ACTIVE);
+                        loan.setUnpaidStatus(UnpaidStatus.ON_TIME);
+
+                        entities.add(lead);
+                        entities.add(account);
+                        entities.add(loan);
+                        subscribers.add(new LoadDriver.Subscriber(phone, PASSWORD, lead.getId(), loan.getId()));
+                    }
+                    return session.persistAll(entities.toArray());
+                }))));
+        return subscribers;
+    }
+
+    private void seedKycDocuments() throws Exception {
+        if (!minioClient.bucketExists(BucketExistsArgs.builder().bucket(LoadTestProfile.BUCKET).build())) {
+            minioClient.makeBucket(MakeBucketArgs.builder().bucket(LoadTestProfile.BUCKET).build());
+        }
+        // Taille proche d'une photo de CNI compressée
+        byte[] image = new byte[180 * 1024];
+        for (String name : List.of(LoadDriver.CNI_FRONT, LoadDriver.CNI_BACK)) {
+            minioClient.putObject(PutObjectArgs.builder()
+                    .bucket(LoadTestProfile.BUCKET)
+                    .object(name)
+                    .stream(new ByteArrayInputStream(image), image.length, -1)
+                    .contentType("image/jpeg")
+                    .build());
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package africa.flot.loadtest;
+
+import io.vertx.core.Vertx;
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+import io.vertx.ext.web.Router;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Simulateur Danaya : téléversement des pièces d'identité puis résultat d'analyse, « EN_COURS »
+ * pendant {@code loadtest.danaya.analysis-ms} puis « VALID ».
+ */
+class DanayaStub extends ProviderStub {
+
+    private static final String FIXTURE = "fixtures/danaya-verification.json";
+
+    private final JsonObject template = loadTemplate();
+    private final long analysisMs = Long.getLong("loadtest.danaya.analysis-ms", 10_000L);
+    private final Map<String, Long> uploadedAt = new ConcurrentHashMap<>();
+
+    DanayaStub(Vertx vertx) {
+        super(vertx, "danaya", LatencyModel.fromSystemProperties("danaya", 400, 2500, 0.0));
+    }
+
+    @Override
+    protected void routes(Router router) {
+        router.post("/v2/clients-files/upload-files").handler(ctx -> {
+            String id = UUID.randomUUID().toString();
+            uploadedAt.put(id, System.currentTimeMillis());
+            respond(ctx, new JsonObject()
+                    .put("id", id)
+                    .put("status", "A_TRAITER"));
+        });
+
+        router.get("/v2/clients-files/client-file-to-analyze-id/:id").handler(ctx -> {
+            String id = ctx.pathParam("id");
+            Long started = uploadedAt.get(id);
+            if (started == null) {
+                respond(ctx, 404, new JsonObject().put("message", "Dossier introuvable"));
+                return;
+            }
+            boolean done = System.currentTimeMillis() - started >= analysisMs;
+            respond(ctx, result(id, done ? "VALID" : "EN_COURS"));
+        });
+    }
+
+    private JsonObject result(String id, String status) {
+        JsonObject result = template.copy().put("clientFileToAnalyzeId", id);
+        JsonArray documents = result.getJsonArray("documents");
+        for (Object document : documents) {
+            JsonArray checks = ((JsonObject) document).getJsonArray("verificationResults", new JsonArray());
+            for (Object check : checks) {
+                JsonObject verification = (JsonObject) check;
+                if ("DB_CHECK".equals(verification.getString("type"))) {
+                    verification.getJsonObject("scoring").put("score", status);
+                }
+            }
+        }
+        return result;
+    }
+
+    private static JsonObject loadTemplate() {
+        try (InputStream in = DanayaStub.class.getClassLoader().getResourceAsStream(FIXTURE)) {
+            if (in == null) {
+                throw new IllegalStateException("Fixture introuvable: " + FIXTURE);
+            }
+            return new JsonObject(new String(in.readAllBytes(), StandardCharsets.UTF_8));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package africa.flot.loadtest;
+
+import java.util.Arrays;
+
+/**
+ * Latences et erreurs d'un point d'entrée pendant un palier de charge.
+ */
+final class EndpointStats {
+
+    private long[] samples = new long[1024];
+    private int count;
+    private long errors;
+    private String lastError;
+
+    synchronized void record(long nanos, boolean success, String error) {
+        if (count == samples.length) {
+            samples = Arrays.copyOf(samples, count * 2);
+        }
+        samples[count++] = nanos;
+        if (!success) {
+            errors++;
+            lastError = error;
+        }
+    }
+
+    synchronized Summary summarize(String endpoint, double seconds) {
+        long[] sorted = Arrays.copyOf(samples, count);
+        Arrays.sort(sorted);
+        return new Summary(endpoint, count, errors, seconds > 0 ? count / seconds : 0,
+                percentileMs(sorted, 0.50), percentileMs(sorted, 0.99),
+                count > 0 ? sorted[count - 1] / 1_000_000.0 : 0, lastError);
+    }
+
+    private static double percentileMs(long[] sorted, double quantile) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        int rank = (int) Math.ceil(quantile * sorted.length) - 1;
+        return sorted[Math.max(rank, 0)] / 1_000_000.0;
+    }
+
+    record Summary(String endpoint, long requests, long errors, double throughput,
+                   double p50Ms, double p99Ms, double maxMs, String lastError) {
+    }
+}
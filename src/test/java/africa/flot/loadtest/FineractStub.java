@@ -0,0 +1,96 @@
+package africa.flot.loadtest;
+
+import io.vertx.core.Vertx;
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+import io.vertx.ext.web.Router;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Simulateur Fineract ({@code /v1}) : clients et prêts identifiés par leur identifiant externe,
+ * produits de prêt, commandes et transactions acceptées.
+ */
+class FineractStub extends ProviderStub {
+
+    private final AtomicInteger sequence = new AtomicInteger(1000);
+    private final Map<String, Integer> clients = new ConcurrentHashMap<>();
+    private final Map<String, Integer> loans = new ConcurrentHashMap<>();
+
+    FineractStub(Vertx vertx) {
+        super(vertx, "fineract", LatencyModel.fromSystemProperties("fineract", 150, 1200, 0.0));
+    }
+
+    @Override
+    protected void routes(Router router) {
+        router.get("/v1/loanproducts/:productId").handler(ctx -> respond(ctx, new JsonObject()
+                .put("id", Integer.parseInt(ctx.pathParam("productId")))
+                .put("name", "Prêt véhicule VTC")
+                .put("principal", 10_800_000)
+                .put("numberOfRepayments", 144)
+                .put("repaymentEvery", 1)
+                .put("interestRatePerPeriod", 0)
+                .put("currency", new JsonObject().put("code", "XOF").put("decimalPlaces", 0))));
+
+        router.post("/v1/clients").handler(ctx -> {
+            JsonObject request = ctx.body().asJsonObject();
+            int id = sequence.incrementAndGet();
+            if (request != null && request.getString("externalId") != null) {
+                clients.put(request.getString("externalId"), id);
+            }
+            respond(ctx, new JsonObject().put("officeId", 1).put("clientId", id).put("resourceId", id));
+        });
+
+        router.get("/v1/clients/external-id/:externalId").handler(ctx -> {
+            Integer id = clients.get(ctx.pathParam("externalId"));
+            if (id == null) {
+                respond(ctx, 404, new JsonObject().put("developerMessage", "Client introuvable"));
+                return;
+            }
+            respond(ctx, new JsonObject().put("id", id).put("externalId", ctx.pathParam("externalId")).put("active", true));
+        });
+
+        router.post("/v1/loans").handler(ctx -> {
+            JsonObject request = ctx.body().asJsonObject();
+            int id = sequence.incrementAndGet();
+            if (request != null && request.getString("externalId") != null) {
+                loans.put(request.getString("externalId"), id);
+            }
+            respond(ctx, new JsonObject().put("loanId", id).put("resourceId", id)
+                    .put("clientId", request != null ? request.getValue("clientId") : null));
+        });
+
+        router.get("/v1/loans/external-id/:externalId").handler(ctx -> {
+            Integer id = loans.get(ctx.pathParam("externalId"));
+            if (id == null) {
+                respond(ctx, 404, new JsonObject().put("developerMessage", "Prêt introuvable"));
+                return;
+            }
+            respond(ctx, new JsonObject()
+                    .put("id", id)
+                    .put("externalId", ctx.pathParam("externalId"))
+                    .put("principal", 10_800_000)
+                    .put("approvedPrincipal", 10_800_000)
+                    .put("status", new JsonObject().put("code", "loanStatusType.active").put("active", true))
+                    .put("summary", new JsonObject().put("totalOutstanding", 8_625_000).put("totalRepayment", 2_175_000)));
+        });
+
+        router.get("/v1/loans/external-id/:externalId/template").handler(ctx -> respond(ctx, new JsonObject()
+                .put("approvalAmount", 10_800_000)
+                .put("approvalDate", new JsonArray().add(2025).add(1).add(6))));
+
+        router.post("/v1/loans/external-id/:externalId").handler(ctx -> respond(ctx, new JsonObject()
+                .put("resourceExternalId", ctx.pathParam("externalId"))
+                .put("changes", new JsonObject())));
+
+        router.get("/v1/loans/external-id/:externalId/transactions/template").handler(ctx -> respond(ctx, new JsonObject()
+                .put("amount", 75_000)
+                .put("currency", new JsonObject().put("code", "XOF"))));
+
+        router.post("/v1/loans/external-id/:externalId/transactions").handler(ctx -> respond(ctx, new JsonObject()
+                .put("resourceId", sequence.incrementAndGet())
+                .put("resourceExternalId", ctx.pathParam("externalId"))));
+    }
+}
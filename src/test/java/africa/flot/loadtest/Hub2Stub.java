@@ -0,0 +1,128 @@
+package africa.flot.loadtest;
+
+import io.vertx.core.Vertx;
+import io.vertx.core.json.JsonObject;
+import io.vertx.ext.web.Router;
+import org.jboss.logging.Logger;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.util.Base64;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Simulateur HUB2 : intents de paiement, paiements Mobile Money et webhook signé envoyé à l'API
+ * après chaque initiation de paiement (succès ou échec selon {@code loadtest.hub2.payment-failure-rate}).
+ */
+class Hub2Stub extends ProviderStub {
+
+    private static final Logger LOG = Logger.getLogger(Hub2Stub.class);
+
+    private final String webhookUrl;
+    private final String webhookSecret;
+    private final LatencyModel webhookDelay;
+    private final double paymentFailureRate;
+    private final HttpClient httpClient = HttpClient.newHttpClient();
+    private final Map<String, String> intentStatuses = new ConcurrentHashMap<>();
+
+    Hub2Stub(Vertx vertx, String webhookUrl, String webhookSecret) {
+        super(vertx, "hub2", LatencyModel.fromSystemProperties("hub2", 120, 900, 0.0));
+        this.webhookUrl = webhookUrl;
+        this.webhookSecret = webhookSecret;
+        this.webhookDelay = LatencyModel.fromSystemProperties("hub2.webhook", 3000, 15000, 0.0);
+        this.paymentFailureRate = Double.parseDouble(System.getProperty("loadtest.hub2.payment-failure-rate", "0.1"));
+    }
+
+    @Override
+    protected void routes(Router router) {
+        router.post("/payment-intents").handler(ctx -> {
+            JsonObject request = ctx.body().asJsonObject();
+            String id = "pi_" + UUID.randomUUID().toString().replace("-", "");
+            intentStatuses.put(id, "payment_required");
+            respond(ctx, 201, new JsonObject()
+                    .put("id", id)
+                    .put("token", "tok_" + UUID.randomUUID())
+                    .put("status", "payment_required")
+                    .put("amount", request != null ? request.getValue("amount") : null)
+                    .put("currency", "XOF"));
+        });
+
+        router.post("/payment-intents/:id/payments").handler(ctx -> {
+            String id = ctx.pathParam("id");
+            intentStatuses.put(id, "processing");
+            scheduleWebhook(id);
+            respond(ctx, new JsonObject()
+                    .put("id", "pay_" + UUID.randomUUID().toString().replace("-", ""))
+                    .put("intentId", id)
+                    .put("status", "processing"));
+        });
+
+        router.post("/payment-intents/:id/authentication").handler(ctx -> respond(ctx, new JsonObject()
+                .put("id", ctx.pathParam("id"))
+                .put("status", intentStatuses.getOrDefault(ctx.pathParam("id"), "processing"))));
+
+        router.get("/payment-intents/:id").handler(ctx -> respond(ctx, new JsonObject()
+                .put("id", ctx.pathParam("id"))
+                .put("status", intentStatuses.getOrDefault(ctx.pathParam("id"), "payment_required"))));
+
+        router.post("/webhooks").handler(ctx -> respond(ctx, new JsonObject()
+                .put("id", "wh_" + UUID.randomUUID())
+                .put("status", "enabled")));
+    }
+
+    private void scheduleWebhook(String intentId) {
+        boolean succeeded = ThreadLocalRandom.current().nextDouble() >= paymentFailureRate;
+        vertx.setTimer(Math.max(1, webhookDelay.sampleDelayMs()), id -> {
+            String status = succeeded ? "succeeded" : "payment_failed";
+            intentStatuses.put(intentId, status);
+            String body = paymentEvent(intentId, succeeded);
+            HttpRequest request = HttpRequest.newBuilder(URI.create(webhookUrl))
+                    .header("Content-Type", "application/json")
+                    .header("Hub2-Signature", sign(body, webhookSecret))
+                    .POST(HttpRequest.BodyPublishers.ofString(body))
+                    .build();
+            httpClient.sendAsync(request, HttpResponse.BodyHandlers.discarding())
+                    .whenComplete((response, error) -> {
+                        if (error != null || response.statusCode() != 200) {
+                            LOG.warnf("Webhook HUB2 simulé refusé [intent=%s, statut=%s]", intentId,
+                                    error != null ? error.getMessage() : response.statusCode());
+                        }
+                    });
+        });
+    }
+
+    /**
+     * Événement de paiement au format HUB2.
+     */
+    static String paymentEvent(String intentId, boolean succeeded) {
+        return new JsonObject()
+                .put("id", "evt_" + UUID.randomUUID().toString().replace("-", ""))
+                .put("event", succeeded ? "payment_intent.succeeded" : "payment_intent.payment_failed")
+                .put("data", new JsonObject()
+                        .put("id", intentId)
+                        .put("status", succeeded ? "succeeded" : "payment_failed"))
+                .encode();
+    }
+
+    /**
+     * Signature HMAC-SHA256 en base64, telle que vérifiée par {@code Hub2SignatureVerifier}.
+     */
+    static String sign(String body, String secret) {
+        try {
+            Mac mac = Mac.getInstance("HmacSHA256");
+            mac.init(new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), "HmacSHA256"));
+            return Base64.getEncoder().encodeToString(mac.doFinal(body.getBytes(StandardCharsets.UTF_8)));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
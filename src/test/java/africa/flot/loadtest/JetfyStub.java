@@ -0,0 +1,38 @@
+package africa.flot.loadtest;
+
+import io.vertx.core.Vertx;
+import io.vertx.core.json.JsonObject;
+import io.vertx.ext.web.Router;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Simulateur Jetfy : envoi de SMS et solde de crédits, décrémenté à chaque envoi.
+ */
+class JetfyStub extends ProviderStub {
+
+    private final AtomicLong balance = new AtomicLong(Long.getLong("loadtest.jetfy.initial-balance", 1_000_000L));
+
+    JetfyStub(Vertx vertx) {
+        super(vertx, "jetfy", LatencyModel.fromSystemProperties("jetfy", 80, 600, 0.0));
+    }
+
+    @Override
+    protected void routes(Router router) {
+        router.post("/api/v1/sms/send").handler(ctx -> {
+            JsonObject request = ctx.body().asJsonObject();
+            String message = request != null ? request.getString("message", "") : "";
+            long smsCount = Math.max(1, (message.length() + 159) / 160);
+            if (balance.addAndGet(-smsCount) < 0) {
+                balance.addAndGet(smsCount);
+                respond(ctx, new JsonObject().put("status", "error").put("message", "Solde insuffisant"));
+                return;
+            }
+            respond(ctx, new JsonObject().put("status", "success").put("message", "SMS envoyé"));
+        });
+
+        router.get("/api/v1/balance/sms_module").handler(ctx -> respond(ctx, new JsonObject()
+                .put("status", "success")
+                .put("data", balance.get())));
+    }
+}
@@ -0,0 +1,37 @@
+package africa.flot.loadtest;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Comportement d'un fournisseur simulé : latence log-normale définie par sa médiane et son p99,
+ * et proportion de réponses en erreur.
+ *
+ * Réglable par propriétés système, par fournisseur :
+ * {@code loadtest.<fournisseur>.median-ms}, {@code loadtest.<fournisseur>.p99-ms},
+ * {@code loadtest.<fournisseur>.error-rate}.
+ */
+public record LatencyModel(double medianMs, double p99Ms, double errorRate) {
+
+    // Quantile 0,99 de la loi normale centrée réduite
+    private static final double Z_99 = 2.3263;
+
+    public static LatencyModel fromSystemProperties(String provider, double medianMs, double p99Ms, double errorRate) {
+        String prefix = "loadtest." + provider + ".";
+        return new LatencyModel(
+                Double.parseDouble(System.getProperty(prefix + "median-ms", String.valueOf(medianMs))),
+                Double.parseDouble(System.getProperty(prefix + "p99-ms", String.valueOf(p99Ms))),
+                Double.parseDouble(System.getProperty(prefix + "error-rate", String.valueOf(errorRate))));
+    }
+
+    public long sampleDelayMs() {
+        if (medianMs <= 0) {
+            return 0;
+        }
+        double sigma = p99Ms > medianMs ? Math.log(p99Ms / medianMs) / Z_99 : 0;
+        return Math.round(medianMs * Math.exp(sigma * ThreadLocalRandom.current().nextGaussian()));
+    }
+
+    public boolean sampleError() {
+        return errorRate > 0 && ThreadLocalRandom.current().nextDouble() < errorRate;
+    }
+}
@@ -0,0 +1,321 @@
+package africa.flot.loadtest;
+
+import io.vertx.core.json.JsonObject;
+import org.jboss.logging.Logger;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Rejoue un mélange de trafic réaliste sur l'API (connexion abonné, détail de prêt, initiation de
+ * paiement Mobile Money, webhooks HUB2, vérification KYC) par paliers de concurrence croissante,
+ * et rapporte débit, p50 et p99 par point d'entrée. Le palier où le p99 décroche ou le débit
+ * cesse de croître donne le point de saturation du nœud.
+ *
+ * Utilisable depuis {@link ApiLoadTest} ou seul contre un nœud déployé (voir {@link #main}).
+ */
+public final class LoadDriver {
+
+    private static final Logger LOG = Logger.getLogger(LoadDriver.class);
+    private static final Duration REQUEST_TIMEOUT = Duration.ofSeconds(30);
+    private static final int RECENT_INTENTS = 1000;
+
+    // Pièces d'identité déposées dans le bucket KYC pour les vérifications
+    public static final String CNI_FRONT = System.getProperty("loadtest.kyc-front", "loadtest/cni-front.jpg");
+    public static final String CNI_BACK = System.getProperty("loadtest.kyc-back", "loadtest/cni-back.jpg");
+
+    public enum Scenario {
+        LOGIN, LOAN_DETAIL, PAYMENT_INITIATION, HUB2_WEBHOOK, KYC
+    }
+
+    public record Subscriber(String phone, String password, UUID leadId, UUID loanId) {
+    }
+
+    public record Settings(URI baseUrl, List<Subscriber> subscribers, String adminToken, String webhookSecret,
+                           String kycBucket, Map<Scenario, Integer> mix, List<Integer> concurrencySteps,
+                           Duration warmup, Duration stepDuration) {
+
+        /**
+         * Mélange et paliers réglables par {@code loadtest.mix} (ex. {@code LOGIN=10,LOAN_DETAIL=50,...}),
+         * {@code loadtest.steps} (ex. {@code 8,32,64}), {@code loadtest.warmup} et {@code loadtest.step-duration}.
+         */
+        public static Settings of(URI baseUrl, List<Subscriber> subscribers, String adminToken,
+                                  String webhookSecret, String kycBucket) {
+            Map<Scenario, Integer> mix = new EnumMap<>(Scenario.class);
+            for (String entry : System.getProperty("loadtest.mix",
+                    "LOGIN=10,LOAN_DETAIL=50,PAYMENT_INITIATION=15,HUB2_WEBHOOK=20,KYC=5").split(",")) {
+                String[] parts = entry.trim().split("=");
+                mix.put(Scenario.valueOf(parts[0].trim()), Integer.parseInt(parts[1].trim()));
+            }
+            List<Integer> steps = Arrays.stream(System.getProperty("loadtest.steps", "8,32,64,128").split(","))
+                    .map(String::trim).map(Integer::parseInt).toList();
+            return new Settings(baseUrl, subscribers, adminToken, webhookSecret, kycBucket, mix, steps,
+                    Duration.parse(System.getProperty("loadtest.warmup", "PT15S")),
+                    Duration.parse(System.getProperty("loadtest.step-duration", "PT60S")));
+        }
+    }
+
+    public record StepReport(int concurrency, double seconds, List<EndpointStats.Summary> endpoints) {
+
+        public double throughput() {
+            return endpoints.stream().mapToDouble(EndpointStats.Summary::throughput).sum();
+        }
+    }
+
+    private final Settings settings;
+    private final HttpClient http;
+    private final Scenario[] weighted;
+    private final ConcurrentLinkedDeque<String> recentIntents = new ConcurrentLinkedDeque<>();
+    private final AtomicLong intentCount = new AtomicLong();
+
+    public LoadDriver(Settings settings) {
+        this.settings = settings;
+        this.http = HttpClient.newBuilder()
+                .connectTimeout(Duration.ofSeconds(5))
+                .executor(Executors.newVirtualThreadPerTaskExecutor())
+                .build();
+        List<Scenario> table = new ArrayList<>();
+        settings.mix().forEach((scenario, weight) -> {
+            for (int i = 0; i < weight; i++) {
+                table.add(scenario);
+            }
+        });
+        this.weighted = table.toArray(Scenario[]::new);
+    }
+
+    public List<StepReport> run() throws InterruptedException {
+        List<StepReport> reports = new ArrayList<>();
+        for (int concurrency : settings.concurrencySteps()) {
+            StepReport report = runStep(concurrency);
+            reports.add(report);
+            print(report);
+        }
+        return reports;
+    }
+
+    private StepReport runStep(int concurrency) throws InterruptedException {
+        LOG.infof("Palier de charge : %d utilisateurs simultanés", concurrency);
+        Map<String, EndpointStats> stats = new ConcurrentHashMap<>();
+        long measureFrom = System.nanoTime() + settings.warmup().toNanos();
+        long end = measureFrom + settings.stepDuration().toNanos();
+
+        try (ExecutorService users = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < concurrency; i++) {
+                Subscriber subscriber = settings.subscribers().get(i % settings.subscribers().size());
+                users.submit(() -> new VirtualUser(subscriber, stats, measureFrom).loop(end));
+            }
+        }
+
+        double seconds = settings.stepDuration().toMillis() / 1000.0;
+        List<EndpointStats.Summary> summaries = stats.entrySet().stream()
+                .map(e -> e.getValue().summarize(e.getKey(), seconds))
+                .sorted(Comparator.comparing(EndpointStats.Summary::endpoint))
+                .toList();
+        return new StepReport(concurrency, seconds, summaries);
+    }
+
+    private final class VirtualUser {
+        private final Subscriber subscriber;
+        private final Map<String, EndpointStats> stats;
+        private final long measureFrom;
+        private String token;
+
+        VirtualUser(Subscriber subscriber, Map<String, EndpointStats> stats, long measureFrom) {
+            this.subscriber = subscriber;
+            this.stats = stats;
+            this.measureFrom = measureFrom;
+        }
+
+        void loop(long end) {
+            while (System.nanoTime() < end) {
+                Scenario scenario = weighted[ThreadLocalRandom.current().nextInt(weighted.length)];
+                try {
+                    switch (scenario) {
+                        case LOGIN -> login();
+                        case LOAN_DETAIL -> loanDetail();
+                        case PAYMENT_INITIATION -> initiatePayment();
+                        case HUB2_WEBHOOK -> webhook();
+                        case KYC -> kyc();
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+
+        private void login() throws InterruptedException {
+            JsonObject body = new JsonObject().put("phone", subscriber.phone()).put("password", subscriber.password());
+            JsonObject data = call("POST /auth/lead/login", post("/auth/lead/login", body.encode(), null));
+            if (data != null) {
+                token = data.getString("token");
+            }
+        }
+
+        private void loanDetail() throws InterruptedException {
+            if (ensureToken()) {
+                call("GET /loans-v2/{loanId}", get("/loans-v2/" + subscriber.loanId(), token));
+            }
+        }
+
+        private void initiatePayment() throws InterruptedException {
+            if (!ensureToken()) {
+                return;
+            }
+            JsonObject body = new JsonObject()
+                    .put("loanId", subscriber.loanId().toString())
+                    .put("leadId", subscriber.leadId().toString())
+                    .put("amount", 75000)
+                    .put("provider", "orange")
+                    .put("phoneNumber", subscriber.phone());
+            JsonObject data = call("POST /loans-v2/{loanId}/mobile-money-payments",
+                    post("/loans-v2/" + subscriber.loanId() + "/mobile-money-payments", body.encode(), token));
+            if (data != null && data.getString("paymentIntentId") != null) {
+                recentIntents.addFirst(data.getString("paymentIntentId"));
+                if (intentCount.incrementAndGet() > RECENT_INTENTS) {
+                    recentIntents.pollLast();
+                    intentCount.decrementAndGet();
+                }
+            }
+        }
+
+        // Rejeux HUB2 d'intents connus (livraisons multiples) ou événements d'intents inconnus
+        private void webhook() throws InterruptedException {
+            String intentId = Optional.ofNullable(recentIntents.peekFirst())
+                    .orElse("pi_" + UUID.randomUUID().toString().replace("-", ""));
+            String body = Hub2Stub.paymentEvent(intentId, true);
+            HttpRequest request = HttpRequest.newBuilder(settings.baseUrl().resolve("/webhooks/hub2/payment"))
+                    .timeout(REQUEST_TIMEOUT)
+                    .header("Content-Type", "application/json")
+                    .header("Hub2-Signature", Hub2Stub.sign(body, settings.webhookSecret()))
+                    .POST(HttpRequest.BodyPublishers.ofString(body))
+                    .build();
+            call("POST /webhooks/hub2/payment", request);
+        }
+
+        private void kyc() throws InterruptedException {
+            JsonObject body = new JsonObject()
+                    .put("leadId", subscriber.leadId().toString())
+                    .put("bucketName", settings.kycBucket())
+                    .put("frontImageName", CNI_FRONT)
+                    .put("backImageName", CNI_BACK);
+            JsonObject job = call("POST /documents/verify", post("/documents/verify", body.encode(), settings.adminToken()));
+            if (job != null && job.getString("jobId") != null) {
+                call("GET /documents/verify/{jobId}", get("/documents/verify/" + job.getString("jobId"), settings.adminToken()));
+            }
+        }
+
+        private boolean ensureToken() throws InterruptedException {
+            if (token == null) {
+                login();
+            }
+            return token != null;
+        }
+
+        /**
+         * Exécute la requête, enregistre sa latence après l'échauffement et renvoie le champ
+         * {@code data} de la réponse en cas de succès.
+         */
+        private JsonObject call(String endpoint, HttpRequest request) throws InterruptedException {
+            long start = System.nanoTime();
+            int status;
+            String body;
+            String error = null;
+            try {
+                HttpResponse<String> response = http.send(request, HttpResponse.BodyHandlers.ofString());
+                status = response.statusCode();
+                body = response.body();
+            } catch (IOException e) {
+                status = -1;
+                body = null;
+                error = e.getClass().getSimpleName() + ": " + e.getMessage();
+            }
+            long elapsed = System.nanoTime() - start;
+            boolean success = status >= 200 && status < 300;
+            if (start >= measureFrom) {
+                stats.computeIfAbsent(endpoint, key -> new EndpointStats())
+                        .record(elapsed, success, error != null ? error : "HTTP " + status);
+            }
+            if (status == 401 && request.headers().firstValue("Authorization").isPresent()) {
+                token = null;
+            }
+            if (!success || body == null || body.isBlank()) {
+                return null;
+            }
+            try {
+                return new JsonObject(body).getJsonObject("data");
+            } catch (RuntimeException e) {
+                return null;
+            }
+        }
+    }
+
+    private HttpRequest get(String path, String bearer) {
+        HttpRequest.Builder builder = HttpRequest.newBuilder(settings.baseUrl().resolve(path))
+                .timeout(REQUEST_TIMEOUT)
+                .GET();
+        if (bearer != null) {
+            builder.header("Authorization", "Bearer " + bearer);
+        }
+        return builder.build();
+    }
+
+    private HttpRequest post(String path, String json, String bearer) {
+        HttpRequest.Builder builder = HttpRequest.newBuilder(settings.baseUrl().resolve(path))
+                .timeout(REQUEST_TIMEOUT)
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(json));
+        if (bearer != null) {
+            builder.header("Authorization", "Bearer " + bearer);
+        }
+        return builder.build();
+    }
+
+    static void print(StepReport report) {
+        StringBuilder out = new StringBuilder(String.format("%n=== %d utilisateurs simultanés - %.1f req/s sur %.0f s ===%n",
+                report.concurrency(), report.throughput(), report.seconds()));
+        out.append(String.format("%-48s %9s %8s %9s %10s %10s %10s%n",
+                "Point d'entrée", "Requêtes", "Erreurs", "Req/s", "p50 (ms)", "p99 (ms)", "Max (ms)"));
+        for (EndpointStats.Summary s : report.endpoints()) {
+            out.append(String.format("%-48s %9d %8d %9.1f %10.1f %10.1f %10.1f%n",
+                    s.endpoint(), s.requests(), s.errors(), s.throughput(), s.p50Ms(), s.p99Ms(), s.maxMs()));
+            if (s.errors() > 0) {
+                out.append(String.format("    dernière erreur: %s%n", s.lastError()));
+            }
+        }
+        System.out.print(out);
+    }
+
+    /**
+     * Charge un nœud déjà déployé : {@code -Dloadtest.base-url}, {@code -Dloadtest.subscribers}
+     * (fichier CSV {@code phone,password,leadId,loanId}), {@code -Dloadtest.admin-token},
+     * {@code -Dloadtest.webhook-secret} et {@code -Dloadtest.kyc-bucket}.
+     */
+    public static void main(String[] args) throws Exception {
+        List<Subscriber> subscribers = new ArrayList<>();
+        for (String line : Files.readAllLines(Path.of(System.getProperty("loadtest.subscribers", "subscribers.csv")))) {
+            if (line.isBlank() || line.startsWith("#")) {
+                continue;
+            }
+            String[] fields = line.split(",");
+            subscribers.add(new Subscriber(fields[0].trim(), fields[1].trim(),
+                    UUID.fromString(fields[2].trim()), UUID.fromString(fields[3].trim())));
+        }
+        Settings settings = Settings.of(
+                URI.create(System.getProperty("loadtest.base-url", "http://localhost:8080")),
+                subscribers,
+                System.getProperty("loadtest.admin-token"),
+                System.getProperty("loadtest.webhook-secret"),
+                System.getProperty("loadtest.kyc-bucket", "flotkyb"));
+        new LoadDriver(settings).run();
+    }
+}
@@ -0,0 +1,52 @@
+package africa.flot.loadtest;
+
+import io.quarkus.test.junit.QuarkusTestProfile;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Profil « loadtest » : fournisseurs externes remplacés par les simulateurs locaux, base, Redis
+ * et MinIO fournis par les Dev Services. Aucun appel ne sort de la machine.
+ */
+public class LoadTestProfile implements QuarkusTestProfile {
+
+    public static final String JWT_ISSUER = "https://flot.africa/loadtest";
+    public static final String BUCKET = "loadtest";
+
+    @Override
+    public String getConfigProfile() {
+        return "loadtest";
+    }
+
+    @Override
+    public List<TestResourceEntry> testResources() {
+        return List.of(new TestResourceEntry(ProviderStubsResource.class));
+    }
+
+    @Override
+    public Map<String, String> getConfigOverrides() {
+        return Map.ofEntries(
+                Map.entry("quarkus.hibernate-orm.packages", "africa.flot.domain.model"),
+                Map.entry("quarkus.hibernate-orm.database.generation", "drop-and-create"),
+                Map.entry("quarkus.datasource.reactive.max-size", System.getProperty("loadtest.db-pool-size", "20")),
+                Map.entry("quarkus.minio.bucket-name", BUCKET),
+                Map.entry("mp.jwt.verify.issuer", JWT_ISSUER),
+                Map.entry("version", "loadtest"),
+                Map.entry("hub2.api-key", "loadtest"),
+                Map.entry("hub2.merchant-id", "loadtest"),
+                Map.entry("hub2.environment", "sandbox"),
+                Map.entry("quarkus.jetfy.api.token", "loadtest"),
+                Map.entry("quarkus.jetfy.api.sender-id", "FLOT"),
+                Map.entry("fineract.api.username", "loadtest"),
+                Map.entry("fineract.api.password", "loadtest"),
+                Map.entry("quarkus.fineract.api.username", "loadtest"),
+                Map.entry("quarkus.fineract.api.password", "loadtest"),
+                Map.entry("quarkus.rest-client.fineract-api.username", "loadtest"),
+                Map.entry("quarkus.rest-client.fineract-api.password", "loadtest"),
+                Map.entry("quarkus.rest-client.danaya-api.api-key", "loadtest"),
+                Map.entry("quarkus.rest-client.danaya-api.api-secret", "loadtest"),
+                // Journaux de production (fichiers, niveau INFO) : le coût de journalisation fait partie de la mesure
+                Map.entry("quarkus.log.level", "INFO"));
+    }
+}
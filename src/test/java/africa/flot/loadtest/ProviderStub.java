@@ -0,0 +1,92 @@
+package africa.flot.loadtest;
+
+import io.vertx.core.Future;
+import io.vertx.core.Vertx;
+import io.vertx.core.http.HttpServer;
+import io.vertx.core.json.JsonObject;
+import io.vertx.ext.web.Router;
+import io.vertx.ext.web.RoutingContext;
+import io.vertx.ext.web.handler.BodyHandler;
+import org.jboss.logging.Logger;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Serveur HTTP local jouant le rôle d'un fournisseur externe. Chaque réponse est retardée selon
+ * le {@link LatencyModel} du fournisseur et peut être remplacée par une erreur 503.
+ */
+abstract class ProviderStub {
+
+    private static final Logger LOG = Logger.getLogger(ProviderStub.class);
+
+    protected final Vertx vertx;
+    protected final LatencyModel latency;
+    private final String name;
+    private final AtomicLong requests = new AtomicLong();
+    private final AtomicLong injectedErrors = new AtomicLong();
+    private HttpServer server;
+
+    protected ProviderStub(Vertx vertx, String name, LatencyModel latency) {
+        this.vertx = vertx;
+        this.name = name;
+        this.latency = latency;
+    }
+
+    protected abstract void routes(Router router);
+
+    Future<Integer> start() {
+        Router router = Router.router(vertx);
+        // Fichiers envoyés en multipart (Danaya) lus puis ignorés, sans écriture sur disque
+        router.route().handler(BodyHandler.create(false));
+        routes(router);
+        return vertx.createHttpServer()
+                .requestHandler(router)
+                .listen(0)
+                .map(started -> {
+                    server = started;
+                    LOG.infof("Simulateur %s démarré sur le port %d (%s)", name, started.actualPort(), latency);
+                    return started.actualPort();
+                });
+    }
+
+    Future<Void> stop() {
+        LOG.infof("Simulateur %s arrêté - %d requêtes, %d erreurs injectées", name, requests.get(), injectedErrors.get());
+        return server != null ? server.close() : Future.succeededFuture();
+    }
+
+    String url() {
+        return "http://localhost:" + server.actualPort();
+    }
+
+    /**
+     * Répond après la latence simulée, ou par une 503 selon le taux d'erreur.
+     */
+    protected void respond(RoutingContext ctx, int status, JsonObject body) {
+        requests.incrementAndGet();
+        boolean fail = latency.sampleError();
+        if (fail) {
+            injectedErrors.incrementAndGet();
+        }
+        long delay = latency.sampleDelayMs();
+        Runnable send = () -> {
+            if (fail) {
+                ctx.response().setStatusCode(503)
+                        .putHeader("Content-Type", "application/json")
+                        .end(new JsonObject().put("status", "error").put("message", name + " indisponible (simulé)").encode());
+            } else {
+                ctx.response().setStatusCode(status)
+                        .putHeader("Content-Type", "application/json")
+                        .end(body.encode());
+            }
+        };
+        if (delay > 0) {
+            vertx.setTimer(delay, id -> send.run());
+        } else {
+            send.run();
+        }
+    }
+
+    protected void respond(RoutingContext ctx, JsonObject body) {
+        respond(ctx, 200, body);
+    }
+}
@@ -0,0 +1,106 @@
+package africa.flot.loadtest;
+
+import io.quarkus.test.common.QuarkusTestResourceLifecycleManager;
+import io.vertx.core.Future;
+import io.vertx.core.Vertx;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.GeneralSecurityException;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Démarre les simulateurs Fineract, HUB2, Jetfy et Danaya sur des ports libres et redirige les
+ * clients REST de l'API vers eux. Génère aussi une paire de clés JWT jetable pour le test.
+ */
+public class ProviderStubsResource implements QuarkusTestResourceLifecycleManager {
+
+    public static final String WEBHOOK_SECRET = "loadtest-webhook-secret";
+
+    private Vertx vertx;
+    private List<ProviderStub> stubs;
+    private Path keyDirectory;
+
+    @Override
+    public Map<String, String> start() {
+        vertx = Vertx.vertx();
+        String appUrl = System.getProperty("loadtest.app-url", "http://localhost:8081");
+
+        FineractStub fineract = new FineractStub(vertx);
+        Hub2Stub hub2 = new Hub2Stub(vertx, appUrl + "/webhooks/hub2/payment", WEBHOOK_SECRET);
+        JetfyStub jetfy = new JetfyStub(vertx);
+        DanayaStub danaya = new DanayaStub(vertx);
+        stubs = List.of(fineract, hub2, jetfy, danaya);
+        await(Future.all(stubs.stream().map(ProviderStub::start).toList()));
+
+        Path[] keys = generateJwtKeys();
+        return Map.ofEntries(
+                Map.entry("quarkus.rest-client.fineract-api.url", fineract.url()),
+                Map.entry("quarkus.fineract.api.url", fineract.url()),
+                Map.entry("fineract.api.url", fineract.url()),
+                Map.entry("quarkus.rest-client.\"africa.flot.infrastructure.client.Hub2ApiClient\".url", hub2.url()),
+                Map.entry("quarkus.rest-client.hub2-api.url", hub2.url()),
+                Map.entry("hub2.webhook-secret", WEBHOOK_SECRET),
+                Map.entry("quarkus.rest-client.jetfy-api.url", jetfy.url()),
+                Map.entry("quarkus.rest-client.danaya-api.url", danaya.url()),
+                Map.entry("mp.jwt.verify.publickey.location", keys[0].toUri().toString()),
+                Map.entry("smallrye.jwt.sign.key.location", keys[1].toUri().toString()));
+    }
+
+    @Override
+    public void stop() {
+        if (vertx != null) {
+            await(Future.all(stubs.stream().map(ProviderStub::stop).toList()));
+            await(vertx.close());
+        }
+        if (keyDirectory != null) {
+            try (var files = Files.list(keyDirectory)) {
+                for (Path file : files.toList()) {
+                    Files.deleteIfExists(file);
+                }
+                Files.deleteIfExists(keyDirectory);
+            } catch (IOException e) {
+                // Fichiers temporaires : nettoyés par le système à défaut
+            }
+        }
+    }
+
+    private Path[] generateJwtKeys() {
+        try {
+            KeyPairGenerator generator = KeyPairGenerator.getInstance("RSA");
+            generator.initialize(2048);
+            KeyPair pair = generator.generateKeyPair();
+            keyDirectory = Files.createTempDirectory("flot-loadtest-jwt");
+            Path publicKey = keyDirectory.resolve("publicKey.pem");
+            Path privateKey = keyDirectory.resolve("privateKey.pem");
+            Files.writeString(publicKey, pem("PUBLIC KEY", pair.getPublic().getEncoded()));
+            Files.writeString(privateKey, pem("PRIVATE KEY", pair.getPrivate().getEncoded()));
+            return new Path[]{publicKey, privateKey};
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(e);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static String pem(String type, byte[] der) {
+        return "-----BEGIN " + type + "-----\n"
+                + Base64.getMimeEncoder(64, "\n".getBytes()).encodeToString(der)
+                + "\n-----END " + type + "-----\n";
+    }
+
+    private static <T> T await(Future<T> future) {
+        try {
+            return future.toCompletionStage().toCompletableFuture().get(30, TimeUnit.SECONDS);
+        } catch (Exception e) {
+            throw new IllegalStateException("Simulateurs de fournisseurs indisponibles", e);
+        }
+    }
+}